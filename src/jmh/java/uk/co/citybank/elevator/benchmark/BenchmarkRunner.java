@@ -0,0 +1,35 @@
+package uk.co.citybank.elevator.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the Benchmarks once for each of the requested thread counts
+ * 
+ * java -jar target/benchmarks.jar [threadCounts] [benchmarkRegex]
+ * For Example : java -jar target/benchmarks.jar 1,4,8 UserRequestQueue
+ * 
+ * The results of each run are written in benchmark-{threads}-threads.json so that they can be compared between releases.
+ * @author anuragtripathi
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		final String threadCounts = args.length > 0 ? args[0] : "1,2,4";
+		final String include = args.length > 1 ? args[1] : BenchmarkRunner.class.getPackage().getName();
+
+		for (String threads : threadCounts.split(",")) {
+			final ChainedOptionsBuilder options = new OptionsBuilder()
+					.include(include)
+					.exclude(BenchmarkRunner.class.getSimpleName())
+					.threads(Integer.parseInt(threads.trim()))
+					.resultFormat(ResultFormatType.JSON)
+					.result("benchmark-" + threads.trim() + "-threads.json");
+			new Runner(options.build()).run();
+		}
+	}
+}
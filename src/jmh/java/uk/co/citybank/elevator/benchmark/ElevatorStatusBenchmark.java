@@ -0,0 +1,93 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorSnapshot;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * Benchmarks of the @ElevatorStatus checks done by the Elevator on every floor, and of the snapshot read by monitoring.
+ * Each thread has its own Elevator, as in the running system, all of them sharing the same queue.
+ * The Elevator floors are bounded by the building's floors, requests above it only add to the queue depth.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorStatusBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class QueueState {
+
+		@Param({ "10", "50", "150" })
+		public int floors;
+
+		@Param({ "10", "1000" })
+		public int queueDepth;
+
+		UserRequestQueue queue;
+
+		@Setup(Level.Trial)
+		public void fillQueue() {
+			queue = new UserRequestQueue(0, floors);
+			for (UserRequest request : RequestFixture.randomRequests(queueDepth, floors, 42)) {
+				queue.addUserRequest(request);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class CarState {
+
+		ElevatorStatus status;
+
+		@Setup(Level.Trial)
+		public void createElevator(final QueueState queueState) {
+			// The floors to stop are sized from the floors of the queue, the car stops anywhere in the building
+			final int middleFloor = queueState.floors / 2;
+			status = new ElevatorStatus("Benchmark", middleFloor, ElevatorDirection.UP, queueState.queue);
+			for (UserRequest request : RequestFixture.randomRequests(8, queueState.floors, Thread.currentThread().getId())) {
+				status.addRequestToWorkOn(request);
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean isElevatorNeedsToStopAtCurrentFloor(final CarState carState) {
+		return carState.status.isElevatorNeedsToStopAtCurrentFloor();
+	}
+
+	@Benchmark
+	public boolean isElevatorNeedsToGoUp(final CarState carState) {
+		return carState.status.isElevatorNeedsToGoUp();
+	}
+
+	@Benchmark
+	public boolean isElevatorNeedsToGoDown(final CarState carState) {
+		return carState.status.isElevatorNeedsToGoDown();
+	}
+
+	@Benchmark
+	public ElevatorSnapshot snapshot(final CarState carState) {
+		return carState.status.snapshot();
+	}
+}
@@ -0,0 +1,97 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.journal.EventJournal;
+import uk.co.citybank.elevator.journal.EventType;
+import uk.co.citybank.elevator.utility.Constants;
+import uk.co.citybank.elevator.utility.FloorBitSet;
+
+/**
+ * Benchmarks of recording a move of an Elevator : a record appended to the @EventJournal
+ * against the debug message the Elevators used to send to the logback file appender.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventJournalBenchmark {
+
+	final static Logger logger = LoggerFactory.getLogger(EventJournalBenchmark.class);
+
+	@State(Scope.Benchmark)
+	public static class JournalState {
+
+		Path file;
+		EventJournal journal;
+		int elevatorId;
+
+		@Setup(Level.Trial)
+		public void openJournal() throws IOException {
+			file = Files.createTempFile("ElevatorJournal", ".bin");
+			journal = EventJournal.open(file, Constants.JOURNAL_CAPACITY);
+			elevatorId = journal.register("Benchmark", System.currentTimeMillis());
+		}
+
+		@TearDown(Level.Trial)
+		public void closeJournal() throws IOException {
+			journal.close();
+			System.out.println("Dropped records : " + journal.getDroppedEvents());
+			Files.delete(file);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class FloorState {
+
+		final FloorBitSet floorsToStop = new FloorBitSet(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+		int floor;
+
+		@Setup(Level.Trial)
+		public void addFloors() {
+			floorsToStop.add(3);
+			floorsToStop.add(7);
+		}
+
+		int nextFloor() {
+			floor = floor == Constants.HIGHEST_FLOORS ? Constants.LOWEST_FLOOR : floor + 1;
+			return floor;
+		}
+	}
+
+	@Benchmark
+	public boolean journalMove(final JournalState journalState, final FloorState floorState) {
+		final int floor = floorState.nextFloor();
+		return journalState.journal.append(System.currentTimeMillis(), journalState.elevatorId, EventType.MOVE, floor - 1, floor,
+				floorState.floorsToStop.size(), 0);
+	}
+
+	@Benchmark
+	public void debugLogMove(final FloorState floorState) {
+		final int floor = floorState.nextFloor();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Benchmark- Moved from Floor " + (floor - 1) + " to Floor " + floor + " - Floors To Stop :" + floorState.floorsToStop);
+		}
+	}
+}
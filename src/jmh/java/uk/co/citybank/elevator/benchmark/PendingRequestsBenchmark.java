@@ -0,0 +1,145 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * Benchmarks of the heap taken by the pending requests of a @UserRequestQueue.
+ * retainedHeap reports the heap still used per pending request once the queue is full, measured after a full collection.
+ * Run with the gc profiler (-prof gc), gc.alloc.rate.norm is the heap allocated per request :
+ * fillQueue while filling a queue, submitAndPick for a request going through a queue.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PendingRequestsBenchmark {
+
+	/** Requests pending in the queue, a multiple of the floors so every floor has the same number of waiting users */
+	private static final int DEPTH = 10000;
+
+	private static final int FLOORS = 100;
+
+	@State(Scope.Thread)
+	public static class Floors {
+
+		int[] from;
+		int[] to;
+
+		@Setup(Level.Trial)
+		public void createFloors() {
+			from = new int[DEPTH];
+			to = new int[DEPTH];
+			final UserRequest[] requests = RequestFixture.randomRequests(DEPTH, FLOORS, 42);
+			for (int i = 0; i < DEPTH; i++) {
+				from[i] = requests[i].getCurrentFloor();
+				to[i] = requests[i].getFloorToGo();
+			}
+		}
+	}
+
+	/** Floors of the queue whose heap is measured, every trip between two of them is pending once */
+	private static final int FOOTPRINT_FLOORS = 500;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+
+		/** Heap used per pending request, in bytes, the events being summed over the iterations there is a single one */
+		public long retainedBytesPerRequest;
+	}
+
+	@State(Scope.Thread)
+	public static class Queue {
+
+		@Param({ "0", "1000" })
+		public int queueDepth;
+
+		UserRequestQueue queue;
+		int next;
+
+		@Setup(Level.Trial)
+		public void fillQueue() {
+			queue = new UserRequestQueue(0, FLOORS);
+			for (UserRequest request : RequestFixture.randomRequests(queueDepth, FLOORS, 7)) {
+				queue.addUserRequest(request);
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DEPTH)
+	public UserRequestQueue fillQueue(final Floors floors) {
+		final UserRequestQueue queue = new UserRequestQueue(0, FLOORS);
+		for (int i = 0; i < DEPTH; i++) {
+			final UserRequest request = new UserRequest(floors.from[i], floors.to[i],
+					floors.from[i] < floors.to[i] ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+			request.markSubmitted(i);
+			queue.addUserRequest(request);
+		}
+		return queue;
+	}
+
+	@Benchmark
+	public UserRequest submitAndPick(final Floors floors, final Queue queue) throws InterruptedException {
+		final int i = queue.next;
+		queue.next = (i + 1) % DEPTH;
+		final UserRequest request = new UserRequest(floors.from[i], floors.to[i],
+				floors.from[i] < floors.to[i] ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+		request.markSubmitted(i);
+		queue.queue.addUserRequest(request);
+		return queue.queue.pickRequest(floors.from[i], request.getDirectionToGo());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 1)
+	public UserRequestQueue retainedHeap(final Footprint footprint) {
+		final long before = usedHeapAfterCollection();
+		final UserRequestQueue queue = new UserRequestQueue(0, FOOTPRINT_FLOORS);
+		long requests = 0;
+		for (int from = 0; from <= FOOTPRINT_FLOORS; from++) {
+			for (int to = 0; to <= FOOTPRINT_FLOORS; to++) {
+				if (from != to) {
+					final UserRequest request = new UserRequest(from, to, from < to ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+					request.markSubmitted(requests);
+					queue.addUserRequest(request);
+					requests++;
+				}
+			}
+		}
+		footprint.retainedBytesPerRequest = (usedHeapAfterCollection() - before) / requests;
+		return queue;
+	}
+
+	private static long usedHeapAfterCollection() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,38 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.util.Random;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Builds repeatable User Requests for the Benchmarks
+ * @author anuragtripathi
+ *
+ */
+final class RequestFixture {
+
+	private RequestFixture() {
+	}
+
+	/**
+	 * Creates valid random requests between floor 0 and the given highest floor
+	 * @param count Number of Requests
+	 * @param floors Highest Floor
+	 * @param seed Random Seed so every run gets the same requests
+	 * @return Requests
+	 */
+	static UserRequest[] randomRequests(int count, int floors, long seed) {
+		final Random random = new Random(seed);
+		final UserRequest[] requests = new UserRequest[count];
+		for (int i = 0; i < count; i++) {
+			int from = random.nextInt(floors + 1);
+			int to = random.nextInt(floors + 1);
+			while (to == from) {
+				to = random.nextInt(floors + 1);
+			}
+			requests[i] = new UserRequest(from, to, from < to ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+		}
+		return requests;
+	}
+}
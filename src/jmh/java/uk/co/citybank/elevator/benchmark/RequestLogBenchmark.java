@@ -0,0 +1,143 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.citybank.elevator.journal.RequestLog;
+import uk.co.citybank.elevator.journal.RequestLogState;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Benchmarks of the @RequestLog : the time to recover the outstanding requests from a large log after a crash,
+ * and the time to log a request assigned to an Elevator, without and with waiting for it to be on the disk.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestLogBenchmark {
+
+	/** Requests outstanding in the log, the others have been served */
+	private static final int OUTSTANDING_REQUESTS = 1000;
+
+	@State(Scope.Benchmark)
+	public static class LargeLogState {
+
+		/** Requests served in the log, three records each */
+		@Param({ "1000000" })
+		int servedRequests;
+
+		Path directory;
+
+		@Setup(Level.Trial)
+		public void writeLog() throws IOException {
+			directory = Files.createTempDirectory("ElevatorRequestLog");
+			// Never compacted, so the whole history is replayed
+			final RequestLog log = RequestLog.open(directory, Long.MAX_VALUE);
+			for (int i = 0; i < OUTSTANDING_REQUESTS; i++) {
+				log.assigned(i % 8, request(1 + i % 40, 0, ElevatorDirection.DOWN, i));
+			}
+			for (int i = 0; i < servedRequests; i++) {
+				final int car = i % 8;
+				final UserRequest request = request(0, 1 + i % 40, ElevatorDirection.UP, i);
+				log.assigned(car, request);
+				request.markPickedUp(i + 1);
+				log.pickedUp(car, request);
+				log.dropped(car, request.getFloorToGo(), i + 2);
+			}
+			log.close();
+		}
+
+		@TearDown(Level.Trial)
+		public void deleteLog() throws IOException {
+			deleteDirectory(directory);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class OpenLogState {
+
+		Path directory;
+		RequestLog log;
+		int next;
+
+		@Setup(Level.Trial)
+		public void openLog() throws IOException {
+			directory = Files.createTempDirectory("ElevatorRequestLog");
+			log = RequestLog.open(directory);
+		}
+
+		@TearDown(Level.Trial)
+		public void closeLog() throws IOException {
+			log.close();
+			deleteDirectory(directory);
+		}
+
+		UserRequest nextRequest() {
+			next++;
+			return request(next % 40, 40, ElevatorDirection.UP, next);
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public RequestLogState recover(final LargeLogState state) throws IOException {
+		final RequestLogState recovered = RequestLog.recover(state.directory);
+		if (recovered.getNumberOfWaiting() != OUTSTANDING_REQUESTS) {
+			throw new IllegalStateException("Recovered " + recovered.getNumberOfWaiting() + " requests instead of " + OUTSTANDING_REQUESTS);
+		}
+		return recovered;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void assign(final OpenLogState state) {
+		final UserRequest request = state.nextRequest();
+		state.log.assigned(0, request);
+		// Served at once, so the log stays the same size
+		state.log.pickedUp(0, request);
+		state.log.dropped(0, request.getFloorToGo(), request.getSubmittedAt());
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void assignAndSync(final OpenLogState state) throws IOException {
+		assign(state);
+		state.log.sync();
+	}
+
+	private static UserRequest request(int currentFloor, int floorToGo, final ElevatorDirection direction, long submittedAt) {
+		final UserRequest request = new UserRequest(currentFloor, floorToGo, direction);
+		request.markSubmitted(submittedAt);
+		return request;
+	}
+
+	private static void deleteDirectory(final Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
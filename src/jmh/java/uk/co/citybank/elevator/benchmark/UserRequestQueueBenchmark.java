@@ -0,0 +1,143 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * Benchmarks of the @UserRequestQueue hot paths.
+ * The queue is kept at the requested depth, every benchmark which takes requests out puts the same number back.
+ * Adding is measured on its own in batches, the queue being filled again to the requested depth before every batch.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRequestQueueBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class QueueState {
+
+		@Param({ "10", "50", "150" })
+		public int floors;
+
+		@Param({ "10", "1000" })
+		public int queueDepth;
+
+		UserRequestQueue queue;
+
+		@Setup(Level.Trial)
+		public void fillQueue() {
+			queue = new UserRequestQueue(0, floors);
+			for (UserRequest request : RequestFixture.randomRequests(queueDepth, floors, 42)) {
+				queue.addUserRequest(request);
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class RefilledQueueState {
+
+		@Param({ "10", "50", "150" })
+		public int floors;
+
+		@Param({ "10", "1000" })
+		public int queueDepth;
+
+		UserRequestQueue queue;
+
+		@Setup(Level.Iteration)
+		public void fillQueue() {
+			queue = new UserRequestQueue(0, floors);
+			for (UserRequest request : RequestFixture.randomRequests(queueDepth, floors, 42)) {
+				queue.addUserRequest(request);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		UserRequest[] requests;
+		int next;
+
+		@Param({ "10", "50", "150" })
+		public int floors;
+
+		@Setup(Level.Trial)
+		public void createRequests() {
+			requests = RequestFixture.randomRequests(1024, floors, Thread.currentThread().getId());
+		}
+
+		UserRequest nextRequest() {
+			final UserRequest request = requests[next];
+			next = (next + 1) & (requests.length - 1);
+			return request;
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 5, batchSize = 1000)
+	@Measurement(iterations = 20, batchSize = 1000)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void addUserRequest(final RefilledQueueState queueState, final ThreadState threadState) {
+		queueState.queue.addUserRequest(threadState.nextRequest());
+	}
+
+	@Benchmark
+	public UserRequest pickRequest(final QueueState queueState, final ThreadState threadState) throws InterruptedException {
+		final UserRequest request = threadState.nextRequest();
+		final UserRequest picked = queueState.queue.pickRequest(request.getCurrentFloor(), request.getDirectionToGo());
+		queueState.queue.addUserRequest(picked);
+		return picked;
+	}
+
+	@Benchmark
+	public int pickUsersWantToGoUpWaitingAtCurrentFloor(final QueueState queueState, final ThreadState threadState) {
+		final UserRequest request = threadState.nextRequest();
+		final List<UserRequest> picked = queueState.queue.pickUsersWantToGoUpWaitingAtCurrentFloor(request.getCurrentFloor());
+		for (UserRequest p : picked) {
+			queueState.queue.addUserRequest(p);
+		}
+		return picked.size();
+	}
+
+	@Benchmark
+	public int pickUsersWantToGoDownWaitingAtCurrentFloor(final QueueState queueState, final ThreadState threadState) {
+		final UserRequest request = threadState.nextRequest();
+		final List<UserRequest> picked = queueState.queue.pickUsersWantToGoDownWaitingAtCurrentFloor(request.getCurrentFloor());
+		for (UserRequest p : picked) {
+			queueState.queue.addUserRequest(p);
+		}
+		return picked.size();
+	}
+
+	@Benchmark
+	public boolean isUserWaitingAtCurrentFloor(final QueueState queueState, final ThreadState threadState) {
+		final UserRequest request = threadState.nextRequest();
+		if (request.getDirectionToGo() == ElevatorDirection.UP) {
+			return queueState.queue.isUserWillingToGoUpWaitingAtCurrentFloor(request.getCurrentFloor());
+		}
+		return queueState.queue.isRequestToGoDownPendingFromCurrentFloor(request.getCurrentFloor());
+	}
+}
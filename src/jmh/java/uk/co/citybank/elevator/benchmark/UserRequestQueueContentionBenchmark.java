@@ -0,0 +1,101 @@
+package uk.co.citybank.elevator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * Producers raising hall calls while Elevators check and pick the users waiting at the floors they are passing,
+ * all on the same @UserRequestQueue. The score of each group member shows how much the other side slows it down.
+ * @author anuragtripathi
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRequestQueueContentionBenchmark {
+
+	@State(Scope.Group)
+	public static class QueueState {
+
+		@Param({ "10", "150" })
+		public int floors;
+
+		UserRequestQueue queue;
+
+		@Setup(Level.Trial)
+		public void createQueue() {
+			queue = new UserRequestQueue(0, floors);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ProducerState {
+
+		UserRequest[] requests;
+		int next;
+
+		@Setup(Level.Trial)
+		public void createRequests(final QueueState queueState) {
+			requests = RequestFixture.randomRequests(1024, queueState.floors, Thread.currentThread().getId());
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class CarState {
+
+		int floor;
+		boolean goingUp = true;
+
+		int nextFloor(int floors) {
+			if (floor == floors) {
+				goingUp = false;
+			} else if (floor == 0) {
+				goingUp = true;
+			}
+			floor += goingUp ? 1 : -1;
+			return floor;
+		}
+	}
+
+	@Benchmark
+	@Group("hallCalls")
+	@GroupThreads(2)
+	public void raiseHallCall(final QueueState queueState, final ProducerState producerState) {
+		queueState.queue.addUserRequest(producerState.requests[producerState.next]);
+		producerState.next = (producerState.next + 1) & (producerState.requests.length - 1);
+	}
+
+	@Benchmark
+	@Group("hallCalls")
+	@GroupThreads(4)
+	public int passFloor(final QueueState queueState, final CarState carState) {
+		final int floor = carState.nextFloor(queueState.floors);
+		if (carState.goingUp) {
+			if (queueState.queue.isUserWillingToGoUpWaitingAtCurrentFloor(floor)) {
+				return queueState.queue.pickUsersWantToGoUpWaitingAtCurrentFloor(floor).size();
+			}
+		} else if (queueState.queue.isRequestToGoDownPendingFromCurrentFloor(floor)) {
+			return queueState.queue.pickUsersWantToGoDownWaitingAtCurrentFloor(floor).size();
+		}
+		return 0;
+	}
+}
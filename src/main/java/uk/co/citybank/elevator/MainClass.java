@@ -3,12 +3,22 @@ package uk.co.citybank.elevator;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 
+import uk.co.citybank.elevator.engine.ElevatorEngine;
 import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.journal.EventJournal;
+import uk.co.citybank.elevator.journal.RequestLog;
+import uk.co.citybank.elevator.manager.DispatchPolicy;
 import uk.co.citybank.elevator.manager.ElevatorManager;
 import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.server.HallCallServer;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.Constants;
 
 /**
  * Main Class to Start the Application
@@ -18,13 +28,67 @@ import uk.co.citybank.elevator.model.ElevatorDirection;
 public class MainClass {
 	 public static void main( String[] args ) throws NumberFormatException  {
 		 int elevatorsToBeStarted = 2;
-		 if(args.length ==1 && StringUtils.isNumeric(args[0])) {
+		 if(args.length >=1 && StringUtils.isNumeric(args[0])) {
 			 elevatorsToBeStarted = Integer.parseInt(args[0]);
 		 }
+		 // The second argument optionally selects the engine, THREAD_PER_ELEVATOR, VIRTUAL_THREAD_PER_ELEVATOR or EVENT_LOOP
+		 ElevatorEngine engine = ElevatorEngine.THREAD_PER_ELEVATOR;
+		 if(args.length >=2) {
+			 try {
+				 engine = ElevatorEngine.valueOf(args[1].toUpperCase());
+			 } catch (IllegalArgumentException e) {
+				 System.out.println("Unknown Engine "+args[1]+", using "+engine);
+			 }
+		 }
+		 // The fourth argument optionally selects the dispatch policy, ETA, LOOK, SCAN, NEAREST_CAR or ENERGY
+		 DispatchPolicy policy = DispatchPolicy.ETA;
+		 if(args.length >=4) {
+			 try {
+				 policy = DispatchPolicy.valueOf(args[3].toUpperCase());
+			 } catch (IllegalArgumentException e) {
+				 System.out.println("Unknown Dispatch Policy "+args[3]+", using "+policy);
+			 }
+		 }
 		 System.out.println("Number of the Elevators needs to be running :"+elevatorsToBeStarted);
 
-    	 final ElevatorManager manager = ElevatorManager.getElevatorManager();
-    	 manager.startElevators(elevatorsToBeStarted);
+    	 BuildingConfiguration building = BuildingConfiguration.DEFAULT;
+    	 try {
+    		 building = BuildingConfiguration.loadIfExists(Paths.get(Constants.BUILDING_FILE));
+    	 } catch (IOException | IllegalArgumentException e) {
+    		 System.out.println(Constants.BUILDING_FILE+" could not be loaded, using the default building : "+e.getMessage());
+    	 }
+    	 System.out.println("Building : "+building);
+
+    	 final ElevatorManager manager = new ElevatorManager(ElevatorManager.DEFAULT_BANK_NAME, building);
+    	 manager.setDispatchStrategy(policy);
+    	 EventJournal journal = null;
+    	 try {
+    		 journal = EventJournal.open(Paths.get(Constants.JOURNAL_FILE), Constants.JOURNAL_CAPACITY);
+    		 manager.setJournal(journal);
+    	 } catch (IOException e) {
+    		 System.out.println("Elevator Journal could not be opened, the elevators will run without it : "+e.getMessage());
+    	 }
+    	 RequestLog requestLog = null;
+    	 try {
+    		 requestLog = RequestLog.open(Paths.get(Constants.REQUEST_LOG_DIRECTORY));
+    		 manager.setRequestLog(requestLog);
+    	 } catch (IOException e) {
+    		 System.out.println("Request Log could not be opened, the requests will not survive a crash : "+e.getMessage());
+    	 }
+    	 manager.startElevators(elevatorsToBeStarted, engine);
+    	 System.out.println("Engine "+manager.getEngine()+", dispatched by "+manager.getDispatchStrategy()+" : "+manager.getNumberOfThreads()+" threads, "
+    			 +manager.getHeapBytesPerElevator()+" bytes of heap per Elevator");
+    	 // The third argument optionally opens a TCP port receiving the requests of the floor panels, in the format of the console
+    	 HallCallServer server = null;
+    	 if(args.length >=3 && StringUtils.isNumeric(args[2])) {
+    		 try {
+    			 server = new HallCallServer(manager, new InetSocketAddress(Integer.parseInt(args[2])), Constants.HALL_CALL_SATURATION_PER_ELEVATOR * elevatorsToBeStarted);
+    			 server.start();
+    			 System.out.println("Receiving Requests on port "+server.getPort());
+    		 } catch (IOException e) {
+    			 System.out.println("Port "+args[2]+" could not be opened, the requests are only read from the console : "+e.getMessage());
+    		 }
+    	 }
     	 
     	 InputStreamReader isr = null;
     	 BufferedReader br =null;
@@ -60,6 +124,10 @@ public class MainClass {
 	     } finally {
 	    	 manager.shutDownElevators();
 	    	 try {
+	    		 if(server!=null) { server.close(); }
+	    		 manager.awaitTermination(10, TimeUnit.SECONDS);
+	    		 if(journal!=null) { journal.close(); }
+	    		 if(requestLog!=null) { requestLog.close(); }
 		    	 if(br!=null) {  br.close(); }
 		    	 if(isr!=null) { isr.close(); }
 	    	 } catch (Exception e) { }
@@ -0,0 +1,61 @@
+package uk.co.citybank.elevator.clock;
+
+/**
+ * Source of time for the Elevators.
+ * Every place where an Elevator thread waits (moving between floors, doors open, nothing to do) goes through the clock,
+ * so the same Elevator logic can either run against the wall clock or be replayed against a virtual clock.
+ *
+ * Each thread taking part in the simulation is a party of the clock. A party is reserved with {@link #register()}
+ * by the thread launching it and the party thread then calls {@link #join(int)} before doing anything else.
+ * @author anuragtripathi
+ *
+ */
+public interface ElevatorClock {
+
+	/**
+	 * Returns the current time of this clock
+	 * @return Time in milliseconds
+	 */
+	public long currentTimeMillis();
+
+	/**
+	 * Blocks the calling party for the given time
+	 * @param millis Time in milliseconds
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public void sleep(long millis) throws InterruptedException;
+
+	/**
+	 * Reserves a party on this clock. Invoked by the thread which is going to start the party.
+	 * @return Party Id to be passed to {@link #join(int)}
+	 */
+	public int register();
+
+	/**
+	 * Binds the calling thread to a reserved party
+	 * @param partyId Party Id returned by {@link #register()}
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public void join(int partyId) throws InterruptedException;
+
+	/**
+	 * Removes the calling party from this clock
+	 */
+	public void leave();
+
+	/**
+	 * Tells the clock that the calling party is about to block on something outside of the clock (for example an empty queue)
+	 */
+	public void idle();
+
+	/**
+	 * Tells the clock that the calling party is about to wake up one of the idle parties
+	 */
+	public void wakeOne();
+
+	/**
+	 * Invoked by an idle party once it has been woken up
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public void resume() throws InterruptedException;
+}
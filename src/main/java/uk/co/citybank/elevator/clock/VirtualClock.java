@@ -0,0 +1,223 @@
+package uk.co.citybank.elevator.clock;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Discrete Event Clock. Time only moves forward when every party is either sleeping or idle,
+ * and then it jumps straight to the next wake up time, so one hour of traffic is replayed in a fraction of a second.
+ *
+ * Only one party runs at a time (the party holding the turn). Parties due at the same time are run in the order
+ * they were registered, which makes a replay deterministic regardless of how the threads are scheduled by the OS.
+ * @author anuragtripathi
+ *
+ */
+public class VirtualClock implements ElevatorClock {
+
+	/**
+	 * A thread taking part in the simulation
+	 */
+	private static final class Party implements Comparable<Party> {
+		private final int id;
+		private final Condition turn;
+		private long wakeAt;
+		private boolean granted;
+
+		private Party(int id, Condition turn) {
+			this.id = id;
+			this.turn = turn;
+		}
+
+		@Override
+		public int compareTo(Party other) {
+			if (wakeAt != other.wakeAt) {
+				return wakeAt < other.wakeAt ? -1 : 1;
+			}
+			return Integer.compare(id, other.id);
+		}
+	}
+
+	/** Main lock guarding all access */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Parties waiting for their turn ordered by wake up time and then by party id */
+	private final PriorityQueue<Party> agenda = new PriorityQueue<>();
+
+	private final ThreadLocal<Party> currentParty = new ThreadLocal<>();
+
+	private long now;
+	private int nextPartyId;
+
+	/** Parties which have been registered or woken up but have not yet asked for their turn */
+	private int pendingArrivals;
+
+	/** The party allowed to run, null if nobody is running */
+	private Party running;
+
+	/**
+	 * Creates a clock starting at time zero
+	 */
+	public VirtualClock() {
+		this(0);
+	}
+
+	/**
+	 * Creates a clock starting at the given time
+	 * @param startTimeMillis Start Time in milliseconds
+	 */
+	public VirtualClock(long startTimeMillis) {
+		this.now = startTimeMillis;
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		lock.lock();
+		try {
+			return now;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void sleep(long millis) throws InterruptedException {
+		lock.lock();
+		try {
+			final Party party = requireParty();
+			releaseTurn(party);
+			enqueue(party, now + Math.max(0, millis));
+			awaitTurn(party);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int register() {
+		lock.lock();
+		try {
+			pendingArrivals++;
+			return nextPartyId++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void join(int partyId) throws InterruptedException {
+		lock.lock();
+		try {
+			final Party party = new Party(partyId, lock.newCondition());
+			currentParty.set(party);
+			pendingArrivals--;
+			enqueue(party, now);
+			awaitTurn(party);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void leave() {
+		lock.lock();
+		try {
+			final Party party = currentParty.get();
+			if (party == null) {
+				return;
+			}
+			currentParty.remove();
+			agenda.remove(party);
+			releaseTurn(party);
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void idle() {
+		lock.lock();
+		try {
+			releaseTurn(requireParty());
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void wakeOne() {
+		lock.lock();
+		try {
+			pendingArrivals++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void resume() throws InterruptedException {
+		lock.lock();
+		try {
+			final Party party = requireParty();
+			pendingArrivals--;
+			enqueue(party, now);
+			awaitTurn(party);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Party requireParty() {
+		final Party party = currentParty.get();
+		if (party == null) {
+			throw new IllegalStateException(Thread.currentThread().getName() + " has not joined the clock");
+		}
+		return party;
+	}
+
+	private void releaseTurn(final Party party) {
+		party.granted = false;
+		if (running == party) {
+			running = null;
+		}
+	}
+
+	private void enqueue(final Party party, long wakeAt) {
+		party.wakeAt = wakeAt;
+		agenda.add(party);
+		dispatch();
+	}
+
+	private void awaitTurn(final Party party) throws InterruptedException {
+		try {
+			while (!party.granted) {
+				party.turn.await();
+			}
+		} catch (InterruptedException e) {
+			if (!agenda.remove(party)) {
+				releaseTurn(party);
+				dispatch();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Hands the turn to the next party once nobody is running and nobody else is expected to ask for a turn,
+	 * moving the time forward if the next party is due in the future
+	 */
+	private void dispatch() {
+		if (running != null || pendingArrivals > 0 || agenda.isEmpty()) {
+			return;
+		}
+		final Party next = agenda.poll();
+		if (next.wakeAt > now) {
+			now = next.wakeAt;
+		}
+		running = next;
+		next.granted = true;
+		next.turn.signal();
+	}
+}
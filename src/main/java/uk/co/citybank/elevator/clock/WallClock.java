@@ -0,0 +1,44 @@
+package uk.co.citybank.elevator.clock;
+
+/**
+ * Clock backed by the System Time. Elevators really sleep while moving or waiting on a floor.
+ * @author anuragtripathi
+ *
+ */
+public class WallClock implements ElevatorClock {
+
+	@Override
+	public long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public void sleep(long millis) throws InterruptedException {
+		Thread.sleep(millis);
+	}
+
+	@Override
+	public int register() {
+		return 0;
+	}
+
+	@Override
+	public void join(int partyId) {
+	}
+
+	@Override
+	public void leave() {
+	}
+
+	@Override
+	public void idle() {
+	}
+
+	@Override
+	public void wakeOne() {
+	}
+
+	@Override
+	public void resume() {
+	}
+}
@@ -0,0 +1,25 @@
+package uk.co.citybank.elevator.engine;
+
+/**
+ * The ways the Elevators can be run, chosen when the Elevators are started
+ * @author anuragtripathi
+ *
+ */
+public enum ElevatorEngine {
+
+	/**
+	 * Every Elevator runs its own loop on its own thread, blocking while it moves, while the doors are open and while it has nothing to do
+	 */
+	THREAD_PER_ELEVATOR,
+
+	/**
+	 * Same as {@link #THREAD_PER_ELEVATOR} with a virtual thread for every Elevator, the blocked Elevators do not hold any platform thread.
+	 * Needs Java 21, the Elevators are run on platform threads on older JVMs.
+	 */
+	VIRTUAL_THREAD_PER_ELEVATOR,
+
+	/**
+	 * Every Elevator is a state machine stepped by a timer wheel, all the Elevators share a small fixed number of threads
+	 */
+	EVENT_LOOP;
+}
@@ -0,0 +1,279 @@
+package uk.co.citybank.elevator.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.clock.ElevatorClock;
+
+/**
+ * Runs any number of tasks on a fixed number of threads, each task being run again after the delay it returns.
+ * Every thread owns a hashed timer wheel: an array of slots, one per tick, where a task due in n ticks is linked
+ * into the slot n ticks ahead together with the number of turns of the wheel it still has to wait.
+ * Scheduling and running a task is constant time and does not allocate.
+ *
+ * A task always runs on the thread it has been registered to, so it is never run by two threads at once
+ * and does not need any lock for its own state. Other threads can only ask for a parked task to be run,
+ * which happens at the next tick of its thread.
+ *
+ * The threads tick on an {@link ElevatorClock}, so the same tasks can run against the wall clock or be replayed on a virtual clock.
+ * @author anuragtripathi
+ *
+ */
+public class TimerWheelScheduler {
+
+	final static Logger logger = LoggerFactory.getLogger(TimerWheelScheduler.class);
+
+	/**
+	 * A task run by the scheduler
+	 */
+	public interface Task {
+
+		/**
+		 * Returned by {@link #run()} to park the task until {@link Timer#wakeUp()} is called
+		 */
+		public static final long PARK = -1;
+
+		/**
+		 * Runs the task
+		 * @return Delay in milliseconds before the task is run again, or {@link #PARK}
+		 */
+		public long run();
+	}
+
+	/**
+	 * Handle of a registered task
+	 */
+	public static final class Timer {
+		private final Task task;
+		private final Worker worker;
+
+		// Only changed by the worker thread
+		private Timer previous;
+		private Timer next;
+		private int slot = -1;
+		private long remainingTurns;
+
+		private Timer(final Task task, final Worker worker) {
+			this.task = task;
+			this.worker = worker;
+		}
+
+		/**
+		 * Schedules the task to be run at the next tick. Can be called by any thread.
+		 */
+		public void wakeUp() {
+			worker.wakeUps.add(this);
+		}
+	}
+
+	private final String name;
+	private final long tickMillis;
+	private final ElevatorClock clock;
+	private final Worker[] workers;
+	private final List<Thread> threads = new ArrayList<>();
+	private int nextWorker;
+
+	/**
+	 * Creates a scheduler, the threads are only created by {@link #start()}
+	 * @param name Name prefix of the threads
+	 * @param numberOfThreads Number of threads
+	 * @param tickMillis Duration of a tick, the delays of the tasks are rounded up to a whole number of ticks
+	 * @param wheelSize Number of slots of every wheel, a power of two
+	 * @param clock The clock the threads are ticking on
+	 */
+	public TimerWheelScheduler(final String name, int numberOfThreads, long tickMillis, int wheelSize, final ElevatorClock clock) {
+		if (numberOfThreads < 1 || tickMillis < 1 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("Invalid scheduler: " + numberOfThreads + " threads, tick " + tickMillis + " ms, " + wheelSize + " slots");
+		}
+		this.name = name;
+		this.tickMillis = tickMillis;
+		this.clock = clock;
+		this.workers = new Worker[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			workers[i] = new Worker(wheelSize);
+		}
+	}
+
+	/**
+	 * Registers a task, the threads are assigned to the tasks in turn. The task stays parked until woken up.
+	 * Must be called before {@link #start()}.
+	 * @param task Task
+	 * @return Handle of the task
+	 */
+	public Timer register(final Task task) {
+		if (!threads.isEmpty()) {
+			throw new IllegalStateException("Scheduler " + name + " is already started");
+		}
+		final Timer timer = new Timer(task, workers[nextWorker]);
+		nextWorker = (nextWorker + 1) % workers.length;
+		return timer;
+	}
+
+	/**
+	 * Starts the threads. With a {@link uk.co.citybank.elevator.clock.VirtualClock} every thread is a party of the clock.
+	 */
+	public void start() {
+		// All the parties are reserved before any thread is started
+		final int[] partyIds = new int[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			partyIds[i] = clock.register();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			workers[i].partyId = partyIds[i];
+			final Thread thread = new Thread(workers[i], name + "-" + (i + 1));
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stops the threads without running the scheduled tasks
+	 */
+	public void shutdownNow() {
+		for (Thread thread : threads) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * Waits for the threads to end after {@link #shutdownNow()}
+	 * @param timeout Maximum time to wait
+	 * @param unit Unit of the timeout
+	 * @return true if all the threads have ended
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public boolean awaitTermination(long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Thread thread : threads) {
+			final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remainingMillis <= 0) {
+				return !thread.isAlive();
+			}
+			thread.join(remainingMillis);
+			if (thread.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of threads running the tasks
+	 * @return Number of threads
+	 */
+	public int getNumberOfThreads() {
+		return workers.length;
+	}
+
+	/**
+	 * A thread with its own wheel
+	 */
+	private final class Worker implements Runnable {
+		private final Timer[] slots;
+		private final int mask;
+		private final Queue<Timer> wakeUps = new ConcurrentLinkedQueue<>();
+		private long tick;
+		private int partyId;
+
+		private Worker(int wheelSize) {
+			this.slots = new Timer[wheelSize];
+			this.mask = wheelSize - 1;
+		}
+
+		@Override
+		public void run() {
+			try {
+				clock.join(partyId);
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				final long startTime = clock.currentTimeMillis();
+				while (!Thread.currentThread().isInterrupted()) {
+					runWokenUpTasks();
+					// The next tick is computed from the start time so that the time spent running the tasks does not add up
+					clock.sleep(Math.max(0, startTime + (tick + 1) * tickMillis - clock.currentTimeMillis()));
+					tick++;
+					runDueTasks();
+				}
+			} catch (InterruptedException e) {
+				logger.debug(Thread.currentThread().getName() + " Request to close down the Scheduler Received");
+			} finally {
+				clock.leave();
+			}
+		}
+
+		private void runWokenUpTasks() {
+			Timer timer;
+			while ((timer = wakeUps.poll()) != null) {
+				if (timer.slot >= 0) {
+					unlink(timer);
+				}
+				runTask(timer);
+			}
+		}
+
+		private void runDueTasks() {
+			final int slot = (int) (tick & mask);
+			Timer timer = slots[slot];
+			while (timer != null) {
+				final Timer next = timer.next;
+				if (timer.remainingTurns > 0) {
+					timer.remainingTurns--;
+				} else {
+					unlink(timer);
+					runTask(timer);
+				}
+				timer = next;
+			}
+		}
+
+		private void runTask(final Timer timer) {
+			long delay;
+			try {
+				delay = timer.task.run();
+			} catch (RuntimeException e) {
+				// A failing task must not stop the other tasks of this thread
+				logger.error(Thread.currentThread().getName() + " Task failed and has been parked", e);
+				delay = Task.PARK;
+			}
+			if (delay != Task.PARK) {
+				schedule(timer, delay);
+			}
+		}
+
+		private void schedule(final Timer timer, long delay) {
+			// A task is never run again in the same tick
+			final long ticks = Math.max(1, (delay + tickMillis - 1) / tickMillis);
+			final int slot = (int) ((tick + ticks) & mask);
+			timer.remainingTurns = (ticks - 1) / slots.length;
+			timer.slot = slot;
+			timer.previous = null;
+			timer.next = slots[slot];
+			if (timer.next != null) {
+				timer.next.previous = timer;
+			}
+			slots[slot] = timer;
+		}
+
+		private void unlink(final Timer timer) {
+			if (timer.previous != null) {
+				timer.previous.next = timer.next;
+			} else {
+				slots[timer.slot] = timer.next;
+			}
+			if (timer.next != null) {
+				timer.next.previous = timer.previous;
+			}
+			timer.previous = null;
+			timer.next = null;
+			timer.slot = -1;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package uk.co.citybank.elevator.engine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives access to the virtual threads of Java 21 while the project is still built for Java 17.
+ * The executor is looked up once by reflection, so the same jar runs on both.
+ * @author anuragtripathi
+ *
+ */
+public final class VirtualThreads {
+
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+	/**
+	 * No Object Required Since It is an Utility Class therefore making the constructor private
+	 */
+	private VirtualThreads() {
+	}
+
+	private static Method findVirtualThreadPerTaskExecutor() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Determines if the running JVM supports virtual threads
+	 * @return true/false
+	 */
+	public static boolean isSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread for every task
+	 * @return Executor
+	 * @throws UnsupportedOperationException If the running JVM does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21, running on " + System.getProperty("java.version"));
+		}
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads could not be created", e);
+		}
+	}
+}
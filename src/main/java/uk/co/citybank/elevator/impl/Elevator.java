@@ -1,16 +1,22 @@
 package uk.co.citybank.elevator.impl;
 
+import java.util.Collection;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.WallClock;
 import uk.co.citybank.elevator.model.ElevatorDirection;
 import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
 import uk.co.citybank.elevator.queue.UserRequestQueue;
-import uk.co.citybank.elevator.utility.Constants;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
 
 /**
  * Class representing A Running Elevator.
- * Elevator will try to find the first Request from UserRequestQueue.
+ * Every Elevator has its own UserRequestQueue, holding the requests the ElevatorDispatcher has assigned to it.
+ * Elevator will try to find the first Request from its UserRequestQueue.
  * Once its got an request from the Queue , it will start working on that request.
  * When moving between floors , if it finds any user waiting at the current floor willing to go in the same direction as of elevator
  * it will allow to get the user in and will continue in the same direction. Once its done , it will try again to find a new request from queue
@@ -22,8 +28,14 @@ public class Elevator implements Runnable {
 	
 	final static Logger logger = LoggerFactory.getLogger(Elevator.class);
 	
-	// Every Elevator will have its own copy of status 
-	private final ThreadLocal<ElevatorStatus> status;
+	// Every Elevator will have its own copy of status, readable by the dispatcher while the Elevator is running
+	private final ElevatorStatus status;
+	
+	// The requests assigned to this Elevator
+	private final UserRequestQueue queue;
+	
+	private final ElevatorClock clock;
+	private final int clockPartyId;
 	
 	// This variable will indicated whether threads has been requested to shut down
     private volatile boolean working = true;
@@ -31,17 +43,82 @@ public class Elevator implements Runnable {
     public void stop() {
     	working = false;
     }
+    
+    /**
+     * Determines if this Elevator has not been requested to shut down
+     * @return true/false
+     */
+    public boolean isWorking() {
+    	return working;
+    }
 	
 	public Elevator(final String name,final UserRequestQueue queue) {
+		this(name, queue, new WallClock(), 0);
+	}
+	
+	/**
+	 * Creates an Elevator running on the given clock
+	 * @param name Elevator Name
+	 * @param queue The User Request Queue
+	 * @param clock The Clock
+	 * @param clockPartyId Party Id reserved on the clock for this Elevator
+	 */
+	public Elevator(final String name,final UserRequestQueue queue, final ElevatorClock clock, int clockPartyId) {
+		this(name, queue, clock, clockPartyId, BuildingConfiguration.defaultTimings(queue.getLowestFloor(), queue.getHighestFloor()));
+	}
+	
+	/**
+	 * Creates an Elevator running on the given clock in the given building
+	 * @param name Elevator Name
+	 * @param queue The User Request Queue
+	 * @param clock The Clock
+	 * @param clockPartyId Party Id reserved on the clock for this Elevator
+	 * @param configuration The travel and door times of the building, covering the floors of the queue
+	 */
+	public Elevator(final String name,final UserRequestQueue queue, final ElevatorClock clock, int clockPartyId, final BuildingConfiguration configuration) {
+		this.clock = clock;
+		this.clockPartyId = clockPartyId;
+		this.queue = queue;
 		/**
 		 * At Start, Elevator should be on lowest floor and will go to UP direction only.
 		 */
-        status = new ThreadLocal<ElevatorStatus>() {
-				@Override
-		        protected ElevatorStatus initialValue() {
-		            return new ElevatorStatus(name,Constants.LOWEST_FLOOR,ElevatorDirection.UP, queue);
-		        }
-		};
+		this.status = new ElevatorStatus(name,queue.getLowestFloor(),ElevatorDirection.UP, queue, clock, configuration);
+	}
+	
+	/**
+	 * Returns the status of this Elevator
+	 * @return Elevator Status
+	 */
+	public ElevatorStatus getStatus() {
+		return status;
+	}
+	
+	/**
+	 * Returns the queue holding the requests assigned to this Elevator
+	 * @return User Request Queue
+	 */
+	public UserRequestQueue getQueue() {
+		return queue;
+	}
+	
+	/**
+	 * Assigns a request to this Elevator, logged first to the request log of its status if one is set
+	 * @param request User Request
+	 */
+	public void assign(final UserRequest request) {
+		status.logAssigned(request);
+		queue.addUserRequest(request);
+	}
+	
+	/**
+	 * Assigns a batch of requests to this Elevator
+	 * @param requests User Requests
+	 */
+	public void assignAll(final Collection<UserRequest> requests) {
+		for(UserRequest request : requests) {
+			status.logAssigned(request);
+		}
+		queue.addUserRequests(requests);
 	}
 
 	/**
@@ -50,50 +127,58 @@ public class Elevator implements Runnable {
 	public void run() {
 		System.out.println("Elevator Started Running");
 		
-		while(working || status.get().areUsersStillInElevator()) {
+		try {
+			clock.join(clockPartyId);
+		} catch (InterruptedException e) {
+			log(" Request to close down the Elevator Received");
+			return;
+		}
+		
+		while(working || status.areUsersStillInElevator()) {
 			
 		 try {	
 			
 			// if Elevator is going up, then keep going UP until it has pending requests(either pick or drop) to go up
-			if(status.get().getCurrentFloor() < Constants.HIGHEST_FLOORS 
-					&& status.get().getDirection() == ElevatorDirection.UP
-					&& status.get().isElevatorNeedsToGoUp()) {
+			if(status.getCurrentFloor() < status.getHighestFloor() 
+					&& status.getDirection() == ElevatorDirection.UP
+					&& status.isElevatorNeedsToGoUp()) {
 				
-				status.get().moveOneFloorUp();
+				status.moveOneFloorUp();
 				
 				// Check If Elevator needs to be stopped at the current floor
-				if(status.get().isElevatorNeedsToStopAtCurrentFloor()) {
-					status.get().waitOnTheCurrentFloor(true);
+				if(status.isElevatorNeedsToStopAtCurrentFloor()) {
+					status.waitOnTheCurrentFloor(true);
 				}
 				
 			}
 			// if Elevator is going down, then keep going down until it has pending requests(either pick or drop) to go down
-			else if(status.get().getCurrentFloor() > Constants.LOWEST_FLOOR 
-					&& status.get().getDirection() == ElevatorDirection.DOWN
-					&& status.get().isElevatorNeedsToGoDown()) {
+			else if(status.getCurrentFloor() > status.getLowestFloor() 
+					&& status.getDirection() == ElevatorDirection.DOWN
+					&& status.isElevatorNeedsToGoDown()) {
 				
-				status.get().moveOneFloorDown();
+				status.moveOneFloorDown();
 				
 				// Check If Elevator needs to be stopped at the current floor
-				if(status.get().isElevatorNeedsToStopAtCurrentFloor()) {
-					status.get().waitOnTheCurrentFloor(working);
+				if(status.isElevatorNeedsToStopAtCurrentFloor()) {
+					status.waitOnTheCurrentFloor(working);
 				}
 			} else {
 				// If the Elevator doesn't have any thing to work on, then try to look into the queue
 				// The Thread will be blocked if there is no request available in the queue 
 				// The thread will be resumed once anything becomes available in the queue
-				status.get().pickRequestFromQueue();
+				status.pickRequestFromQueue();
 			}
 		 } catch (InterruptedException e) {
 			 log(" Request to close down the Elevator Received");
-			 status.remove();
 			 working = false;
+			 break;
 		} 
 	  }
 	  log(" Closing Down");
+	  clock.leave();
 	}
 	
 	private void log(String message) {
-		logger.debug(status.get().getElevatorName()+message);
+		logger.debug(status.getElevatorName()+message);
 	}
 }
@@ -0,0 +1,181 @@
+package uk.co.citybank.elevator.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.engine.TimerWheelScheduler;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Runs an Elevator as a state machine instead of a thread looping in {@link Elevator#run()}.
+ * Every step does what the loop does between two waits and returns how long to wait before the next step,
+ * so a {@link TimerWheelScheduler} can drive thousands of Elevators on a few threads.
+ *
+ * The Elevator takes the same decisions as in {@link Elevator#run()}: it keeps going in its direction while it has floors to stop at,
+ * stops where users get in or out, and picks a new request from its queue once it has nothing left to do.
+ * When its queue is empty the state machine is parked, and the queue wakes it up when a request is assigned to it.
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorStateMachine implements TimerWheelScheduler.Task {
+
+	final static Logger logger = LoggerFactory.getLogger(ElevatorStateMachine.class);
+
+	/**
+	 * States of the Elevator between two steps
+	 */
+	public enum State {
+		/** Nothing to do, waiting for a request to be assigned */
+		IDLE,
+		/** Moving to the next floor */
+		MOVING,
+		/** Doors open to let users in and out */
+		DOOR_OPEN;
+	}
+
+	private final Elevator elevator;
+	private final ElevatorStatus status;
+
+	private volatile State state = State.IDLE;
+
+	// The request picked from the queue whose user the Elevator is going to, null once it has reached the user
+	private UserRequest requestToReach;
+
+	// Set when the state machine is parked, the first request assigned afterwards has to wake it up
+	private final AtomicBoolean parked = new AtomicBoolean(true);
+
+	private TimerWheelScheduler.Timer timer;
+
+	/**
+	 * Constructor
+	 * @param elevator The Elevator run by this state machine
+	 */
+	public ElevatorStateMachine(final Elevator elevator) {
+		this.elevator = elevator;
+		this.status = elevator.getStatus();
+	}
+
+	/**
+	 * Registers this state machine on the scheduler and starts listening for the requests assigned to the Elevator.
+	 * An Elevator which already has riders or requests, recovered from a request log, is woken up at once.
+	 * @param scheduler Scheduler
+	 */
+	public void start(final TimerWheelScheduler scheduler) {
+		timer = scheduler.register(this);
+		elevator.getQueue().setRequestListener(this::requestAssigned);
+		if (status.areUsersStillInElevator() || !elevator.getQueue().isEmpty()) {
+			requestAssigned();
+		}
+	}
+
+	/**
+	 * Invoked by the thread assigning a request, wakes the state machine up if it is parked
+	 */
+	private void requestAssigned() {
+		if (parked.compareAndSet(true, false)) {
+			timer.wakeUp();
+		}
+	}
+
+	/**
+	 * Does one step of the Elevator
+	 * @return Time in milliseconds before the next step, or {@link TimerWheelScheduler.Task#PARK} if the Elevator has nothing to do
+	 */
+	@Override
+	public long run() {
+		if (state == State.MOVING) {
+			// Arrived at the next floor, on the way to the user the users waiting in the direction are served as well
+			final boolean atUser = requestToReach != null && status.getCurrentFloor() == requestToReach.getCurrentFloor();
+			if (!atUser && status.isElevatorNeedsToStopAtCurrentFloor()) {
+				return openDoors(status.getDirection() == ElevatorDirection.UP || elevator.isWorking());
+			}
+		} else if (state == State.DOOR_OPEN) {
+			status.closeDoors();
+		}
+		return nextStep();
+	}
+
+	private long nextStep() {
+		while (true) {
+			if (requestToReach != null) {
+				// Needs to go first at the user's current floor
+				final int floor = requestToReach.getCurrentFloor();
+				if (status.getCurrentFloor() > floor) {
+					return move(status.stepOneFloorDown());
+				} else if (status.getCurrentFloor() < floor) {
+					return move(status.stepOneFloorUp());
+				}
+				status.startWorkingOnRequest(requestToReach);
+				requestToReach = null;
+				if (status.isElevatorNeedsToStopAtCurrentFloor()) {
+					return openDoors(true);
+				}
+			}
+
+			if (!elevator.isWorking() && !status.areUsersStillInElevator()) {
+				return park();
+			}
+
+			// if Elevator is going up, then keep going UP until it has pending requests(either pick or drop) to go up
+			if (status.getCurrentFloor() < status.getHighestFloor()
+					&& status.getDirection() == ElevatorDirection.UP
+					&& status.isElevatorNeedsToGoUp()) {
+				return move(status.stepOneFloorUp());
+			}
+			// if Elevator is going down, then keep going down until it has pending requests(either pick or drop) to go down
+			if (status.getCurrentFloor() > status.getLowestFloor()
+					&& status.getDirection() == ElevatorDirection.DOWN
+					&& status.isElevatorNeedsToGoDown()) {
+				return move(status.stepOneFloorDown());
+			}
+
+			requestToReach = status.pollRequestFromQueue();
+			if (requestToReach == null) {
+				parked.set(true);
+				// A request assigned before the flag was set has not woken this state machine up, it is picked now
+				if (elevator.getQueue().isEmpty() || !parked.compareAndSet(true, false)) {
+					return park();
+				}
+			}
+		}
+	}
+
+	private long move(long travelMillis) {
+		state = State.MOVING;
+		return travelMillis;
+	}
+
+	private long openDoors(boolean canPickNewRequests) {
+		status.openDoors(canPickNewRequests);
+		state = State.DOOR_OPEN;
+		return status.getConfiguration().getDoorDwellMillis();
+	}
+
+	private long park() {
+		state = State.IDLE;
+		if (logger.isDebugEnabled()) {
+			logger.debug(status.getElevatorName() + " Parked at " + status.getCurrentFloor());
+		}
+		return PARK;
+	}
+
+	/**
+	 * Returns the state of the Elevator
+	 * @return State
+	 */
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the Elevator run by this state machine
+	 * @return Elevator
+	 */
+	public Elevator getElevator() {
+		return elevator;
+	}
+}
@@ -0,0 +1,250 @@
+package uk.co.citybank.elevator.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Journal of the Elevator events written as fixed size binary records, instead of building a log message for every move.
+ *
+ * The Elevators append their records to a ring buffer allocated once, claiming a slot with a compare and set,
+ * so appending neither allocates nor takes a lock nor does any I/O. A background thread drains the ring buffer
+ * into a memory mapped file. If the writer falls behind and the ring buffer is full, the new records are dropped and counted.
+ *
+ * Layout of the file, all values in little endian :
+ * <pre>
+ * Header (32 bytes) : magic "ELVJ", version, record size, 0, number of records, number of dropped records, 0
+ * Record (32 bytes) : time (8), elevator id (4), event type (2), 0 (2), four int values (16)
+ * </pre>
+ * The number of records of the header is updated after every batch, so the file can be decoded while it is written.
+ * Use {@link JournalDecoder} to read it.
+ * @author anuragtripathi
+ *
+ */
+public final class EventJournal implements Closeable {
+
+	final static Logger logger = LoggerFactory.getLogger(EventJournal.class);
+
+	static final int MAGIC = 0x4A564C45; // "ELVJ" in little endian
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 32;
+	static final int COUNT_OFFSET = 16;
+	static final int DROPPED_OFFSET = 24;
+
+	/** Records written by every mapping of the file */
+	private static final int RECORDS_PER_SEGMENT = 1 << 19;
+
+	/** A record is held as four longs in the ring buffer */
+	private static final int LONGS_PER_RECORD = 4;
+
+	private final long[] ring;
+	private final AtomicLongArray published;
+	private final int mask;
+
+	/** Sequence of the next record to claim */
+	private final AtomicLong tail = new AtomicLong();
+	/** Sequence of the next record to write, only changed by the writer */
+	private volatile long head;
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicInteger nextElevatorId = new AtomicInteger();
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private MappedByteBuffer segment;
+	private long segmentIndex = -1;
+	private long written;
+
+	private final Thread writer;
+	private volatile boolean closed;
+
+	/**
+	 * Opens a journal, an existing file is overwritten
+	 * @param file Journal File
+	 * @param capacity Number of records the ring buffer can hold, a power of two
+	 * @return Event Journal
+	 * @throws IOException If the file cannot be opened
+	 */
+	public static EventJournal open(final Path file, int capacity) throws IOException {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity " + capacity + " is not a power of two");
+		}
+		return new EventJournal(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE), capacity);
+	}
+
+	private EventJournal(final FileChannel channel, int capacity) throws IOException {
+		this.ring = new long[capacity * LONGS_PER_RECORD];
+		this.published = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		this.channel = channel;
+		this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE);
+
+		writer = new Thread(this::drainUntilClosed, "ElevatorJournalWriter");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Gives an id to an Elevator and records its name
+	 * @param elevatorName Elevator Name, only its first 16 bytes are kept
+	 * @param time Time in milliseconds
+	 * @return Elevator Id to pass to {@link #append(long, int, EventType, int, int, int, int)}
+	 */
+	public int register(final String elevatorName, long time) {
+		final int elevatorId = nextElevatorId.getAndIncrement();
+		final byte[] name = new byte[16];
+		final byte[] bytes = elevatorName.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(bytes, 0, name, 0, Math.min(bytes.length, name.length));
+		append(time, elevatorId, EventType.ELEVATOR, intAt(name, 0), intAt(name, 4), intAt(name, 8), intAt(name, 12));
+		return elevatorId;
+	}
+
+	private static int intAt(final byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Appends a record, can be called by any number of threads
+	 * @param time Time in milliseconds
+	 * @param elevatorId Elevator Id returned by {@link #register(String, long)}
+	 * @param type Event Type
+	 * @param first First value
+	 * @param second Second value
+	 * @param third Third value
+	 * @param fourth Fourth value
+	 * @return false if the record has been dropped because the ring buffer is full or the journal is closed
+	 */
+	public boolean append(long time, int elevatorId, final EventType type, int first, int second, int third, int fourth) {
+		long sequence;
+		do {
+			sequence = tail.get();
+			if (closed || sequence - head > mask) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		} while (!tail.compareAndSet(sequence, sequence + 1));
+
+		final int slot = (int) (sequence & mask);
+		final int index = slot * LONGS_PER_RECORD;
+		ring[index] = time;
+		ring[index + 1] = (long) elevatorId << 32 | type.ordinal();
+		ring[index + 2] = (long) first << 32 | (second & 0xFFFFFFFFL);
+		ring[index + 3] = (long) third << 32 | (fourth & 0xFFFFFFFFL);
+		// Publishing the sequence releases the values written above to the writer
+		published.lazySet(slot, sequence + 1);
+		return true;
+	}
+
+	private void drainUntilClosed() {
+		try {
+			while (!closed) {
+				if (drain() == 0) {
+					LockSupport.parkNanos(1000000L);
+				}
+			}
+			drain();
+		} catch (IOException e) {
+			logger.error("Elevator Journal could not be written", e);
+		}
+	}
+
+	/**
+	 * Writes the published records to the file
+	 * @return Number of records written
+	 */
+	private int drain() throws IOException {
+		int count = 0;
+		long sequence = head;
+		while (true) {
+			final int slot = (int) (sequence & mask);
+			if (published.get(slot) != sequence + 1) {
+				break;
+			}
+			final int index = slot * LONGS_PER_RECORD;
+			final MappedByteBuffer buffer = segmentFor(written);
+			final int position = (int) (written % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+			buffer.putLong(position, ring[index]);
+			buffer.putInt(position + 8, (int) (ring[index + 1] >>> 32));
+			buffer.putShort(position + 12, (short) ring[index + 1]);
+			buffer.putShort(position + 14, (short) 0);
+			buffer.putInt(position + 16, (int) (ring[index + 2] >>> 32));
+			buffer.putInt(position + 20, (int) ring[index + 2]);
+			buffer.putInt(position + 24, (int) (ring[index + 3] >>> 32));
+			buffer.putInt(position + 28, (int) ring[index + 3]);
+			written++;
+			sequence++;
+			count++;
+			// Frees the slot for the producers
+			head = sequence;
+		}
+		if (count > 0) {
+			header.putLong(COUNT_OFFSET, written);
+		}
+		return count;
+	}
+
+	private MappedByteBuffer segmentFor(long record) throws IOException {
+		final long index = record / RECORDS_PER_SEGMENT;
+		if (index != segmentIndex) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * RECORDS_PER_SEGMENT * (long) RECORD_SIZE,
+					(long) RECORDS_PER_SEGMENT * RECORD_SIZE);
+			segment.order(ByteOrder.LITTLE_ENDIAN);
+			segmentIndex = index;
+		}
+		return segment;
+	}
+
+	/**
+	 * Returns the number of records dropped because the ring buffer was full
+	 * @return Number of records
+	 */
+	public long getDroppedEvents() {
+		return dropped.get();
+	}
+
+	/**
+	 * Writes the remaining records and closes the file, the records appended while the journal is closed may be lost
+	 * @throws IOException If the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		header.putLong(DROPPED_OFFSET, dropped.get());
+		header.force();
+		if (segment != null) {
+			segment.force();
+		}
+		try {
+			// The file is cut to the records written, the last mapping may go beyond them
+			channel.truncate(HEADER_SIZE + written * RECORD_SIZE);
+		} catch (IOException e) {
+			// Some systems do not allow to truncate a mapped file, the decoder only reads the records counted in the header anyway
+			logger.debug("Elevator Journal could not be truncated", e);
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,39 @@
+package uk.co.citybank.elevator.journal;
+
+/**
+ * Types of the records of the Event Journal.
+ * The ordinal is written in the journal file, new types must only be added at the end.
+ * @author anuragtripathi
+ *
+ */
+public enum EventType {
+
+	/** Name of an Elevator, its first 16 bytes are held in the four values */
+	ELEVATOR,
+
+	/** Elevator moved : from floor, to floor, number of floors to stop */
+	MOVE,
+
+	/** Doors opened : floor, number of floors to stop */
+	DOOR_OPEN,
+
+	/** Doors closed : floor, number of floors to stop */
+	DOOR_CLOSE,
+
+	/** Request picked : floor of the user, floor to go, direction, floor of the Elevator */
+	PICK,
+
+	/** Users dropped : floor, number of users */
+	DROP;
+
+	private static final EventType[] VALUES = values();
+
+	/**
+	 * Returns the type having the given ordinal
+	 * @param ordinal Ordinal read from the journal
+	 * @return Event Type, null if unknown
+	 */
+	public static EventType valueOf(int ordinal) {
+		return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+	}
+}
@@ -0,0 +1,128 @@
+package uk.co.citybank.elevator.journal;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+
+/**
+ * Renders an Event Journal written by {@link EventJournal} as text, one line per record.
+ * Can be run from the command line : java uk.co.citybank.elevator.journal.JournalDecoder ElevatorJournal.bin
+ * @author anuragtripathi
+ *
+ */
+public final class JournalDecoder {
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+	/**
+	 * No Object Required Since It is an Utility Class therefore making the constructor private
+	 */
+	private JournalDecoder() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Usage : JournalDecoder <journal file>");
+			return;
+		}
+		final PrintWriter out = new PrintWriter(System.out);
+		decode(Paths.get(args[0]), out);
+		out.flush();
+	}
+
+	/**
+	 * Writes every record of the journal as a line of text
+	 * @param file Journal File
+	 * @param out Where to write the text
+	 * @throws IOException If the file cannot be read or is not a journal
+	 */
+	public static void decode(final Path file, final Appendable out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(EventJournal.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 0);
+			if (header.getInt(0) != EventJournal.MAGIC || header.getInt(4) != EventJournal.VERSION) {
+				throw new IOException(file + " is not an Elevator Journal");
+			}
+			final int recordSize = header.getInt(8);
+			final long count = header.getLong(EventJournal.COUNT_OFFSET);
+			final long dropped = header.getLong(EventJournal.DROPPED_OFFSET);
+
+			final Map<Integer, String> names = new HashMap<>();
+			final ByteBuffer record = ByteBuffer.allocate(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+			for (long i = 0; i < count; i++) {
+				record.clear();
+				readFully(channel, record, EventJournal.HEADER_SIZE + i * recordSize);
+				out.append(format(record, names)).append(System.lineSeparator());
+			}
+			if (dropped > 0) {
+				out.append(dropped + " records dropped").append(System.lineSeparator());
+			}
+		}
+	}
+
+	private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Elevator Journal is truncated");
+			}
+		}
+	}
+
+	/**
+	 * Formats one record, the names of the Elevators are collected from their first record
+	 */
+	static String format(final ByteBuffer record, final Map<Integer, String> names) {
+		final long time = record.getLong(0);
+		final int elevatorId = record.getInt(8);
+		final EventType type = EventType.valueOf(record.getShort(12));
+		final int first = record.getInt(16);
+		final int second = record.getInt(20);
+		final int third = record.getInt(24);
+		final int fourth = record.getInt(28);
+
+		final String name = names.containsKey(elevatorId) ? names.get(elevatorId) : "Elevator#" + elevatorId;
+		final StringBuilder line = new StringBuilder(64).append(TIME_FORMAT.format(Instant.ofEpochMilli(time))).append(" - ");
+		if (type == null) {
+			return line.append(name).append("- Unknown Record ").append(record.getShort(12)).toString();
+		}
+		switch (type) {
+		case ELEVATOR:
+			final byte[] bytes = new byte[16];
+			record.position(16);
+			record.get(bytes);
+			int length = 0;
+			while (length < bytes.length && bytes[length] != 0) {
+				length++;
+			}
+			names.put(elevatorId, new String(bytes, 0, length, StandardCharsets.UTF_8));
+			return line.append(names.get(elevatorId)).append("- Started").toString();
+		case MOVE:
+			return line.append(name).append("- Moved from Floor ").append(first).append(" to Floor ").append(second)
+					.append(" - Floors To Stop :").append(third).toString();
+		case DOOR_OPEN:
+			return line.append(name).append("- Opening at ").append(first).append(" : Floors To Stop ").append(second).toString();
+		case DOOR_CLOSE:
+			return line.append(name).append("- Closing at ").append(first).append(" : Floors To Stop ").append(second).toString();
+		case PICK:
+			return line.append(name).append("-  Picked Request [").append(first).append(',').append(second).append(',')
+					.append(ElevatorDirection.values()[third]).append("] Current Floor ").append(fourth).toString();
+		case DROP:
+			return line.append(name).append("- Dropped at ").append(first).append(" : Users ").append(second).toString();
+		default:
+			return line.append(name).append("- ").append(type).toString();
+		}
+	}
+}
@@ -0,0 +1,640 @@
+package uk.co.citybank.elevator.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Write ahead log of the requests of a bank of Elevators, so the requests accepted and the users riding are not lost when the process crashes.
+ *
+ * A request is logged when it is assigned to an Elevator, then when the Elevator picks the user up and when it drops the users at their floor.
+ * The records are written to memory mapped files and forced to the disk by a background thread, a batch at a time :
+ * {@link #sync()} waits for the records appended so far to be on the disk, so every request raised waits for one force
+ * shared with all the requests raised meanwhile instead of forcing the file itself.
+ *
+ * The log is a directory of generations, requests-1.wal, requests-2.wal... Every generation starts with a snapshot of the requests
+ * outstanding when it has been created, followed by the records appended since. When a generation has grown beyond the compaction
+ * threshold, a new one is started from the snapshot of the outstanding requests and the older ones are deleted once it is on the disk,
+ * so the log stays the size of the requests outstanding instead of growing with all the requests ever served.
+ * A generation later than the one recovered whose snapshot is not complete is a compaction cut by a crash, it is deleted as well.
+ *
+ * Layout of a file, all values in little endian :
+ * <pre>
+ * Header (32 bytes) : magic "ELVW", version, record size, 0, generation, 0, 0
+ * Record (32 bytes) : type (1), direction (1), number of users (2), elevator index (4), time (8), floor of the user or floor of the drop (4),
+ *                     floor to go (4), submission time (8)
+ * </pre>
+ * The files of the first version, whose records start with the type (2) and the direction (2) and stand for one user each, are still read.
+ * A directory holding a file of a later version is not opened, the log never deletes a file it has not understood.
+ * The type is written last and 0 ends the records, so a record torn by a crash is the end of the log.
+ * @author anuragtripathi
+ *
+ */
+public final class RequestLog implements Closeable {
+
+	final static Logger logger = LoggerFactory.getLogger(RequestLog.class);
+
+	static final int MAGIC = 0x57564C45; // "ELVW" in little endian
+	static final int VERSION = 2;
+	private static final int NO_VERSION = 0;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 32;
+	static final int GENERATION_OFFSET = 16;
+
+	/** Records appended to a generation before it is compacted, by default */
+	public static final long DEFAULT_COMPACTION_RECORDS = 1 << 20;
+
+	/** Records written by every mapping of a file */
+	private static final int RECORDS_PER_SEGMENT = 1 << 16;
+
+	/** Longest time a record stays in memory only when nobody waits for it */
+	private static final long FLUSH_INTERVAL_MILLIS = 10;
+
+	private static final String FILE_PREFIX = "requests-";
+	private static final String FILE_SUFFIX = ".wal";
+
+	private static final ElevatorDirection[] DIRECTIONS = ElevatorDirection.values();
+
+	/** What a generation holds once replayed */
+	private enum Snapshot {
+		/** Not even a header, the generation was being created when the process stopped */
+		NONE,
+		/** A header but no complete snapshot */
+		INCOMPLETE,
+		/** A complete snapshot, and the records appended after it */
+		COMPLETE
+	}
+
+	private final Path directory;
+	private final long compactionRecords;
+	private final RequestLogState recovered;
+
+	/** Outstanding requests, dumped as the snapshot of every new generation */
+	private final RequestLogState outstanding;
+
+	/** Guards everything below, the flusher forces the files without holding it, package private for the tests to block the appends */
+	final ReentrantLock lock = new ReentrantLock();
+	private final Condition flushNeeded = lock.newCondition();
+	private final Condition flushed = lock.newCondition();
+
+	private long generation;
+	private Path file;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private long segmentIndex = -1;
+	/** Segments written since the last force */
+	private final List<MappedByteBuffer> dirtySegments = new ArrayList<>();
+	private long recordsInGeneration;
+	private long snapshotRecords;
+
+	/** Records appended since the log is opened */
+	private long appended;
+	/** Records forced to the disk */
+	private long durable;
+	private IOException failure;
+	private boolean closed;
+
+	private final Thread flusher;
+
+	/**
+	 * Opens the log of a directory with the default compaction threshold, see {@link #open(Path, long)}
+	 * @param directory Log Directory, created if needed
+	 * @return Request Log
+	 * @throws IOException If the log cannot be read or written
+	 */
+	public static RequestLog open(final Path directory) throws IOException {
+		return open(directory, DEFAULT_COMPACTION_RECORDS);
+	}
+
+	/**
+	 * Opens the log of a directory, recovering the requests outstanding when it was last written, see {@link #getRecovered()}.
+	 * The recovered requests are written as the snapshot of a new generation, the former generations are then deleted.
+	 * @param directory Log Directory, created if needed
+	 * @param compactionRecords Records appended to a generation before a new one is started
+	 * @return Request Log
+	 * @throws IOException If the log cannot be read or written
+	 */
+	public static RequestLog open(final Path directory, long compactionRecords) throws IOException {
+		if (compactionRecords <= 0) {
+			throw new IllegalArgumentException("Compaction threshold " + compactionRecords + " must be positive");
+		}
+		Files.createDirectories(directory);
+		final List<Long> generations = generations(directory);
+		final RequestLogState recovered = recover(directory, generations);
+		return new RequestLog(directory, compactionRecords, recovered, generations);
+	}
+
+	/**
+	 * @param generations Generations of the directory, all understood by the recovery, replaced by the first generation of this log
+	 */
+	private RequestLog(final Path directory, long compactionRecords, final RequestLogState recovered, final List<Long> generations) throws IOException {
+		this.directory = directory;
+		this.compactionRecords = compactionRecords;
+		this.recovered = recovered;
+		this.outstanding = recovered.copy();
+		this.generation = generations.isEmpty() ? 0 : generations.get(0);
+		lock.lock();
+		final Generation started;
+		try {
+			started = startGeneration(generations);
+		} finally {
+			lock.unlock();
+		}
+		completeGeneration(started);
+		if (!recovered.isEmpty()) {
+			logger.info("Recovered " + recovered.getNumberOfWaiting() + " waiting and " + recovered.getNumberOfRiding() + " riding users from " + directory);
+		}
+
+		flusher = new Thread(this::flushUntilClosed, "ElevatorRequestLogFlusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Reads the requests outstanding according to the log of a directory, without changing it
+	 * @param directory Log Directory
+	 * @return Requests outstanding, empty if there is no log
+	 * @throws IOException If the log cannot be read, or holds a generation which cannot be understood
+	 */
+	public static RequestLogState recover(final Path directory) throws IOException {
+		return Files.isDirectory(directory) ? recover(directory, generations(directory)) : new RequestLogState();
+	}
+
+	/**
+	 * Replays the latest generation whose snapshot is complete, a later one may have been created by a compaction cut by a crash.
+	 * The former generation of a compaction is only deleted once the new snapshot is on the disk, so a generation without a complete snapshot
+	 * and without an earlier one to recover from is not a compaction, the log is then not opened rather than losing its records.
+	 */
+	private static RequestLogState recover(final Path directory, final List<Long> generations) throws IOException {
+		// Every generation is replaced by the first one of the log, even the earlier ones not replayed must be understood
+		for (long generation : generations) {
+			try (FileChannel channel = FileChannel.open(fileOf(directory, generation), StandardOpenOption.READ)) {
+				versionOf(channel, fileOf(directory, generation));
+			}
+		}
+		boolean skipped = false;
+		long incomplete = -1;
+		for (long generation : generations) {
+			final RequestLogState state = new RequestLogState();
+			final Snapshot snapshot = replay(fileOf(directory, generation), state);
+			if (snapshot == Snapshot.COMPLETE) {
+				if (skipped) {
+					logger.warn("Request Log generations after " + generation + " of " + directory + " are compactions cut by a crash, they are replaced");
+				}
+				return state;
+			}
+			skipped = true;
+			if (snapshot == Snapshot.INCOMPLETE) {
+				incomplete = generation;
+			}
+		}
+		if (incomplete != -1) {
+			throw new IOException("Request Log generation " + incomplete + " of " + directory + " has no complete snapshot and no earlier generation "
+					+ "to recover from, it is left as it is : move it aside to open the log");
+		}
+		return new RequestLogState();
+	}
+
+	/**
+	 * Applies the records of a file to a state
+	 * @return What the file holds
+	 * @throws IOException If the file cannot be read or is not a generation of a version this log reads
+	 */
+	private static Snapshot replay(final Path file, final RequestLogState state) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final int version = versionOf(channel, file);
+			if (version == NO_VERSION) {
+				return Snapshot.NONE;
+			}
+			final long size = channel.size();
+			final long records = (size - HEADER_SIZE) / RECORD_SIZE;
+			boolean snapshotEnded = false;
+			MappedByteBuffer buffer = null;
+			for (long record = 0; record < records; record++) {
+				final int position = (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+				if (position == 0) {
+					final long offset = HEADER_SIZE + record * RECORD_SIZE;
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min((long) RECORDS_PER_SEGMENT * RECORD_SIZE, (records - record) * RECORD_SIZE));
+					buffer.order(ByteOrder.LITTLE_ENDIAN);
+				}
+				final RequestLogType type = RequestLogType.valueOf(version == 1 ? buffer.getShort(position) : buffer.get(position) & 0xFF);
+				if (type == null || (record == 0) != (type == RequestLogType.SNAPSHOT_START)) {
+					break;
+				}
+				if (type == RequestLogType.SNAPSHOT_END) {
+					snapshotEnded = true;
+				}
+				final int direction = version == 1 ? buffer.getShort(position + 2) : buffer.get(position + 1);
+				final int passengers = version == 1 ? 1 : buffer.getShort(position + 2) & 0xFFFF;
+				state.apply(type, buffer.getInt(position + 4), buffer.getLong(position + 8), buffer.getInt(position + 16), buffer.getInt(position + 20),
+						direction >= 0 && direction < DIRECTIONS.length ? DIRECTIONS[direction] : null, passengers, buffer.getLong(position + 24));
+			}
+			return snapshotEnded ? Snapshot.COMPLETE : Snapshot.INCOMPLETE;
+		}
+	}
+
+	/**
+	 * Checks the header of a generation
+	 * @return Version of the file, {@link #NO_VERSION} if the file has no header yet, as a generation being created when the process stopped,
+	 * the header being forced last
+	 * @throws IOException If the file is not a generation of a version this log reads
+	 */
+	private static int versionOf(final FileChannel channel, final Path file) throws IOException {
+		if (channel.size() < HEADER_SIZE) {
+			return NO_VERSION;
+		}
+		final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getLong(0) == 0 && header.getLong(8) == 0 && header.getLong(16) == 0 && header.getLong(24) == 0) {
+			return NO_VERSION;
+		}
+		final int version = header.getInt(4);
+		if (header.getInt(0) != MAGIC || version < 1 || version > VERSION || header.getInt(8) != RECORD_SIZE) {
+			throw new IOException(file + " is not a Request Log generation of version 1 to " + VERSION + " (version " + version
+					+ "), it is left as it is : move it aside to open the log");
+		}
+		return version;
+	}
+
+	/**
+	 * Returns the generations of the log of a directory, the latest first
+	 */
+	private static List<Long> generations(final Path directory) throws IOException {
+		final List<Long> generations = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (Path file : files) {
+				final String name = file.getFileName().toString();
+				try {
+					generations.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+				} catch (NumberFormatException e) {
+					logger.warn("Ignoring " + file + " which is not a generation of the Request Log");
+				}
+			}
+		}
+		Collections.sort(generations, Collections.reverseOrder());
+		return generations;
+	}
+
+	private static Path fileOf(final Path directory, long generation) {
+		return directory.resolve(FILE_PREFIX + generation + FILE_SUFFIX);
+	}
+
+	/**
+	 * Generation started with the lock held, whose snapshot is forced and whose former generations are deleted without it
+	 */
+	private static final class Generation {
+		private final long number;
+		/** Generations replaced by the snapshot, deleted once it is on the disk */
+		private final List<Long> replaced;
+		private final FileChannel previous;
+		private final MappedByteBuffer header;
+		private final MappedByteBuffer[] segments;
+		/** Records appended before the snapshot, all held by it */
+		private final long appended;
+
+		private Generation(long number, final List<Long> replaced, final FileChannel previous, final MappedByteBuffer header,
+				final MappedByteBuffer[] segments, long appended) {
+			this.number = number;
+			this.replaced = replaced;
+			this.previous = previous;
+			this.header = header;
+			this.segments = segments;
+			this.appended = appended;
+		}
+	}
+
+	/**
+	 * Starts a new generation from the snapshot of the outstanding requests, the records are then appended to it.
+	 * Called with the lock held, the appends only wait for the snapshot to be written in memory, see {@link #completeGeneration(Generation)}.
+	 * @param replaced Generations holding nothing more than the snapshot
+	 */
+	private Generation startGeneration(final List<Long> replaced) throws IOException {
+		final FileChannel previous = channel;
+		generation++;
+		file = fileOf(directory, generation);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putLong(GENERATION_OFFSET, generation);
+		segment = null;
+		segmentIndex = -1;
+		dirtySegments.clear();
+		recordsInGeneration = 0;
+
+		write(RequestLogType.SNAPSHOT_START, 0, 0, 0, 0, null, 0, 0);
+		outstanding.writeTo(this);
+		write(RequestLogType.SNAPSHOT_END, 0, 0, 0, 0, null, 0, 0);
+		snapshotRecords = recordsInGeneration;
+		if (failure != null) {
+			throw failure;
+		}
+		final MappedByteBuffer[] segments = dirtySegments.toArray(new MappedByteBuffer[0]);
+		dirtySegments.clear();
+		dirtySegments.add(segment);
+		return new Generation(generation, replaced, previous, header, segments, appended);
+	}
+
+	/**
+	 * Forces the snapshot of a generation started by {@link #startGeneration()} and deletes the former generations, without the lock held
+	 * so that the Elevators appending records do not wait for the disk. A former generation is only deleted once the snapshot is on the disk.
+	 */
+	private void completeGeneration(final Generation started) throws IOException {
+		for (MappedByteBuffer snapshotSegment : started.segments) {
+			snapshotSegment.force();
+		}
+		// A generation with a header has its snapshot on the disk, unless the system wrote the header first on its own
+		started.header.force();
+
+		lock.lock();
+		try {
+			// The snapshot holds all the records appended before it
+			durable = Math.max(durable, started.appended);
+			flushed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		if (started.previous != null) {
+			started.previous.close();
+		}
+		for (long former : started.replaced) {
+			Files.deleteIfExists(fileOf(directory, former));
+		}
+	}
+
+	/**
+	 * Writes a record to the current generation, called with the lock held
+	 */
+	void write(final RequestLogType type, int car, long time, int currentFloor, int floorToGo, final ElevatorDirection direction, int passengers,
+			long submittedAt) {
+		final int position = (int) (recordsInGeneration % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+		final MappedByteBuffer buffer;
+		try {
+			buffer = segmentFor(recordsInGeneration);
+		} catch (IOException e) {
+			fail(e);
+			return;
+		}
+		buffer.put(position + 1, (byte) (direction == null ? 0 : direction.ordinal()));
+		buffer.putShort(position + 2, (short) passengers);
+		buffer.putInt(position + 4, car);
+		buffer.putLong(position + 8, time);
+		buffer.putInt(position + 16, currentFloor);
+		buffer.putInt(position + 20, floorToGo);
+		buffer.putLong(position + 24, submittedAt);
+		// Written last so that a record is complete once it has a type
+		buffer.put(position, (byte) type.code());
+		recordsInGeneration++;
+		appended++;
+	}
+
+	private MappedByteBuffer segmentFor(long record) throws IOException {
+		final long index = record / RECORDS_PER_SEGMENT;
+		if (index != segmentIndex) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * RECORDS_PER_SEGMENT * (long) RECORD_SIZE,
+					(long) RECORDS_PER_SEGMENT * RECORD_SIZE);
+			segment.order(ByteOrder.LITTLE_ENDIAN);
+			segmentIndex = index;
+			dirtySegments.add(segment);
+		}
+		return segment;
+	}
+
+	private void forceDirtySegments() {
+		for (MappedByteBuffer dirtySegment : dirtySegments) {
+			dirtySegment.force();
+		}
+		dirtySegments.clear();
+		if (segment != null) {
+			// The current segment will be written again
+			dirtySegments.add(segment);
+		}
+	}
+
+	private void fail(final IOException e) {
+		if (failure == null) {
+			logger.error("Request Log " + file + " could not be written", e);
+			failure = e;
+		}
+		flushed.signalAll();
+	}
+
+	/**
+	 * Applies a record to the outstanding requests and writes it
+	 */
+	private void append(final RequestLogType type, int car, long time, int currentFloor, int floorToGo, final ElevatorDirection direction, int passengers,
+			long submittedAt) {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			outstanding.apply(type, car, time, currentFloor, floorToGo, direction, passengers, submittedAt);
+			write(type, car, time, currentFloor, floorToGo, direction, passengers, submittedAt);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Logs a request assigned to an Elevator, before it is added to its queue
+	 * @param car Index of the Elevator in its bank
+	 * @param request User Request, with its submission time and its users
+	 */
+	public void assigned(int car, final UserRequest request) {
+		append(RequestLogType.ASSIGN, car, request.getSubmittedAt(), request.getCurrentFloor(), request.getFloorToGo(), request.getDirectionToGo(),
+				request.getNumberOfPassengers(), request.getSubmittedAt());
+	}
+
+	/**
+	 * Logs the users of a request picked up by an Elevator
+	 * @param car Index of the Elevator in its bank
+	 * @param request User Request, with its submission and pick up times and its users
+	 */
+	public void pickedUp(int car, final UserRequest request) {
+		append(RequestLogType.PICK, car, request.getPickedUpAt(), request.getCurrentFloor(), request.getFloorToGo(), request.getDirectionToGo(),
+				request.getNumberOfPassengers(), request.getSubmittedAt());
+	}
+
+	/**
+	 * Logs the users of an Elevator dropped at a floor
+	 * @param car Index of the Elevator in its bank
+	 * @param floor Floor of the drop
+	 * @param time Time in milliseconds
+	 */
+	public void dropped(int car, int floor, long time) {
+		append(RequestLogType.DROP, car, time, floor, 0, null, 0, UserRequest.NOT_STAMPED);
+	}
+
+	/**
+	 * Logs that the requests of an Elevator are forgotten, when it no longer exists
+	 * @param car Index of the Elevator in its bank
+	 * @param time Time in milliseconds
+	 */
+	public void abandoned(int car, long time) {
+		append(RequestLogType.ABANDON, car, time, 0, 0, null, 0, UserRequest.NOT_STAMPED);
+	}
+
+	/**
+	 * Waits for the records appended so far, by any thread, to be on the disk
+	 * @throws IOException If the log could not be written or is closed
+	 */
+	public void sync() throws IOException {
+		lock.lock();
+		try {
+			final long target = appended;
+			while (durable < target) {
+				if (failure != null) {
+					throw new IOException("Request Log " + file + " could not be written", failure);
+				}
+				if (closed) {
+					throw new IOException("Request Log " + file + " is closed");
+				}
+				flushNeeded.signal();
+				flushed.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the Request Log");
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void flushUntilClosed() {
+		while (true) {
+			final long target;
+			final MappedByteBuffer[] segments;
+			lock.lock();
+			try {
+				while (!closed && durable == appended) {
+					flushNeeded.await(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (durable == appended || failure != null) {
+					return;
+				}
+				target = appended;
+				segments = dirtySegments.toArray(new MappedByteBuffer[0]);
+				dirtySegments.clear();
+				dirtySegments.add(segment);
+			} catch (InterruptedException e) {
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			// The appends go on while the batch is forced, they are forced with the next one
+			for (MappedByteBuffer dirtySegment : segments) {
+				dirtySegment.force();
+			}
+
+			Generation started = null;
+			lock.lock();
+			try {
+				durable = Math.max(durable, target);
+				flushed.signalAll();
+				if (!closed && recordsInGeneration >= Math.max(compactionRecords, 2 * snapshotRecords)) {
+					started = startGeneration(Collections.singletonList(generation));
+				}
+			} catch (IOException e) {
+				fail(e);
+			} finally {
+				lock.unlock();
+			}
+			if (started != null) {
+				try {
+					completeGeneration(started);
+				} catch (IOException e) {
+					lock.lock();
+					try {
+						fail(e);
+					} finally {
+						lock.unlock();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the requests outstanding when the log has been opened, to hand back to the Elevators before they are started
+	 * @return Recovered Requests
+	 */
+	public RequestLogState getRecovered() {
+		return recovered;
+	}
+
+	/**
+	 * Returns the generation records are appended to
+	 * @return Generation, 1 for the first file of a directory
+	 */
+	public long getGeneration() {
+		lock.lock();
+		try {
+			return generation;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forces the records appended so far and closes the file, the records appended while the log is closed are ignored
+	 * @throws IOException If the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			flushNeeded.signal();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		lock.lock();
+		try {
+			forceDirtySegments();
+			durable = appended;
+			flushed.signalAll();
+			try {
+				// The file is cut to the records written, the last mapping may go beyond them
+				channel.truncate(HEADER_SIZE + recordsInGeneration * RECORD_SIZE);
+			} catch (IOException e) {
+				// Some systems do not allow to truncate a mapped file, the records end at the first one without a type anyway
+				logger.debug("Request Log could not be truncated", e);
+			}
+			channel.close();
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package uk.co.citybank.elevator.journal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.PackedRequest;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * The requests outstanding according to a {@link RequestLog} : for every Elevator, the users waiting for it and the users riding in it.
+ * Built by replaying the records of the log, in the order they have been written.
+ *
+ * A queue coalesces the waiting requests of the same trip and picks all their users up at once, so the users of a trip are counted
+ * and a pick up takes out the users it carries. A crash between a pick up and its record restores the users as waiting as well as riding,
+ * so a user may be served twice after a crash, it is never lost.
+ * @author anuragtripathi
+ *
+ */
+public final class RequestLogState {
+
+	/**
+	 * Outstanding requests of an Elevator
+	 */
+	private static final class Car {
+		/** Trip (packed without time) to the number of users waiting and the earliest submission time */
+		private final Map<Long, long[]> waiting = new LinkedHashMap<>();
+		/** Riders : trip, submission time, pick up time, number of users */
+		private final List<long[]> riding = new ArrayList<>();
+
+		private boolean isEmpty() {
+			return waiting.isEmpty() && riding.isEmpty();
+		}
+	}
+
+	private final TreeMap<Integer, Car> cars = new TreeMap<>();
+
+	/**
+	 * Applies a record of the log
+	 */
+	void apply(final RequestLogType type, int car, long time, int currentFloor, int floorToGo, final ElevatorDirection direction, int passengers,
+			long submittedAt) {
+		switch (type) {
+		case ASSIGN: {
+			final long[] waiting = car(car).waiting.computeIfAbsent(trip(currentFloor, floorToGo, direction), trip -> new long[] { 0, submittedAt });
+			waiting[0] += passengers;
+			if (waiting[1] == UserRequest.NOT_STAMPED || (submittedAt != UserRequest.NOT_STAMPED && submittedAt < waiting[1])) {
+				waiting[1] = submittedAt;
+			}
+			break;
+		}
+		case PICK: {
+			final Car state = car(car);
+			final Long trip = trip(currentFloor, floorToGo, direction);
+			final long[] waiting = state.waiting.get(trip);
+			if (waiting != null && (waiting[0] -= passengers) <= 0) {
+				state.waiting.remove(trip);
+			}
+			state.riding.add(new long[] { trip, submittedAt, time, passengers });
+			break;
+		}
+		case RIDE:
+			car(car).riding.add(new long[] { trip(currentFloor, floorToGo, direction), submittedAt, time, passengers });
+			break;
+		case DROP: {
+			final Car state = cars.get(car);
+			if (state != null) {
+				for (Iterator<long[]> riders = state.riding.iterator(); riders.hasNext();) {
+					if (PackedRequest.floorToGo(riders.next()[0]) == currentFloor) {
+						riders.remove();
+					}
+				}
+				removeIfEmpty(car, state);
+			}
+			break;
+		}
+		case ABANDON:
+			cars.remove(car);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void removeIfEmpty(int car, final Car state) {
+		if (state != null && state.isEmpty()) {
+			cars.remove(car);
+		}
+	}
+
+	private Car car(int car) {
+		return cars.computeIfAbsent(car, id -> new Car());
+	}
+
+	private static long trip(int currentFloor, int floorToGo, final ElevatorDirection direction) {
+		return PackedRequest.pack(currentFloor, floorToGo, direction, UserRequest.NOT_STAMPED, 0);
+	}
+
+	/**
+	 * Returns a copy of this state, which can be changed without changing this one
+	 */
+	RequestLogState copy() {
+		final RequestLogState copy = new RequestLogState();
+		for (Map.Entry<Integer, Car> car : cars.entrySet()) {
+			final Car state = copy.car(car.getKey());
+			for (Map.Entry<Long, long[]> waiting : car.getValue().waiting.entrySet()) {
+				state.waiting.put(waiting.getKey(), waiting.getValue().clone());
+			}
+			for (long[] rider : car.getValue().riding) {
+				state.riding.add(rider.clone());
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Writes this state as the records of a snapshot, waiting users as {@link RequestLogType#ASSIGN} and riders as {@link RequestLogType#RIDE}
+	 */
+	void writeTo(final RequestLog log) {
+		for (Map.Entry<Integer, Car> car : cars.entrySet()) {
+			for (Map.Entry<Long, long[]> waiting : car.getValue().waiting.entrySet()) {
+				final long trip = waiting.getKey();
+				for (long left = waiting.getValue()[0]; left > 0; left -= UserRequest.MAX_PASSENGERS) {
+					log.write(RequestLogType.ASSIGN, car.getKey(), waiting.getValue()[1], PackedRequest.currentFloor(trip), PackedRequest.floorToGo(trip),
+							PackedRequest.direction(trip), (int) Math.min(left, UserRequest.MAX_PASSENGERS), waiting.getValue()[1]);
+				}
+			}
+			for (long[] rider : car.getValue().riding) {
+				log.write(RequestLogType.RIDE, car.getKey(), rider[2], PackedRequest.currentFloor(rider[0]), PackedRequest.floorToGo(rider[0]),
+						PackedRequest.direction(rider[0]), (int) rider[3], rider[1]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the Elevators having outstanding requests
+	 * @return Indexes of the Elevators in their bank, in increasing order
+	 */
+	public Set<Integer> getCars() {
+		return Collections.unmodifiableSet(cars.keySet());
+	}
+
+	/**
+	 * Returns the users waiting for an Elevator, one request for every trip with its number of users and its earliest submission time
+	 * @param car Index of the Elevator in its bank
+	 * @return User Requests
+	 */
+	public List<UserRequest> getWaiting(int car) {
+		final Car state = cars.get(car);
+		if (state == null) {
+			return Collections.emptyList();
+		}
+		final List<UserRequest> requests = new ArrayList<>();
+		for (Map.Entry<Long, long[]> waiting : state.waiting.entrySet()) {
+			for (long left = waiting.getValue()[0]; left > 0; left -= UserRequest.MAX_PASSENGERS) {
+				final UserRequest request = PackedRequest.toUserRequest(waiting.getKey(), 0);
+				request.markSubmitted(waiting.getValue()[1]);
+				request.setNumberOfPassengers((int) Math.min(left, UserRequest.MAX_PASSENGERS));
+				requests.add(request);
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * Returns the users riding in an Elevator, with their submission and pick up times
+	 * @param car Index of the Elevator in its bank
+	 * @return User Requests
+	 */
+	public List<UserRequest> getRiding(int car) {
+		final Car state = cars.get(car);
+		if (state == null) {
+			return Collections.emptyList();
+		}
+		final List<UserRequest> requests = new ArrayList<>(state.riding.size());
+		for (long[] rider : state.riding) {
+			final UserRequest request = PackedRequest.toUserRequest(rider[0], 0);
+			request.markSubmitted(rider[1]);
+			request.markPickedUp(rider[2]);
+			request.setNumberOfPassengers((int) rider[3]);
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	/**
+	 * Returns the number of users waiting for all the Elevators
+	 * @return Number of users
+	 */
+	public long getNumberOfWaiting() {
+		long count = 0;
+		for (Car car : cars.values()) {
+			for (long[] waiting : car.waiting.values()) {
+				count += waiting[0];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of users riding in all the Elevators
+	 * @return Number of users
+	 */
+	public long getNumberOfRiding() {
+		long count = 0;
+		for (Car car : cars.values()) {
+			for (long[] rider : car.riding) {
+				count += rider[3];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Determines if nothing is outstanding
+	 * @return true/false
+	 */
+	public boolean isEmpty() {
+		return cars.isEmpty();
+	}
+}
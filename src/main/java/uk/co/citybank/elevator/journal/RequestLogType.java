@@ -0,0 +1,50 @@
+package uk.co.citybank.elevator.journal;
+
+/**
+ * Types of the records of the {@link RequestLog}.
+ * The ordinal plus one is written in the log file on one byte, 0 marking the end of the records. New types must only be added at the end.
+ * @author anuragtripathi
+ *
+ */
+public enum RequestLogType {
+
+	/** Start of the snapshot written at the head of every log file */
+	SNAPSHOT_START,
+
+	/** End of the snapshot, a file whose snapshot has no end is ignored */
+	SNAPSHOT_END,
+
+	/** Request accepted and assigned to an Elevator : floor of the user, floor to go, direction, submission time */
+	ASSIGN,
+
+	/** User picked up by the Elevator : floor of the user, floor to go, direction, submission time */
+	PICK,
+
+	/** User riding in the Elevator, only written by the snapshots : floor of the user, floor to go, direction, submission time */
+	RIDE,
+
+	/** Users dropped at a floor by the Elevator : floor */
+	DROP,
+
+	/** Elevator removed, its requests are forgotten */
+	ABANDON;
+
+	private static final RequestLogType[] VALUES = values();
+
+	/**
+	 * Returns the type written with the given code
+	 * @param code Code read from the log, the ordinal plus one
+	 * @return Request Log Type, null if unknown or 0
+	 */
+	static RequestLogType valueOf(int code) {
+		return code > 0 && code <= VALUES.length ? VALUES[code - 1] : null;
+	}
+
+	/**
+	 * Returns the code written in the log
+	 * @return Code
+	 */
+	int code() {
+		return ordinal() + 1;
+	}
+}
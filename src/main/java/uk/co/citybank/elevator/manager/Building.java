@@ -0,0 +1,181 @@
+package uk.co.citybank.elevator.manager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.WallClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * A building having several banks of Elevators, for example a low rise, a high rise and a freight bank.
+ * Every bank is an {@link ElevatorManager} serving some of the floors of the building with its own Elevators, queues and dispatcher,
+ * the banks share no lock and a request raised to a bank never touches the others.
+ *
+ * The banks are added before the building is started. On {@link ElevatorEngine#EVENT_LOOP} the processors are shared out
+ * between the banks in proportion of their Elevators, every bank getting at least one thread of its own,
+ * so the banks are sharded across the cores instead of all of them starting a thread per processor.
+ * @author anuragtripathi
+ *
+ */
+public class Building {
+
+	private final String name;
+	private final BuildingConfiguration configuration;
+	private final Map<String, ElevatorManager> banks = new LinkedHashMap<>();
+	private final Map<String, Integer> numberOfElevators = new LinkedHashMap<>();
+	private volatile boolean started;
+
+	/**
+	 * Creates a building of the floors and timings of {@link BuildingConfiguration#DEFAULT}
+	 * @param name Building Name
+	 */
+	public Building(final String name) {
+		this(name, BuildingConfiguration.DEFAULT);
+	}
+
+	/**
+	 * Constructor
+	 * @param name Building Name
+	 * @param configuration Floors and timings of the building
+	 */
+	public Building(final String name, final BuildingConfiguration configuration) {
+		this.name = name;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Adds a bank of Elevators, before the building is started
+	 * @param bankName Bank Name, unique in the building
+	 * @param lowestFloor Lowest Floor served by the bank
+	 * @param highestFloor Highest Floor served by the bank
+	 * @param elevators Number of Elevators of the bank
+	 * @return The bank
+	 * @throws IllegalArgumentException If the floors are not in the building or the bank name is already taken
+	 */
+	public ElevatorManager addBank(final String bankName, int lowestFloor, int highestFloor, int elevators) {
+		if (started) {
+			throw new IllegalStateException("Building " + name + " is already started");
+		}
+		if (banks.containsKey(bankName)) {
+			throw new IllegalArgumentException("Building " + name + " already has a bank named " + bankName);
+		}
+		final ElevatorManager bank = new ElevatorManager(bankName, configuration.withFloors(lowestFloor, highestFloor));
+		banks.put(bankName, bank);
+		numberOfElevators.put(bankName, elevators);
+		return bank;
+	}
+
+	/**
+	 * Starts the Elevators of all the banks on the wall clock
+	 * @param engine The way the Elevators are run
+	 */
+	public void start(final ElevatorEngine engine) {
+		start(new WallClock(), engine);
+	}
+
+	/**
+	 * Starts the Elevators of all the banks
+	 * @param clock The clock Elevators will run on
+	 * @param engine The way the Elevators are run
+	 */
+	public void start(final ElevatorClock clock, final ElevatorEngine engine) {
+		if (started) {
+			return;
+		}
+		started = true;
+		int totalElevators = 0;
+		for (int elevators : numberOfElevators.values()) {
+			totalElevators += elevators;
+		}
+		final int processors = Runtime.getRuntime().availableProcessors();
+		for (ElevatorManager bank : banks.values()) {
+			final int elevators = numberOfElevators.get(bank.getName());
+			if (engine == ElevatorEngine.EVENT_LOOP && totalElevators > 0) {
+				bank.setEventLoopThreads(Math.max(1, (int) ((long) processors * elevators / totalElevators)));
+			}
+			bank.startElevators(elevators, clock, engine);
+		}
+	}
+
+	/**
+	 * Returns a bank of this building
+	 * @param bankName Bank Name
+	 * @return The bank, null if there is none of that name
+	 */
+	public ElevatorManager getBank(final String bankName) {
+		return banks.get(bankName);
+	}
+
+	/**
+	 * Returns the banks of this building in the order they have been added
+	 * @return Banks
+	 */
+	public Collection<ElevatorManager> getBanks() {
+		return Collections.unmodifiableCollection(banks.values());
+	}
+
+	/**
+	 * Returns the floors and timings of this building
+	 * @return Building Configuration
+	 */
+	public BuildingConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Returns the name of this building
+	 * @return Building Name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Assigns User Request to one of the Elevators of a bank
+	 * @param bankName Bank Name
+	 * @param currentFloor User's Current Floor
+	 * @param floorToGo The Floor User wants to go
+	 * @param direction Direction
+	 * @throws ValidationException Validation Exception if the bank does not exist or does not serve the floors of the request
+	 */
+	public void raiseUserRequest(final String bankName, int currentFloor, int floorToGo, ElevatorDirection direction) throws ValidationException {
+		final ElevatorManager bank = banks.get(bankName);
+		if (bank == null) {
+			throw new ValidationException("Unknown Bank " + bankName);
+		}
+		bank.raiseUserRequest(currentFloor, floorToGo, direction);
+	}
+
+	/**
+	 * Shut Down the Elevators of all the banks
+	 */
+	public void shutDownElevators() {
+		for (ElevatorManager bank : banks.values()) {
+			bank.shutDownElevators();
+		}
+	}
+
+	/**
+	 * Waits for the threads of the Elevators of all the banks to end after {@link #shutDownElevators()}
+	 * @param timeout Maximum time to wait
+	 * @param unit Unit of the timeout
+	 * @return true if all the threads have ended
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public boolean awaitTermination(long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (ElevatorManager bank : banks.values()) {
+			if (!bank.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,73 @@
+package uk.co.citybank.elevator.manager;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.HallCallOrder;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * The built-in dispatch policies. {@link #ETA}, {@link #LOOK} and {@link #SCAN} assign the requests to the Elevator estimated
+ * to reach the user first and differ in the order the Elevators serve their queue, {@link #NEAREST_CAR} looks at the distance only
+ * and {@link #ENERGY} trades some wait for fewer floors travelled and fewer stops.
+ * @author anuragtripathi
+ *
+ */
+public enum DispatchPolicy implements DispatchStrategy {
+
+	/** Lowest estimated time of arrival, the Elevators serving their queue in the {@link HallCallOrder#COLLECTIVE} order */
+	ETA(HallCallOrder.COLLECTIVE),
+
+	/** Lowest estimated time of arrival, the Elevators serving their queue in the {@link HallCallOrder#LOOK} order */
+	LOOK(HallCallOrder.LOOK),
+
+	/** Lowest estimated time of arrival, the Elevators serving their queue in the {@link HallCallOrder#SCAN} order */
+	SCAN(HallCallOrder.SCAN),
+
+	/**
+	 * The Elevator nearest to the user whatever its direction and stops, the one having the fewest floors to serve among the
+	 * nearest ones, the Elevators then going to their {@link HallCallOrder#NEAREST} user
+	 */
+	NEAREST_CAR(HallCallOrder.NEAREST) {
+		@Override
+		public long costToServe(final ElevatorStatus status, int assignedFloors, final UserRequest request) {
+			final long distance = Math.abs((long) status.getCurrentFloor() - request.getCurrentFloor());
+			return (distance << 32) + status.getNumberOfFloorsToStop() + assignedFloors;
+		}
+	},
+
+	/**
+	 * Lowest estimated time of arrival plus the floors and the stops the Elevator adds to serve the user, weighted as
+	 * {@link EnergyWeightedStrategy#DEFAULT}, the Elevators serving their queue in the {@link HallCallOrder#LOOK} order
+	 */
+	ENERGY(HallCallOrder.LOOK) {
+		@Override
+		public long costToServe(final ElevatorStatus status, int assignedFloors, final UserRequest request) {
+			return EnergyWeightedStrategy.DEFAULT.costToServe(status, assignedFloors, request);
+		}
+	};
+
+	private final HallCallOrder order;
+
+	private DispatchPolicy(final HallCallOrder order) {
+		this.order = order;
+	}
+
+	@Override
+	public long costToServe(final ElevatorStatus status, int assignedFloors, final UserRequest request) {
+		return ElevatorDispatcher.estimateTimeToArrive(status, assignedFloors, request);
+	}
+
+	@Override
+	public UserRequest poll(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction, int maxPassengers) {
+		return order.poll(queue, currentFloor, direction, maxPassengers);
+	}
+
+	/**
+	 * Returns the order in which the Elevators serve their queue
+	 * @return Hall Call Order
+	 */
+	public HallCallOrder getOrder() {
+		return order;
+	}
+}
@@ -0,0 +1,25 @@
+package uk.co.citybank.elevator.manager;
+
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.RequestOrder;
+
+/**
+ * The policy of a bank of Elevators, set on the {@link ElevatorManager} before the Elevators are started.
+ * It decides which Elevator a new request is assigned to, and as a {@link RequestOrder} which request of its queue
+ * an Elevator having nothing left to do serves next. See {@link DispatchPolicy} for the built-in policies.
+ * @author anuragtripathi
+ *
+ */
+public interface DispatchStrategy extends RequestOrder {
+
+	/**
+	 * Returns the cost of having an Elevator serve a new request, the request being assigned to the Elevator of the lowest cost.
+	 * Called by the thread raising the request, it reads the Elevator without stopping it.
+	 * @param status Status of the Elevator
+	 * @param assignedFloors Number of floors having assigned users still to be picked
+	 * @param request User Request
+	 * @return Cost, the first Elevator being chosen among the Elevators of the same cost
+	 */
+	long costToServe(ElevatorStatus status, int assignedFloors, UserRequest request);
+}
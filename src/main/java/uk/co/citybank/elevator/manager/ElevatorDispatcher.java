@@ -0,0 +1,193 @@
+package uk.co.citybank.elevator.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.FloorBitSet;
+
+/**
+ * Assigns every new User Request to the Elevator of the lowest cost for its {@link DispatchStrategy}, by default the Elevator
+ * which is estimated to reach the user first. The dispatcher reads the position, direction and stops of every Elevator without stopping them,
+ * and pushes the request into the queue of the chosen Elevator.
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorDispatcher {
+
+	final static Logger logger = LoggerFactory.getLogger(ElevatorDispatcher.class);
+
+	private final List<Elevator> elevators;
+	private final DispatchStrategy strategy;
+
+	/**
+	 * Constructor, the requests being assigned to the Elevator having the lowest estimated time of arrival
+	 * @param elevators The Elevators to dispatch the requests to
+	 */
+	public ElevatorDispatcher(final List<Elevator> elevators) {
+		this(elevators, DispatchPolicy.ETA);
+	}
+
+	/**
+	 * Constructor
+	 * @param elevators The Elevators to dispatch the requests to
+	 * @param strategy The policy choosing the Elevator of every request
+	 */
+	public ElevatorDispatcher(final List<Elevator> elevators, final DispatchStrategy strategy) {
+		this.elevators = Collections.unmodifiableList(new ArrayList<>(elevators));
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Assigns the request to the Elevator having the lowest cost
+	 * @param request User Request
+	 * @return The Elevator the request has been assigned to
+	 */
+	public Elevator dispatch(final UserRequest request) {
+		final Elevator chosen = elevators.get(chooseElevator(request, null));
+		chosen.assign(request);
+		return chosen;
+	}
+
+	/**
+	 * Assigns a batch of requests, each Elevator receiving all the requests assigned to it at once.
+	 * The requests assigned earlier in the batch are accounted for when costing the next ones.
+	 * @param requests User Requests
+	 */
+	public void dispatchAll(final Collection<UserRequest> requests) {
+		final int[] assignedInBatch = new int[elevators.size()];
+		final List<List<UserRequest>> assignments = new ArrayList<>(elevators.size());
+		for (int i = 0; i < elevators.size(); i++) {
+			assignments.add(new ArrayList<UserRequest>());
+		}
+		for (UserRequest request : requests) {
+			final int chosen = chooseElevator(request, assignedInBatch);
+			assignedInBatch[chosen]++;
+			assignments.get(chosen).add(request);
+		}
+		for (int i = 0; i < elevators.size(); i++) {
+			if (!assignments.get(i).isEmpty()) {
+				elevators.get(i).assignAll(assignments.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the Elevator having the lowest cost
+	 * @param request User Request
+	 * @param assignedInBatch Number of requests already assigned to each Elevator but not yet pushed to it, can be null
+	 * @return Index of the Elevator
+	 */
+	private int chooseElevator(final UserRequest request, final int[] assignedInBatch) {
+		int chosen = 0;
+		long bestCost = Long.MAX_VALUE;
+		for (int i = 0; i < elevators.size(); i++) {
+			final Elevator elevator = elevators.get(i);
+			final int assignedFloors = elevator.getQueue().getNumberOfFloorsWithRequests() + (assignedInBatch == null ? 0 : assignedInBatch[i]);
+			final long cost = strategy.costToServe(elevator.getStatus(), assignedFloors, request);
+			if (cost < bestCost) {
+				bestCost = cost;
+				chosen = i;
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Request " + request + " assigned to " + elevators.get(chosen).getStatus().getElevatorName() + " at a cost of " + bestCost + " by " + strategy);
+		}
+		return chosen;
+	}
+
+	/**
+	 * Estimates the time an Elevator needs to reach the user of the request, ready to go in the direction of the request.
+	 * The Elevator finishes its sweep in its current direction before turning back, every floor where it stops
+	 * and every floor where an assigned user is still waiting costs the door dwell and the acceleration of a new run.
+	 * The travel times come from the building of the Elevator, whatever the number of floors they are found in constant time.
+	 * A full Elevator passes the user by, it is taken to have to go to the end of its sweep and back before it has room.
+	 * @param status Status of the Elevator
+	 * @param assignedFloors Number of floors having assigned users still to be picked
+	 * @param request User Request
+	 * @return Estimated time in milliseconds
+	 */
+	static long estimateTimeToArrive(final ElevatorStatus status, int assignedFloors, final UserRequest request) {
+		final int floor = status.getCurrentFloor();
+		final int callFloor = request.getCurrentFloor();
+		final int stops = status.getNumberOfFloorsToStop();
+		final BuildingConfiguration building = status.getConfiguration();
+		final long travelMillis;
+
+		if (stops == 0 && assignedFloors == 0) {
+			// Idle Elevator goes straight to the user
+			travelMillis = building.getTravelMillis(floor, callFloor);
+		} else if (status.getDirection() == ElevatorDirection.UP) {
+			final int top = max(floor, callFloor, status.getHighestFloorToStop());
+			if (request.getDirectionToGo() == ElevatorDirection.UP && callFloor >= floor) {
+				travelMillis = building.getTravelMillis(floor, callFloor);
+			} else if (request.getDirectionToGo() == ElevatorDirection.DOWN) {
+				travelMillis = building.getTravelMillis(floor, top) + building.getTravelMillis(top, callFloor);
+			} else {
+				// Needs to go up, come down below the user and go up again
+				final int bottom = min(callFloor, status.getLowestFloorToStop());
+				travelMillis = building.getTravelMillis(floor, top) + building.getTravelMillis(top, bottom) + building.getTravelMillis(bottom, callFloor);
+			}
+		} else {
+			final int bottom = min(floor, callFloor, status.getLowestFloorToStop());
+			if (request.getDirectionToGo() == ElevatorDirection.DOWN && callFloor <= floor) {
+				travelMillis = building.getTravelMillis(floor, callFloor);
+			} else if (request.getDirectionToGo() == ElevatorDirection.UP) {
+				travelMillis = building.getTravelMillis(floor, bottom) + building.getTravelMillis(bottom, callFloor);
+			} else {
+				// Needs to go down, come up above the user and go down again
+				final int top = max(callFloor, status.getHighestFloorToStop());
+				travelMillis = building.getTravelMillis(floor, bottom) + building.getTravelMillis(bottom, top) + building.getTravelMillis(top, callFloor);
+			}
+		}
+		// The last run to the user has to speed up and slow down as well
+		final long lastRunMillis = travelMillis > 0 ? building.getAccelerationMillis() : 0;
+		long fullCarMillis = 0;
+		if (status.isFull()) {
+			final int farthest = status.getDirection() == ElevatorDirection.UP ? status.getHighestFloorToStop() : status.getLowestFloorToStop();
+			fullCarMillis = farthest == FloorBitSet.NO_FLOOR ? 0 : 2 * building.getTravelMillis(floor, farthest);
+		}
+		return travelMillis + lastRunMillis + fullCarMillis + (stops + assignedFloors) * (building.getDoorDwellMillis() + building.getAccelerationMillis());
+	}
+
+	private static int max(int first, int second) {
+		return second == FloorBitSet.NO_FLOOR ? first : Math.max(first, second);
+	}
+
+	private static int max(int first, int second, int third) {
+		return max(Math.max(first, second), third);
+	}
+
+	private static int min(int first, int second) {
+		return second == FloorBitSet.NO_FLOOR ? first : Math.min(first, second);
+	}
+
+	private static int min(int first, int second, int third) {
+		return min(Math.min(first, second), third);
+	}
+
+	/**
+	 * Returns the policy choosing the Elevator of every request
+	 * @return Dispatch Strategy
+	 */
+	public DispatchStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Returns the Elevators of this dispatcher
+	 * @return Elevators
+	 */
+	public List<Elevator> getElevators() {
+		return elevators;
+	}
+}
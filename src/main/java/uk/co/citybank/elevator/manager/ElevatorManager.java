@@ -1,21 +1,51 @@
 package uk.co.citybank.elevator.manager;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.WallClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.engine.TimerWheelScheduler;
+import uk.co.citybank.elevator.engine.VirtualThreads;
 import uk.co.citybank.elevator.exception.ValidationException;
 import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.impl.ElevatorStateMachine;
+import uk.co.citybank.elevator.journal.EventJournal;
+import uk.co.citybank.elevator.journal.RequestLog;
+import uk.co.citybank.elevator.journal.RequestLogState;
+import uk.co.citybank.elevator.metrics.ElevatorMetrics;
+import uk.co.citybank.elevator.metrics.FleetGauges;
 import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorSnapshot;
 import uk.co.citybank.elevator.model.UserRequest;
 import uk.co.citybank.elevator.queue.UserRequestQueue;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.Constants;
 import uk.co.citybank.elevator.validator.UserRequestValidator;
 import uk.co.citybank.elevator.validator.UserRequestValidatorImpl;
 
 /**
- * Singleton Class to Take User Request and Start & Stop the Elevators
+ * Class to Take User Request and Start & Stop a bank of Elevators serving a range of floors.
+ * Every bank has its own Elevators, queues, dispatcher and threads, so several banks run side by side in one JVM
+ * without sharing any lock, see {@link Building}.
+ * Every User Request is handed to the ElevatorDispatcher which assigns it to one of the Elevators, following the {@link DispatchStrategy}
+ * of the bank which also decides the order the Elevators serve their requests in.
+ * The Elevators either run on a thread each or as state machines sharing a few threads, see {@link ElevatorEngine}.
+ * With a {@link RequestLog} set, a request raised returns once it is on the disk and the requests outstanding when the process stopped
+ * are handed back to the Elevators when they are started.
  * @author anuragtripathi
  *
  */
@@ -23,27 +53,56 @@ public class ElevatorManager {
    
 	final static Logger logger = LoggerFactory.getLogger(ElevatorManager.class);
 
-	private static ElevatorManager manager;
+	/** Name of the bank when none is given, its Elevators are named Elevator-1, Elevator-2... */
+	public static final String DEFAULT_BANK_NAME = "Elevator";
+	
+	private final String name;
+	private final BuildingConfiguration configuration;
+	private final int lowestFloor;
+	private final int highestFloor;
 	private ExecutorService executor;
-	private UserRequestQueue queue;
+	private TimerWheelScheduler scheduler;
+	private volatile ElevatorDispatcher dispatcher;
+	private ElevatorEngine engine;
+	private DispatchStrategy dispatchStrategy = DispatchPolicy.ETA;
+	private int numberOfThreads;
+	private int eventLoopThreads;
+	private long heapBytesPerElevator = -1;
+	private EventJournal journal;
+	private RequestLog requestLog;
+	private ElevatorMetrics metrics;
+	private ElevatorClock clock;
 	private final UserRequestValidator validator;
 	
-	private ElevatorManager() {
-		validator = new UserRequestValidatorImpl();
+	/**
+	 * Creates the default bank, serving the floors between {@link Constants#LOWEST_FLOOR} and {@link Constants#HIGHEST_FLOORS}
+	 */
+	public ElevatorManager() {
+		this(DEFAULT_BANK_NAME, BuildingConfiguration.DEFAULT);
 	}
 	
 	/**
-	 * Returns a instance of ElevatorManager
-	 * @return UserRequestQueue
+	 * Creates a bank of Elevators serving the floors between the lowest and the highest floor (both included),
+	 * with the travel and door times of {@link Constants}
+	 * @param name Bank Name, its Elevators are named after it
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
 	 */
-	public static ElevatorManager getElevatorManager() {
-	    if (manager == null) {
-	      synchronized(ElevatorManager.class) {
-	        if (manager == null) 
-	        	manager = new ElevatorManager();
-	      }
-	    }
-	    return manager;
+	public ElevatorManager(final String name, int lowestFloor, int highestFloor) {
+		this(name, BuildingConfiguration.defaultTimings(lowestFloor, highestFloor));
+	}
+	
+	/**
+	 * Creates a bank of Elevators serving all the floors of a building, with its travel and door times
+	 * @param name Bank Name, its Elevators are named after it
+	 * @param configuration Building Configuration, see {@link BuildingConfiguration#withFloors(int, int)} to serve only some floors
+	 */
+	public ElevatorManager(final String name, final BuildingConfiguration configuration) {
+		this.name = name;
+		this.configuration = configuration;
+		this.lowestFloor = configuration.getLowestFloor();
+		this.highestFloor = configuration.getHighestFloor();
+		validator = new UserRequestValidatorImpl(lowestFloor, highestFloor);
 	}
 	
 	/**
@@ -51,39 +110,395 @@ public class ElevatorManager {
 	 * @param number Number of Elevators needs to be started
 	 */
 	public void startElevators(int number) {
-		if(executor != null) {
+		startElevators(number, new WallClock());
+	}
+	
+	/**
+	 * Starts the elevators on the given engine
+	 * @param number Number of Elevators needs to be started
+	 * @param engine The way the Elevators are run
+	 */
+	public void startElevators(int number, final ElevatorEngine engine) {
+		startElevators(number, new WallClock(), engine);
+	}
+	
+	/**
+	 * Starts the elevators on the given clock, every Elevator running on its own thread.
+	 * With a {@link uk.co.citybank.elevator.clock.VirtualClock} the calling thread is expected to have joined the clock already,
+	 * so the elevators only start moving once it sleeps or leaves the clock.
+	 * @param number Number of Elevators needs to be started
+	 * @param clock The clock Elevators will run on
+	 */
+	public void startElevators(int number, final ElevatorClock clock) {
+		startElevators(number, clock, ElevatorEngine.THREAD_PER_ELEVATOR);
+	}
+	
+	/**
+	 * Starts the elevators on the given clock and engine.
+	 * With a {@link uk.co.citybank.elevator.clock.VirtualClock} the calling thread is expected to have joined the clock already,
+	 * so the elevators only start moving once it sleeps or leaves the clock.
+	 * @param number Number of Elevators needs to be started
+	 * @param clock The clock Elevators will run on
+	 * @param engine The way the Elevators are run, {@link ElevatorEngine#VIRTUAL_THREAD_PER_ELEVATOR} falls back to platform threads before Java 21
+	 */
+	public void startElevators(int number, final ElevatorClock clock, ElevatorEngine engine) {
+		if(dispatcher != null) {
 			logger.debug("EleVators are already Running");
 			return;
 		}
+		if(engine == ElevatorEngine.VIRTUAL_THREAD_PER_ELEVATOR && !VirtualThreads.isSupported()) {
+			logger.warn("Virtual threads need Java 21, running the Elevators on " + ElevatorEngine.THREAD_PER_ELEVATOR);
+			engine = ElevatorEngine.THREAD_PER_ELEVATOR;
+		}
+		
+		final long allocatedBefore = allocatedBytes();
+		
+		// Every Elevator gets its own queue holding the requests assigned to it
+		final List<Elevator> elevators = new ArrayList<>(number);
+		final List<ElevatorStateMachine> stateMachines = new ArrayList<>(engine == ElevatorEngine.EVENT_LOOP ? number : 0);
+		for (int i = 1; i <= number; i++) {
+			final UserRequestQueue queue = new UserRequestQueue(lowestFloor, highestFloor);
+			queue.setClock(clock);
+			queue.setRequestOrder(dispatchStrategy);
+			queue.setAgingMillis(configuration.getAgingMillis());
+			if(engine == ElevatorEngine.EVENT_LOOP) {
+				// The Elevator does not wait on the clock itself, the threads of the scheduler do
+				final Elevator elevator = new Elevator(name+"-"+i, queue, clock, -1, configuration);
+				elevators.add(elevator);
+				stateMachines.add(new ElevatorStateMachine(elevator));
+			} else {
+				elevators.add(new Elevator(name+"-"+i, queue, clock, clock.register(), configuration));
+			}
+		}
+		
+		// Latencies of every Elevator, of every floor and of the whole fleet
+		metrics = new ElevatorMetrics(name, lowestFloor, highestFloor);
+		for (int i = 0; i < elevators.size(); i++) {
+			final Elevator elevator = elevators.get(i);
+			elevator.getStatus().setLatencyRecorder(metrics.newRecorder(elevator.getStatus().getElevatorName()));
+			if(journal != null) {
+				elevator.getStatus().setJournal(journal);
+			}
+			if(requestLog != null) {
+				elevator.getStatus().setRequestLog(requestLog, i);
+			}
+		}
 		
-		executor = Executors.newFixedThreadPool(number);
-		queue = UserRequestQueue.getUserRequestQueue();
+		final long allocatedAfter = allocatedBytes();
+		if(allocatedBefore >= 0 && allocatedAfter >= 0 && number > 0) {
+			heapBytesPerElevator = (allocatedAfter - allocatedBefore) / number;
+		}
 		
-		 for (int i = 1; i <= number; i++) {
-		     final Runnable elevator = new Elevator("Elevator-"+i, queue);
-		     executor.execute(elevator);
-		 }
-	 }
+		this.engine = engine;
+		this.clock = clock;
+		dispatcher = new ElevatorDispatcher(elevators, dispatchStrategy);
+		metrics.registerMBeans(new FleetGauges(dispatcher.getElevators()));
+		if(requestLog != null) {
+			restore(requestLog.getRecovered());
+		}
+		if(engine == ElevatorEngine.EVENT_LOOP) {
+			numberOfThreads = Math.max(1, Math.min(number, eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors()));
+			scheduler = new TimerWheelScheduler(name + "EventLoop", numberOfThreads, Constants.EVENT_LOOP_TICK_MILLIS, Constants.EVENT_LOOP_WHEEL_SIZE, clock);
+			for (ElevatorStateMachine stateMachine : stateMachines) {
+				stateMachine.start(scheduler);
+			}
+			scheduler.start();
+		} else {
+			numberOfThreads = number;
+			executor = engine == ElevatorEngine.VIRTUAL_THREAD_PER_ELEVATOR ? VirtualThreads.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(number);
+			for (Elevator elevator : elevators) {
+				executor.execute(elevator);
+			}
+		}
+		logger.info("Started " + number + " Elevators of " + name + " on " + engine + " dispatched by " + dispatchStrategy + " : " + numberOfThreads + " threads, "
+				+ (number == 0 ? 0 : (double) numberOfThreads / number) + " threads and " + heapBytesPerElevator + " bytes of heap per Elevator");
+	}
+	
+	/**
+	 * Hands the requests recovered from the log back to the Elevators, before they are started.
+	 * The requests of the Elevators which no longer exist are dispatched again, their riders are lost.
+	 */
+	private void restore(final RequestLogState recovered) {
+		final List<Elevator> elevators = dispatcher.getElevators();
+		final List<UserRequest> orphans = new ArrayList<>();
+		for (int car : recovered.getCars()) {
+			if(car < elevators.size()) {
+				final Elevator elevator = elevators.get(car);
+				for (UserRequest rider : recovered.getRiding(car)) {
+					elevator.getStatus().restoreRider(rider);
+				}
+				final List<UserRequest> waiting = recovered.getWaiting(car);
+				if(!waiting.isEmpty()) {
+					elevator.getQueue().addUserRequests(waiting);
+				}
+			} else {
+				orphans.addAll(recovered.getWaiting(car));
+				int riding = 0;
+				for (UserRequest rider : recovered.getRiding(car)) {
+					riding += rider.getNumberOfPassengers();
+				}
+				if(riding > 0) {
+					logger.warn(riding + " users were riding in Elevator " + (car + 1) + " of " + name + " which no longer exists");
+				}
+				requestLog.abandoned(car, clock.currentTimeMillis());
+			}
+		}
+		if(!orphans.isEmpty()) {
+			dispatcher.dispatchAll(orphans);
+		}
+		awaitDurable();
+	}
+	
+	/**
+	 * Waits for the requests logged so far to be on the disk
+	 */
+	private void awaitDurable() {
+		if(requestLog != null) {
+			try {
+				requestLog.sync();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Requests of " + name + " could not be logged", e);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the bytes allocated so far by the calling thread, or -1 if the JVM does not count them
+	 */
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(threads instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+			if(hotspotThreads.isThreadAllocatedMemorySupported() && hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+				return hotspotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the name of this bank
+	 * @return Bank Name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the floors and the travel and door times of this bank
+	 * @return Building Configuration
+	 */
+	public BuildingConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * Returns the lowest floor served by this bank
+	 * @return Lowest Floor
+	 */
+	public int getLowestFloor() {
+		return lowestFloor;
+	}
+	
+	/**
+	 * Returns the highest floor served by this bank
+	 * @return Highest Floor
+	 */
+	public int getHighestFloor() {
+		return highestFloor;
+	}
+	
+	/**
+	 * Sets the maximum number of threads running the Elevators of this bank on {@link ElevatorEngine#EVENT_LOOP},
+	 * before the Elevators are started. By default there is a thread per processor, at most one per Elevator.
+	 * @param eventLoopThreads Number of threads, 0 for the default
+	 */
+	public void setEventLoopThreads(int eventLoopThreads) {
+		this.eventLoopThreads = eventLoopThreads;
+	}
+	
+	/**
+	 * Returns the latency statistics of the running Elevators, also exposed as MBeans
+	 * @return Elevator Metrics, null if the Elevators are not started
+	 */
+	public ElevatorMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Sets the journal where the Elevators record their events, before the Elevators are started
+	 * @param journal Event Journal
+	 */
+	public void setJournal(final EventJournal journal) {
+		this.journal = journal;
+	}
+	
+	/**
+	 * Sets the log the requests are written to before they are accepted, before the Elevators are started.
+	 * The requests it has recovered are handed back to the Elevators of the same index when they are started.
+	 * @param requestLog Request Log
+	 */
+	public void setRequestLog(final RequestLog requestLog) {
+		this.requestLog = requestLog;
+	}
+	
+	/**
+	 * Sets the policy assigning the requests to the Elevators and ordering the requests of every Elevator, before the Elevators are started
+	 * @param dispatchStrategy Dispatch Strategy, {@link DispatchPolicy#ETA} by default
+	 */
+	public void setDispatchStrategy(final DispatchStrategy dispatchStrategy) {
+		if(dispatchStrategy == null) {
+			throw new IllegalArgumentException("The Elevators of " + name + " need a dispatch strategy");
+		}
+		this.dispatchStrategy = dispatchStrategy;
+	}
+	
+	/**
+	 * Returns the policy assigning the requests to the Elevators
+	 * @return Dispatch Strategy
+	 */
+	public DispatchStrategy getDispatchStrategy() {
+		return dispatchStrategy;
+	}
+	
+	/**
+	 * Returns the engine the Elevators have been started on
+	 * @return Engine, null if the Elevators are not started
+	 */
+	public ElevatorEngine getEngine() {
+		return engine;
+	}
+	
+	/**
+	 * Returns the number of threads running the Elevators, virtual threads included
+	 * @return Number of threads
+	 */
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+	
+	/**
+	 * Returns the heap allocated when creating an Elevator, its status and its queue.
+	 * The stack of the thread of an Elevator running on {@link ElevatorEngine#THREAD_PER_ELEVATOR} is not included.
+	 * @return Bytes per Elevator, -1 if the JVM does not count the allocated bytes
+	 */
+	public long getHeapBytesPerElevator() {
+		return heapBytesPerElevator;
+	}
 	
 	/**
 	 * Shut Down all the Running Elevators
 	 */
 	public void shutDownElevators() {
-		if(!executor.isShutdown()) {
+		if(executor != null && !executor.isShutdown()) {
 			executor.shutdownNow();
 		}
+		if(scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		if(metrics != null) {
+			metrics.unregisterMBeans();
+		}
+	}
+	
+	/**
+	 * Waits for the threads of the Elevators to end after {@link #shutDownElevators()}
+	 * @param timeout Maximum time to wait
+	 * @param unit Unit of the timeout
+	 * @return true if all the threads have ended
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public boolean awaitTermination(long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if(executor != null && !executor.awaitTermination(timeout, unit)) {
+			return false;
+		}
+		return scheduler == null || scheduler.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the dispatcher assigning the requests to the running Elevators
+	 * @return Elevator Dispatcher, null if the Elevators are not started
+	 */
+	public ElevatorDispatcher getDispatcher() {
+		return dispatcher;
+	}
+	
+	/**
+	 * Reads the state of all the Elevators without blocking them, cheap enough to be polled by monitoring many times a second.
+	 * Every Elevator is read consistently, the Elevators are read one after the other.
+	 * @return Snapshots of the Elevators in the order of their names, empty if the Elevators are not started
+	 */
+	public List<ElevatorSnapshot> snapshot() {
+		final ElevatorDispatcher currentDispatcher = dispatcher;
+		if(currentDispatcher == null) {
+			return Collections.emptyList();
+		}
+		final List<Elevator> elevators = currentDispatcher.getElevators();
+		final List<ElevatorSnapshot> snapshots = new ArrayList<>(elevators.size());
+		for (int i = 0; i < elevators.size(); i++) {
+			snapshots.add(elevators.get(i).getStatus().snapshot());
+		}
+		return snapshots;
 	}
 	
 	/**
-	 * Adds User Request in the Queue
+	 * Assigns User Request to one of the Elevators
 	 * @param currentFloor User's Current Floor
 	 * @param floorToGo The Floor User wants to go
 	 * @param direction Direction
 	 * @throws ValidationException Validation Exception if the request is invalid
+	 * @throws UncheckedIOException If the request cannot be written to the {@link RequestLog}
+	 * @throws IllegalStateException If the Elevators are not started
 	 */
 	public void raiseUserRequest(int currentFloor, int floorToGo, ElevatorDirection direction) throws ValidationException {
+		final ElevatorDispatcher startedDispatcher = startedDispatcher();
 		final UserRequest request = new UserRequest(currentFloor,floorToGo, direction);
 		validator.validateUserRequest(request);
-	    queue.addUserRequest(request);
+		request.markSubmitted(clock.currentTimeMillis());
+	    startedDispatcher.dispatch(request);
+	    awaitDurable();
+	}
+	
+	/**
+	 * Assigns a batch of User Requests to the Elevators.
+	 * The valid requests are assigned even if some requests of the batch are invalid.
+	 * @param requests User Requests
+	 * @return The invalid requests with the reason of their rejection, empty if all the requests have been accepted
+	 * @throws UncheckedIOException If the requests cannot be written to the {@link RequestLog}
+	 * @throws IllegalStateException If the Elevators are not started
+	 */
+	public Map<UserRequest, ValidationException> raiseUserRequests(final Collection<UserRequest> requests) {
+		final ElevatorDispatcher startedDispatcher = startedDispatcher();
+		final Map<UserRequest, ValidationException> rejectedRequests = validator.validateUserRequests(requests);
+		final long submittedAt = clock.currentTimeMillis();
+		for(UserRequest request : requests) {
+			request.markSubmitted(submittedAt);
+		}
+		if(rejectedRequests.isEmpty()) {
+			startedDispatcher.dispatchAll(requests);
+		} else {
+			final List<UserRequest> acceptedRequests = new ArrayList<>(requests.size());
+			for(UserRequest request : requests) {
+				if(!rejectedRequests.containsKey(request)) {
+					acceptedRequests.add(request);
+				}
+			}
+			startedDispatcher.dispatchAll(acceptedRequests);
+		}
+		awaitDurable();
+		return rejectedRequests;
+	}
+	
+	/**
+	 * Returns the dispatcher of the running Elevators, the requests having no queue to wait in before they are started.
+	 * The clock is set before the dispatcher, so it is set as well.
+	 */
+	private ElevatorDispatcher startedDispatcher() {
+		final ElevatorDispatcher startedDispatcher = dispatcher;
+		if(startedDispatcher == null) {
+			throw new IllegalStateException("The Elevators of " + name + " are not started, requests can only be raised once they are");
+		}
+		return startedDispatcher;
 	}
 }
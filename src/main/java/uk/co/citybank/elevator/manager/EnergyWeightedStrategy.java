@@ -0,0 +1,102 @@
+package uk.co.citybank.elevator.manager;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.HallCallOrder;
+import uk.co.citybank.elevator.queue.RequestOrder;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+import uk.co.citybank.elevator.utility.FloorBitSet;
+
+/**
+ * Assigns a request to the Elevator which serves it for the lowest estimated time of arrival plus the motor work it adds, priced in milliseconds of wait.
+ * The work added is counted in floors : the floors the Elevator has to travel beyond the floors it already goes to in order to pick the user up
+ * and drop them, and a number of floors for every stop it has to make on top of its own, a run from rest drawing the most.
+ * An idle Elevator far from the user is therefore left parked when a busy one passes by, the users waiting a little longer.
+ * @author anuragtripathi
+ *
+ */
+public final class EnergyWeightedStrategy implements DispatchStrategy {
+
+	/** One floor of travel is worth 4 seconds of wait, a stop as much as 3 floors, the Elevators serving their queue in the LOOK order */
+	public static final EnergyWeightedStrategy DEFAULT = new EnergyWeightedStrategy(4000, 3, HallCallOrder.LOOK);
+
+	private final long millisPerFloor;
+	private final long floorsPerStop;
+	private final RequestOrder order;
+
+	/**
+	 * Constructor
+	 * @param millisPerFloor Wait, in milliseconds, worth one floor of travel, 0 to dispatch on the time of arrival only
+	 * @param floorsPerStop Floors of travel worth the work of one stop and start
+	 * @param order Order in which the Elevators serve their queue
+	 */
+	public EnergyWeightedStrategy(long millisPerFloor, long floorsPerStop, final RequestOrder order) {
+		if (millisPerFloor < 0 || floorsPerStop < 0) {
+			throw new IllegalArgumentException("The weights of the energy can not be negative : " + millisPerFloor + " ms per floor, "
+					+ floorsPerStop + " floors per stop");
+		}
+		if (order == null) {
+			throw new IllegalArgumentException("Request Order is required");
+		}
+		this.millisPerFloor = millisPerFloor;
+		this.floorsPerStop = floorsPerStop;
+		this.order = order;
+	}
+
+	@Override
+	public long costToServe(final ElevatorStatus status, int assignedFloors, final UserRequest request) {
+		return ElevatorDispatcher.estimateTimeToArrive(status, assignedFloors, request) + millisPerFloor * energyToServe(status, request, floorsPerStop);
+	}
+
+	/**
+	 * Returns the motor work an Elevator adds to serve a request, in floors of travel
+	 * @param status Status of the Elevator
+	 * @param request User Request
+	 * @param floorsPerStop Floors of travel worth the work of one stop and start
+	 * @return Work in floors
+	 */
+	static long energyToServe(final ElevatorStatus status, final UserRequest request, long floorsPerStop) {
+		final int floor = status.getCurrentFloor();
+		final int callFloor = request.getCurrentFloor();
+		final int floorToGo = request.getFloorToGo();
+		final long stops = (status.isStoppingAt(callFloor) ? 0 : 1) + (status.isStoppingAt(floorToGo) ? 0 : 1);
+		final int highest = status.getHighestFloorToStop();
+		if (highest == FloorBitSet.NO_FLOOR) {
+			// The Elevator travels for this user only, from the floor it is parked at
+			return Math.abs((long) callFloor - floor) + Math.abs((long) floorToGo - callFloor) + stops * floorsPerStop;
+		}
+		// Only the floors beyond the way the Elevator already goes are added
+		final long top = Math.max(floor, highest);
+		final long bottom = Math.min(floor, status.getLowestFloorToStop());
+		final long above = Math.max(0, Math.max(callFloor, floorToGo) - top);
+		final long below = Math.max(0, bottom - Math.min(callFloor, floorToGo));
+		return above + below + stops * floorsPerStop;
+	}
+
+	@Override
+	public UserRequest poll(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction, int maxPassengers) {
+		return order.poll(queue, currentFloor, direction, maxPassengers);
+	}
+
+	/**
+	 * Returns the wait worth one floor of travel
+	 * @return Time in milliseconds
+	 */
+	public long getMillisPerFloor() {
+		return millisPerFloor;
+	}
+
+	/**
+	 * Returns the floors of travel worth one stop
+	 * @return Number of floors
+	 */
+	public long getFloorsPerStop() {
+		return floorsPerStop;
+	}
+
+	@Override
+	public String toString() {
+		return "ENERGY:" + millisPerFloor + ":" + floorsPerStop;
+	}
+}
@@ -0,0 +1,133 @@
+package uk.co.citybank.elevator.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency statistics of a bank of Elevators, per Elevator, per floor and for the whole bank,
+ * exposed as MBeans in the platform MBean server under the domain {@value #DOMAIN} :
+ * <pre>
+ * bank=Elevator,type=Fleet,name=Latency       wait and ride latencies of all the users
+ * bank=Elevator,type=Fleet,name=Gauges        queue depth and idle Elevators
+ * bank=Elevator,type=Elevator,name=Elevator-1 wait and ride latencies of the users of an Elevator
+ * bank=Elevator,type=Floor,name=3             wait and ride latencies of the users calling from a floor
+ * </pre>
+ * @author anuragtripathi
+ *
+ */
+public final class ElevatorMetrics {
+
+	final static Logger logger = LoggerFactory.getLogger(ElevatorMetrics.class);
+
+	public static final String DOMAIN = "uk.co.citybank.elevator";
+
+	private final String bankName;
+	private final int lowestFloor;
+	private final LatencyStatistics fleet = new LatencyStatistics();
+	private final LatencyStatistics[] floors;
+	private final Map<String, LatencyStatistics> elevators = new LinkedHashMap<>();
+	private final List<ObjectName> registeredNames = new ArrayList<>();
+
+	/**
+	 * Creates the statistics of the floors between the lowest and the highest floor (both included)
+	 * @param bankName Name of the bank of Elevators, part of the names of its MBeans
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
+	 */
+	public ElevatorMetrics(final String bankName, int lowestFloor, int highestFloor) {
+		this.bankName = bankName;
+		this.lowestFloor = lowestFloor;
+		this.floors = new LatencyStatistics[highestFloor - lowestFloor + 1];
+		for (int i = 0; i < floors.length; i++) {
+			floors[i] = new LatencyStatistics();
+		}
+	}
+
+	/**
+	 * Creates the statistics of an Elevator
+	 * @param elevatorName Elevator Name
+	 * @return Recorder to be used by the Elevator
+	 */
+	public LatencyRecorder newRecorder(final String elevatorName) {
+		final LatencyStatistics statistics = new LatencyStatistics();
+		elevators.put(elevatorName, statistics);
+		return new LatencyRecorder(statistics, fleet, floors, lowestFloor);
+	}
+
+	/**
+	 * Returns the statistics of all the users
+	 * @return Fleet Statistics
+	 */
+	public LatencyStatistics getFleet() {
+		return fleet;
+	}
+
+	/**
+	 * Returns the statistics of the users calling from a floor
+	 * @param floor Floor
+	 * @return Floor Statistics
+	 */
+	public LatencyStatistics getFloor(int floor) {
+		return floors[floor - lowestFloor];
+	}
+
+	/**
+	 * Returns the statistics of the users of an Elevator
+	 * @param elevatorName Elevator Name
+	 * @return Elevator Statistics, null if unknown
+	 */
+	public LatencyStatistics getElevator(final String elevatorName) {
+		return elevators.get(elevatorName);
+	}
+
+	/**
+	 * Registers the MBeans of all the statistics and the gauges of the fleet.
+	 * An MBean already registered by another bank of the same name is left as it is.
+	 * @param gauges Gauges of the fleet
+	 */
+	public void registerMBeans(final FleetGaugesMXBean gauges) {
+		register("type=Fleet,name=Latency", fleet);
+		register("type=Fleet,name=Gauges", gauges);
+		for (Map.Entry<String, LatencyStatistics> elevator : elevators.entrySet()) {
+			register("type=Elevator,name=" + elevator.getKey(), elevator.getValue());
+		}
+		for (int i = 0; i < floors.length; i++) {
+			register("type=Floor,name=" + (lowestFloor + i), floors[i]);
+		}
+	}
+
+	private void register(final String properties, final Object mbean) {
+		try {
+			final ObjectName name = new ObjectName(DOMAIN + ":bank=" + bankName + "," + properties);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+			registeredNames.add(name);
+		} catch (JMException e) {
+			logger.warn("MBean " + properties + " could not be registered : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Unregisters the MBeans registered by {@link #registerMBeans(FleetGaugesMXBean)}
+	 */
+	public void unregisterMBeans() {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				logger.warn("MBean " + name + " could not be unregistered : " + e.getMessage());
+			}
+		}
+		registeredNames.clear();
+	}
+}
@@ -0,0 +1,49 @@
+package uk.co.citybank.elevator.metrics;
+
+import java.util.List;
+
+import uk.co.citybank.elevator.impl.Elevator;
+
+/**
+ * Gauges of the fleet computed when read, from the queues and the status of the Elevators without stopping them
+ * @author anuragtripathi
+ *
+ */
+public final class FleetGauges implements FleetGaugesMXBean {
+
+	private final List<Elevator> elevators;
+
+	/**
+	 * Constructor
+	 * @param elevators The Elevators of the fleet
+	 */
+	public FleetGauges(final List<Elevator> elevators) {
+		this.elevators = elevators;
+	}
+
+	@Override
+	public int getNumberOfElevators() {
+		return elevators.size();
+	}
+
+	@Override
+	public int getQueueDepth() {
+		int depth = 0;
+		for (int i = 0; i < elevators.size(); i++) {
+			depth += elevators.get(i).getQueue().getNumberOfRequests();
+		}
+		return depth;
+	}
+
+	@Override
+	public int getIdleElevators() {
+		int idle = 0;
+		for (int i = 0; i < elevators.size(); i++) {
+			final Elevator elevator = elevators.get(i);
+			if (!elevator.getStatus().areUsersStillInElevator() && elevator.getQueue().isEmpty()) {
+				idle++;
+			}
+		}
+		return idle;
+	}
+}
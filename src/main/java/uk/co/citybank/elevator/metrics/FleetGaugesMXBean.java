@@ -0,0 +1,21 @@
+package uk.co.citybank.elevator.metrics;
+
+/**
+ * JMX view of the current load of the fleet of Elevators
+ * @author anuragtripathi
+ *
+ */
+public interface FleetGaugesMXBean {
+
+	public int getNumberOfElevators();
+
+	/**
+	 * Number of requests assigned to the Elevators whose users have not been picked up yet
+	 */
+	public int getQueueDepth();
+
+	/**
+	 * Number of Elevators having neither users to drop nor requests assigned
+	 */
+	public int getIdleElevators();
+}
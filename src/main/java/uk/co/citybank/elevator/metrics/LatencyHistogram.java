@@ -0,0 +1,135 @@
+package uk.co.citybank.elevator.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with a fixed memory, in the way of an HDR Histogram.
+ * The values below 32 have a bucket each, above that every power of two is split into 16 buckets,
+ * so a value is counted in a bucket at most 1/16 wider than the value itself.
+ * Values above the highest trackable value are counted in the last bucket, the maximum is kept exactly.
+ *
+ * Recording is an atomic increment of one bucket, so any number of threads can record and read at the same time without any lock.
+ * @author anuragtripathi
+ *
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_BUCKETS = SUB_BUCKETS << 1;
+
+	private final long highestTrackableValue;
+	private final AtomicLongArray counts;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Creates an empty histogram
+	 * @param highestTrackableValue Highest value counted in its own bucket
+	 */
+	public LatencyHistogram(long highestTrackableValue) {
+		if (highestTrackableValue < LINEAR_BUCKETS) {
+			throw new IllegalArgumentException("Highest trackable value " + highestTrackableValue + " is below " + LINEAR_BUCKETS);
+		}
+		this.highestTrackableValue = highestTrackableValue;
+		this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+	}
+
+	private static int indexOf(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the highest value counted in the bucket
+	 */
+	private static long highestValueOf(int index) {
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+		final int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		final int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+		final int shift = magnitude - SUB_BUCKET_BITS;
+		return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Records a value
+	 * @param value Value, negative values are counted as zero
+	 */
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Records the same value several times, for the users of a coalesced request
+	 * @param value Value, negative values are counted as zero
+	 * @param times Number of times the value is recorded
+	 */
+	public void record(long value, int times) {
+		final long recorded = Math.max(0, value);
+		counts.addAndGet(indexOf(Math.min(recorded, highestTrackableValue)), times);
+		count.addAndGet(times);
+		total.addAndGet(recorded * times);
+		long currentMax;
+		while (recorded > (currentMax = max.get()) && !max.compareAndSet(currentMax, recorded)) {
+			// Another thread has recorded a value in between, compare again
+		}
+	}
+
+	/**
+	 * Returns the number of values recorded
+	 * @return Count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the highest value recorded
+	 * @return Maximum, 0 if nothing has been recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the values recorded
+	 * @return Mean, 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		final long recorded = count.get();
+		return recorded == 0 ? 0 : (double) total.get() / recorded;
+	}
+
+	/**
+	 * Returns the value below or equal to which the given percentage of the values have been recorded.
+	 * The value returned is the highest value of its bucket, and never above the maximum.
+	 * @param percentile Percentile between 0 and 100
+	 * @return Value, 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long recorded = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			recorded += counts.get(i);
+		}
+		if (recorded == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * recorded));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+}
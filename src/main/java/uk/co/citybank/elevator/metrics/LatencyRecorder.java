@@ -0,0 +1,55 @@
+package uk.co.citybank.elevator.metrics;
+
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Records the latencies of the users of one Elevator, in the statistics of the Elevator,
+ * of the floor the user called it from and of the whole fleet
+ * @author anuragtripathi
+ *
+ */
+public final class LatencyRecorder {
+
+	private final LatencyStatistics elevator;
+	private final LatencyStatistics fleet;
+	private final LatencyStatistics[] floors;
+	private final int lowestFloor;
+
+	LatencyRecorder(final LatencyStatistics elevator, final LatencyStatistics fleet, final LatencyStatistics[] floors, int lowestFloor) {
+		this.elevator = elevator;
+		this.fleet = fleet;
+		this.floors = floors;
+		this.lowestFloor = lowestFloor;
+	}
+
+	/**
+	 * Records the wait of the users who have just been picked up, if the request has been stamped at submission.
+	 * The users of a coalesced request are counted as waiting since the earliest of them arrived.
+	 * @param request User Request
+	 */
+	public void pickedUp(final UserRequest request) {
+		if (request.getSubmittedAt() == UserRequest.NOT_STAMPED || request.getPickedUpAt() == UserRequest.NOT_STAMPED) {
+			return;
+		}
+		final long wait = request.getPickedUpAt() - request.getSubmittedAt();
+		final int passengers = request.getNumberOfPassengers();
+		elevator.getWait().record(wait, passengers);
+		fleet.getWait().record(wait, passengers);
+		floors[request.getCurrentFloor() - lowestFloor].getWait().record(wait, passengers);
+	}
+
+	/**
+	 * Records the ride of the users who have just been dropped
+	 * @param request User Request
+	 */
+	public void dropped(final UserRequest request) {
+		if (request.getPickedUpAt() == UserRequest.NOT_STAMPED || request.getDroppedAt() == UserRequest.NOT_STAMPED) {
+			return;
+		}
+		final long ride = request.getDroppedAt() - request.getPickedUpAt();
+		final int passengers = request.getNumberOfPassengers();
+		elevator.getRide().record(ride, passengers);
+		fleet.getRide().record(ride, passengers);
+		floors[request.getCurrentFloor() - lowestFloor].getRide().record(ride, passengers);
+	}
+}
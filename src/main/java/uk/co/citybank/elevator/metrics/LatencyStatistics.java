@@ -0,0 +1,91 @@
+package uk.co.citybank.elevator.metrics;
+
+/**
+ * Wait and ride latencies of an Elevator, of a floor or of the whole fleet
+ * @author anuragtripathi
+ *
+ */
+public final class LatencyStatistics implements LatencyStatisticsMXBean {
+
+	/** Latencies above one hour are counted together */
+	private static final long HIGHEST_TRACKABLE_MILLIS = 60 * 60 * 1000L;
+
+	private final LatencyHistogram wait = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+	private final LatencyHistogram ride = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+
+	/**
+	 * Returns the histogram of the waits
+	 * @return Wait Histogram
+	 */
+	public LatencyHistogram getWait() {
+		return wait;
+	}
+
+	/**
+	 * Returns the histogram of the rides
+	 * @return Ride Histogram
+	 */
+	public LatencyHistogram getRide() {
+		return ride;
+	}
+
+	@Override
+	public long getWaitCount() {
+		return wait.getCount();
+	}
+
+	@Override
+	public long getWaitMaxMillis() {
+		return wait.getMax();
+	}
+
+	@Override
+	public double getWaitMeanMillis() {
+		return wait.getMean();
+	}
+
+	@Override
+	public long getWaitP50Millis() {
+		return wait.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getWaitP90Millis() {
+		return wait.getValueAtPercentile(90);
+	}
+
+	@Override
+	public long getWaitP99Millis() {
+		return wait.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getRideCount() {
+		return ride.getCount();
+	}
+
+	@Override
+	public long getRideMaxMillis() {
+		return ride.getMax();
+	}
+
+	@Override
+	public double getRideMeanMillis() {
+		return ride.getMean();
+	}
+
+	@Override
+	public long getRideP50Millis() {
+		return ride.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getRideP90Millis() {
+		return ride.getValueAtPercentile(90);
+	}
+
+	@Override
+	public long getRideP99Millis() {
+		return ride.getValueAtPercentile(99);
+	}
+}
@@ -0,0 +1,35 @@
+package uk.co.citybank.elevator.metrics;
+
+/**
+ * JMX view of the wait and ride latencies of an Elevator, of a floor or of the whole fleet, in milliseconds.
+ * The wait is the time between the submission of a request and the pick up of the user,
+ * the ride is the time between the pick up and the drop of the user.
+ * @author anuragtripathi
+ *
+ */
+public interface LatencyStatisticsMXBean {
+
+	public long getWaitCount();
+
+	public long getWaitMaxMillis();
+
+	public double getWaitMeanMillis();
+
+	public long getWaitP50Millis();
+
+	public long getWaitP90Millis();
+
+	public long getWaitP99Millis();
+
+	public long getRideCount();
+
+	public long getRideMaxMillis();
+
+	public double getRideMeanMillis();
+
+	public long getRideP50Millis();
+
+	public long getRideP90Millis();
+
+	public long getRideP99Millis();
+}
@@ -0,0 +1,102 @@
+package uk.co.citybank.elevator.model;
+
+import java.util.Arrays;
+
+/**
+ * The state of an Elevator at an instant : floor, direction, doors, riders and floors to stop,
+ * all read together so they are consistent with each other, see {@link ElevatorStatus#snapshot()}.
+ * @author anuragtripathi
+ *
+ */
+public final class ElevatorSnapshot {
+
+	private final String elevatorName;
+	private final long version;
+	private final int currentFloor;
+	private final ElevatorDirection direction;
+	private final boolean doorOpen;
+	private final int numberOfRiders;
+	private final int[] floorsToStop;
+
+	ElevatorSnapshot(final String elevatorName, long version, int currentFloor, final ElevatorDirection direction, boolean doorOpen,
+			int numberOfRiders, final int[] floorsToStop) {
+		this.elevatorName = elevatorName;
+		this.version = version;
+		this.currentFloor = currentFloor;
+		this.direction = direction;
+		this.doorOpen = doorOpen;
+		this.numberOfRiders = numberOfRiders;
+		this.floorsToStop = floorsToStop;
+	}
+
+	/**
+	 * Returns the name of the Elevator
+	 * @return Elevator Name
+	 */
+	public String getElevatorName() {
+		return elevatorName;
+	}
+
+	/**
+	 * Returns the version of the state, which changes every time the state of the Elevator changes
+	 * @return Version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the floor the Elevator is at
+	 * @return Current Floor
+	 */
+	public int getCurrentFloor() {
+		return currentFloor;
+	}
+
+	/**
+	 * Returns the direction of the Elevator
+	 * @return Direction
+	 */
+	public ElevatorDirection getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Determines if the doors are open at the current floor
+	 * @return true/false
+	 */
+	public boolean isDoorOpen() {
+		return doorOpen;
+	}
+
+	/**
+	 * Returns the number of users riding in the Elevator
+	 * @return Number of users
+	 */
+	public int getNumberOfRiders() {
+		return numberOfRiders;
+	}
+
+	/**
+	 * Returns the floors the Elevator is going to stop at
+	 * @return Floors in increasing order
+	 */
+	public int[] getFloorsToStop() {
+		return floorsToStop.clone();
+	}
+
+	/**
+	 * Determines if the Elevator is going to stop at a floor
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	public boolean isStoppingAt(int floor) {
+		return Arrays.binarySearch(floorsToStop, floor) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return elevatorName + " at " + currentFloor + " going " + direction + (doorOpen ? ", doors open" : "") + ", " + numberOfRiders
+				+ " riders, stopping at " + Arrays.toString(floorsToStop);
+	}
+}
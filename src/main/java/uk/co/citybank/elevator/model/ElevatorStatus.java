@@ -1,36 +1,97 @@
 package uk.co.citybank.elevator.model;
 
-import java.util.SortedSet;
-import java.util.TreeSet;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
 
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.WallClock;
+import uk.co.citybank.elevator.journal.EventJournal;
+import uk.co.citybank.elevator.journal.EventType;
+import uk.co.citybank.elevator.journal.RequestLog;
+import uk.co.citybank.elevator.metrics.LatencyRecorder;
 import uk.co.citybank.elevator.queue.UserRequestQueue;
-import uk.co.citybank.elevator.utility.Constants;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.CarCapacity;
+import uk.co.citybank.elevator.utility.FloorBitSet;
 
 /**
  * This class holds the state of each Elevator Thread. A thread will have its own copy
+ * Only the Elevator thread changes it, the current floor, the direction and the floors to stop can be read by other threads
+ * (for example by the dispatcher estimating when this Elevator can reach a user)
+ * Every change is made between two increments of a sequence number, so {@link #snapshot()} reads the floor, the direction, the doors,
+ * the riders and the floors to stop consistently without ever blocking the Elevator thread : a read overlapping a change is retried.
+ * The moves, the doors and the picks are recorded in the {@link EventJournal} if one is set, no log message is built.
+ * The picks and the drops are also logged to the {@link RequestLog} if one is set, so the riders survive a crash.
+ * They are logged and their latencies recorded once the change has ended, a reader never spins while the Elevator waits for the log.
+ * The car only takes the users who fit in its {@link CarCapacity}, the others keep waiting in the queue, and a full car passes the hall calls by.
+ * On its way to a user picked from the queue, the Elevator serves the users waiting in its direction and drops them as in a sweep,
+ * keeping room for the user it is going to.
  * @author anuragtripathi
  *
  */
 public class ElevatorStatus {
 	
-	final static Logger logger = LoggerFactory.getLogger(ElevatorStatus.class);
-	
 	private final String elevatorName;
 	
-    private int currentFloor;
-    private ElevatorDirection direction;
+    private volatile int currentFloor;
+    private volatile ElevatorDirection direction;
     private final UserRequestQueue queue;
+    private final ElevatorClock clock;
+    private final BuildingConfiguration configuration;
+    
+    // Whether the Elevator is moving, the first floor of a run takes the acceleration time as well, only used by the Elevator thread
+    private boolean inMotion;
    
     /**
      * Holds the Unique Ordered List of Floors where Elevator needs to stop for Pick and Drop.
      * For Example, If Elevator picks an user which is currently at floor 2 and wants 
      * to go at floor 5 , then it needs to stop at both floors. Will need to stop at floor 2 to pick the user and
      * at floor 5 to drop the user. 
+     * Held as a bitset of the floors served by the queue so that the checks done on every floor neither allocate nor walk a tree.
      */
-    private SortedSet<Integer> floorsToStop = new TreeSet<Integer>();
+    private final FloorBitSet floorsToStop;
+    
+    // Users picked up by this Elevator and not yet dropped, only changed by the Elevator thread
+    private final List<UserRequest> riders = new ArrayList<>();
+    // Users let in at the current stop, reused on every stop so that a stop where nobody waits allocates nothing
+    private final List<UserRequest> pickedRequests = new ArrayList<>();
+    // Users picked up and riders dropped by the current change, logged once it has ended, only used by the Elevator thread
+    private final List<UserRequest> pickedUpInChange = new ArrayList<>();
+    private final List<UserRequest> droppedInChange = new ArrayList<>();
+    private int dropFloor = FloorBitSet.NO_FLOOR;
+    private long droppedAt;
+    // Users of the riders, a rider standing for all the users of a coalesced request
+    private int passengers;
+    
+    private volatile CarCapacity capacity;
+    
+    // Floor of the user the Elevator is going to once picked from the queue, read by the dispatcher, NO_FLOOR when none
+    private volatile int approachFloor = FloorBitSet.NO_FLOOR;
+    // Users the Elevator keeps room for on its way, only used by the Elevator thread
+    private int approachPassengers;
+    // Farthest floor the users picked up on the way can go to when the Elevator turns back at the user, NO_FLOOR when it does not
+    private int approachFloorToGo = FloorBitSet.NO_FLOOR;
+    
+    private volatile boolean doorOpen;
+    // Floors moved since the Elevator was created, only written by the Elevator thread
+    private volatile long floorsTravelled;
+    // Floors moved without anybody inside, going to a user or parked, only written by the Elevator thread
+    private volatile long emptyFloorsTravelled;
+    // Runs started from rest and stops made to open the doors, where the motor draws the most, only written by the Elevator thread
+    private volatile long starts;
+    private volatile long stops;
+    
+    // Odd while the Elevator thread changes the state, incremented twice by every change
+    private volatile long sequence;
+    // Depth of the nested changes, only used by the Elevator thread
+    private int changeDepth;
+    
+    private EventJournal journal;
+    private int journalId;
+    private RequestLog requestLog;
+    private int requestLogIndex;
+    private LatencyRecorder latencyRecorder;
     
     /**
      * Constructor to Initialise Elevator Thread 
@@ -40,11 +101,44 @@ public class ElevatorStatus {
      * @param queue The User Request Queue
      */
 	public ElevatorStatus(String elevatorName,int currentFloor, ElevatorDirection direction,final UserRequestQueue queue) {
+		this(elevatorName, currentFloor, direction, queue, new WallClock());
+	}
+	
+    /**
+     * Constructor to Initialise Elevator Thread 
+     * @param elevatorName Elevator Name
+     * @param currentFloor Current Floor of Elevator
+     * @param direction The direction of Elevator
+     * @param queue The User Request Queue
+     * @param clock The Clock used to wait while moving and on floors
+     */
+	public ElevatorStatus(String elevatorName,int currentFloor, ElevatorDirection direction,final UserRequestQueue queue, final ElevatorClock clock) {
+		this(elevatorName, currentFloor, direction, queue, clock, BuildingConfiguration.defaultTimings(queue.getLowestFloor(), queue.getHighestFloor()));
+	}
+	
+    /**
+     * Constructor to Initialise Elevator Thread 
+     * @param elevatorName Elevator Name
+     * @param currentFloor Current Floor of Elevator
+     * @param direction The direction of Elevator
+     * @param queue The User Request Queue
+     * @param clock The Clock used to wait while moving and on floors
+     * @param configuration The travel and door times of the building, covering the floors of the queue
+     */
+	public ElevatorStatus(String elevatorName,int currentFloor, ElevatorDirection direction,final UserRequestQueue queue, final ElevatorClock clock,
+			final BuildingConfiguration configuration) {
 		super();
+		if(queue.getLowestFloor() < configuration.getLowestFloor() || queue.getHighestFloor() > configuration.getHighestFloor()) {
+			throw new IllegalArgumentException("Floors of " + elevatorName + " are not all in the building : " + configuration);
+		}
 		this.elevatorName=elevatorName;
 		this.currentFloor = currentFloor;
 		this.direction = direction;
 		this.queue = queue;
+		this.clock = clock;
+		this.configuration = configuration;
+		this.capacity = configuration.getCarCapacity();
+		this.floorsToStop = new FloorBitSet(queue.getLowestFloor(), queue.getHighestFloor());
 	}
 	
 	/**
@@ -63,6 +157,108 @@ public class ElevatorStatus {
 		return direction;
 	}
 	
+	/**
+	 * Returns the lowest floor this Elevator can go to
+	 * @return Lowest Floor
+	 */
+	public int getLowestFloor() {
+		return queue.getLowestFloor();
+	}
+	
+	/**
+	 * Returns the highest floor this Elevator can go to
+	 * @return Highest Floor
+	 */
+	public int getHighestFloor() {
+		return queue.getHighestFloor();
+	}
+	
+	/**
+	 * Returns the travel and door times of the building
+	 * @return Building Configuration
+	 */
+	public BuildingConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * Returns the capacity of the car
+	 * @return Car Capacity
+	 */
+	public CarCapacity getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Sets the capacity of the car, for a car not of the size of the others of the building. To be called before the Elevator is started.
+	 * @param capacity Car Capacity
+	 */
+	public void setCapacity(final CarCapacity capacity) {
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Returns the number of users who can still get in, only exact when called by the Elevator thread
+	 * @return Number of users, 0 when the car is full
+	 */
+	public int getRoom() {
+		return capacity.getRoom(passengers + approachPassengers);
+	}
+	
+	/**
+	 * Determines if no more user can get in, only exact when called by the Elevator thread
+	 * @return true/false
+	 */
+	public boolean isFull() {
+		return getRoom() == 0;
+	}
+	
+	/**
+	 * Returns the load of the users riding, only exact when called by the Elevator thread
+	 * @return Load in kilograms
+	 */
+	public long getLoadKg() {
+		return capacity.getLoadKg(passengers);
+	}
+	
+	/**
+	 * Returns the highest floor where the Elevator needs to stop, the floor of the user it is going to included
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR} if the Elevator has nothing to do
+	 */
+	public int getHighestFloorToStop() {
+		final int floor = floorsToStop.previousFloor(queue.getHighestFloor());
+		final int approach = approachFloor;
+		return approach == FloorBitSet.NO_FLOOR || (floor != FloorBitSet.NO_FLOOR && floor > approach) ? floor : approach;
+	}
+	
+	/**
+	 * Returns the lowest floor where the Elevator needs to stop, the floor of the user it is going to included
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR} if the Elevator has nothing to do
+	 */
+	public int getLowestFloorToStop() {
+		final int floor = floorsToStop.nextFloor(queue.getLowestFloor());
+		final int approach = approachFloor;
+		return approach == FloorBitSet.NO_FLOOR || (floor != FloorBitSet.NO_FLOOR && floor < approach) ? floor : approach;
+	}
+	
+	/**
+	 * Determines if the Elevator already stops at a floor, to drop a user or to reach the user it is going to
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	public boolean isStoppingAt(int floor) {
+		return floor == approachFloor || floorsToStop.contains(floor);
+	}
+	
+	/**
+	 * Returns the number of floors where the Elevator needs to stop, the floor of the user it is going to included
+	 * @return Number of floors
+	 */
+	public int getNumberOfFloorsToStop() {
+		final int approach = approachFloor;
+		return floorsToStop.size() + (approach == FloorBitSet.NO_FLOOR || floorsToStop.contains(approach) ? 0 : 1);
+	}
+	
 	/**
 	 * Returns Elevator Name
 	 * @return Elevator
@@ -76,16 +272,51 @@ public class ElevatorStatus {
 	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
 	 */
 	public void moveOneFloorUp() throws InterruptedException   {
-		if(direction != ElevatorDirection.UP) {
-			this.direction = ElevatorDirection.UP;
+		final long travelMillis = stepOneFloorUp();
+		if(travelMillis > 0) {
+			clock.sleep(travelMillis);
+		}
+	}
+	
+	/**
+	 * Moves one Floor Up without waiting for the time the move takes.
+	 * Used by the event loop engine, which schedules the arrival at the next floor itself.
+	 * @return Time the move takes in milliseconds, 0 if the Elevator already is at the highest floor
+	 */
+	public long stepOneFloorUp() {
+		beginChange();
+		try {
+			if(direction != ElevatorDirection.UP) {
+				// Turning back, the Elevator has stopped first
+				this.direction = ElevatorDirection.UP;
+				inMotion = false;
+			}
+			if(currentFloor<queue.getHighestFloor()) {
+				// Remove the entry from pick and drop set if exists
+				floorsToStop.remove(currentFloor++);
+				floorsTravelled++;
+				if(passengers == 0) {
+					emptyFloorsTravelled++;
+				}
+				record(EventType.MOVE, currentFloor-1, currentFloor, floorsToStop.size(), 0);
+				return travelMillis(currentFloor-1, currentFloor);
+			}
+			return 0;
+		} finally {
+			endChange();
 		}
-		if(currentFloor<Constants.HIGHEST_FLOORS) {
-			// Remove the entry from pick and drop set if exists
-		   floorsToStop.remove(currentFloor++);
-		    
-		   Thread.sleep(Constants.TIME_MOVE_ONE_FLOOR*1000);
-		   logMessage("Moved from Floor "+ (currentFloor-1) +" to Floor "+currentFloor + " - Floors To Stop :" +floorsToStop);
+	}
+	
+	/**
+	 * Returns the time to travel between two next floors, with the acceleration if the Elevator was stopped
+	 */
+	private long travelMillis(int fromFloor, int toFloor) {
+		final long travelMillis = configuration.getTravelMillis(fromFloor, toFloor) + (inMotion ? 0 : configuration.getAccelerationMillis());
+		if(!inMotion) {
+			starts++;
 		}
+		inMotion = true;
+		return travelMillis;
 	}
 	
 	/**
@@ -94,29 +325,64 @@ public class ElevatorStatus {
 	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
 	 */
 	public void waitOnTheCurrentFloor(boolean canPickNewRequests) throws InterruptedException  {
-		logMessage("Opening at "+ currentFloor +" : Floors To Stop "+floorsToStop);
+		openDoors(canPickNewRequests);
+		
+		// Once Elevator Stops at any floor, Sleeping the Current Elevator to show User In And Out Events
+		clock.sleep(configuration.getDoorDwellMillis());
+		
+		closeDoors();
+	}
+	
+	/**
+	 * Opens the doors at the current floor and lets in the users waiting to go in the direction of the Elevator.
+	 * Does not wait for the users to get in or out, see {@link #waitOnTheCurrentFloor(boolean)}
+	 * @param canPickNewRequests Boolean to indicate of Elevator can pick the new requests from queue or not
+	 */
+	public void openDoors(boolean canPickNewRequests) {
+		inMotion = false;
+		stops++;
+		record(EventType.DOOR_OPEN, currentFloor, floorsToStop.size(), 0, 0);
+		beginChange();
+		doorOpen = true;
+		dropRidersAtCurrentFloor();
+		// The current floor is served as soon as the doors open, the readers never see it to stop while they are open
+		floorsToStop.remove(currentFloor);
+		endChange();
 		
 		// If thread has not been requested to shut down , Elevator can take new User
-		if(canPickNewRequests) {
+		// The queue is searched outside of the change, the readers of the state do not wait for it
+		final int room = getRoom();
+		if(canPickNewRequests && room > 0) {
 			/**
 			 * If Elevator is going down and if there are some users waiting at the current floor and want to go down, then let them in
 			 * and If Elevator is going UP and if there are some users waiting at the current floor and want to go UP, then let them in
 			 */
 			
 			if(direction == ElevatorDirection.UP) {
-				queue.pickUsersWantToGoUpWaitingAtCurrentFloor(currentFloor).forEach(p->addRequestToWorkOn(p));
+				queue.pickUsersWantToGoUpWaitingAtCurrentFloor(currentFloor, room, farthestFloorToGo(), pickedRequests);
 			}  else {
-				queue.pickUsersWantToGoDownWaitingAtCurrentFloor(currentFloor).forEach(p->addRequestToWorkOn(p));
+				queue.pickUsersWantToGoDownWaitingAtCurrentFloor(currentFloor, room, farthestFloorToGo(), pickedRequests);
 			}
 		}
 		
-		// Remove the Current Floor From the Elevator Set which is used to find if it needs to stop at particular floors
-		floorsToStop.remove(currentFloor);
-		
-		// Once Elevator Stops at any floor, Sleeping the Current Elevator to show User In And Out Events
-		Thread.sleep(Constants.TIME_USER_PICKDROP*1000);
-		
-		logMessage("Closing at "+ currentFloor+" : Floors To Stop "+floorsToStop);
+		if(!pickedRequests.isEmpty()) {
+			beginChange();
+			addRequestsToWorkOn(pickedRequests);
+			// Remove the Current Floor From the Elevator Set which is used to find if it needs to stop at particular floors
+			floorsToStop.remove(currentFloor);
+			endChange();
+			pickedRequests.clear();
+		}
+	}
+	
+	/**
+	 * Closes the doors at the current floor
+	 */
+	public void closeDoors() {
+		record(EventType.DOOR_CLOSE, currentFloor, floorsToStop.size(), 0, 0);
+		beginChange();
+		doorOpen = false;
+		endChange();
 	}
 	
 	/**
@@ -124,48 +390,81 @@ public class ElevatorStatus {
 	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
 	 */
 	public void moveOneFloorDown() throws InterruptedException  {
-		if(direction != ElevatorDirection.DOWN) {
-			this.direction = ElevatorDirection.DOWN;
-		}
-		if(currentFloor>Constants.LOWEST_FLOOR) {
-			// Remove the entry from pick and drop set if exists
-			floorsToStop.remove(currentFloor--);
+		final long travelMillis = stepOneFloorDown();
+		if(travelMillis > 0) {
 			// Sleep the thread for certain time occurring in one floor move
-			Thread.sleep(Constants.TIME_MOVE_ONE_FLOOR*1000);
+			clock.sleep(travelMillis);
+		}
+	}
+	
+	/**
+	 * Moves one Floor Down without waiting for the time the move takes.
+	 * Used by the event loop engine, which schedules the arrival at the next floor itself.
+	 * @return Time the move takes in milliseconds, 0 if the Elevator already is at the lowest floor
+	 */
+	public long stepOneFloorDown() {
+		beginChange();
+		try {
+			if(direction != ElevatorDirection.DOWN) {
+				// Turning back, the Elevator has stopped first
+				this.direction = ElevatorDirection.DOWN;
+				inMotion = false;
+			}
+			if(currentFloor>queue.getLowestFloor()) {
+				// Remove the entry from pick and drop set if exists
+				floorsToStop.remove(currentFloor--);
+				floorsTravelled++;
+				if(passengers == 0) {
+					emptyFloorsTravelled++;
+				}
+				record(EventType.MOVE, currentFloor+1, currentFloor, floorsToStop.size(), 0);
+				return travelMillis(currentFloor+1, currentFloor);
+			}
+			return 0;
+		} finally {
+			endChange();
 		}
-		logMessage("Moved from Floor "+ (currentFloor+1) +" to Floor "+currentFloor +" - Floors To Stop :" +floorsToStop);
 	}
 	
 	/**
 	 * Determines if the an elevator needs to stop at current floor
 	 * If There is an entry for the current floor in pick and drop 
-	 * or there is any request pending from the current floor which needs to be picked up then it should stop
+	 * or there is any request pending from the current floor which needs to be picked up then it should stop.
+	 * A full car does not stop for the users waiting, nobody could get in.
 	 * @return true/false
 	 */
 	public boolean isElevatorNeedsToStopAtCurrentFloor() {
-		boolean isElevatorHasRequest = false;
-		if(direction == ElevatorDirection.UP) {
-			isElevatorHasRequest = floorsToStop.subSet(currentFloor, currentFloor+1).size() >= 1;
-		} else if(direction == ElevatorDirection.DOWN) {
-			isElevatorHasRequest = floorsToStop.subSet(currentFloor, currentFloor+1).size() >= 1;;
-		}
+		final boolean isElevatorHasRequest = floorsToStop.contains(currentFloor);
 		
 		boolean isAnyRequestCanbePickedFromCurrentFloor =false;
-		if(direction == ElevatorDirection.UP) {
-			isAnyRequestCanbePickedFromCurrentFloor = queue.isUserWillingToGoUpWaitingAtCurrentFloor(currentFloor);
-		} else {
-			isAnyRequestCanbePickedFromCurrentFloor = queue.isRequestToGoDownPendingFromCurrentFloor(currentFloor);
+		if(!isFull()) {
+			if(direction == ElevatorDirection.UP) {
+				isAnyRequestCanbePickedFromCurrentFloor = queue.isUserWillingToGoUpWaitingAtCurrentFloor(currentFloor, farthestFloorToGo());
+			} else {
+				isAnyRequestCanbePickedFromCurrentFloor = queue.isRequestToGoDownPendingFromCurrentFloor(currentFloor, farthestFloorToGo());
+			}
 		}
 		return isElevatorHasRequest || isAnyRequestCanbePickedFromCurrentFloor;
 	}
 	
+	/**
+	 * Returns the farthest floor the users getting in can go to : the end of the building in the direction of the Elevator,
+	 * or the floor of the user it is going to if it turns back there, the users going farther would ride the wrong way
+	 */
+	private int farthestFloorToGo() {
+		if(approachFloorToGo != FloorBitSet.NO_FLOOR) {
+			return approachFloorToGo;
+		}
+		return direction == ElevatorDirection.UP ? queue.getHighestFloor() : queue.getLowestFloor();
+	}
+	
 	/**
 	 * Finds Out if an elevator needs to go Up
-	 * Check if it has any entries in Set greater than current floor
+	 * Check if it has any entries in Set greater than or equal to current floor
 	 * @return
 	 */
 	public boolean isElevatorNeedsToGoUp() {
-		return floorsToStop.subSet(currentFloor, Constants.HIGHEST_FLOORS+1).size() > 0;
+		return floorsToStop.nextFloor(currentFloor) != FloorBitSet.NO_FLOOR;
 	}
 	
 	/**
@@ -174,7 +473,7 @@ public class ElevatorStatus {
 	 * @return
 	 */
 	public boolean isElevatorNeedsToGoDown() {
-		return floorsToStop.subSet(Constants.LOWEST_FLOOR ,currentFloor).size() > 0;
+		return floorsToStop.hasFloorBelow(currentFloor);
 	}
 	
 	/**
@@ -182,31 +481,95 @@ public class ElevatorStatus {
 	 * @param userRequest
 	 */
 	public void addRequestToWorkOn(final UserRequest userRequest) {
+		beginChange();
 		floorsToStop.add(userRequest.getCurrentFloor());
 		floorsToStop.add(userRequest.getFloorToGo());
-		logMessage(" Picked Request "+userRequest);
+		recordPick(userRequest);
+		pickUp(userRequest);
+		endChange();
+	}
+	
+	private void addRequestsToWorkOn(final List<UserRequest> userRequests) {
+		// Indexed loop so that no iterator is created on every floor
+		for(int i = 0; i < userRequests.size(); i++) {
+			addRequestToWorkOn(userRequests.get(i));
+		}
 	}
 	
 	/**
 	 * Picks a User Request from Queue and adds it to Set to Elevator to work on
 	 * This method will be invoked only when Elevator doesn't have any user request to work on
+	 * Only the users of the request who fit in the car are taken, the others keep waiting in the queue
 	 * @throws InterruptedException 
 	 */
 	public void pickRequestFromQueue() throws InterruptedException {
-		final UserRequest request = queue.pickRequest(currentFloor, direction);
-		logMessage(" Picked Request "+request +" Current Floor "+currentFloor);
+		final UserRequest request = queue.pickRequest(currentFloor, direction, getRoom());
+		recordPick(request);
+		// The Elevator was waiting for a request
+		inMotion = false;
+		startApproach(request);
 		
-		// Needs to go first at the user's current floor
-		if(currentFloor>request.getCurrentFloor()) {
-			while(currentFloor != request.getCurrentFloor()) {
+		// Needs to go first at the user's current floor, serving the users on the way as in a sweep
+		while(currentFloor != request.getCurrentFloor()) {
+			if(currentFloor>request.getCurrentFloor()) {
 				moveOneFloorDown();
-			}
-		} else {
-			while(currentFloor != request.getCurrentFloor()) {
+			} else {
 				moveOneFloorUp();
 			}
+			if(currentFloor != request.getCurrentFloor() && isElevatorNeedsToStopAtCurrentFloor()) {
+				waitOnTheCurrentFloor(true);
+			}
 		}
 		
+		startWorkingOnRequest(request);
+		if(isElevatorNeedsToStopAtCurrentFloor()) {
+			waitOnTheCurrentFloor(true);
+		}
+	}
+	
+	/**
+	 * Picks a User Request from Queue without blocking, the Elevator then needs to go to the floor of the user
+	 * and call {@link #startWorkingOnRequest(UserRequest)} once there. Only the users who fit in the car are taken.
+	 * @return User Request or null if there is no request in the queue
+	 */
+	public UserRequest pollRequestFromQueue() {
+		final UserRequest request = queue.pollRequest(currentFloor, direction, getRoom());
+		// The Elevator has nothing left to do in its direction, it stops
+		inMotion = false;
+		if(request != null) {
+			recordPick(request);
+			startApproach(request);
+		}
+		return request;
+	}
+	
+	/**
+	 * Heads for the user of a request picked from the queue, keeping room for its users.
+	 * If the user goes the other way, the Elevator turns back at the user and only takes on its way the users getting off before.
+	 */
+	private void startApproach(final UserRequest request) {
+		final int floor = request.getCurrentFloor();
+		if(floor == currentFloor) {
+			return;
+		}
+		beginChange();
+		direction = floor > currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+		approachFloor = floor;
+		approachPassengers = request.getNumberOfPassengers();
+		approachFloorToGo = request.getDirectionToGo() == direction ? FloorBitSet.NO_FLOOR : floor;
+		endChange();
+	}
+	
+	/**
+	 * Takes the direction of a request picked from the queue and adds its destination to the floors to stop,
+	 * once the Elevator has reached the floor of the user
+	 * @param request User Request
+	 */
+	public void startWorkingOnRequest(final UserRequest request) {
+		beginChange();
+		approachFloor = FloorBitSet.NO_FLOOR;
+		approachPassengers = 0;
+		approachFloorToGo = FloorBitSet.NO_FLOOR;
 		if(currentFloor>request.getFloorToGo()) {
 			direction = ElevatorDirection.DOWN;
 		} else {
@@ -214,21 +577,243 @@ public class ElevatorStatus {
 		}
 		
 		floorsToStop.add(request.getFloorToGo());
-		if(isElevatorNeedsToStopAtCurrentFloor()) {
-			waitOnTheCurrentFloor(true);
+		// The Elevator stops to let the user in
+		inMotion = false;
+		pickUp(request);
+		endChange();
+	}
+	
+	private void pickUp(final UserRequest request) {
+		request.markPickedUp(clock.currentTimeMillis());
+		riders.add(request);
+		passengers += request.getNumberOfPassengers();
+		pickedUpInChange.add(request);
+	}
+	
+	/**
+	 * Drops the riders going to the current floor
+	 */
+	private void dropRidersAtCurrentFloor() {
+		int dropped = 0;
+		long now = UserRequest.NOT_STAMPED;
+		// Removing from the end keeps the indexes of the riders still to check
+		for(int i = riders.size() - 1; i >= 0; i--) {
+			final UserRequest rider = riders.get(i);
+			if(rider.getFloorToGo() == currentFloor) {
+				if(dropped == 0) {
+					now = clock.currentTimeMillis();
+				}
+				dropped += rider.getNumberOfPassengers();
+				riders.remove(i);
+				rider.markDropped(now);
+				droppedInChange.add(rider);
+			}
+		}
+		if(dropped > 0) {
+			passengers -= dropped;
+			record(EventType.DROP, currentFloor, dropped, 0, 0);
+			dropFloor = currentFloor;
+			droppedAt = now;
 		}
 	}
 	
 	/**
-	 * Determines Elevator is still busy in serving allocated user requests
+	 * Logs the picks and the drops of the change which has just ended and records their latencies
+	 */
+	private void logRidersOfChange() {
+		for(int i = 0; i < pickedUpInChange.size(); i++) {
+			final UserRequest request = pickedUpInChange.get(i);
+			if(requestLog != null) {
+				requestLog.pickedUp(requestLogIndex, request);
+			}
+			if(latencyRecorder != null) {
+				latencyRecorder.pickedUp(request);
+			}
+		}
+		pickedUpInChange.clear();
+		if(latencyRecorder != null) {
+			for(int i = 0; i < droppedInChange.size(); i++) {
+				latencyRecorder.dropped(droppedInChange.get(i));
+			}
+		}
+		droppedInChange.clear();
+		if(dropFloor != FloorBitSet.NO_FLOOR) {
+			if(requestLog != null) {
+				requestLog.dropped(requestLogIndex, dropFloor, droppedAt);
+			}
+			dropFloor = FloorBitSet.NO_FLOOR;
+		}
+	}
+	
+	/**
+	 * Puts back a user riding in this Elevator when the process stopped, before the Elevator is started
+	 * @param rider User Request recovered from the {@link RequestLog}, with its submission and pick up times
+	 */
+	public void restoreRider(final UserRequest rider) {
+		beginChange();
+		riders.add(rider);
+		passengers += rider.getNumberOfPassengers();
+		if(rider.getFloorToGo() == currentFloor) {
+			// Already at the floor the Elevator restarts from
+			dropRidersAtCurrentFloor();
+		} else {
+			floorsToStop.add(rider.getFloorToGo());
+		}
+		endChange();
+	}
+	
+	/**
+	 * Returns the number of users picked up and not yet dropped, only exact when called by the Elevator thread
+	 * @return Number of users
+	 */
+	public int getNumberOfRiders() {
+		return passengers;
+	}
+	
+	/**
+	 * Returns the number of floors the Elevator has moved since it was created, readable from any thread
+	 * @return Number of floors
+	 */
+	public long getFloorsTravelled() {
+		return floorsTravelled;
+	}
+	
+	/**
+	 * Returns the number of floors the Elevator has moved with nobody inside since it was created, readable from any thread
+	 * @return Number of floors
+	 */
+	public long getEmptyFloorsTravelled() {
+		return emptyFloorsTravelled;
+	}
+	
+	/**
+	 * Returns the number of runs the Elevator has started from rest since it was created, readable from any thread.
+	 * Turning back counts as a new run.
+	 * @return Number of starts
+	 */
+	public long getStarts() {
+		return starts;
+	}
+	
+	/**
+	 * Returns the number of times the Elevator has stopped to open its doors since it was created, readable from any thread
+	 * @return Number of stops
+	 */
+	public long getStops() {
+		return stops;
+	}
+	
+	/**
+	 * Determines Elevator is still busy in serving allocated user requests, going to a user picked from the queue included
 	 * @return true/false
 	 */
 	public boolean areUsersStillInElevator() {
-		return floorsToStop.size()>0;
+		return !floorsToStop.isEmpty() || approachFloor != FloorBitSet.NO_FLOOR;
+	}
+	
+	/**
+	 * Determines if the doors are open at the current floor
+	 * @return true/false
+	 */
+	public boolean isDoorOpen() {
+		return doorOpen;
+	}
+	
+	/**
+	 * Reads the state of this Elevator consistently, from any thread and without blocking the Elevator thread.
+	 * The state is read again if the Elevator changed it meanwhile, so a snapshot is as cheap as a few volatile reads
+	 * unless the Elevator is changing its state right then.
+	 * @return Elevator Snapshot
+	 */
+	public ElevatorSnapshot snapshot() {
+		final FloorBitSet floors = new FloorBitSet(floorsToStop.getLowestFloor(), floorsToStop.getHighestFloor());
+		for(int attempt = 1; ; attempt++) {
+			final long version = sequence;
+			if((version & 1) == 0) {
+				final int floor = currentFloor;
+				final ElevatorDirection currentDirection = direction;
+				final boolean open = doorOpen;
+				final int numberOfRiders = passengers;
+				floorsToStop.copyTo(floors);
+				// The reads above cannot be moved after the second read of the sequence
+				VarHandle.loadLoadFence();
+				if(sequence == version) {
+					return new ElevatorSnapshot(elevatorName, version >>> 1, floor, currentDirection, open, numberOfRiders, floors.toArray());
+				}
+			}
+			if(attempt % 64 == 0) {
+				// The Elevator thread may have been descheduled in the middle of a change
+				Thread.yield();
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+	
+	/**
+	 * Starts a change of the state, only called by the Elevator thread. Changes can be nested, the outermost one counts.
+	 */
+	private void beginChange() {
+		if(changeDepth++ == 0) {
+			sequence++;
+			// The changes cannot be moved before the sequence turns odd
+			VarHandle.storeStoreFence();
+		}
 	}
 	
-	private void logMessage(String message) {
-		logger.debug(elevatorName + "- "+message);
+	private void endChange() {
+		if(--changeDepth == 0) {
+			sequence++;
+			// The log may block on its lock or on the disk, the readers of the state do not wait for it
+			logRidersOfChange();
+		}
+	}
+	
+	/**
+	 * Sets the journal where the events of this Elevator are recorded, before the Elevator is started
+	 * @param journal Event Journal
+	 */
+	public void setJournal(final EventJournal journal) {
+		this.journalId = journal.register(elevatorName, clock.currentTimeMillis());
+		this.journal = journal;
+	}
+	
+	/**
+	 * Sets the log where the requests assigned to this Elevator and its picks and drops are written, before the Elevator is started
+	 * @param requestLog Request Log
+	 * @param index Index of this Elevator in its bank, the same from one run to the next
+	 */
+	public void setRequestLog(final RequestLog requestLog, int index) {
+		this.requestLog = requestLog;
+		this.requestLogIndex = index;
+	}
+	
+	/**
+	 * Logs a request assigned to this Elevator, before it is added to its queue
+	 * @param request User Request
+	 */
+	public void logAssigned(final UserRequest request) {
+		if(requestLog != null) {
+			requestLog.assigned(requestLogIndex, request);
+		}
+	}
+	
+	/**
+	 * Sets the recorder of the wait and ride latencies of the users of this Elevator, before the Elevator is started
+	 * @param latencyRecorder Latency Recorder
+	 */
+	public void setLatencyRecorder(final LatencyRecorder latencyRecorder) {
+		this.latencyRecorder = latencyRecorder;
+	}
+	
+	private void recordPick(final UserRequest request) {
+		record(EventType.PICK, request.getCurrentFloor(), request.getFloorToGo(), request.getDirectionToGo().ordinal(), currentFloor);
+	}
+	
+	private void record(final EventType type, int first, int second, int third, int fourth) {
+		if(journal != null) {
+			journal.append(clock.currentTimeMillis(), journalId, type, first, second, third, fourth);
+		}
 	}
 	
 }
@@ -0,0 +1,160 @@
+package uk.co.citybank.elevator.model;
+
+/**
+ * Encoding of an User Request in a single long, used by the queues to keep deep backlogs without an object per pending request.
+ * {@link UserRequest} stays the facade handed to and returned by the queues.
+ * <pre>
+ * bits 63..25  submission time, in milliseconds before or after an epoch chosen by the queue (about 3180 days either way), biased to sort unsigned
+ * bit  24      direction, 1 for DOWN
+ * bits 23..12  floor to go
+ * bits 11..0   floor of the user
+ * </pre>
+ * The floors are kept on 12 bits, from {@link #LOWEST_FLOOR} to {@link #HIGHEST_FLOOR}.
+ * The time being in the highest bits, the requests sort by submission time when compared as unsigned numbers.
+ * @author anuragtripathi
+ *
+ */
+public final class PackedRequest {
+
+	/** Lowest floor which can be encoded */
+	public static final int LOWEST_FLOOR = -2048;
+
+	/** Highest floor which can be encoded */
+	public static final int HIGHEST_FLOOR = 2047;
+
+	private static final int FLOOR_BITS = 12;
+	private static final long FLOOR_MASK = (1L << FLOOR_BITS) - 1;
+	private static final int FLOOR_TO_GO_SHIFT = FLOOR_BITS;
+	private static final int DIRECTION_SHIFT = 2 * FLOOR_BITS;
+	private static final int TIME_SHIFT = DIRECTION_SHIFT + 1;
+
+	/** Encoded time of a request which has not been stamped, the largest encoded time */
+	private static final long TIME_NOT_STAMPED = -1L >>> TIME_SHIFT;
+
+	/** Added to the offset from the epoch so that the times before the epoch are encoded as well and still sort first */
+	private static final long TIME_BIAS = (TIME_NOT_STAMPED >>> 1) + 1;
+
+	/** Earliest time offset, from the epoch, of a stamped request */
+	public static final long LOWEST_TIME_OFFSET = -TIME_BIAS;
+
+	/** Latest time offset, from the epoch, of a stamped request */
+	public static final long HIGHEST_TIME_OFFSET = TIME_NOT_STAMPED - 1 - TIME_BIAS;
+
+	private PackedRequest() {
+	}
+
+	/**
+	 * Encodes an User Request
+	 * @param request User Request
+	 * @param epochMillis Time the submission time is counted from, the time can be before or after it
+	 * @return Packed Request
+	 * @throws IllegalArgumentException If a floor or the submission time cannot be encoded
+	 */
+	public static long pack(final UserRequest request, long epochMillis) {
+		return pack(request.getCurrentFloor(), request.getFloorToGo(), request.getDirectionToGo(), request.getSubmittedAt(), epochMillis);
+	}
+
+	/**
+	 * Encodes a request
+	 * @param currentFloor Floor of the user
+	 * @param floorToGo Floor the user wants to go
+	 * @param direction Direction
+	 * @param submittedAt Submission time in milliseconds or {@link UserRequest#NOT_STAMPED}
+	 * @param epochMillis Time the submission time is counted from
+	 * @return Packed Request
+	 * @throws IllegalArgumentException If a floor cannot be encoded, or the submission time is more than
+	 * {@link #LOWEST_TIME_OFFSET} before the epoch or {@link #HIGHEST_TIME_OFFSET} after it
+	 */
+	public static long pack(int currentFloor, int floorToGo, final ElevatorDirection direction, long submittedAt, long epochMillis) {
+		checkFloor(currentFloor);
+		checkFloor(floorToGo);
+		final long time;
+		if (submittedAt == UserRequest.NOT_STAMPED) {
+			time = TIME_NOT_STAMPED;
+		} else {
+			time = offsetOf(submittedAt, epochMillis) + TIME_BIAS;
+		}
+		return time << TIME_SHIFT
+				| (direction == ElevatorDirection.DOWN ? 1L : 0L) << DIRECTION_SHIFT
+				| (floorToGo & FLOOR_MASK) << FLOOR_TO_GO_SHIFT
+				| (currentFloor & FLOOR_MASK);
+	}
+
+	/**
+	 * Checks that a floor can be encoded
+	 * @param floor Floor
+	 * @throws IllegalArgumentException If the floor is not between {@link #LOWEST_FLOOR} and {@link #HIGHEST_FLOOR}
+	 */
+	public static void checkFloor(int floor) {
+		if (floor < LOWEST_FLOOR || floor > HIGHEST_FLOOR) {
+			throw new IllegalArgumentException("Floor " + floor + " is not between " + LOWEST_FLOOR + " and " + HIGHEST_FLOOR);
+		}
+	}
+
+	private static long offsetOf(long submittedAt, long epochMillis) {
+		try {
+			final long offset = Math.subtractExact(submittedAt, epochMillis);
+			if (offset >= LOWEST_TIME_OFFSET && offset <= HIGHEST_TIME_OFFSET) {
+				return offset;
+			}
+		} catch (ArithmeticException e) {
+			// Even further from the epoch
+		}
+		throw new IllegalArgumentException("Submission time " + submittedAt + " is too far from the epoch " + epochMillis + " to be encoded");
+	}
+
+	/**
+	 * Returns the floor of the user
+	 * @param packed Packed Request
+	 * @return Floor
+	 */
+	public static int currentFloor(long packed) {
+		return signedFloor(packed);
+	}
+
+	/**
+	 * Returns the floor the user wants to go
+	 * @param packed Packed Request
+	 * @return Floor
+	 */
+	public static int floorToGo(long packed) {
+		return signedFloor(packed >>> FLOOR_TO_GO_SHIFT);
+	}
+
+	/**
+	 * Returns the direction of the request
+	 * @param packed Packed Request
+	 * @return Direction
+	 */
+	public static ElevatorDirection direction(long packed) {
+		return (packed >>> DIRECTION_SHIFT & 1) == 0 ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+	}
+
+	/**
+	 * Returns the submission time of the request
+	 * @param packed Packed Request
+	 * @param epochMillis Epoch the request has been encoded with
+	 * @return Time in milliseconds or {@link UserRequest#NOT_STAMPED}
+	 */
+	public static long submittedAt(long packed, long epochMillis) {
+		final long time = packed >>> TIME_SHIFT;
+		return time == TIME_NOT_STAMPED ? UserRequest.NOT_STAMPED : epochMillis + (time - TIME_BIAS);
+	}
+
+	/**
+	 * Decodes a request into its facade, with its submission time
+	 * @param packed Packed Request
+	 * @param epochMillis Epoch the request has been encoded with
+	 * @return User Request
+	 */
+	public static UserRequest toUserRequest(long packed, long epochMillis) {
+		final UserRequest request = new UserRequest(currentFloor(packed), floorToGo(packed), direction(packed));
+		request.markSubmitted(submittedAt(packed, epochMillis));
+		return request;
+	}
+
+	private static int signedFloor(long bits) {
+		// Shift the 12 bits to the top of an int and back to extend the sign
+		return (int) bits << (Integer.SIZE - FLOOR_BITS) >> (Integer.SIZE - FLOOR_BITS);
+	}
+}
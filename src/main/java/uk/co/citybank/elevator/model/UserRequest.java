@@ -2,15 +2,34 @@ package uk.co.citybank.elevator.model;
 
 /**
  * Model to hold User Request Properties
+ * A request stands for one or more users waiting at the same floor for the same destination, see {@link #getNumberOfPassengers()}.
  * @author anuragtripathi
  *
  */
 public class UserRequest {
 	
+   /**
+    * Value of a time which has not been stamped yet
+    */
+   public static final long NOT_STAMPED = -1;
+   
+   /**
+    * Most users a single request can stand for
+    */
+   public static final int MAX_PASSENGERS = 0xFFFF;
+	
    private final int currentFloor;
    private final ElevatorDirection directionToGo;
    private final int floorToGo;
    
+   // Times in milliseconds of the clock of the Elevators, they are not part of the identity of the request
+   private long submittedAt = NOT_STAMPED;
+   private long pickedUpAt = NOT_STAMPED;
+   private long droppedAt = NOT_STAMPED;
+   
+   // Users of the same trip coalesced in this request, not part of the identity of the request
+   private int passengers = 1;
+   
    /**
     * ConStructor
     * @param currentFloor The Current Floor Location of the user 
@@ -33,6 +52,74 @@ public class UserRequest {
 	public int getFloorToGo() {
 		return floorToGo;
 	}
+	
+	/**
+	 * Returns the time the request has been submitted
+	 * @return Time in milliseconds or {@link #NOT_STAMPED}
+	 */
+	public long getSubmittedAt() {
+		return submittedAt;
+	}
+	
+	/**
+	 * Stamps the time the request has been submitted, before it is handed to the Elevators
+	 * @param submittedAt Time in milliseconds
+	 */
+	public void markSubmitted(long submittedAt) {
+		this.submittedAt = submittedAt;
+	}
+	
+	/**
+	 * Returns the time the user has been picked up
+	 * @return Time in milliseconds or {@link #NOT_STAMPED}
+	 */
+	public long getPickedUpAt() {
+		return pickedUpAt;
+	}
+	
+	/**
+	 * Stamps the time the user has been picked up, by the Elevator thread
+	 * @param pickedUpAt Time in milliseconds
+	 */
+	public void markPickedUp(long pickedUpAt) {
+		this.pickedUpAt = pickedUpAt;
+	}
+	
+	/**
+	 * Returns the time the user has been dropped
+	 * @return Time in milliseconds or {@link #NOT_STAMPED}
+	 */
+	public long getDroppedAt() {
+		return droppedAt;
+	}
+	
+	/**
+	 * Stamps the time the user has been dropped, by the Elevator thread
+	 * @param droppedAt Time in milliseconds
+	 */
+	public void markDropped(long droppedAt) {
+		this.droppedAt = droppedAt;
+	}
+
+	/**
+	 * Returns the number of users this request stands for, the users of the same trip being coalesced in the queues
+	 * @return Number of users, at least 1
+	 */
+	public int getNumberOfPassengers() {
+		return passengers;
+	}
+	
+	/**
+	 * Sets the number of users this request stands for
+	 * @param passengers Number of users, from 1 to {@link #MAX_PASSENGERS}
+	 * @throws IllegalArgumentException If the number is out of range
+	 */
+	public void setNumberOfPassengers(int passengers) {
+		if(passengers < 1 || passengers > MAX_PASSENGERS) {
+			throw new IllegalArgumentException("Number of passengers " + passengers + " is not between 1 and " + MAX_PASSENGERS);
+		}
+		this.passengers = passengers;
+	}
 
 	@Override
 	public boolean equals(Object o){
@@ -53,7 +140,7 @@ public class UserRequest {
 		int result = 17;
         result = 31 * result + currentFloor;
         result = 31 * result + floorToGo;
-        result = 31 * result + directionToGo.toString().hashCode();;
+        result = 31 * result + directionToGo.ordinal();
         return result;
 	}
 	
@@ -0,0 +1,540 @@
+package uk.co.citybank.elevator.queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.PackedRequest;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.utility.FloorBitSet;
+
+/**
+ * Holds the pending User Requests of one direction, bucketed by the floor the users are waiting at.
+ * A bitmap of the floors having at least one waiting user is kept along the buckets,
+ * so the requests at a floor are found in constant time and the nearest floor having requests is a bit scan.
+ *
+ * Inside a bucket the requests are ordered by destination, the destination nearest to the pick up floor being kept last.
+ * The requests with same floor and destination are coalesced into one entry counting their users and keeping the earliest submission time,
+ * so a crowd waiting at the lobby costs one entry per destination and is picked up at once.
+ * An Elevator having room for fewer users only takes the users who fit, the others keep waiting in the same entry,
+ * and an Elevator which is going to turn back only takes the users getting off before it turns.
+ *
+ * The requests are kept packed in longs, see {@link PackedRequest}, and turned back into User Requests when they are taken out.
+ * Their submission times are counted from an epoch taken from the first stamped request added, a request stamped earlier,
+ * recovered from the log for example, is counted back from it and keeps its time.
+ *
+ * Once the aging is enabled, the entry waiting for the longest time is kept for every floor and for the whole index,
+ * so the users waiting for the longest time are found without looking at every bucket.
+ * An entry added or coalesced with an earlier submission time is compared with them, and only when the oldest entry of a floor
+ * is taken out are that bucket and then the oldest entries of the floors looked at again. Without aging nothing of this is kept.
+ * 
+ * Each index has its own lock, so the requests going up and the requests going down are changed independently.
+ * The lookups of the floors having requests do not take the lock, they read the bitmap which is safe to read while it is changed.
+ * @author anuragtripathi
+ *
+ */
+final class HallCallIndex {
+
+	private final ElevatorDirection direction;
+	private final int lowestFloor;
+	private final FloorBitSet floorsWithRequests;
+	private final PackedRequestList[] buckets;
+	
+	/** Lock guarding the changes of the buckets and of the bitmap */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/** Number of requests in the buckets, changed under the lock */
+	private volatile int size;
+
+	/** Number of users of the requests in the buckets, changed under the lock */
+	private volatile int passengers;
+
+	/** The submission times are counted from this time, set under the lock by the first stamped request */
+	private long epochMillis = NO_EPOCH;
+
+	private static final long NO_EPOCH = Long.MIN_VALUE;
+
+	/** Stamped entry waiting for the longest time at every floor, null while the aging is disabled, changed under the lock */
+	private long[] oldestAt;
+
+	/** The entry waiting for the longest time, read without the lock, {@link #NO_ARRIVAL} when nothing stamped is pending or the aging is disabled */
+	private volatile long oldest = NO_ARRIVAL;
+
+	/** No packed request is all ones, its time would be the one of a request not stamped */
+	private static final long NO_ARRIVAL = -1L;
+
+	HallCallIndex(final ElevatorDirection direction, int lowestFloor, int highestFloor) {
+		PackedRequest.checkFloor(lowestFloor);
+		PackedRequest.checkFloor(highestFloor);
+		this.direction = direction;
+		this.lowestFloor = lowestFloor;
+		this.floorsWithRequests = new FloorBitSet(lowestFloor, highestFloor);
+		this.buckets = new PackedRequestList[highestFloor - lowestFloor + 1];
+	}
+
+	/**
+	 * Adds a request to the bucket of its floor
+	 * @param request User Request
+	 * @return false if the request has been coalesced with a pending request of the same trip
+	 */
+	boolean add(final UserRequest request) {
+		checkFloor(request);
+		lock.lock();
+		try {
+			return addUnderLock(request);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds all the requests taking the lock once, the floors must have been checked with {@link #checkFloors(List)}
+	 * @param requests User Requests, all going in the direction of this index
+	 * @return Number of requests which have not been coalesced with a pending request
+	 */
+	int addAll(final List<UserRequest> requests) {
+		int added = 0;
+		lock.lock();
+		try {
+			for (int i = 0; i < requests.size(); i++) {
+				if (addUnderLock(requests.get(i))) {
+					added++;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		return added;
+	}
+
+	/**
+	 * Checks that the floors of all the requests are served by this index
+	 * @param requests User Requests
+	 * @throws IllegalArgumentException If a floor is outside this index
+	 */
+	void checkFloors(final List<UserRequest> requests) {
+		for (int i = 0; i < requests.size(); i++) {
+			checkFloor(requests.get(i));
+		}
+	}
+
+	private void checkFloor(final UserRequest request) {
+		final int floor = request.getCurrentFloor();
+		if (floor < lowestFloor || floor > floorsWithRequests.getHighestFloor()) {
+			throw new IllegalArgumentException("Floor " + floor + " is outside " + lowestFloor + " and " + floorsWithRequests.getHighestFloor());
+		}
+	}
+
+	private boolean addUnderLock(final UserRequest request) {
+		final int floor = request.getCurrentFloor();
+		if (epochMillis == NO_EPOCH && request.getSubmittedAt() != UserRequest.NOT_STAMPED) {
+			epochMillis = request.getSubmittedAt();
+		}
+		PackedRequestList bucket = buckets[floor - lowestFloor];
+		if (bucket == null) {
+			bucket = new PackedRequestList(4);
+			buckets[floor - lowestFloor] = bucket;
+		}
+		final long epoch = epochMillis == NO_EPOCH ? 0 : epochMillis;
+		// Encoded before anything is changed, a time which cannot be encoded leaves the index as it was
+		final long packed = PackedRequest.pack(request, epoch);
+		final int count = request.getNumberOfPassengers();
+		passengers += count;
+		// Buckets are small, a linear search from the nearest destination is enough
+		int position = bucket.size();
+		while (position > 0) {
+			final long pending = bucket.get(position - 1);
+			final int destination = PackedRequest.floorToGo(pending);
+			if (destination == request.getFloorToGo() && bucket.passengers(position - 1) <= UserRequest.MAX_PASSENGERS - count) {
+				bucket.addPassengers(position - 1, count);
+				final long pendingSubmittedAt = PackedRequest.submittedAt(pending, epoch);
+				if (request.getSubmittedAt() != UserRequest.NOT_STAMPED
+						&& (pendingSubmittedAt == UserRequest.NOT_STAMPED || request.getSubmittedAt() < pendingSubmittedAt)) {
+					// The users coalesced have been waiting since the earliest of them arrived
+					bucket.set(position - 1, packed);
+					arrived(floor, packed);
+				}
+				return false;
+			}
+			if (isNearer(request.getFloorToGo(), destination)) {
+				break;
+			}
+			position--;
+		}
+		bucket.insert(position, packed, count);
+		if (request.getSubmittedAt() != UserRequest.NOT_STAMPED) {
+			arrived(floor, packed);
+		}
+		size++;
+		// The bitmap is changed last so that a reader finding the floor will also find the request
+		floorsWithRequests.add(floor);
+		return true;
+	}
+
+	/**
+	 * Determines if there is any request pending at the floor
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	boolean hasRequestAt(int floor) {
+		return floorsWithRequests.contains(floor);
+	}
+
+	/**
+	 * Determines if any user waiting at the floor goes no farther than the given floor.
+	 * The lock is only taken when the floor has requests and the limit is not the end of the building.
+	 * @param floor Floor
+	 * @param farthestFloorToGo Farthest destination, in the direction of this index
+	 * @return true/false
+	 */
+	boolean hasRequestAt(int floor, int farthestFloorToGo) {
+		if (!floorsWithRequests.contains(floor)) {
+			return false;
+		}
+		if (isUnbounded(farthestFloorToGo)) {
+			return true;
+		}
+		lock.lock();
+		try {
+			final PackedRequestList bucket = buckets[floor - lowestFloor];
+			// The nearest destination is kept last
+			return bucket != null && !bucket.isEmpty() && isWithin(PackedRequest.floorToGo(bucket.get(bucket.size() - 1)), farthestFloorToGo);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the nearest floor having requests which is equal or above the given floor
+	 * @param floor Floor
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR}
+	 */
+	int nearestFloorFrom(int floor) {
+		return floorsWithRequests.nextFloor(floor);
+	}
+
+	/**
+	 * Returns the nearest floor having requests which is equal or below the given floor
+	 * @param floor Floor
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR}
+	 */
+	int nearestFloorUpTo(int floor) {
+		return floorsWithRequests.previousFloor(floor);
+	}
+
+	/**
+	 * Removes the request going to the nearest destination from the floor, with as many of its users as the Elevator takes
+	 * @param floor Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @return User Request or null if nothing is pending at the floor
+	 */
+	UserRequest poll(int floor, int maxPassengers) {
+		if (maxPassengers <= 0 || !floorsWithRequests.contains(floor)) {
+			return null;
+		}
+		lock.lock();
+		try {
+			// Another thread may have emptied the floor since it was checked
+			final PackedRequestList bucket = buckets[floor - lowestFloor];
+			if (bucket == null || bucket.isEmpty()) {
+				return null;
+			}
+			final int count = bucket.passengers(bucket.size() - 1);
+			if (count > maxPassengers) {
+				return pollPart(bucket, maxPassengers);
+			}
+			final long packed = bucket.removeLast();
+			size--;
+			passengers -= count;
+			if (bucket.isEmpty()) {
+				floorsWithRequests.remove(floor);
+			}
+			removed(floor, packed);
+			return toUserRequest(packed, count);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the requests of the floor whose users fit in the Elevator, the nearest destinations first.
+	 * The users of the request which does not fit entirely are split, those who do not fit keep waiting.
+	 * @param floor Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param farthestFloorToGo Farthest destination taken, in the direction of this index, the users going farther keep waiting
+	 * @return User Requests, empty if nothing is pending at the floor
+	 */
+	List<UserRequest> pollAll(int floor, int maxPassengers, int farthestFloorToGo) {
+		if (maxPassengers <= 0 || !floorsWithRequests.contains(floor)) {
+			return Collections.emptyList();
+		}
+		final List<UserRequest> requests = new ArrayList<>();
+		pollAll(floor, maxPassengers, farthestFloorToGo, requests);
+		return requests;
+	}
+
+	/**
+	 * Removes the requests of the floor whose users fit in the Elevator into the given collection, the nearest destinations first.
+	 * Nothing is allocated but the User Requests taken, the Elevators pass this way on every floor they stop at.
+	 * @param floor Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param farthestFloorToGo Farthest destination taken, in the direction of this index, the users going farther keep waiting
+	 * @param picked Collection the User Requests taken are added to
+	 * @return Number of User Requests added, 0 if nothing is pending at the floor
+	 */
+	int pollAll(int floor, int maxPassengers, int farthestFloorToGo, final Collection<? super UserRequest> picked) {
+		if (maxPassengers <= 0 || !floorsWithRequests.contains(floor)) {
+			return 0;
+		}
+		lock.lock();
+		try {
+			final PackedRequestList bucket = buckets[floor - lowestFloor];
+			if (bucket == null || bucket.isEmpty()) {
+				return 0;
+			}
+			int room = maxPassengers;
+			int taken = 0;
+			while (room > 0 && !bucket.isEmpty() && isWithin(PackedRequest.floorToGo(bucket.get(bucket.size() - 1)), farthestFloorToGo)) {
+				final int count = bucket.passengers(bucket.size() - 1);
+				if (count > room) {
+					picked.add(pollPart(bucket, room));
+					taken++;
+					break;
+				}
+				final long packed = bucket.removeLast();
+				removed(floor, packed);
+				picked.add(toUserRequest(packed, count));
+				taken++;
+				size--;
+				passengers -= count;
+				room -= count;
+			}
+			if (bucket.isEmpty()) {
+				floorsWithRequests.remove(floor);
+			}
+			return taken;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the request of the users waiting for the longest time, with as many of its users as the Elevator takes
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @return User Request or null if no stamped request is pending
+	 */
+	UserRequest pollOldest(int maxPassengers) {
+		if (maxPassengers <= 0 || oldest == NO_ARRIVAL) {
+			return null;
+		}
+		lock.lock();
+		try {
+			final long packed = oldest;
+			if (packed == NO_ARRIVAL) {
+				return null;
+			}
+			final int floor = PackedRequest.currentFloor(packed);
+			final PackedRequestList bucket = buckets[floor - lowestFloor];
+			final int position = positionOf(bucket, packed);
+			final int count = bucket.passengers(position);
+			if (count > maxPassengers) {
+				bucket.addPassengers(position, -maxPassengers);
+				passengers -= maxPassengers;
+				return toUserRequest(packed, maxPassengers);
+			}
+			bucket.remove(position);
+			size--;
+			passengers -= count;
+			if (bucket.isEmpty()) {
+				floorsWithRequests.remove(floor);
+			}
+			removed(floor, packed);
+			return toUserRequest(packed, count);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the submission time of the users waiting for the longest time, can be called without any lock
+	 * @return Time in milliseconds or {@link UserRequest#NOT_STAMPED} if no stamped request is pending
+	 */
+	long oldestSubmittedAt() {
+		final long packed = oldest;
+		// The epoch is set before the first entry is published
+		return packed == NO_ARRIVAL ? UserRequest.NOT_STAMPED : PackedRequest.submittedAt(packed, epochMillis);
+	}
+
+	/**
+	 * Starts or stops keeping the entry waiting for the longest time, the entries pending being looked at once when it starts
+	 * @param enabled true to keep it
+	 */
+	void setAging(boolean enabled) {
+		lock.lock();
+		try {
+			if (!enabled) {
+				oldestAt = null;
+				oldest = NO_ARRIVAL;
+			} else if (oldestAt == null) {
+				oldestAt = new long[buckets.length];
+				for (int i = 0; i < buckets.length; i++) {
+					oldestAt[i] = oldestOf(buckets[i]);
+				}
+				refreshOldest();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Compares an entry added, or whose submission time has become earlier, with the oldest entries, under the lock
+	 */
+	private void arrived(int floor, long packed) {
+		if (oldestAt == null) {
+			return;
+		}
+		if (isOlder(packed, oldestAt[floor - lowestFloor])) {
+			oldestAt[floor - lowestFloor] = packed;
+		}
+		if (isOlder(packed, oldest)) {
+			oldest = packed;
+		}
+	}
+
+	/**
+	 * Looks the oldest entries again if the entry taken out was the oldest of its floor, under the lock.
+	 * The bucket is looked at first, and the oldest entries of the floors only if it was the oldest of the index.
+	 */
+	private void removed(int floor, long packed) {
+		if (oldestAt == null || packed != oldestAt[floor - lowestFloor]) {
+			return;
+		}
+		oldestAt[floor - lowestFloor] = oldestOf(buckets[floor - lowestFloor]);
+		if (packed == oldest) {
+			refreshOldest();
+		}
+	}
+
+	/**
+	 * Publishes the oldest of the oldest entries of the floors, under the lock
+	 */
+	private void refreshOldest() {
+		long found = NO_ARRIVAL;
+		for (int i = 0; i < oldestAt.length; i++) {
+			if (isOlder(oldestAt[i], found)) {
+				found = oldestAt[i];
+			}
+		}
+		oldest = found;
+	}
+
+	/**
+	 * Returns the stamped entry of a bucket submitted first, or {@link #NO_ARRIVAL}
+	 */
+	private long oldestOf(final PackedRequestList bucket) {
+		long found = NO_ARRIVAL;
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				if (isOlder(bucket.get(i), found)) {
+					found = bucket.get(i);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Determines if a stamped entry has been submitted before another entry, any stamped entry being older than {@link #NO_ARRIVAL}
+	 */
+	private boolean isOlder(long packed, long other) {
+		if (packed == NO_ARRIVAL) {
+			return false;
+		}
+		final long submittedAt = PackedRequest.submittedAt(packed, epochMillis);
+		if (submittedAt == UserRequest.NOT_STAMPED) {
+			return false;
+		}
+		return other == NO_ARRIVAL || submittedAt < PackedRequest.submittedAt(other, epochMillis);
+	}
+
+	/**
+	 * Returns the position of an entry in a bucket, or -1 if it is not pending any more
+	 */
+	private static int positionOf(final PackedRequestList bucket, long packed) {
+		if (bucket != null) {
+			for (int i = bucket.size() - 1; i >= 0; i--) {
+				if (bucket.get(i) == packed) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Takes some of the users of the last request of a bucket, the request stays with the others and its submission time
+	 */
+	private UserRequest pollPart(final PackedRequestList bucket, int count) {
+		final int last = bucket.size() - 1;
+		bucket.addPassengers(last, -count);
+		passengers -= count;
+		return toUserRequest(bucket.get(last), count);
+	}
+
+	private UserRequest toUserRequest(long packed, int count) {
+		final UserRequest request = PackedRequest.toUserRequest(packed, epochMillis);
+		request.setNumberOfPassengers(count);
+		return request;
+	}
+
+	/**
+	 * Returns the number of floors having requests, can be called without any lock
+	 * @return Number of floors
+	 */
+	int numberOfFloorsWithRequests() {
+		return floorsWithRequests.size();
+	}
+
+	/**
+	 * Returns the number of requests, can be called without any lock
+	 * @return Number of requests
+	 */
+	int numberOfRequests() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of users of the requests, can be called without any lock
+	 * @return Number of users
+	 */
+	int numberOfPassengers() {
+		return passengers;
+	}
+
+	/**
+	 * Determines if there is no request pending, can be called without any lock
+	 * @return true/false
+	 */
+	boolean isEmpty() {
+		return floorsWithRequests.isEmpty();
+	}
+
+	private boolean isUnbounded(int farthestFloorToGo) {
+		return direction == ElevatorDirection.UP ? farthestFloorToGo >= floorsWithRequests.getHighestFloor() : farthestFloorToGo <= lowestFloor;
+	}
+
+	private boolean isWithin(int destination, int farthestFloorToGo) {
+		return direction == ElevatorDirection.UP ? destination <= farthestFloorToGo : destination >= farthestFloorToGo;
+	}
+
+	/**
+	 * Determines if the first destination is nearer to the pick up floor than the second one
+	 */
+	private boolean isNearer(int destination, int otherDestination) {
+		return direction == ElevatorDirection.UP ? destination < otherDestination : destination > otherDestination;
+	}
+}
@@ -0,0 +1,185 @@
+package uk.co.citybank.elevator.queue;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.utility.FloorBitSet;
+
+/**
+ * The built-in orders in which an Elevator having nothing left to do takes the requests of its queue.
+ * The Elevators never run empty to the end of the building, they turn back at the last request of their way.
+ * The users found on the way to the chosen request are picked up whatever the order.
+ * @author anuragtripathi
+ *
+ */
+public enum HallCallOrder implements RequestOrder {
+
+	/**
+	 * If Elevator was going UP then it will pick the closet UP request above it if exists in the queue.
+	 * If There is no request found then it will try to find out the closet request for going down at or below it,
+	 * if none of them is true then it will pick the request from the lowest floor, going down first.
+	 *
+	 * If Elevator was going DOWN then it will pick the closet DOWN request below it if exists in the queue.
+	 * If There is no request found then it will try to find out the closet request for going up above it,
+	 * if none of them is true then it will pick the request from the lowest floor, going up first.
+	 */
+	COLLECTIVE {
+		@Override
+		long choose(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction) {
+			if(direction == ElevatorDirection.UP) {
+				int floor = queue.nearestFloorWithRequestsFrom(ElevatorDirection.UP, currentFloor+1);
+				if(floor != FloorBitSet.NO_FLOOR) {
+					return hallCall(floor, ElevatorDirection.UP);
+				}
+				floor = queue.nearestFloorWithRequestsUpTo(ElevatorDirection.DOWN, currentFloor);
+				if(floor != FloorBitSet.NO_FLOOR) {
+					return hallCall(floor, ElevatorDirection.DOWN);
+				}
+				return lowest(queue, ElevatorDirection.DOWN);
+			}
+			int floor = queue.nearestFloorWithRequestsUpTo(ElevatorDirection.DOWN, currentFloor-1);
+			if(floor != FloorBitSet.NO_FLOOR) {
+				return hallCall(floor, ElevatorDirection.DOWN);
+			}
+			floor = queue.nearestFloorWithRequestsFrom(ElevatorDirection.UP, currentFloor+1);
+			if(floor != FloorBitSet.NO_FLOOR) {
+				return hallCall(floor, ElevatorDirection.UP);
+			}
+			return lowest(queue, ElevatorDirection.UP);
+		}
+	},
+
+	/**
+	 * The Elevator keeps its direction as long as users ahead of it go the same way, nearest first.
+	 * It then turns back at the farthest user ahead going the other way, and only reverses once nobody is left ahead.
+	 */
+	LOOK {
+		@Override
+		long choose(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction) {
+			final ElevatorDirection other = opposite(direction);
+			int floor = nearestAhead(queue, direction, direction, currentFloor);
+			if(floor != FloorBitSet.NO_FLOOR) {
+				return hallCall(floor, direction);
+			}
+			floor = nearestAhead(queue, other, other, direction == ElevatorDirection.UP ? queue.getHighestFloor() : queue.getLowestFloor());
+			if(floor != FloorBitSet.NO_FLOOR && (direction == ElevatorDirection.UP ? floor >= currentFloor : floor <= currentFloor)) {
+				return hallCall(floor, other);
+			}
+			// Nobody ahead, the Elevator reverses
+			floor = nearestAhead(queue, other, other, currentFloor);
+			if(floor != FloorBitSet.NO_FLOOR) {
+				return hallCall(floor, other);
+			}
+			floor = nearestAhead(queue, direction, direction, direction == ElevatorDirection.UP ? queue.getLowestFloor() : queue.getHighestFloor());
+			return floor == FloorBitSet.NO_FLOOR ? NO_HALL_CALL : hallCall(floor, direction);
+		}
+	},
+
+	/**
+	 * The Elevator serves the users in the order of its sweep whatever the direction they go, nearest ahead first,
+	 * and reverses once nobody is left ahead.
+	 */
+	SCAN {
+		@Override
+		long choose(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction) {
+			final long ahead = nearest(queue, direction, currentFloor);
+			return ahead != NO_HALL_CALL ? ahead : nearest(queue, opposite(direction), currentFloor);
+		}
+	},
+
+	/**
+	 * The Elevator goes to the nearest user whatever the floor and the direction, the users ahead first when two are as near
+	 */
+	NEAREST {
+		@Override
+		long choose(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction) {
+			final long ahead = nearest(queue, direction, currentFloor);
+			final long behind = nearest(queue, opposite(direction), currentFloor);
+			if(ahead == NO_HALL_CALL || behind == NO_HALL_CALL) {
+				return ahead == NO_HALL_CALL ? behind : ahead;
+			}
+			return Math.abs(floorOf(behind) - currentFloor) < Math.abs(floorOf(ahead) - currentFloor) ? behind : ahead;
+		}
+	};
+
+	/** No request left in the queue */
+	private static final long NO_HALL_CALL = -1L;
+
+	/**
+	 * The floor to pick from is looked up without any lock, and the request is then taken under the lock of its direction.
+	 * If another Elevator took it in between, the lookup is done again.
+	 */
+	@Override
+	public UserRequest poll(final UserRequestQueue queue, int currentFloor, final ElevatorDirection direction, int maxPassengers) {
+		while(true) {
+			final long hallCall = choose(queue, currentFloor, direction);
+			if(hallCall == NO_HALL_CALL) {
+				return null;
+			}
+			final UserRequest request = queue.pollRequestAt(floorOf(hallCall), directionOf(hallCall), maxPassengers);
+			if(request != null) {
+				return request;
+			}
+		}
+	}
+
+	/**
+	 * Chooses the floor and the direction of the next request
+	 * @return Hall call packed by {@link #hallCall(int, ElevatorDirection)} or {@link #NO_HALL_CALL}
+	 */
+	abstract long choose(UserRequestQueue queue, int currentFloor, ElevatorDirection direction);
+
+	/**
+	 * Packs a floor and the direction its users go in a long, the floor in the low 32 bits
+	 */
+	private static long hallCall(int floor, final ElevatorDirection directionToGo) {
+		return (directionToGo == ElevatorDirection.UP ? 0L : 1L << 32) | (floor & 0xFFFFFFFFL);
+	}
+
+	private static int floorOf(long hallCall) {
+		return (int) hallCall;
+	}
+
+	private static ElevatorDirection directionOf(long hallCall) {
+		return (hallCall >>> 32) == 0 ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+	}
+
+	private static ElevatorDirection opposite(final ElevatorDirection direction) {
+		return direction == ElevatorDirection.UP ? ElevatorDirection.DOWN : ElevatorDirection.UP;
+	}
+
+	/**
+	 * Returns the nearest floor where users wait to go in a direction, from a floor on in the given direction
+	 */
+	private static int nearestAhead(final UserRequestQueue queue, final ElevatorDirection directionToGo, final ElevatorDirection lookingTo, int floor) {
+		return lookingTo == ElevatorDirection.UP ? queue.nearestFloorWithRequestsFrom(directionToGo, floor) : queue.nearestFloorWithRequestsUpTo(directionToGo, floor);
+	}
+
+	/**
+	 * Returns the nearest hall call from a floor on in the given direction whatever the direction its users go,
+	 * the users going the same way first when both wait at the same floor
+	 */
+	private static long nearest(final UserRequestQueue queue, final ElevatorDirection lookingTo, int floor) {
+		final ElevatorDirection other = opposite(lookingTo);
+		final int same = nearestAhead(queue, lookingTo, lookingTo, floor);
+		final int contrary = nearestAhead(queue, other, lookingTo, floor);
+		if(same == FloorBitSet.NO_FLOOR && contrary == FloorBitSet.NO_FLOOR) {
+			return NO_HALL_CALL;
+		}
+		if(contrary == FloorBitSet.NO_FLOOR || (same != FloorBitSet.NO_FLOOR && Math.abs(same - floor) <= Math.abs(contrary - floor))) {
+			return hallCall(same, lookingTo);
+		}
+		return hallCall(contrary, other);
+	}
+
+	/**
+	 * Returns the lowest hall call, of the users going in the given direction if there are any
+	 */
+	private static long lowest(final UserRequestQueue queue, final ElevatorDirection preferred) {
+		int floor = queue.nearestFloorWithRequestsFrom(preferred, queue.getLowestFloor());
+		if(floor != FloorBitSet.NO_FLOOR) {
+			return hallCall(floor, preferred);
+		}
+		floor = queue.nearestFloorWithRequestsFrom(opposite(preferred), queue.getLowestFloor());
+		return floor == FloorBitSet.NO_FLOOR ? NO_HALL_CALL : hallCall(floor, opposite(preferred));
+	}
+}
@@ -0,0 +1,85 @@
+package uk.co.citybank.elevator.queue;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of packed requests, see {@link uk.co.citybank.elevator.model.PackedRequest}, each with the number of users it stands for.
+ * Used for the buckets of a {@link HallCallIndex}, a pending request then costs 12 bytes instead of an object and a reference.
+ * Not thread safe, the index guards it with its lock.
+ * @author anuragtripathi
+ *
+ */
+final class PackedRequestList {
+
+	private long[] elements;
+	private int[] passengers;
+	private int size;
+
+	PackedRequestList(int initialCapacity) {
+		elements = new long[Math.max(1, initialCapacity)];
+		passengers = new int[elements.length];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	long get(int index) {
+		return elements[index];
+	}
+
+	void set(int index, long packed) {
+		elements[index] = packed;
+	}
+
+	int passengers(int index) {
+		return passengers[index];
+	}
+
+	void addPassengers(int index, int count) {
+		passengers[index] += count;
+	}
+
+	/**
+	 * Inserts a request, the requests from the index onwards are moved up by one
+	 * @param index Position, from 0 to the size
+	 * @param packed Packed Request
+	 * @param count Number of users of the request
+	 */
+	void insert(int index, long packed, int count) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+			passengers = Arrays.copyOf(passengers, size * 2);
+		}
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		System.arraycopy(passengers, index, passengers, index + 1, size - index);
+		elements[index] = packed;
+		passengers[index] = count;
+		size++;
+	}
+
+	/**
+	 * Removes the last request, see {@link #passengers(int)} for its users before removing it
+	 * @return Packed Request
+	 */
+	long removeLast() {
+		return elements[--size];
+	}
+
+	/**
+	 * Removes a request, the requests above it are moved down by one
+	 * @param index Position
+	 * @return Packed Request
+	 */
+	long remove(int index) {
+		final long packed = elements[index];
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		System.arraycopy(passengers, index + 1, passengers, index, size - index - 1);
+		size--;
+		return packed;
+	}
+}
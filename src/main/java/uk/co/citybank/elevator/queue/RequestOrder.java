@@ -0,0 +1,26 @@
+package uk.co.citybank.elevator.queue;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Chooses the request an Elevator having nothing left to do goes to next, among the requests of its queue.
+ * An order looks the floors up with {@link UserRequestQueue#nearestFloorWithRequestsFrom(ElevatorDirection, int)} and
+ * {@link UserRequestQueue#nearestFloorWithRequestsUpTo(ElevatorDirection, int)}, which take no lock, and takes the request
+ * with {@link UserRequestQueue#pollRequestAt(int, ElevatorDirection, int)}, looking again if it was taken in between.
+ * See {@link HallCallOrder} for the built-in orders.
+ * @author anuragtripathi
+ *
+ */
+public interface RequestOrder {
+
+	/**
+	 * Takes the next request out of the queue, without blocking
+	 * @param queue Queue of the Elevator
+	 * @param currentFloor The Current Floor of the Elevator
+	 * @param direction Direction of the Elevator
+	 * @param maxPassengers Number of users the Elevator takes, at least one
+	 * @return User Request or null if the queue is empty
+	 */
+	UserRequest poll(UserRequestQueue queue, int currentFloor, ElevatorDirection direction, int maxPassengers);
+}
@@ -1,81 +1,164 @@
 package uk.co.citybank.elevator.queue;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.WallClock;
 import uk.co.citybank.elevator.model.ElevatorDirection;
 import uk.co.citybank.elevator.model.UserRequest;
-import uk.co.citybank.elevator.utility.Constants;
+import uk.co.citybank.elevator.utility.FloorBitSet;
 
 /**
- * A Singleton Class which holds all the User Requests
- * All the running Elevator threads will monitor this queue to find out unassigned user requests.
- * Once a request is assigned to any Elevator thread, it will deleted from this queue.
+ * A Class which holds the User Requests of the floors it serves. Every Elevator has its own queue,
+ * and the queues of different banks of Elevators have nothing in common, so they can run side by side in one JVM.
+ * The Elevator monitors its queue to find out the user requests assigned to it.
+ * Once a request is picked by the Elevator, it will deleted from this queue.
+ * 
+ * The requests going up and the requests going down are guarded by two separate locks, and the checks of the users
+ * waiting at a floor do not take any lock, so the producers and the Elevators only contend when they change the same direction.
  * @author anuragtripathi
  *
  */
 public class UserRequestQueue {
 	
-	private static UserRequestQueue queue = null;
 	final static Logger logger = LoggerFactory.getLogger(UserRequestQueue.class);
 	
-	// Comparator to sort the elements in TreeSet
-	private Comparator<UserRequest> byFloor = Comparator.comparing((UserRequest p)->p.getCurrentFloor()).thenComparing(p->p.getFloorToGo());
+	/** The requests are taken in the order of the queue however long they have waited */
+	public static final long NO_AGING = Long.MAX_VALUE;
 	
 	/**
-	 * The two sorted set one to hold the requests to go up and one to go down
+	 * The two floor indexes one to hold the requests to go up and one to go down
 	 */
-	private TreeSet<UserRequest> requestTreeForGoingUp; 
-	private TreeSet<UserRequest> requestTreeForGoingDown; 
+	private final HallCallIndex requestsForGoingUp; 
+	private final HallCallIndex requestsForGoingDown; 
 	
-	/** Main lock guarding all access */
-    final ReentrantLock lock;
+	private final int lowestFloor;
+	private final int highestFloor;
+	
+	/** Lock only taken by Elevators to wait for requests when the queue is empty, and by producers to wake them up */
+    private final ReentrantLock waitLock;
 
     // The threads needs to be blocked if there is nothing available in the queue
     private final Condition queueNotEmpty;
+    
+    // Number of Elevators waiting on the queue, producers only take the wait lock when it is not zero
+    private volatile int waitingElevators;
+    
+    // Elevators blocked on the condition and wake ups signalled to them and not yet taken, guarded by the wait lock.
+    // Every wake up is told to the clock, so only a counted wake up resumes on the clock, not a spurious one.
+    private int sleepingElevators;
+    private int wakeUps;
+    
+    // The clock needs to know when an Elevator goes idle waiting for requests
+    private volatile ElevatorClock clock = new WallClock();
+    
+    // Told about the new requests, for the Elevators which do not block on this queue
+    private volatile Runnable requestListener;
+    
+    // Order in which an Elevator having nothing left to do takes the requests
+    private volatile RequestOrder requestOrder = HallCallOrder.COLLECTIVE;
+    
+    // The users waiting for longer are taken first whatever the order
+    private volatile long agingMillis = NO_AGING;
 	
-	private UserRequestQueue() {
-		requestTreeForGoingUp = new TreeSet<UserRequest>(byFloor);
-		requestTreeForGoingDown = new TreeSet<UserRequest>(byFloor);
+	/**
+	 * Creates a queue for the floors between the lowest and the highest floor (both included)
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
+	 */
+	public UserRequestQueue(int lowestFloor, int highestFloor) {
+		this.lowestFloor = lowestFloor;
+		this.highestFloor = highestFloor;
+		requestsForGoingUp = new HallCallIndex(ElevatorDirection.UP, lowestFloor, highestFloor);
+		requestsForGoingDown = new HallCallIndex(ElevatorDirection.DOWN, lowestFloor, highestFloor);
 		
-		lock = new ReentrantLock(true);
-		queueNotEmpty = lock.newCondition();
+		waitLock = new ReentrantLock(true);
+		queueNotEmpty = waitLock.newCondition();
+	}
+	
+	/**
+	 * Returns the lowest floor served by this queue
+	 * @return Lowest Floor
+	 */
+	public int getLowestFloor() {
+		return lowestFloor;
+	}
+	
+	/**
+	 * Returns the highest floor served by this queue
+	 * @return Highest Floor
+	 */
+	public int getHighestFloor() {
+		return highestFloor;
+	}
+	
+	/**
+	 * Sets the clock the Elevators picking requests from this queue are running on
+	 * @param clock Clock
+	 */
+	public void setClock(final ElevatorClock clock) {
+		this.clock = clock;
 	}
 	
 	/**
-	 * Returns a instance of UserRequestQueue
-	 * @return UserRequestQueue
+	 * Sets the listener invoked by the producer thread every time new requests have been added.
+	 * Used by the event loop engine to schedule an idle Elevator instead of having a thread waiting on this queue.
+	 * @param requestListener Listener, null to remove it
 	 */
-	public static UserRequestQueue getUserRequestQueue() {
-	    if (queue == null) {
-	      synchronized(UserRequestQueue.class) {
-	        if (queue == null) 
-	        	queue = new UserRequestQueue();
-	      }
-	    }
-	    return queue;
+	public void setRequestListener(final Runnable requestListener) {
+		this.requestListener = requestListener;
 	}
 	
 	/**
 	 * Adds an User Request to the Queue
 	 * @param userRequest User Request
+	 * @throws IllegalArgumentException If the floors of the request are not served by this queue
 	 */
 	public void addUserRequest(final UserRequest userRequest ) {
 		if(ElevatorDirection.UP == userRequest.getDirectionToGo()) {
-			addRequest(requestTreeForGoingUp,userRequest);
+			addRequest(requestsForGoingUp,userRequest);
 		} else {
-			addRequest(requestTreeForGoingDown,userRequest);
+			addRequest(requestsForGoingDown,userRequest);
 		}
 	}
 	
+	/**
+	 * Adds a batch of User Requests to the Queue.
+	 * The requests of each direction are added under a single acquisition of its lock,
+	 * and as many waiting Elevators are woken up as there are new requests.
+	 * @param userRequests User Requests
+	 * @throws IllegalArgumentException If the floors of a request are not served by this queue, nothing is added then
+	 */
+	public void addUserRequests(final Collection<UserRequest> userRequests) {
+		final List<UserRequest> requestsToGoUp = new ArrayList<>(userRequests.size());
+		final List<UserRequest> requestsToGoDown = new ArrayList<>(userRequests.size());
+		for(UserRequest userRequest : userRequests) {
+			if(ElevatorDirection.UP == userRequest.getDirectionToGo()) {
+				requestsToGoUp.add(userRequest);
+			} else {
+				requestsToGoDown.add(userRequest);
+			}
+		}
+		requestsForGoingUp.checkFloors(requestsToGoUp);
+		requestsForGoingDown.checkFloors(requestsToGoDown);
+		
+		int added = 0;
+		if(!requestsToGoUp.isEmpty()) {
+			added += requestsForGoingUp.addAll(requestsToGoUp);
+		}
+		if(!requestsToGoDown.isEmpty()) {
+			added += requestsForGoingDown.addAll(requestsToGoDown);
+		}
+		requestsAdded(added);
+	}
+	
 	/**
 	 * Returns a Single Request To be picked by Elevators
 	 * @param currentFloor The Current Floor of the Elevators
@@ -84,94 +167,330 @@ public class UserRequestQueue {
 	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
 	 */
 	public UserRequest pickRequest(int currentFloor, final ElevatorDirection direction) throws InterruptedException {
-		// Acquire the lock
-		lock.lock();
-		try {
-			
+		return pickRequest(currentFloor, direction, UserRequest.MAX_PASSENGERS);
+	}
+	
+	/**
+	 * Returns a Single Request To be picked by Elevators, with at most the users the Elevator takes : the others keep waiting
+	 * @param currentFloor The Current Floor of the Elevators
+	 * @param direction Direction of the Elevator
+	 * @param maxPassengers Number of users the Elevator takes, at least one
+	 * @return User Request
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public UserRequest pickRequest(int currentFloor, final ElevatorDirection direction, int maxPassengers) throws InterruptedException {
+		checkPassengers(maxPassengers);
+		while(true) {
+			final UserRequest request = findRequest(currentFloor, direction, maxPassengers);
+			if(request != null) {
+				return request;
+			}
 			// Block the requesting thread if both queues are empty
-            while (requestTreeForGoingUp.size() == 0 && requestTreeForGoingDown.size() == 0) {
-            	queueNotEmpty.await();
-            }
-            /**
-             * If Elevator was going UP then it will pick the closet UP request if exists in the queue
-             * If There is no request found then it will try to find out if there is any request for going down closet
-             * if none of them is true then it will pick any of from these two queues
-             * 
-             */
-            if(direction == ElevatorDirection.UP) {
-                UserRequest req = requestTreeForGoingUp.higher(new UserRequest(currentFloor, Constants.HIGHEST_FLOORS+1, ElevatorDirection.UP));
-            	if(req!=null) {
-            		requestTreeForGoingUp.remove(req);
-            		return req;
-            	} else {
-                	req = requestTreeForGoingDown.lower(new UserRequest(Constants.LOWEST_FLOOR, currentFloor+1, ElevatorDirection.DOWN));
-                	if(req!=null) {
-                		requestTreeForGoingDown.remove(req);
-                		return req;
-                	} else {
-                		// Pick any request from both queues
-                		
-                		req = requestTreeForGoingDown.pollFirst();
-                		if(req !=null) {
-                		    return req;
-                		} else {
-                			req = requestTreeForGoingUp.pollFirst();
-                		}
-                		return req;
-                	}
-            	}
-            } else {
-            	UserRequest req = requestTreeForGoingDown.lower(new UserRequest( Constants.LOWEST_FLOOR, currentFloor, ElevatorDirection.DOWN));
-            	if(req!=null) {
-            		requestTreeForGoingDown.remove(req);
-            		return req;
-            	} else {
-                	req = requestTreeForGoingUp.higher(new UserRequest(currentFloor, Constants.HIGHEST_FLOORS+1, ElevatorDirection.UP));
-                	if(req!=null) {
-                		requestTreeForGoingUp.remove(req);
-                		return req;
-                	} else {
-                		
-                        // Pick any request from both queues
-                		req = requestTreeForGoingUp.pollFirst();
-                		if(req !=null) {
-                			return req;
-                		} else {
-                			req = requestTreeForGoingUp.pollFirst();
-                		}
-                		return req;
-                	}
-            	}
-            }
-
-        } finally {
-        	// Release the lock
-            lock.unlock();
-        }
+			awaitRequests();
+		}
+	}
+	
+	/**
+	 * Returns a Single Request To be picked by Elevators, without blocking if the queue is empty
+	 * @param currentFloor The Current Floor of the Elevators
+	 * @param direction Direction of the Elevator
+	 * @return User Request or null if there is no request in the queue
+	 */
+	public UserRequest pollRequest(int currentFloor, final ElevatorDirection direction) {
+		return pollRequest(currentFloor, direction, UserRequest.MAX_PASSENGERS);
 	}
 	
-	private void addRequest(final Set<UserRequest> set , final UserRequest e ) {
-		//Add the Request in the set and send the signal to waiting threads to pick the request from the Queue
-		lock.lock();
+	/**
+	 * Returns a Single Request To be picked by Elevators with at most the users the Elevator takes, without blocking if the queue is empty
+	 * @param currentFloor The Current Floor of the Elevators
+	 * @param direction Direction of the Elevator
+	 * @param maxPassengers Number of users the Elevator takes, at least one
+	 * @return User Request or null if there is no request in the queue
+	 */
+	public UserRequest pollRequest(int currentFloor, final ElevatorDirection direction, int maxPassengers) {
+		checkPassengers(maxPassengers);
+		return findRequest(currentFloor, direction, maxPassengers);
+	}
+	
+	private static void checkPassengers(int maxPassengers) {
+		if(maxPassengers < 1) {
+			throw new IllegalArgumentException("An Elevator picking a request must take at least one user, not " + maxPassengers);
+		}
+	}
+	
+	/**
+	 * Takes the request of the users waiting for the longest time once they have waited beyond the aging time,
+	 * else the next request in the order of this queue
+	 * @return User Request or null if both queues are empty
+	 */
+	private UserRequest findRequest(int currentFloor, final ElevatorDirection direction, int maxPassengers) {
+		final UserRequest agedRequest = pollAgedRequest(maxPassengers);
+		return agedRequest != null ? agedRequest : requestOrder.poll(this, currentFloor, direction, maxPassengers);
+	}
+	
+	/**
+	 * Both directions know their oldest request without a scan, so the aging only costs two volatile reads per pick
+	 * @return User Request or null if nobody has waited beyond the aging time
+	 */
+	private UserRequest pollAgedRequest(int maxPassengers) {
+		final long aging = agingMillis;
+		if(aging == NO_AGING) {
+			return null;
+		}
+		final long upSince = requestsForGoingUp.oldestSubmittedAt();
+		final long downSince = requestsForGoingDown.oldestSubmittedAt();
+		final HallCallIndex index;
+		final long since;
+		if(downSince == UserRequest.NOT_STAMPED || (upSince != UserRequest.NOT_STAMPED && upSince <= downSince)) {
+			index = requestsForGoingUp;
+			since = upSince;
+		} else {
+			index = requestsForGoingDown;
+			since = downSince;
+		}
+		if(since == UserRequest.NOT_STAMPED || clock.currentTimeMillis() - since < aging) {
+			return null;
+		}
+		// Null if another Elevator took it meanwhile, the order of the queue then applies
+		return index.pollOldest(maxPassengers);
+	}
+	
+	/**
+	 * Sets the time after which the users waiting are taken first, before the request the order of the queue would take.
+	 * An Elevator picks a request whenever it has served the users of its sweep, so the users taken first have waited at most
+	 * the aging time, a sweep and the way to them, see {@link uk.co.citybank.elevator.utility.BuildingConfiguration#getAgingMillis()}
+	 * @param agingMillis Time in milliseconds of the clock of the queue, {@link #NO_AGING} by default
+	 */
+	public void setAgingMillis(long agingMillis) {
+		if(agingMillis < 0) {
+			throw new IllegalArgumentException("Aging time " + agingMillis + " cannot be negative");
+		}
+		// The oldest requests are only kept while they are looked at
+		requestsForGoingUp.setAging(agingMillis != NO_AGING);
+		requestsForGoingDown.setAging(agingMillis != NO_AGING);
+		this.agingMillis = agingMillis;
+	}
+	
+	/**
+	 * Returns the time after which the users waiting are taken first
+	 * @return Time in milliseconds, {@link #NO_AGING} if the requests are always taken in the order of the queue
+	 */
+	public long getAgingMillis() {
+		return agingMillis;
+	}
+	
+	/**
+	 * Returns the time the users waiting for the longest time have been submitted at, does not take any lock.
+	 * Only known while the aging is enabled, see {@link #setAgingMillis(long)}
+	 * @return Time in milliseconds or {@link UserRequest#NOT_STAMPED} if no stamped request is waiting or the aging is disabled
+	 */
+	public long getOldestSubmittedAt() {
+		final long upSince = requestsForGoingUp.oldestSubmittedAt();
+		final long downSince = requestsForGoingDown.oldestSubmittedAt();
+		if(upSince == UserRequest.NOT_STAMPED || downSince == UserRequest.NOT_STAMPED) {
+			return upSince == UserRequest.NOT_STAMPED ? downSince : upSince;
+		}
+		return Math.min(upSince, downSince);
+	}
+	
+	/**
+	 * Returns the nearest floor equal or above the given floor where users wait to go in a direction, does not take any lock
+	 * @param directionToGo Direction the users go
+	 * @param floor Floor to look from
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR}
+	 */
+	public int nearestFloorWithRequestsFrom(final ElevatorDirection directionToGo, int floor) {
+		return index(directionToGo).nearestFloorFrom(floor);
+	}
+	
+	/**
+	 * Returns the nearest floor equal or below the given floor where users wait to go in a direction, does not take any lock
+	 * @param directionToGo Direction the users go
+	 * @param floor Floor to look from
+	 * @return Floor or {@link FloorBitSet#NO_FLOOR}
+	 */
+	public int nearestFloorWithRequestsUpTo(final ElevatorDirection directionToGo, int floor) {
+		return index(directionToGo).nearestFloorUpTo(floor);
+	}
+	
+	/**
+	 * Takes the request going to the nearest destination of the users waiting at a floor to go in a direction,
+	 * with at most the users the Elevator takes : the others keep waiting
+	 * @param floor Floor of the users
+	 * @param directionToGo Direction the users go
+	 * @param maxPassengers Number of users the Elevator takes, at least one
+	 * @return User Request or null if nobody waits there any more
+	 */
+	public UserRequest pollRequestAt(int floor, final ElevatorDirection directionToGo, int maxPassengers) {
+		checkPassengers(maxPassengers);
+		return index(directionToGo).poll(floor, maxPassengers);
+	}
+	
+	private HallCallIndex index(final ElevatorDirection directionToGo) {
+		return directionToGo == ElevatorDirection.UP ? requestsForGoingUp : requestsForGoingDown;
+	}
+	
+	/**
+	 * Sets the order in which the requests are picked and polled, {@link HallCallOrder#COLLECTIVE} by default
+	 * @param requestOrder Request Order
+	 */
+	public void setRequestOrder(final RequestOrder requestOrder) {
+		this.requestOrder = requestOrder;
+	}
+	
+	/**
+	 * Returns the order in which the requests are picked and polled
+	 * @return Request Order
+	 */
+	public RequestOrder getRequestOrder() {
+		return requestOrder;
+	}
+	
+	/**
+	 * Determines if there is no request in the queue, does not take any lock
+	 * @return true/false
+	 */
+	public boolean isEmpty() {
+		return requestsForGoingUp.isEmpty() && requestsForGoingDown.isEmpty();
+	}
+	
+	/**
+	 * Blocks the calling Elevator until a request is added to the queue
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	private void awaitRequests() throws InterruptedException {
+		waitLock.lock();
 		try {
-			set.add(e);
-			queueNotEmpty.signal();
+			// Announce the wait before checking the queue, a producer adding a request afterwards will see it and wake this thread up
+			waitingElevators++;
+			try {
+				while (isEmpty()) {
+					clock.idle();
+					awaitWakeUp();
+					// Wait for the turn on the clock without holding the lock so that the running party can still add requests
+					waitLock.unlock();
+					try {
+						clock.resume();
+					} finally {
+						waitLock.lock();
+					}
+				}
+			} finally {
+				waitingElevators--;
+			}
 		} finally {
-			lock.unlock();
+			waitLock.unlock();
 		}
 	}
 	
+	/**
+	 * Blocks until a wake up is signalled, under the wait lock, and takes it
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	private void awaitWakeUp() throws InterruptedException {
+		sleepingElevators++;
+		try {
+			while (wakeUps == 0) {
+				queueNotEmpty.await();
+			}
+		} catch (InterruptedException e) {
+			if (wakeUps > sleepingElevators - 1) {
+				// The wake up signalled to this Elevator is taken, or the clock would wait for it forever
+				wakeUps--;
+				waitLock.unlock();
+				try {
+					clock.resume();
+				} finally {
+					waitLock.lock();
+				}
+			}
+			throw e;
+		} finally {
+			sleepingElevators--;
+		}
+		wakeUps--;
+	}
+	
+	private void addRequest(final HallCallIndex index , final UserRequest e ) {
+		//Add the Request in the index and send the signal to waiting threads to pick the request from the Queue
+		if(index.add(e)) {
+			requestsAdded(1);
+		}
+	}
+	
+	private void requestsAdded(int requestsAdded) {
+		if(requestsAdded == 0) {
+			return;
+		}
+		wakeUpWaitingElevators(requestsAdded);
+		final Runnable listener = requestListener;
+		if(listener != null) {
+			listener.run();
+		}
+	}
+	
+	/**
+	 * Wakes up as many waiting Elevators as the number of requests added, the wait lock is only taken if some Elevator is waiting
+	 * @param requestsAdded Number of requests added
+	 */
+	private void wakeUpWaitingElevators(int requestsAdded) {
+		if(waitingElevators == 0) {
+			return;
+		}
+		waitLock.lock();
+		try {
+			// An Elevator already signalled is not counted twice
+			for(int i = 0; i < requestsAdded && wakeUps < sleepingElevators; i++) {
+				wakeUps++;
+				clock.wakeOne();
+				queueNotEmpty.signal();
+			}
+		} finally {
+			waitLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of floors having users waiting, counting once each direction. Does not take any lock.
+	 * @return Number of floors
+	 */
+	public int getNumberOfFloorsWithRequests() {
+		return requestsForGoingUp.numberOfFloorsWithRequests() + requestsForGoingDown.numberOfFloorsWithRequests();
+	}
+	
+	/**
+	 * Returns the number of requests in the queue. Does not take any lock.
+	 * @return Number of requests
+	 */
+	public int getNumberOfRequests() {
+		return requestsForGoingUp.numberOfRequests() + requestsForGoingDown.numberOfRequests();
+	}
+	
+	/**
+	 * Returns the number of users waiting in the queue, a request standing for all the users of its trip. Does not take any lock.
+	 * @return Number of users
+	 */
+	public int getNumberOfPassengers() {
+		return requestsForGoingUp.numberOfPassengers() + requestsForGoingDown.numberOfPassengers();
+	}
+	
 	/**
 	 * Determines if any User willing to go UP from the current Floor is still waiting
 	 * @param currentFloor Current Floor
 	 * @return true/false
 	 */
 	public boolean isUserWillingToGoUpWaitingAtCurrentFloor(int currentFloor) {
-		 final UserRequest request = requestTreeForGoingUp.higher(new UserRequest(currentFloor, currentFloor+1, ElevatorDirection.UP));
-		 if(request!=null && (request.getCurrentFloor() == currentFloor)) {
-				 return true;
-		 }
-		 return false;
+		return requestsForGoingUp.hasRequestAt(currentFloor);
+	}
+	
+	/**
+	 * Determines if any User willing to go UP from the current Floor and getting off at or below a floor is still waiting
+	 * @param currentFloor Current Floor
+	 * @param highestFloorToGo Highest destination
+	 * @return true/false
+	 */
+	public boolean isUserWillingToGoUpWaitingAtCurrentFloor(int currentFloor, int highestFloorToGo) {
+		return requestsForGoingUp.hasRequestAt(currentFloor, highestFloorToGo);
 	}
 	
 	/**
@@ -180,11 +499,17 @@ public class UserRequestQueue {
 	 * @return true/false
 	 */
 	public boolean isRequestToGoDownPendingFromCurrentFloor(int currentFloor) {
-		final UserRequest request = requestTreeForGoingDown.lower(new UserRequest(currentFloor, currentFloor, ElevatorDirection.DOWN));
-		if(request !=null && (request.getCurrentFloor() == currentFloor)) {
-			return true;
-		 }
-		return false;
+		return requestsForGoingDown.hasRequestAt(currentFloor);
+	}
+	
+	/**
+	 * Determines if any request to go Down from the current Floor and getting off at or above a floor is still Pending
+	 * @param currentFloor Current Floor
+	 * @param lowestFloorToGo Lowest destination
+	 * @return true/false
+	 */
+	public boolean isRequestToGoDownPendingFromCurrentFloor(int currentFloor, int lowestFloorToGo) {
+		return requestsForGoingDown.hasRequestAt(currentFloor, lowestFloorToGo);
 	}
 	
 	/**
@@ -193,29 +518,43 @@ public class UserRequestQueue {
 	 * @return Users
 	 */
 	public List<UserRequest> pickUsersWantToGoUpWaitingAtCurrentFloor(int currentFloor) {
-		    final List<UserRequest> requestList = new ArrayList<>();
-			boolean keepIterating = true;
-			final UserRequest tempRequest = new UserRequest(currentFloor, currentFloor, ElevatorDirection.UP);
-			while(keepIterating) {
-				final UserRequest request = requestTreeForGoingUp.higher(tempRequest);
-				if(request == null) {
-					break;
-				}
-				if(request.getCurrentFloor() == currentFloor) {
-					lock.lock();
-					try {
-						final boolean isDeleted = requestTreeForGoingUp.remove(request);
-						if(isDeleted) {
-							requestList.add(request);
-						}
-					} finally {
-						lock.unlock();
-					}
-				} else {
-					keepIterating =false;
-				}
-			}
-		    return requestList;
+		return requestsForGoingUp.pollAll(currentFloor, Integer.MAX_VALUE, highestFloor);
+	}
+	
+	/**
+	 * Returns the Users willing to go UP from the current floor who fit in the Elevator, the nearest destinations first.
+	 * The users who do not fit keep waiting.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @return Users, empty if the Elevator is full
+	 */
+	public List<UserRequest> pickUsersWantToGoUpWaitingAtCurrentFloor(int currentFloor, int maxPassengers) {
+		return requestsForGoingUp.pollAll(currentFloor, maxPassengers, highestFloor);
+	}
+	
+	/**
+	 * Returns the Users willing to go UP from the current floor who fit in the Elevator and get off at or below a floor, the nearest destinations first.
+	 * Used by an Elevator which is going to turn back at that floor, the other users keep waiting.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param highestFloorToGo Highest destination
+	 * @return Users, empty if the Elevator is full
+	 */
+	public List<UserRequest> pickUsersWantToGoUpWaitingAtCurrentFloor(int currentFloor, int maxPassengers, int highestFloorToGo) {
+		return requestsForGoingUp.pollAll(currentFloor, maxPassengers, highestFloorToGo);
+	}
+	
+	/**
+	 * Adds the Users willing to go UP from the current floor who fit in the Elevator and get off at or below a floor to the given collection,
+	 * the nearest destinations first. Allocates nothing but the User Requests taken, an Elevator passes a collection it reuses on every stop.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param highestFloorToGo Highest destination
+	 * @param picked Collection the User Requests are added to
+	 * @return Number of User Requests added, 0 if the Elevator is full or nobody waits
+	 */
+	public int pickUsersWantToGoUpWaitingAtCurrentFloor(int currentFloor, int maxPassengers, int highestFloorToGo, final Collection<? super UserRequest> picked) {
+		return requestsForGoingUp.pollAll(currentFloor, maxPassengers, highestFloorToGo, picked);
 	}
 	
 	/**
@@ -224,28 +563,42 @@ public class UserRequestQueue {
 	 * @return Users
 	 */
 	public List<UserRequest> pickUsersWantToGoDownWaitingAtCurrentFloor(int currentFloor) {
-            final List<UserRequest> requestList = new ArrayList<>();
-		    boolean keepIterating = true;
-			final UserRequest tempRequest = new UserRequest(currentFloor, currentFloor-1, ElevatorDirection.DOWN);
-			while(keepIterating) {
-				final UserRequest request = requestTreeForGoingDown.lower(tempRequest);
-				if(request == null) {
-					break;
-				}
-				if(request.getCurrentFloor() == currentFloor) {
-					lock.lock();
-					try {
-						final boolean isDeleted = requestTreeForGoingDown.remove(request);
-						if(isDeleted) {
-							requestList.add(request);
-						}
-					} finally {
-						lock.unlock();
-					}
-				} else {
-					keepIterating =false;
-				}
-			}
-		    return requestList;
+		return requestsForGoingDown.pollAll(currentFloor, Integer.MAX_VALUE, lowestFloor);
+	}
+	
+	/**
+	 * Returns the Users willing to go DOWN from the current floor who fit in the Elevator, the nearest destinations first.
+	 * The users who do not fit keep waiting.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @return Users, empty if the Elevator is full
+	 */
+	public List<UserRequest> pickUsersWantToGoDownWaitingAtCurrentFloor(int currentFloor, int maxPassengers) {
+		return requestsForGoingDown.pollAll(currentFloor, maxPassengers, lowestFloor);
+	}
+	
+	/**
+	 * Returns the Users willing to go DOWN from the current floor who fit in the Elevator and get off at or above a floor, the nearest destinations first.
+	 * Used by an Elevator which is going to turn back at that floor, the other users keep waiting.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param lowestFloorToGo Lowest destination
+	 * @return Users, empty if the Elevator is full
+	 */
+	public List<UserRequest> pickUsersWantToGoDownWaitingAtCurrentFloor(int currentFloor, int maxPassengers, int lowestFloorToGo) {
+		return requestsForGoingDown.pollAll(currentFloor, maxPassengers, lowestFloorToGo);
+	}
+	
+	/**
+	 * Adds the Users willing to go DOWN from the current floor who fit in the Elevator and get off at or above a floor to the given collection,
+	 * the nearest destinations first. Allocates nothing but the User Requests taken, an Elevator passes a collection it reuses on every stop.
+	 * @param currentFloor Current Floor
+	 * @param maxPassengers Number of users the Elevator takes
+	 * @param lowestFloorToGo Lowest destination
+	 * @param picked Collection the User Requests are added to
+	 * @return Number of User Requests added, 0 if the Elevator is full or nobody waits
+	 */
+	public int pickUsersWantToGoDownWaitingAtCurrentFloor(int currentFloor, int maxPassengers, int lowestFloorToGo, final Collection<? super UserRequest> picked) {
+		return requestsForGoingDown.pollAll(currentFloor, maxPassengers, lowestFloorToGo, picked);
 	}
 }
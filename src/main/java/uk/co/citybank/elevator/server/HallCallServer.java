@@ -0,0 +1,455 @@
+package uk.co.citybank.elevator.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.metrics.FleetGauges;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * Non blocking TCP front end of a bank of Elevators, receiving the hall calls of the floor panels and turnstiles.
+ * Every connection sends requests in the format of the console, one per line :
+ * <pre>
+ * 3 6 UP
+ * 0 -2 DOWN
+ * </pre>
+ * A single thread serves all the connections with a selector. The requests are parsed straight from the bytes
+ * of the read buffer of their connection, and all the requests read in one turn of the selector are raised to the bank as a batch.
+ * Nothing is sent back, an invalid line is counted and logged.
+ *
+ * When the queues of the Elevators hold more requests than the saturation threshold, the connections stop being read,
+ * the requests pile up in the socket buffers and the TCP flow control slows the senders down, until the Elevators catch up.
+ * A connection is also read at most {@link #MAX_REQUESTS_PER_READ} requests at a time, so a busy panel cannot starve the others.
+ * @author anuragtripathi
+ *
+ */
+public class HallCallServer implements Closeable {
+
+	final static Logger logger = LoggerFactory.getLogger(HallCallServer.class);
+
+	/** Size of the read buffer of every connection, a longer line is rejected */
+	static final int READ_BUFFER_SIZE = 1024;
+
+	/** Requests taken from a connection in one turn of the selector */
+	static final int MAX_REQUESTS_PER_READ = 64;
+
+	/** Time between two checks of the queues while the server is saturated */
+	private static final long SATURATED_POLL_MILLIS = 10;
+
+	private static final byte[] UP = { 'U', 'P' };
+	private static final byte[] DOWN = { 'D', 'O', 'W', 'N' };
+
+	private final ElevatorManager bank;
+	private final FleetGauges gauges;
+	private final int saturationQueueDepth;
+	private final Selector selector;
+	private final ServerSocketChannel serverChannel;
+	private final List<UserRequest> batch = new ArrayList<>();
+	/** Connections having complete lines left in their buffer, served before waiting for the sockets */
+	private final ArrayDeque<SelectionKey> pending = new ArrayDeque<>();
+	private final AtomicLong submittedRequests = new AtomicLong();
+	private final AtomicLong rejectedRequests = new AtomicLong();
+	private final AtomicLong saturatedTurns = new AtomicLong();
+	private Thread thread;
+	private volatile boolean running;
+	private boolean saturated;
+
+	/**
+	 * State of a connection : its read buffer and the parser position
+	 */
+	private static final class Connection {
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		/** true while the end of a line too long for the buffer is skipped */
+		private boolean skippingLine;
+		/** true once the peer has closed its side, the lines left in the buffer are still served */
+		private boolean endOfStream;
+		/** true while the connection is in the pending connections */
+		private boolean pending;
+		private int currentFloor;
+		private int floorToGo;
+		private ElevatorDirection direction;
+	}
+
+	/**
+	 * Opens the server socket, the connections are only accepted once {@link #start()} is called
+	 * @param bank Bank of Elevators, already started
+	 * @param address Address to listen on, port 0 for any free port
+	 * @param saturationQueueDepth Requests waiting in the queues of the Elevators above which the connections stop being read
+	 * @throws IOException If the address cannot be bound
+	 */
+	public HallCallServer(final ElevatorManager bank, final InetSocketAddress address, int saturationQueueDepth) throws IOException {
+		if (saturationQueueDepth <= 0) {
+			throw new IllegalArgumentException("Saturation queue depth " + saturationQueueDepth + " is not positive");
+		}
+		this.bank = bank;
+		this.gauges = new FleetGauges(bank.getDispatcher().getElevators());
+		this.saturationQueueDepth = saturationQueueDepth;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(address);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			serverChannel.close();
+			selector.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts the thread of the server
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread(this::serve, bank.getName() + "HallCallServer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the port the server listens on
+	 * @return Port
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Returns the number of requests raised to the bank, including the ones it has rejected
+	 * @return Requests submitted
+	 */
+	public long getSubmittedRequests() {
+		return submittedRequests.get();
+	}
+
+	/**
+	 * Returns the number of lines which were not a request or that the bank has rejected
+	 * @return Requests rejected
+	 */
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+
+	/**
+	 * Returns the number of turns of the selector during which the connections have not been read because the queues were full
+	 * @return Turns spent saturated
+	 */
+	public long getSaturatedTurns() {
+		return saturatedTurns.get();
+	}
+
+	private void serve() {
+		try {
+			while (running) {
+				updateSaturation();
+				if (saturated) {
+					selector.select(SATURATED_POLL_MILLIS);
+				} else if (!pending.isEmpty()) {
+					selector.selectNow();
+					servePending();
+				} else {
+					selector.select();
+				}
+				final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					final SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					} else if (key.isReadable()) {
+						read(key);
+					}
+				}
+				submitBatch();
+			}
+		} catch (IOException e) {
+			if (running) {
+				logger.error("Hall Call Server of " + bank.getName() + " stopped", e);
+			}
+		} finally {
+			closeChannels();
+		}
+	}
+
+	/**
+	 * Stops or resumes reading all the connections when the queues cross the saturation threshold
+	 */
+	private void updateSaturation() {
+		final boolean full = gauges.getQueueDepth() >= saturationQueueDepth;
+		if (full) {
+			saturatedTurns.incrementAndGet();
+		}
+		if (full == saturated) {
+			return;
+		}
+		saturated = full;
+		for (SelectionKey key : selector.keys()) {
+			if (key.isValid() && key.attachment() != null) {
+				key.interestOps(full ? 0 : SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	/**
+	 * Serves the connections having complete lines left in their buffer, once each
+	 */
+	private void servePending() {
+		for (int i = pending.size(); i > 0 && !pending.isEmpty(); i--) {
+			final SelectionKey key = pending.poll();
+			final Connection connection = (Connection) key.attachment();
+			connection.pending = false;
+			if (key.isValid()) {
+				parse(key, connection);
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.register(selector, saturated ? 0 : SelectionKey.OP_READ, new Connection());
+		}
+	}
+
+	private void read(final SelectionKey key) {
+		final Connection connection = (Connection) key.attachment();
+		final SocketChannel channel = (SocketChannel) key.channel();
+		try {
+			if (channel.read(connection.buffer) < 0) {
+				connection.endOfStream = true;
+			}
+		} catch (IOException e) {
+			logger.debug("Connection " + channel + " lost : " + e.getMessage());
+			close(key);
+			return;
+		}
+		parse(key, connection);
+	}
+
+	/**
+	 * Takes the complete lines of the buffer of a connection, at most {@link #MAX_REQUESTS_PER_READ} of them
+	 */
+	private void parse(final SelectionKey key, final Connection connection) {
+		final ByteBuffer buffer = connection.buffer;
+		final int end = buffer.position();
+		int lineStart = 0;
+		int requests = 0;
+		for (int i = 0; i < end && requests < MAX_REQUESTS_PER_READ; i++) {
+			if (buffer.get(i) != '\n') {
+				continue;
+			}
+			if (connection.skippingLine) {
+				connection.skippingLine = false;
+			} else if (parseLine(buffer, lineStart, i, connection)) {
+				batch.add(new UserRequest(connection.currentFloor, connection.floorToGo, connection.direction));
+				requests++;
+			} else {
+				rejectedRequests.incrementAndGet();
+				logger.debug("Invalid Request from " + key.channel());
+			}
+			lineStart = i + 1;
+		}
+		if (lineStart == 0 && end == buffer.capacity()) {
+			// A line longer than the buffer, dropped up to its end
+			if (!connection.skippingLine) {
+				rejectedRequests.incrementAndGet();
+			}
+			connection.skippingLine = true;
+			lineStart = end;
+		}
+		buffer.limit(end).position(lineStart);
+		buffer.compact();
+		if (lineStart < end && requests == MAX_REQUESTS_PER_READ) {
+			// More lines may be complete in the buffer, they are served on a next turn even if nothing more is received
+			if (!connection.pending) {
+				connection.pending = true;
+				pending.add(key);
+			}
+		} else if (connection.endOfStream) {
+			if (buffer.position() > 0 && !connection.skippingLine) {
+				// The last line has no end of line
+				rejectedRequests.incrementAndGet();
+			}
+			close(key);
+		}
+	}
+
+	/**
+	 * Parses the line between start and end (excluded, the \n) into the connection
+	 * @return false if the line is not a request
+	 */
+	private static boolean parseLine(final ByteBuffer buffer, int start, int end, final Connection connection) {
+		if (end > start && buffer.get(end - 1) == '\r') {
+			end--;
+		}
+		int position = skipSpaces(buffer, start, end);
+		final long currentFloor = parseNumber(buffer, position, end);
+		if (currentFloor == Long.MIN_VALUE) {
+			return false;
+		}
+		position = skipSpaces(buffer, skipNumber(buffer, position, end), end);
+		final long floorToGo = parseNumber(buffer, position, end);
+		if (floorToGo == Long.MIN_VALUE) {
+			return false;
+		}
+		position = skipSpaces(buffer, skipNumber(buffer, position, end), end);
+		ElevatorDirection direction;
+		if (matches(buffer, position, end, UP)) {
+			direction = ElevatorDirection.UP;
+			position += UP.length;
+		} else if (matches(buffer, position, end, DOWN)) {
+			direction = ElevatorDirection.DOWN;
+			position += DOWN.length;
+		} else {
+			return false;
+		}
+		if (skipSpaces(buffer, position, end) != end) {
+			return false;
+		}
+		connection.currentFloor = (int) currentFloor;
+		connection.floorToGo = (int) floorToGo;
+		connection.direction = direction;
+		return true;
+	}
+
+	private static int skipSpaces(final ByteBuffer buffer, int position, int end) {
+		while (position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+			position++;
+		}
+		return position;
+	}
+
+	private static int skipNumber(final ByteBuffer buffer, int position, int end) {
+		if (position < end && buffer.get(position) == '-') {
+			position++;
+		}
+		while (position < end && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * Parses a floor number
+	 * @return The number, Long.MIN_VALUE if there is no number or it is too long to be a floor
+	 */
+	private static long parseNumber(final ByteBuffer buffer, int position, int end) {
+		boolean negative = false;
+		if (position < end && buffer.get(position) == '-') {
+			negative = true;
+			position++;
+		}
+		int digits = 0;
+		long value = 0;
+		while (position < end && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+			value = value * 10 + (buffer.get(position) - '0');
+			position++;
+			digits++;
+		}
+		if (digits == 0 || digits > 9) {
+			return Long.MIN_VALUE;
+		}
+		return negative ? -value : value;
+	}
+
+	private static boolean matches(final ByteBuffer buffer, int position, int end, final byte[] word) {
+		if (end - position < word.length) {
+			return false;
+		}
+		for (int i = 0; i < word.length; i++) {
+			if (buffer.get(position + i) != word[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Raises the requests read in this turn of the selector to the bank
+	 */
+	private void submitBatch() {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final Map<UserRequest, ValidationException> rejected = bank.raiseUserRequests(batch);
+		if (!rejected.isEmpty()) {
+			// The same request can be in the batch several times but is only once in the map
+			for (UserRequest request : batch) {
+				if (rejected.containsKey(request)) {
+					rejectedRequests.incrementAndGet();
+				}
+			}
+		}
+		submittedRequests.addAndGet(batch.size());
+		batch.clear();
+	}
+
+	private void close(final SelectionKey key) {
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			logger.debug("Connection " + key.channel() + " not closed : " + e.getMessage());
+		}
+	}
+
+	private void closeChannels() {
+		for (SelectionKey key : selector.keys()) {
+			close(key);
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			logger.debug("Selector not closed : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops the server and closes all the connections
+	 */
+	@Override
+	public void close() throws IOException {
+		final Thread serverThread;
+		synchronized (this) {
+			running = false;
+			serverThread = thread;
+		}
+		if (serverThread == null) {
+			serverChannel.close();
+			selector.close();
+			return;
+		}
+		selector.wakeup();
+		try {
+			serverThread.join(10000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.manager.DispatchPolicy;
+import uk.co.citybank.elevator.manager.DispatchStrategy;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.manager.EnergyWeightedStrategy;
+import uk.co.citybank.elevator.metrics.LatencyHistogram;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * Replays the same trace into a new bank of Elevators for every {@link DispatchStrategy} and compares the waits, the rides
+ * and the travel of the motors, to choose the policy of a building from its own traffic and to weigh the energy against the wait.
+ * Every run is simulated on its own {@link VirtualClock}, a synthetic traffic being generated again from the same seed.
+ * @author anuragtripathi
+ *
+ */
+public class DispatchComparison {
+
+	/**
+	 * Opens the trace to replay, once for every strategy
+	 */
+	public interface TraceSource {
+
+		/**
+		 * Opens the trace from its beginning
+		 * @return Trace, closed by the caller
+		 * @throws IOException If the trace cannot be opened
+		 */
+		Trace open() throws IOException;
+	}
+
+	private final BuildingConfiguration building;
+	private final int numberOfElevators;
+
+	/**
+	 * Constructor
+	 * @param building Building of the banks
+	 * @param numberOfElevators Number of Elevators of every bank
+	 */
+	public DispatchComparison(final BuildingConfiguration building, int numberOfElevators) {
+		this.building = building;
+		this.numberOfElevators = numberOfElevators;
+	}
+
+	/**
+	 * Replays the trace under every strategy, one after the other
+	 * @param traces Source of the trace
+	 * @param strategies Strategies to compare
+	 * @return Report of every strategy, in the order of the strategies
+	 * @throws IOException If the trace cannot be read
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public Map<DispatchStrategy, LoadReport> compare(final TraceSource traces, final List<? extends DispatchStrategy> strategies)
+			throws IOException, InterruptedException {
+		final Map<DispatchStrategy, LoadReport> reports = new LinkedHashMap<>();
+		for (DispatchStrategy strategy : strategies) {
+			try (Trace trace = traces.open()) {
+				reports.put(strategy, run(strategy, trace));
+			}
+		}
+		return reports;
+	}
+
+	/**
+	 * Replays the trace into a new bank dispatched by the strategy, in simulated time
+	 * @param strategy Dispatch Strategy
+	 * @param trace Requests to replay, not closed by this method
+	 * @return Report of the run
+	 * @throws IOException If the trace cannot be read
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public LoadReport run(final DispatchStrategy strategy, final Trace trace) throws IOException, InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager bank = new ElevatorManager(ElevatorManager.DEFAULT_BANK_NAME, building);
+		bank.setDispatchStrategy(strategy);
+		bank.startElevators(numberOfElevators, clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			return new LoadGenerator(bank, clock).run(trace, 1);
+		} finally {
+			bank.shutDownElevators();
+			clock.leave();
+			bank.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Formats the reports as a table, one row per strategy
+	 * @param reports Report of every strategy
+	 * @return Table
+	 */
+	public static String toTable(final Map<DispatchStrategy, LoadReport> reports) {
+		final StringBuilder table = new StringBuilder();
+		table.append(String.format("%-12s %8s %10s %10s %10s %10s %10s %12s %10s %8s%n", "Policy", "Served", "Wait mean", "Wait p95",
+				"Ride mean", "Ride p95", "Floors", "Floors/user", "Empty", "Starts"));
+		for (Map.Entry<DispatchStrategy, LoadReport> entry : reports.entrySet()) {
+			final LoadReport report = entry.getValue();
+			final LatencyHistogram wait = report.getLatency().getWait();
+			final LatencyHistogram ride = report.getLatency().getRide();
+			table.append(String.format("%-12s %8d %8.1f s %8.1f s %8.1f s %8.1f s %10d %12.2f %10d %8d%n", entry.getKey(), report.getServed(),
+					wait.getMean() / 1000, wait.getValueAtPercentile(95) / 1000.0, ride.getMean() / 1000, ride.getValueAtPercentile(95) / 1000.0,
+					report.getFloorsTravelled(), report.getServed() == 0 ? 0 : (double) report.getFloorsTravelled() / report.getServed(),
+					report.getEmptyFloorsTravelled(), report.getStarts()));
+		}
+		return table.toString();
+	}
+
+	/**
+	 * Replays a trace file or a synthetic traffic under every built-in policy, or the given ones, into banks of the building
+	 * of building.properties and prints the comparison.
+	 * A policy written ENERGY:&lt;ms per floor&gt;[:&lt;floors per stop&gt;] is an {@link EnergyWeightedStrategy} of these weights,
+	 * so that several weights are compared in one run.
+	 * <pre>
+	 * DispatchComparison &lt;trace file | UP_PEAK|DOWN_PEAK|LUNCH|INTERFLOOR[:requests per minute[:minutes]]&gt; [elevators] [seed] [policy,policy...]
+	 * </pre>
+	 * @param args Arguments
+	 * @throws Exception If the trace cannot be read
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage : DispatchComparison <trace file | UP_PEAK|DOWN_PEAK|LUNCH|INTERFLOOR[:requests per minute[:minutes]]>"
+					+ " [elevators=4] [seed=42] [policies=" + Arrays.toString(DispatchPolicy.values()) + ", ENERGY:<ms per floor>[:<floors per stop>]]");
+			return;
+		}
+		final int numberOfElevators = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		final long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+		final List<DispatchStrategy> strategies = new ArrayList<>();
+		if (args.length > 3) {
+			for (String policy : args[3].split(",")) {
+				strategies.add(strategy(policy.trim().toUpperCase()));
+			}
+		} else {
+			strategies.addAll(Arrays.asList(DispatchPolicy.values()));
+		}
+		final BuildingConfiguration building = BuildingConfiguration.loadIfExists(Paths.get(Constants.BUILDING_FILE));
+		System.out.println("Building : " + building);
+
+		final Map<DispatchStrategy, LoadReport> reports = new DispatchComparison(building, numberOfElevators)
+				.compare(() -> LoadGenerator.openTrace(args[0], building, seed), strategies);
+		System.out.print(toTable(reports));
+	}
+
+	/**
+	 * Returns the built-in policy of the name, or the energy weighted strategy of the weights following ENERGY:
+	 */
+	private static DispatchStrategy strategy(final String policy) {
+		final String[] fields = policy.split(":");
+		if (fields.length == 1) {
+			return DispatchPolicy.valueOf(policy);
+		}
+		if (!DispatchPolicy.ENERGY.name().equals(fields[0])) {
+			throw new IllegalArgumentException("Only the " + DispatchPolicy.ENERGY + " policy takes weights : " + policy);
+		}
+		final EnergyWeightedStrategy defaults = EnergyWeightedStrategy.DEFAULT;
+		return new EnergyWeightedStrategy(Long.parseLong(fields[1]), fields.length > 2 ? Long.parseLong(fields[2]) : defaults.getFloorsPerStop(),
+				DispatchPolicy.ENERGY.getOrder());
+	}
+}
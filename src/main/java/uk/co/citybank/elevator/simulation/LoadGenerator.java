@@ -0,0 +1,287 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import uk.co.citybank.elevator.clock.ElevatorClock;
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.clock.WallClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.metrics.FleetGauges;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * Replays a trace of requests into a bank of Elevators at the rate they were recorded, or faster, and reports how the bank coped.
+ * The requests of the same time are raised together as a batch. While the trace is replayed and until the fleet is idle again,
+ * the queue depth and the busy Elevators are sampled at a fixed period of the clock of the Elevators.
+ *
+ * On a {@link VirtualClock} the thread calling {@link #run(Trace, double)} must have joined the clock before the Elevators are started,
+ * the whole trace is then replayed in simulated time as fast as the Elevators can be run.
+ * @author anuragtripathi
+ *
+ */
+public class LoadGenerator {
+
+	/** Period of the samples of the queue depth, in milliseconds of the clock of the Elevators */
+	public static final long DEFAULT_SAMPLE_MILLIS = 1000;
+
+	/** Time given to the Elevators to serve the last requests once the trace is replayed */
+	public static final long DEFAULT_DRAIN_MILLIS = 60 * 60 * 1000L;
+
+	// Indexes of the travel counters summed over the Elevators
+	private static final int FLOORS = 0;
+	private static final int EMPTY_FLOORS = 1;
+	private static final int STARTS = 2;
+	private static final int STOPS = 3;
+
+	private final ElevatorManager bank;
+	private final ElevatorClock clock;
+	private long sampleMillis = DEFAULT_SAMPLE_MILLIS;
+	private long drainMillis = DEFAULT_DRAIN_MILLIS;
+
+	private List<Elevator> elevators;
+	private FleetGauges gauges;
+	private long startMillis;
+	private long nextSampleMillis;
+	private long lastSampleMillis;
+	private long[] busyMillis;
+	private long[] sampleTimes = new long[64];
+	private int[] queueDepths = new int[64];
+	private int[] busyElevators = new int[64];
+	private int samples;
+
+	/**
+	 * Constructor
+	 * @param bank Bank of Elevators, already started on the clock
+	 * @param clock The clock the Elevators run on
+	 */
+	public LoadGenerator(final ElevatorManager bank, final ElevatorClock clock) {
+		this.bank = bank;
+		this.clock = clock;
+	}
+
+	/**
+	 * Sets the period of the samples of the queue depth and of the busy Elevators
+	 * @param sampleMillis Period in milliseconds of the clock of the Elevators
+	 */
+	public void setSampleMillis(long sampleMillis) {
+		if (sampleMillis <= 0) {
+			throw new IllegalArgumentException("Sample period " + sampleMillis + " is not positive");
+		}
+		this.sampleMillis = sampleMillis;
+	}
+
+	/**
+	 * Sets the longest time given to the Elevators to serve the last requests once the trace is replayed
+	 * @param drainMillis Time in milliseconds of the clock of the Elevators
+	 */
+	public void setDrainMillis(long drainMillis) {
+		this.drainMillis = drainMillis;
+	}
+
+	/**
+	 * Replays a trace, the time of its first request being now
+	 * @param trace Requests to replay, not closed by this method
+	 * @param speed 1 to replay at the recorded rate, 2 twice as fast and so on
+	 * @return Report of the run
+	 * @throws IOException If the trace cannot be read
+	 * @throws InterruptedException Exception Thrown if this thread needs to interrupted
+	 */
+	public LoadReport run(final Trace trace, double speed) throws IOException, InterruptedException {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("Speed " + speed + " is not positive");
+		}
+		elevators = bank.getDispatcher().getElevators();
+		gauges = new FleetGauges(elevators);
+		busyMillis = new long[elevators.size()];
+		samples = 0;
+		startMillis = clock.currentTimeMillis();
+		nextSampleMillis = startMillis;
+		lastSampleMillis = startMillis;
+		final long wallStart = System.nanoTime();
+		final long servedBefore = bank.getMetrics().getFleet().getRideCount();
+		final long[] travelBefore = travel();
+
+		final TraceEntry entry = new TraceEntry();
+		final List<UserRequest> batch = new ArrayList<>();
+		long firstTime = Long.MIN_VALUE;
+		long submitted = 0;
+		long rejected = 0;
+		while (trace.next(entry)) {
+			if (firstTime == Long.MIN_VALUE) {
+				firstTime = entry.getTimeMillis();
+			}
+			final long dueMillis = startMillis + (long) ((entry.getTimeMillis() - firstTime) / speed);
+			if (dueMillis > clock.currentTimeMillis()) {
+				rejected += submit(batch);
+				sleepUntil(dueMillis);
+			}
+			batch.add(new UserRequest(entry.getCurrentFloor(), entry.getFloorToGo(), entry.getDirection()));
+			submitted++;
+		}
+		rejected += submit(batch);
+
+		final long drainDeadline = clock.currentTimeMillis() + drainMillis;
+		do {
+			sleepUntil(Math.min(drainDeadline, clock.currentTimeMillis() + sampleMillis));
+		} while (gauges.getIdleElevators() < elevators.size() && clock.currentTimeMillis() < drainDeadline);
+		sample(clock.currentTimeMillis());
+
+		final long simulatedMillis = clock.currentTimeMillis() - startMillis;
+		final double[] utilisation = new double[busyMillis.length];
+		for (int i = 0; i < utilisation.length; i++) {
+			utilisation[i] = simulatedMillis == 0 ? 0 : Math.min(1.0, (double) busyMillis[i] / simulatedMillis);
+		}
+		final long[] travel = travel();
+		return new LoadReport(submitted, rejected, bank.getMetrics().getFleet().getRideCount() - servedBefore, simulatedMillis,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart), bank.getMetrics().getFleet(),
+				travel[FLOORS] - travelBefore[FLOORS], travel[EMPTY_FLOORS] - travelBefore[EMPTY_FLOORS],
+				travel[STARTS] - travelBefore[STARTS], travel[STOPS] - travelBefore[STOPS],
+				utilisation, sampleTimes, queueDepths, busyElevators, samples);
+	}
+
+	/**
+	 * Returns the floors travelled, the floors travelled empty, the starts and the stops of all the Elevators so far, indexed by {@link #FLOORS},
+	 * {@link #EMPTY_FLOORS}, {@link #STARTS} and {@link #STOPS}
+	 */
+	private long[] travel() {
+		final long[] travel = new long[4];
+		for (int i = 0; i < elevators.size(); i++) {
+			final ElevatorStatus status = elevators.get(i).getStatus();
+			travel[FLOORS] += status.getFloorsTravelled();
+			travel[EMPTY_FLOORS] += status.getEmptyFloorsTravelled();
+			travel[STARTS] += status.getStarts();
+			travel[STOPS] += status.getStops();
+		}
+		return travel;
+	}
+
+	/**
+	 * Raises a batch of requests and empties it
+	 * @return Number of requests rejected
+	 */
+	private int submit(final List<UserRequest> batch) {
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		final Map<UserRequest, ValidationException> rejectedRequests = bank.raiseUserRequests(batch);
+		int rejected = 0;
+		if (!rejectedRequests.isEmpty()) {
+			// The same request can be in the batch several times but is only once in the map
+			for (UserRequest request : batch) {
+				if (rejectedRequests.containsKey(request)) {
+					rejected++;
+				}
+			}
+		}
+		batch.clear();
+		return rejected;
+	}
+
+	/**
+	 * Sleeps on the clock until the given time, taking the samples due on the way
+	 */
+	private void sleepUntil(long wakeAtMillis) throws InterruptedException {
+		long now = clock.currentTimeMillis();
+		while (now < wakeAtMillis) {
+			if (now >= nextSampleMillis) {
+				sample(now);
+				nextSampleMillis += sampleMillis * ((now - nextSampleMillis) / sampleMillis + 1);
+			}
+			clock.sleep(Math.min(wakeAtMillis, nextSampleMillis) - now);
+			now = clock.currentTimeMillis();
+		}
+	}
+
+	private void sample(long now) {
+		if (samples == sampleTimes.length) {
+			sampleTimes = Arrays.copyOf(sampleTimes, samples * 2);
+			queueDepths = Arrays.copyOf(queueDepths, samples * 2);
+			busyElevators = Arrays.copyOf(busyElevators, samples * 2);
+		}
+		final long elapsed = now - lastSampleMillis;
+		int busy = 0;
+		for (int i = 0; i < elevators.size(); i++) {
+			final Elevator elevator = elevators.get(i);
+			if (elevator.getStatus().areUsersStillInElevator() || !elevator.getQueue().isEmpty()) {
+				busyMillis[i] += elapsed;
+				busy++;
+			}
+		}
+		sampleTimes[samples] = now - startMillis;
+		queueDepths[samples] = gauges.getQueueDepth();
+		busyElevators[samples] = busy;
+		samples++;
+		lastSampleMillis = now;
+	}
+
+	/**
+	 * Replays a trace file or a synthetic traffic into a bank of Elevators of the building of building.properties and prints the report.
+	 * <pre>
+	 * LoadGenerator &lt;trace file | UP_PEAK|DOWN_PEAK|LUNCH|INTERFLOOR[:requests per minute[:minutes]]&gt; [elevators] [engine] [speed]
+	 * </pre>
+	 * A speed of 0, the default, replays the trace in simulated time on a {@link VirtualClock}.
+	 * @param args Arguments
+	 * @throws Exception If the trace cannot be read
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage : LoadGenerator <trace file | UP_PEAK|DOWN_PEAK|LUNCH|INTERFLOOR[:requests per minute[:minutes]]>"
+					+ " [elevators=4] [engine=EVENT_LOOP] [speed=0 for simulated time]");
+			return;
+		}
+		final int numberOfElevators = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		final ElevatorEngine engine = args.length > 2 ? ElevatorEngine.valueOf(args[2].toUpperCase()) : ElevatorEngine.EVENT_LOOP;
+		final double speed = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+		final BuildingConfiguration building = BuildingConfiguration.loadIfExists(Paths.get(Constants.BUILDING_FILE));
+		System.out.println("Building : " + building);
+
+		final Trace trace = openTrace(args[0], building, System.nanoTime());
+		final ElevatorClock clock = speed == 0 ? new VirtualClock() : new WallClock();
+		clock.join(clock.register());
+		final ElevatorManager bank = new ElevatorManager(ElevatorManager.DEFAULT_BANK_NAME, building);
+		bank.startElevators(numberOfElevators, clock, engine);
+		try {
+			final LoadReport report = new LoadGenerator(bank, clock).run(trace, speed == 0 ? 1 : speed);
+			System.out.print(report);
+		} finally {
+			trace.close();
+			bank.shutDownElevators();
+			clock.leave();
+			bank.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Opens a trace file, or a synthetic traffic when the source names a {@link TrafficPattern}
+	 * @param source File or pattern with its optional requests per minute and minutes
+	 * @param building Building the synthetic traffic is generated for
+	 * @param seed Seed of the synthetic traffic, the same seed generating the same requests
+	 * @return Trace
+	 * @throws IOException If the trace file cannot be opened
+	 */
+	static Trace openTrace(final String source, final BuildingConfiguration building, long seed) throws IOException {
+		final String[] parts = source.split(":");
+		final TrafficPattern pattern;
+		try {
+			pattern = TrafficPattern.valueOf(parts[0].toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return new TraceFile(Paths.get(source));
+		}
+		final double requestsPerMinute = parts.length > 1 ? Double.parseDouble(parts[1]) : 60;
+		final long minutes = parts.length > 2 ? Long.parseLong(parts[2]) : 60;
+		System.out.println("Traffic : " + pattern + ", " + requestsPerMinute + " requests per minute for " + minutes + " minutes");
+		return new SyntheticTrace(pattern, building, requestsPerMinute, minutes * 60 * 1000L, seed);
+	}
+}
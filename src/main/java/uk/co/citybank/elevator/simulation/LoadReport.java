@@ -0,0 +1,204 @@
+package uk.co.citybank.elevator.simulation;
+
+import uk.co.citybank.elevator.metrics.LatencyHistogram;
+import uk.co.citybank.elevator.metrics.LatencyStatistics;
+
+/**
+ * Outcome of a run of the {@link LoadGenerator} : throughput, latencies, travel of the motors, utilisation of the Elevators and queue depth over time
+ * @author anuragtripathi
+ *
+ */
+public final class LoadReport {
+
+	/** Rows of the queue depth table, the samples being merged down to that many */
+	private static final int QUEUE_DEPTH_ROWS = 24;
+
+	private final long submitted;
+	private final long rejected;
+	private final long served;
+	private final long simulatedMillis;
+	private final long wallMillis;
+	private final LatencyStatistics latency;
+	private final long floorsTravelled;
+	private final long emptyFloorsTravelled;
+	private final long starts;
+	private final long stops;
+	private final double[] utilisation;
+	private final long[] sampleTimes;
+	private final int[] queueDepths;
+	private final int[] busyElevators;
+	private final int samples;
+
+	LoadReport(long submitted, long rejected, long served, long simulatedMillis, long wallMillis, final LatencyStatistics latency,
+			long floorsTravelled, long emptyFloorsTravelled, long starts, long stops, final double[] utilisation, final long[] sampleTimes, final int[] queueDepths, final int[] busyElevators, int samples) {
+		this.submitted = submitted;
+		this.rejected = rejected;
+		this.served = served;
+		this.simulatedMillis = simulatedMillis;
+		this.wallMillis = wallMillis;
+		this.latency = latency;
+		this.floorsTravelled = floorsTravelled;
+		this.emptyFloorsTravelled = emptyFloorsTravelled;
+		this.starts = starts;
+		this.stops = stops;
+		this.utilisation = utilisation;
+		this.sampleTimes = sampleTimes;
+		this.queueDepths = queueDepths;
+		this.busyElevators = busyElevators;
+		this.samples = samples;
+	}
+
+	/**
+	 * Returns the number of requests read from the trace
+	 * @return Requests submitted
+	 */
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	/**
+	 * Returns the number of requests refused by the validation, for example a floor the bank does not serve
+	 * @return Requests rejected
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Returns the number of users dropped at their floor during the run
+	 * @return Requests served
+	 */
+	public long getServed() {
+		return served;
+	}
+
+	/**
+	 * Returns the time elapsed on the clock of the Elevators, from the first request until the fleet is idle
+	 * @return Time in milliseconds
+	 */
+	public long getSimulatedMillis() {
+		return simulatedMillis;
+	}
+
+	/**
+	 * Returns the real time taken by the run
+	 * @return Time in milliseconds
+	 */
+	public long getWallMillis() {
+		return wallMillis;
+	}
+
+	/**
+	 * Returns the requests served per second of the clock of the Elevators
+	 * @return Requests per second
+	 */
+	public double getServedPerSecond() {
+		return simulatedMillis == 0 ? 0 : served * 1000.0 / simulatedMillis;
+	}
+
+	/**
+	 * Returns the wait and ride latencies of the bank
+	 * @return Latency Statistics
+	 */
+	public LatencyStatistics getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns the floors travelled by all the Elevators during the run
+	 * @return Number of floors
+	 */
+	public long getFloorsTravelled() {
+		return floorsTravelled;
+	}
+
+	/**
+	 * Returns the floors travelled by all the Elevators with nobody inside during the run
+	 * @return Number of floors
+	 */
+	public long getEmptyFloorsTravelled() {
+		return emptyFloorsTravelled;
+	}
+
+	/**
+	 * Returns the runs started from rest by all the Elevators during the run, turning back included
+	 * @return Number of starts
+	 */
+	public long getStarts() {
+		return starts;
+	}
+
+	/**
+	 * Returns the stops made by all the Elevators to open their doors during the run
+	 * @return Number of stops
+	 */
+	public long getStops() {
+		return stops;
+	}
+
+	/**
+	 * Returns the share of the run every Elevator spent with users inside or requests to serve, in the order of the dispatcher
+	 * @return Utilisation between 0 and 1 per Elevator
+	 */
+	public double[] getUtilisation() {
+		return utilisation.clone();
+	}
+
+	/**
+	 * Returns the largest number of requests waiting in the queues of the Elevators seen during the run
+	 * @return Queue Depth
+	 */
+	public int getMaxQueueDepth() {
+		int max = 0;
+		for (int i = 0; i < samples; i++) {
+			max = Math.max(max, queueDepths[i]);
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder report = new StringBuilder();
+		final String newLine = System.lineSeparator();
+		report.append(String.format("Requests   : %d submitted, %d rejected, %d served%n", submitted, rejected, served));
+		report.append(String.format("Duration   : %.1f s simulated, %.1f s wall clock%n", simulatedMillis / 1000.0, wallMillis / 1000.0));
+		report.append(String.format("Throughput : %.3f requests/s simulated, %.1f requests/s wall clock%n",
+				getServedPerSecond(), wallMillis == 0 ? 0 : served * 1000.0 / wallMillis));
+		appendLatency(report, "Wait", latency.getWait());
+		appendLatency(report, "Ride", latency.getRide());
+		report.append(String.format("Travel     : %d floors, %.1f floors per request served, %d floors empty (%.1f%%)%n", floorsTravelled,
+				served == 0 ? 0 : (double) floorsTravelled / served, emptyFloorsTravelled, floorsTravelled == 0 ? 0 : 100.0 * emptyFloorsTravelled / floorsTravelled));
+		report.append(String.format("Motor      : %d starts, %d stops, %.1f floors per start%n", starts, stops, starts == 0 ? 0 : (double) floorsTravelled / starts));
+		double total = 0;
+		double min = utilisation.length == 0 ? 0 : 1;
+		double max = 0;
+		for (double value : utilisation) {
+			total += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		report.append(String.format("Utilisation: %.1f%% average, %.1f%% least busy Elevator, %.1f%% busiest Elevator%n",
+				utilisation.length == 0 ? 0 : 100 * total / utilisation.length, 100 * min, 100 * max));
+		report.append("Queue depth over time (largest of every period)").append(newLine);
+		report.append(String.format("%12s %12s %14s%n", "Time (s)", "Queue Depth", "Busy Elevators"));
+		final int rows = Math.min(QUEUE_DEPTH_ROWS, samples);
+		for (int row = 0; row < rows; row++) {
+			final int from = (int) ((long) row * samples / rows);
+			final int to = (int) ((long) (row + 1) * samples / rows);
+			int depth = 0;
+			int busy = 0;
+			for (int i = from; i < to; i++) {
+				depth = Math.max(depth, queueDepths[i]);
+				busy = Math.max(busy, busyElevators[i]);
+			}
+			report.append(String.format("%12.1f %12d %14d%n", sampleTimes[from] / 1000.0, depth, busy));
+		}
+		return report.toString();
+	}
+
+	private static void appendLatency(final StringBuilder report, final String name, final LatencyHistogram histogram) {
+		report.append(String.format("%-11s: p50 %d ms, p90 %d ms, p99 %d ms, max %d ms, mean %.0f ms%n", name,
+				histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+				histogram.getMax(), histogram.getMean()));
+	}
+}
@@ -0,0 +1,56 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.util.Random;
+
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * A trace generated on the fly for a traffic pattern, the requests arriving at random as a Poisson process
+ * @author anuragtripathi
+ *
+ */
+public final class SyntheticTrace implements Trace {
+
+	private final TrafficPattern pattern;
+	private final int lowestFloor;
+	private final int highestFloor;
+	private final double meanMillisBetweenRequests;
+	private final long durationMillis;
+	private final Random random;
+	private double timeMillis;
+
+	/**
+	 * Creates a trace
+	 * @param pattern Traffic Pattern
+	 * @param building Floors of the building
+	 * @param requestsPerMinute Average number of requests per minute
+	 * @param durationMillis Time of the last request
+	 * @param seed Seed of the random numbers, the same seed gives the same trace
+	 */
+	public SyntheticTrace(final TrafficPattern pattern, final BuildingConfiguration building, double requestsPerMinute, long durationMillis, long seed) {
+		if (requestsPerMinute <= 0) {
+			throw new IllegalArgumentException("Requests per minute " + requestsPerMinute + " is not positive");
+		}
+		this.pattern = pattern;
+		this.lowestFloor = building.getLowestFloor();
+		this.highestFloor = building.getHighestFloor();
+		this.meanMillisBetweenRequests = 60000.0 / requestsPerMinute;
+		this.durationMillis = durationMillis;
+		this.random = new Random(seed);
+	}
+
+	@Override
+	public boolean next(final TraceEntry entry) {
+		// Exponential time between two requests
+		timeMillis += -Math.log(1 - random.nextDouble()) * meanMillisBetweenRequests;
+		if (timeMillis > durationMillis) {
+			return false;
+		}
+		pattern.fill(random, lowestFloor, highestFloor, (long) timeMillis, entry);
+		return true;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,20 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of requests ordered by time, read one request at a time so that traces of any length can be replayed
+ * @author anuragtripathi
+ *
+ */
+public interface Trace extends Closeable {
+
+	/**
+	 * Reads the next request
+	 * @param entry Entry filled with the request
+	 * @return false if there is no more request
+	 * @throws IOException If the trace cannot be read
+	 */
+	public boolean next(TraceEntry entry) throws IOException;
+}
@@ -0,0 +1,53 @@
+package uk.co.citybank.elevator.simulation;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+
+/**
+ * One request of a trace : the time the user has called the Elevator, the floor of the user and the floor the user wants to go.
+ * An entry is filled again for every request read, so reading a trace does not create an object per request.
+ * @author anuragtripathi
+ *
+ */
+public final class TraceEntry {
+
+	private long timeMillis;
+	private int currentFloor;
+	private int floorToGo;
+
+	/**
+	 * Fills the entry
+	 * @param timeMillis Time in milliseconds
+	 * @param currentFloor Floor of the user
+	 * @param floorToGo Floor the user wants to go
+	 */
+	public void set(long timeMillis, int currentFloor, int floorToGo) {
+		this.timeMillis = timeMillis;
+		this.currentFloor = currentFloor;
+		this.floorToGo = floorToGo;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	public int getCurrentFloor() {
+		return currentFloor;
+	}
+
+	public int getFloorToGo() {
+		return floorToGo;
+	}
+
+	/**
+	 * Returns the direction the user wants to go
+	 * @return UP/DOWN
+	 */
+	public ElevatorDirection getDirection() {
+		return floorToGo > currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+	}
+
+	@Override
+	public String toString() {
+		return timeMillis + " [" + currentFloor + "," + floorToGo + "]";
+	}
+}
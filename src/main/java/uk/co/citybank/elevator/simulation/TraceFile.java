@@ -0,0 +1,132 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A trace of requests read from a text file, one request per line :
+ * <pre>
+ * # time in milliseconds, floor of the user, floor to go
+ * 0,0,12
+ * 1500,7,0
+ * </pre>
+ * The values can be separated by commas, spaces or tabs, the lines starting with # and the empty lines are skipped.
+ * The lines are expected in the order of their time.
+ *
+ * The file is memory mapped a window at a time and the numbers are parsed straight from the mapped bytes,
+ * so a trace of millions of lines is neither loaded whole nor turned into Strings.
+ * @author anuragtripathi
+ *
+ */
+public final class TraceFile implements Trace {
+
+	/** Bytes mapped at a time */
+	private static final int WINDOW_SIZE = 32 << 20;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long position;
+	private long lineNumber;
+
+	/**
+	 * Opens a trace file
+	 * @param file Trace File
+	 * @throws IOException If the file cannot be opened
+	 */
+	public TraceFile(final Path file) throws IOException {
+		this(file, WINDOW_SIZE);
+	}
+
+	/**
+	 * Opens a trace file mapping the given number of bytes at a time, used by the tests to cross the windows
+	 */
+	TraceFile(final Path file, int windowSize) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	public boolean next(final TraceEntry entry) throws IOException {
+		while (position < size) {
+			lineNumber++;
+			skip(' ', '\t', '\r');
+			final int first = peek();
+			if (first == '\n' || first == '#' || first < 0) {
+				skipLine();
+				continue;
+			}
+			final long time = parseNumber();
+			final long currentFloor = parseNumber();
+			final long floorToGo = parseNumber();
+			skipLine();
+			entry.set(time, (int) currentFloor, (int) floorToGo);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the next byte without consuming it, -1 at the end of the file.
+	 * The next window is mapped when the position goes beyond the current one, even in the middle of a line.
+	 */
+	private int peek() throws IOException {
+		if (position >= size) {
+			return -1;
+		}
+		if (window == null || position >= windowStart + window.limit()) {
+			windowStart = position;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, size - windowStart));
+		}
+		return window.get((int) (position - windowStart));
+	}
+
+	private void skip(char first, char second, char third) throws IOException {
+		int next;
+		while ((next = peek()) == first || next == second || next == third) {
+			position++;
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int next;
+		while ((next = peek()) != '\n' && next >= 0) {
+			position++;
+		}
+		position++;
+	}
+
+	private long parseNumber() throws IOException {
+		skip(' ', '\t', ',');
+		boolean negative = false;
+		if (peek() == '-') {
+			negative = true;
+			position++;
+		}
+		int digits = 0;
+		long value = 0;
+		int next;
+		while ((next = peek()) >= '0' && next <= '9') {
+			value = value * 10 + (next - '0');
+			position++;
+			digits++;
+		}
+		if (digits == 0 || digits > 18) {
+			throw new IOException(file + " line " + lineNumber + " is not a request : expected time, floor of the user and floor to go");
+		}
+		return negative ? -value : value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
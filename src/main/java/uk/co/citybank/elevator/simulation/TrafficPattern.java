@@ -0,0 +1,63 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.util.Random;
+
+/**
+ * Typical traffics of an office building, used to generate synthetic traces.
+ * The lobby is the floor 0 if the building has it, its lowest floor otherwise.
+ * @author anuragtripathi
+ *
+ */
+public enum TrafficPattern {
+
+	/** Morning arrivals, most users go from the lobby to the floors above */
+	UP_PEAK(0.85, 0.05),
+	/** Evening departures, most users go from their floor down to the lobby */
+	DOWN_PEAK(0.05, 0.85),
+	/** Lunch time, as many users go out to the lobby as come back from it */
+	LUNCH(0.45, 0.45),
+	/** Meetings during the day, users go between any two floors */
+	INTERFLOOR(0.0, 0.0);
+
+	private final double fromLobby;
+	private final double toLobby;
+
+	TrafficPattern(double fromLobby, double toLobby) {
+		this.fromLobby = fromLobby;
+		this.toLobby = toLobby;
+	}
+
+	/**
+	 * Chooses the floors of a request of this traffic
+	 * @param random Random numbers
+	 * @param lowestFloor Lowest Floor of the building
+	 * @param highestFloor Highest Floor of the building
+	 * @param timeMillis Time of the request
+	 * @param entry Entry filled with the request
+	 */
+	void fill(final Random random, int lowestFloor, int highestFloor, long timeMillis, final TraceEntry entry) {
+		final int lobby = lowestFloor <= 0 && highestFloor >= 0 ? 0 : lowestFloor;
+		final double draw = random.nextDouble();
+		int currentFloor;
+		int floorToGo;
+		if (draw < fromLobby) {
+			currentFloor = lobby;
+			floorToGo = otherFloor(random, lowestFloor, highestFloor, lobby);
+		} else if (draw < fromLobby + toLobby) {
+			currentFloor = otherFloor(random, lowestFloor, highestFloor, lobby);
+			floorToGo = lobby;
+		} else {
+			currentFloor = lowestFloor + random.nextInt(highestFloor - lowestFloor + 1);
+			floorToGo = otherFloor(random, lowestFloor, highestFloor, currentFloor);
+		}
+		entry.set(timeMillis, currentFloor, floorToGo);
+	}
+
+	/**
+	 * Returns a random floor other than the given one
+	 */
+	private static int otherFloor(final Random random, int lowestFloor, int highestFloor, int floor) {
+		final int other = lowestFloor + random.nextInt(highestFloor - lowestFloor);
+		return other >= floor ? other + 1 : other;
+	}
+}
@@ -0,0 +1,301 @@
+package uk.co.citybank.elevator.utility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Geometry and timings of a building, loaded at start up instead of the compile time {@link Constants}.
+ * All the floor indexed structures (queues, floors to stop, statistics) are sized from its floor range.
+ *
+ * It can be loaded from a properties file, every key being optional :
+ * <pre>
+ * floors.lowest=-3                  lowest floor, negative for the basements
+ * floors.highest=150                highest floor
+ * travel.floorMillis=1500           time to travel between two floors at full speed
+ * travel.floorMillis.0=4000         time to travel between the floor 0 and the floor 1, for the floors higher than the others
+ * travel.accelerationMillis=2000    time lost to speed up and slow down, once for every run between two stops
+ * door.dwellMillis=2000             time the doors stay open at a stop
+ * car.persons=13                    persons allowed in a car
+ * car.ratedLoadKg=1000              rated load of a car
+ * passenger.kg=75                   mass every user counts for
+ * wait.maxMillis=180000             longest time a user should wait for an Elevator, 0 for no limit
+ * </pre>
+ * The travel time between two floors is kept as a prefix sum, so the time of a run of any length is found in constant time.
+ * @author anuragtripathi
+ *
+ */
+public final class BuildingConfiguration {
+
+	/** The building of {@link Constants} : floors 0 to 10, 3 seconds per floor, no acceleration, 2 seconds at a stop and cars of {@link CarCapacity#DEFAULT} */
+	public static final BuildingConfiguration DEFAULT = defaultTimings(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+
+	/** No limit on the time a user waits, the Elevators serve their requests in the order of their dispatch policy */
+	public static final long NO_MAX_WAIT = 0;
+
+	private final int lowestFloor;
+	private final int highestFloor;
+	private final long accelerationMillis;
+	private final long doorDwellMillis;
+	private final CarCapacity carCapacity;
+	private final long maxWaitMillis;
+
+	/** Time to travel from the lowest floor to every floor, the travel between two floors being the difference */
+	private final long[] travelMillisFromLowestFloor;
+
+	/**
+	 * Creates a building whose floors all take the same time to travel
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
+	 * @param floorMillis Time to travel between two floors
+	 * @param accelerationMillis Time lost to speed up and slow down on every run
+	 * @param doorDwellMillis Time the doors stay open at a stop
+	 */
+	public BuildingConfiguration(int lowestFloor, int highestFloor, long floorMillis, long accelerationMillis, long doorDwellMillis) {
+		this(lowestFloor, highestFloor, uniform(highestFloor - lowestFloor, floorMillis), accelerationMillis, doorDwellMillis, CarCapacity.DEFAULT,
+				NO_MAX_WAIT);
+	}
+
+	private BuildingConfiguration(int lowestFloor, int highestFloor, long[] floorMillis, long accelerationMillis, long doorDwellMillis,
+			final CarCapacity carCapacity, long maxWaitMillis) {
+		if (lowestFloor >= highestFloor) {
+			throw new IllegalArgumentException("A building needs at least two floors, got " + lowestFloor + " to " + highestFloor);
+		}
+		if (accelerationMillis < 0 || doorDwellMillis < 0) {
+			throw new IllegalArgumentException("Acceleration " + accelerationMillis + " and door dwell " + doorDwellMillis + " cannot be negative");
+		}
+		if (maxWaitMillis < 0) {
+			throw new IllegalArgumentException("Maximum wait " + maxWaitMillis + " cannot be negative");
+		}
+		this.lowestFloor = lowestFloor;
+		this.highestFloor = highestFloor;
+		this.accelerationMillis = accelerationMillis;
+		this.doorDwellMillis = doorDwellMillis;
+		this.carCapacity = carCapacity;
+		this.maxWaitMillis = maxWaitMillis;
+		this.travelMillisFromLowestFloor = new long[floorMillis.length + 1];
+		for (int i = 0; i < floorMillis.length; i++) {
+			if (floorMillis[i] < 0) {
+				throw new IllegalArgumentException("Travel time above floor " + (lowestFloor + i) + " cannot be negative");
+			}
+			travelMillisFromLowestFloor[i + 1] = travelMillisFromLowestFloor[i] + floorMillis[i];
+		}
+	}
+
+	/**
+	 * Creates a building having the timings of {@link Constants} on the given floors
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
+	 * @return Building Configuration
+	 */
+	public static BuildingConfiguration defaultTimings(int lowestFloor, int highestFloor) {
+		return new BuildingConfiguration(lowestFloor, highestFloor, Constants.TIME_MOVE_ONE_FLOOR * 1000L, 0, Constants.TIME_USER_PICKDROP * 1000L);
+	}
+
+	private static long[] uniform(int flights, long floorMillis) {
+		final long[] floorMillisArray = new long[Math.max(0, flights)];
+		Arrays.fill(floorMillisArray, floorMillis);
+		return floorMillisArray;
+	}
+
+	/**
+	 * Loads a building from a properties file, the keys missing are taken from {@link #DEFAULT}
+	 * @param file Properties File
+	 * @return Building Configuration
+	 * @throws IOException If the file cannot be read
+	 * @throws IllegalArgumentException If a value is not a number or the building is not valid
+	 */
+	public static BuildingConfiguration load(final Path file) throws IOException {
+		final Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		return fromProperties(properties);
+	}
+
+	/**
+	 * Loads a building from a properties file if it exists, see {@link #load(Path)}
+	 * @param file Properties File
+	 * @return Building Configuration, {@link #DEFAULT} if there is no such file
+	 * @throws IOException If the file cannot be read
+	 * @throws IllegalArgumentException If a value is not a number or the building is not valid
+	 */
+	public static BuildingConfiguration loadIfExists(final Path file) throws IOException {
+		return Files.exists(file) ? load(file) : DEFAULT;
+	}
+
+	/**
+	 * Creates a building from properties, the keys missing are taken from {@link #DEFAULT}
+	 * @param properties Properties, see the keys above
+	 * @return Building Configuration
+	 * @throws IllegalArgumentException If a value is not a number or the building is not valid
+	 */
+	public static BuildingConfiguration fromProperties(final Properties properties) {
+		final int lowestFloor = (int) number(properties, "floors.lowest", DEFAULT.lowestFloor);
+		final int highestFloor = (int) number(properties, "floors.highest", DEFAULT.highestFloor);
+		final long defaultFloorMillis = number(properties, "travel.floorMillis", DEFAULT.getTravelMillis(0, 1));
+		final long[] floorMillis = uniform(highestFloor - lowestFloor, defaultFloorMillis);
+		for (int i = 0; i < floorMillis.length; i++) {
+			floorMillis[i] = number(properties, "travel.floorMillis." + (lowestFloor + i), defaultFloorMillis);
+		}
+		final CarCapacity carCapacity = new CarCapacity((int) number(properties, "car.persons", DEFAULT.carCapacity.getPersons()),
+				(int) number(properties, "car.ratedLoadKg", DEFAULT.carCapacity.getRatedLoadKg()),
+				(int) number(properties, "passenger.kg", DEFAULT.carCapacity.getPassengerKg()));
+		return new BuildingConfiguration(lowestFloor, highestFloor, floorMillis,
+				number(properties, "travel.accelerationMillis", DEFAULT.accelerationMillis),
+				number(properties, "door.dwellMillis", DEFAULT.doorDwellMillis), carCapacity,
+				number(properties, "wait.maxMillis", DEFAULT.maxWaitMillis));
+	}
+
+	private static long number(final Properties properties, final String key, long defaultValue) {
+		final String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Building property " + key + " is not a number : " + value);
+		}
+	}
+
+	/**
+	 * Returns the same building restricted to a range of its floors, for a bank of Elevators serving only some floors
+	 * @param lowest Lowest Floor of the range
+	 * @param highest Highest Floor of the range
+	 * @return Building Configuration
+	 * @throws IllegalArgumentException If the range is not inside the building
+	 */
+	public BuildingConfiguration withFloors(int lowest, int highest) {
+		if (lowest < lowestFloor || highest > highestFloor) {
+			throw new IllegalArgumentException("Floors " + lowest + " to " + highest + " are not between " + lowestFloor + " and " + highestFloor);
+		}
+		if (lowest == lowestFloor && highest == highestFloor) {
+			return this;
+		}
+		return new BuildingConfiguration(lowest, highest, floorMillis(lowest, highest), accelerationMillis, doorDwellMillis, carCapacity, maxWaitMillis);
+	}
+
+	/**
+	 * Returns the same building with cars of another capacity
+	 * @param capacity Capacity of the cars
+	 * @return Building Configuration
+	 */
+	public BuildingConfiguration withCarCapacity(final CarCapacity capacity) {
+		return new BuildingConfiguration(lowestFloor, highestFloor, floorMillis(lowestFloor, highestFloor), accelerationMillis, doorDwellMillis, capacity,
+				maxWaitMillis);
+	}
+
+	/**
+	 * Returns the same building with a limit on the time the users wait
+	 * @param maxWaitMillis Longest time a user should wait for an Elevator, {@link #NO_MAX_WAIT} for no limit
+	 * @return Building Configuration
+	 */
+	public BuildingConfiguration withMaxWaitMillis(long maxWaitMillis) {
+		return new BuildingConfiguration(lowestFloor, highestFloor, floorMillis(lowestFloor, highestFloor), accelerationMillis, doorDwellMillis,
+				carCapacity, maxWaitMillis);
+	}
+
+	private long[] floorMillis(int lowest, int highest) {
+		final long[] floorMillis = new long[Math.max(0, highest - lowest)];
+		for (int i = 0; i < floorMillis.length; i++) {
+			floorMillis[i] = getTravelMillis(lowest + i, lowest + i + 1);
+		}
+		return floorMillis;
+	}
+
+	/**
+	 * Returns the lowest floor
+	 * @return Lowest Floor
+	 */
+	public int getLowestFloor() {
+		return lowestFloor;
+	}
+
+	/**
+	 * Returns the highest floor
+	 * @return Highest Floor
+	 */
+	public int getHighestFloor() {
+		return highestFloor;
+	}
+
+	/**
+	 * Returns the number of floors, both the lowest and the highest included
+	 * @return Number of floors
+	 */
+	public int getNumberOfFloors() {
+		return highestFloor - lowestFloor + 1;
+	}
+
+	/**
+	 * Returns the time to travel at full speed between two floors, in either direction
+	 * @param fromFloor Floor the Elevator leaves
+	 * @param toFloor Floor the Elevator arrives at
+	 * @return Time in milliseconds
+	 */
+	public long getTravelMillis(int fromFloor, int toFloor) {
+		return Math.abs(travelMillisFromLowestFloor[toFloor - lowestFloor] - travelMillisFromLowestFloor[fromFloor - lowestFloor]);
+	}
+
+	/**
+	 * Returns the time lost to speed up and slow down, once for every run between two stops
+	 * @return Time in milliseconds
+	 */
+	public long getAccelerationMillis() {
+		return accelerationMillis;
+	}
+
+	/**
+	 * Returns the time the doors stay open at a stop
+	 * @return Time in milliseconds
+	 */
+	public long getDoorDwellMillis() {
+		return doorDwellMillis;
+	}
+
+	/**
+	 * Returns the capacity of the cars, an Elevator may be given another one, see {@link uk.co.citybank.elevator.model.ElevatorStatus#setCapacity(CarCapacity)}
+	 * @return Car Capacity
+	 */
+	public CarCapacity getCarCapacity() {
+		return carCapacity;
+	}
+
+	/**
+	 * Returns the longest time a user should wait for an Elevator
+	 * @return Time in milliseconds, {@link #NO_MAX_WAIT} for no limit
+	 */
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	/**
+	 * Returns the longest time an Elevator takes to cross the building stopping at every floor
+	 * @return Time in milliseconds
+	 */
+	public long getSweepMillis() {
+		return getTravelMillis(lowestFloor, highestFloor) + getNumberOfFloors() * (doorDwellMillis + accelerationMillis) + accelerationMillis;
+	}
+
+	/**
+	 * Returns the time after which the users waiting are served first, for them to be picked up within the maximum wait.
+	 * Once they are served first, the Elevator finishes the sweep it is on, which can follow the way to the user it picked last,
+	 * and then comes to them : three sweeps at most, as long as the Elevators keep up with the traffic.
+	 * @return Time in milliseconds, 0 if the maximum wait is shorter than three sweeps, {@link Long#MAX_VALUE} if there is no maximum wait
+	 */
+	public long getAgingMillis() {
+		return maxWaitMillis == NO_MAX_WAIT ? Long.MAX_VALUE : Math.max(0, maxWaitMillis - 3 * getSweepMillis());
+	}
+
+	@Override
+	public String toString() {
+		return "Floors " + lowestFloor + " to " + highestFloor + ", " + getTravelMillis(lowestFloor, highestFloor) + " ms from bottom to top, "
+				+ accelerationMillis + " ms of acceleration per run, " + doorDwellMillis + " ms at a stop, cars of " + carCapacity
+				+ (maxWaitMillis == NO_MAX_WAIT ? "" : ", users waiting at most " + maxWaitMillis + " ms");
+	}
+}
@@ -0,0 +1,91 @@
+package uk.co.citybank.elevator.utility;
+
+/**
+ * Capacity of an Elevator car, as written on its plate : the number of persons and the rated load in kilograms.
+ * The users are not weighed, every user counts for the same mass, so the rated load limits the users like the number of persons does
+ * and the car takes the lower of the two.
+ * @author anuragtripathi
+ *
+ */
+public final class CarCapacity {
+
+	/** The car of {@link Constants} : 13 persons, 1000 kg, 75 kg per user */
+	public static final CarCapacity DEFAULT = new CarCapacity(Constants.CAR_CAPACITY_PERSONS, Constants.CAR_RATED_LOAD_KG, Constants.PASSENGER_KG);
+
+	private final int persons;
+	private final int ratedLoadKg;
+	private final int passengerKg;
+	private final int maxPassengers;
+
+	/**
+	 * Creates a capacity
+	 * @param persons Number of persons allowed in the car
+	 * @param ratedLoadKg Rated load in kilograms
+	 * @param passengerKg Mass of a user in kilograms
+	 * @throws IllegalArgumentException If not even one user fits in the car
+	 */
+	public CarCapacity(int persons, int ratedLoadKg, int passengerKg) {
+		if (persons < 1 || passengerKg < 1 || ratedLoadKg < passengerKg) {
+			throw new IllegalArgumentException("A car of " + persons + " persons and " + ratedLoadKg + " kg cannot take a user of " + passengerKg + " kg");
+		}
+		this.persons = persons;
+		this.ratedLoadKg = ratedLoadKg;
+		this.passengerKg = passengerKg;
+		this.maxPassengers = Math.min(persons, ratedLoadKg / passengerKg);
+	}
+
+	/**
+	 * Returns the number of persons allowed in the car
+	 * @return Number of persons
+	 */
+	public int getPersons() {
+		return persons;
+	}
+
+	/**
+	 * Returns the rated load of the car
+	 * @return Load in kilograms
+	 */
+	public int getRatedLoadKg() {
+		return ratedLoadKg;
+	}
+
+	/**
+	 * Returns the mass every user counts for
+	 * @return Mass in kilograms
+	 */
+	public int getPassengerKg() {
+		return passengerKg;
+	}
+
+	/**
+	 * Returns the number of users the car takes, bounded by both the persons and the rated load
+	 * @return Number of users
+	 */
+	public int getMaxPassengers() {
+		return maxPassengers;
+	}
+
+	/**
+	 * Returns the load of a number of users
+	 * @param passengers Number of users
+	 * @return Load in kilograms
+	 */
+	public long getLoadKg(int passengers) {
+		return (long) passengers * passengerKg;
+	}
+
+	/**
+	 * Returns the number of users who can still get in
+	 * @param passengers Number of users in the car
+	 * @return Number of users, 0 when the car is full
+	 */
+	public int getRoom(int passengers) {
+		return Math.max(0, maxPassengers - passengers);
+	}
+
+	@Override
+	public String toString() {
+		return persons + " persons, " + ratedLoadKg + " kg";
+	}
+}
@@ -19,6 +19,28 @@ public final class Constants {
 	public final static int HIGHEST_FLOORS = 10;
 	public final static int LOWEST_FLOOR = 0;
 	
+	// Car of 13 persons and 1000 kg, every user counting for 75 kg
+	public final static int CAR_CAPACITY_PERSONS = 13;
+	public final static int CAR_RATED_LOAD_KG = 1000;
+	public final static int PASSENGER_KG = 75;
+	
+	// Event Loop Engine, a tick of 100 ms makes the wheel of 512 slots turn in a bit less than a minute
+	public final static long EVENT_LOOP_TICK_MILLIS = 100;
+	public final static int EVENT_LOOP_WHEEL_SIZE = 512;
+	
+	// Building Configuration read from the current directory at start up if it exists, see BuildingConfiguration
+	public final static String BUILDING_FILE = "building.properties";
+	
+	// Event Journal written in the current directory, the ring buffer holds 65536 records of 32 bytes
+	public final static String JOURNAL_FILE = "ElevatorJournal.bin";
+	public final static int JOURNAL_CAPACITY = 1 << 16;
+	
+	// Write ahead log of the requests outstanding, a directory in the current directory kept from one run to the next
+	public final static String REQUEST_LOG_DIRECTORY = "ElevatorRequests";
+	
+	// Hall Call Server, the connections stop being read when the queues hold 100 requests per Elevator
+	public final static int HALL_CALL_SATURATION_PER_ELEVATOR = 100;
+	
 	// Validation Error Message
 	public final static String INVALID_REQUEST = "Invalid Current Floor/ Destination Floor Selection";
 
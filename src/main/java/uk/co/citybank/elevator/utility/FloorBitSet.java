@@ -0,0 +1,238 @@
+package uk.co.citybank.elevator.utility;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of Floors backed by an array of long words, one bit per floor of the building.
+ * Finding the nearest floor above or below a floor is a scan of the words using {@link Long#numberOfTrailingZeros(long)}
+ * and {@link Long#numberOfLeadingZeros(long)}, so it costs one operation for every 64 floors.
+ * The set can be changed by one thread at a time only, but can be read by any number of threads while it is changed:
+ * every word is read and written atomically, so a reader sees each floor either before or after the change.
+ * @author anuragtripathi
+ *
+ */
+public final class FloorBitSet {
+
+	/**
+	 * Returned by the search methods when there is no floor in the set
+	 */
+	public static final int NO_FLOOR = Integer.MIN_VALUE;
+
+	private final int lowestFloor;
+	private final int highestFloor;
+	private final AtomicLongArray words;
+	private volatile int size;
+
+	/**
+	 * Creates an empty set able to hold the floors between the lowest and the highest floor (both included)
+	 * @param lowestFloor Lowest Floor, can be negative for basements
+	 * @param highestFloor Highest Floor
+	 */
+	public FloorBitSet(int lowestFloor, int highestFloor) {
+		if (highestFloor < lowestFloor) {
+			throw new IllegalArgumentException("Highest Floor " + highestFloor + " is below Lowest Floor " + lowestFloor);
+		}
+		this.lowestFloor = lowestFloor;
+		this.highestFloor = highestFloor;
+		this.words = new AtomicLongArray(((highestFloor - lowestFloor) >> 6) + 1);
+	}
+
+	/**
+	 * Adds a floor to the set
+	 * @param floor Floor
+	 * @return true if the floor was not already in the set
+	 */
+	public boolean add(int floor) {
+		final int index = indexOf(floor);
+		final long mask = 1L << index;
+		final long word = words.get(index >> 6);
+		if ((word & mask) != 0) {
+			return false;
+		}
+		words.set(index >> 6, word | mask);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes a floor from the set
+	 * @param floor Floor
+	 * @return true if the floor was in the set
+	 */
+	public boolean remove(int floor) {
+		if (floor < lowestFloor || floor > highestFloor) {
+			return false;
+		}
+		final int index = floor - lowestFloor;
+		final long mask = 1L << index;
+		final long word = words.get(index >> 6);
+		if ((word & mask) == 0) {
+			return false;
+		}
+		words.set(index >> 6, word & ~mask);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Determines if the floor is in the set
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	public boolean contains(int floor) {
+		if (floor < lowestFloor || floor > highestFloor) {
+			return false;
+		}
+		final int index = floor - lowestFloor;
+		return (words.get(index >> 6) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Returns the lowest floor in the set which is equal or above the given floor
+	 * @param fromFloor Floor to start from
+	 * @return Floor or {@link #NO_FLOOR}
+	 */
+	public int nextFloor(int fromFloor) {
+		if (fromFloor > highestFloor) {
+			return NO_FLOOR;
+		}
+		final int index = Math.max(fromFloor, lowestFloor) - lowestFloor;
+		int wordIndex = index >> 6;
+		long word = words.get(wordIndex) & (-1L << index);
+		while (true) {
+			if (word != 0) {
+				return lowestFloor + (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++wordIndex == words.length()) {
+				return NO_FLOOR;
+			}
+			word = words.get(wordIndex);
+		}
+	}
+
+	/**
+	 * Returns the highest floor in the set which is equal or below the given floor
+	 * @param fromFloor Floor to start from
+	 * @return Floor or {@link #NO_FLOOR}
+	 */
+	public int previousFloor(int fromFloor) {
+		if (fromFloor < lowestFloor) {
+			return NO_FLOOR;
+		}
+		final int index = Math.min(fromFloor, highestFloor) - lowestFloor;
+		int wordIndex = index >> 6;
+		long word = words.get(wordIndex) & (-1L >>> (63 - (index & 63)));
+		while (true) {
+			if (word != 0) {
+				return lowestFloor + (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+			}
+			if (--wordIndex < 0) {
+				return NO_FLOOR;
+			}
+			word = words.get(wordIndex);
+		}
+	}
+
+	/**
+	 * Determines if there is any floor in the set above the given floor
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	public boolean hasFloorAbove(int floor) {
+		return floor < highestFloor && nextFloor(floor + 1) != NO_FLOOR;
+	}
+
+	/**
+	 * Determines if there is any floor in the set below the given floor
+	 * @param floor Floor
+	 * @return true/false
+	 */
+	public boolean hasFloorBelow(int floor) {
+		return floor > lowestFloor && previousFloor(floor - 1) != NO_FLOOR;
+	}
+
+	/**
+	 * Returns the number of floors in the set
+	 * @return Number of floors
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Determines if the set is empty
+	 * @return true/false
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Copies the floors of this set to another set of the same floors, replacing its floors.
+	 * Called while this set is changed, the copy holds each word either before or after the change.
+	 * @param target Floor Bit Set of the same lowest and highest floor
+	 */
+	public void copyTo(final FloorBitSet target) {
+		if (target.lowestFloor != lowestFloor || target.highestFloor != highestFloor) {
+			throw new IllegalArgumentException("Floors " + target.lowestFloor + " to " + target.highestFloor + " are not " + lowestFloor + " to " + highestFloor);
+		}
+		int count = 0;
+		for (int i = 0; i < words.length(); i++) {
+			final long word = words.get(i);
+			target.words.set(i, word);
+			count += Long.bitCount(word);
+		}
+		target.size = count;
+	}
+
+	/**
+	 * Returns the floors of the set
+	 * @return Floors in increasing order
+	 */
+	public int[] toArray() {
+		final int[] floors = new int[size];
+		int count = 0;
+		for (int i = 0; i < words.length(); i++) {
+			for (long word = words.get(i); word != 0 && count < floors.length; word &= word - 1) {
+				floors[count++] = lowestFloor + (i << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return count == floors.length ? floors : Arrays.copyOf(floors, count);
+	}
+
+	/**
+	 * Returns the Lowest Floor this set can hold
+	 * @return Lowest Floor
+	 */
+	public int getLowestFloor() {
+		return lowestFloor;
+	}
+
+	/**
+	 * Returns the Highest Floor this set can hold
+	 * @return Highest Floor
+	 */
+	public int getHighestFloor() {
+		return highestFloor;
+	}
+
+	private int indexOf(int floor) {
+		if (floor < lowestFloor || floor > highestFloor) {
+			throw new IllegalArgumentException("Floor " + floor + " is outside " + lowestFloor + " and " + highestFloor);
+		}
+		return floor - lowestFloor;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("[");
+		for (int floor = nextFloor(lowestFloor); floor != NO_FLOOR; floor = floor == highestFloor ? NO_FLOOR : nextFloor(floor + 1)) {
+			if (builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append(floor);
+		}
+		return builder.append(']').toString();
+	}
+}
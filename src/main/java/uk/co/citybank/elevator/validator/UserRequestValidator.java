@@ -1,5 +1,8 @@
 package uk.co.citybank.elevator.validator;
 
+import java.util.Collection;
+import java.util.Map;
+
 import uk.co.citybank.elevator.exception.ValidationException;
 import uk.co.citybank.elevator.model.UserRequest;
 
@@ -16,4 +19,11 @@ public interface UserRequestValidator {
 	 * @throws ValidationException Validation Exception
 	 */
 	public void validateUserRequest(UserRequest request) throws ValidationException ;
+	
+	/**
+	 * Validates a batch of User Requests, an invalid request does not stop the validation of the others
+	 * @param requests User Requests
+	 * @return The invalid requests with the reason of their rejection, empty if all the requests are valid
+	 */
+	public Map<UserRequest, ValidationException> validateUserRequests(Collection<UserRequest> requests);
 }
@@ -1,5 +1,9 @@
 package uk.co.citybank.elevator.validator;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import uk.co.citybank.elevator.exception.ValidationException;
 import uk.co.citybank.elevator.model.ElevatorDirection;
 import uk.co.citybank.elevator.model.UserRequest;
@@ -12,23 +16,43 @@ import uk.co.citybank.elevator.utility.Constants;
  */
 public class UserRequestValidatorImpl implements UserRequestValidator {
 
+	private final int lowestFloor;
+	private final int highestFloor;
+	
+	/**
+	 * Creates a validator of the floors between {@link Constants#LOWEST_FLOOR} and {@link Constants#HIGHEST_FLOORS}
+	 */
+	public UserRequestValidatorImpl() {
+		this(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+	}
+	
+	/**
+	 * Creates a validator of the floors between the lowest and the highest floor (both included)
+	 * @param lowestFloor Lowest Floor
+	 * @param highestFloor Highest Floor
+	 */
+	public UserRequestValidatorImpl(int lowestFloor, int highestFloor) {
+		this.lowestFloor = lowestFloor;
+		this.highestFloor = highestFloor;
+	}
+
 	@Override
 	public void validateUserRequest(UserRequest request) throws ValidationException {
 		// The Current floor and Destination Floor should be between Lowest Floor and Highest Floor
-		if (request.getCurrentFloor() < Constants.LOWEST_FLOOR || request.getCurrentFloor() > Constants.HIGHEST_FLOORS
-				|| request.getFloorToGo() > Constants.HIGHEST_FLOORS
-				|| request.getFloorToGo() < Constants.LOWEST_FLOOR) {
+		if (request.getCurrentFloor() < lowestFloor || request.getCurrentFloor() > highestFloor
+				|| request.getFloorToGo() > highestFloor
+				|| request.getFloorToGo() < lowestFloor) {
 			throw new ValidationException(Constants.INVALID_REQUEST);
 		}
 
 		// If User is on the lowest floor, he/she can't select DOWN
-		if (request.getCurrentFloor() == Constants.LOWEST_FLOOR
+		if (request.getCurrentFloor() == lowestFloor
 				&& ElevatorDirection.DOWN == request.getDirectionToGo()) {
 			throw new ValidationException(Constants.INVALID_REQUEST);
 		}
 
 		// If User is on the highest floor, he/she can't select UP
-		if (request.getCurrentFloor() == Constants.HIGHEST_FLOORS
+		if (request.getCurrentFloor() == highestFloor
 				&& ElevatorDirection.UP == request.getDirectionToGo()) {
 			throw new ValidationException(Constants.INVALID_REQUEST);
 		}
@@ -43,4 +67,17 @@ public class UserRequestValidatorImpl implements UserRequestValidator {
 			throw new ValidationException(Constants.INVALID_REQUEST);
 		}
 	}
+
+	@Override
+	public Map<UserRequest, ValidationException> validateUserRequests(Collection<UserRequest> requests) {
+		final Map<UserRequest, ValidationException> rejectedRequests = new LinkedHashMap<>();
+		for (UserRequest request : requests) {
+			try {
+				validateUserRequest(request);
+			} catch (ValidationException e) {
+				rejectedRequests.put(request, e);
+			}
+		}
+		return rejectedRequests;
+	}
 }
@@ -0,0 +1,118 @@
+package uk.co.citybank.elevator.clock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUNIT Class to test @VirtualClock
+ * @author anuragtripathi
+ *
+ */
+public class VirtualClockTest {
+
+	/**
+	 * Tests that sleeping on the virtual clock moves the time forward without really sleeping
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 5000)
+	public void testSleepMovesVirtualTimeForward() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+
+		clock.sleep(60 * 60 * 1000L);
+		Assert.assertEquals(60 * 60 * 1000L, clock.currentTimeMillis());
+
+		clock.sleep(3000);
+		Assert.assertEquals(60 * 60 * 1000L + 3000, clock.currentTimeMillis());
+		clock.leave();
+	}
+
+	/**
+	 * Tests that parties are woken up in the order of their wake up time, and in registration order when due at the same time
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 5000)
+	public void testPartiesAreRunInWakeUpOrder() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		// All the parties are reserved before any of them is started, as ElevatorManager does for the Elevators
+		final int slowId = clock.register();
+		final int fastId = clock.register();
+		final int sameId = clock.register();
+		final Thread same = startParty(clock, sameId, "same", 2000, events);
+		final Thread fast = startParty(clock, fastId, "fast", 2000, events);
+		final Thread slow = startParty(clock, slowId, "slow", 5000, events);
+		slow.join();
+		fast.join();
+		same.join();
+
+		Assert.assertEquals(Arrays.asList("fast@2000", "same@2000", "fast@4000", "same@4000", "slow@5000", "slow@10000"), events);
+	}
+
+	/**
+	 * Tests that the time does not move forward while a woken up party has not yet asked for its turn
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 5000)
+	public void testTimeWaitsForWokenUpParty() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		final Object monitor = new Object();
+		final long[] wokenAt = new long[1];
+		final boolean[] signalled = new boolean[1];
+
+		clock.join(clock.register());
+		final int waiterId = clock.register();
+		final Thread waiter = new Thread(() -> {
+			try {
+				clock.join(waiterId);
+				synchronized (monitor) {
+					clock.idle();
+					while (!signalled[0]) {
+						monitor.wait();
+					}
+				}
+				clock.resume();
+				wokenAt[0] = clock.currentTimeMillis();
+				clock.leave();
+			} catch (InterruptedException e) {
+			}
+		});
+		waiter.setDaemon(true);
+		waiter.start();
+
+		clock.sleep(1000);
+		synchronized (monitor) {
+			clock.wakeOne();
+			signalled[0] = true;
+			monitor.notifyAll();
+		}
+		clock.sleep(1000);
+		clock.leave();
+		waiter.join();
+
+		Assert.assertEquals(1000, wokenAt[0]);
+	}
+
+	private Thread startParty(final VirtualClock clock, final int partyId, final String name, final long sleep, final List<String> events) {
+		final Thread t = new Thread(() -> {
+			try {
+				clock.join(partyId);
+				for (int i = 0; i < 2; i++) {
+					clock.sleep(sleep);
+					events.add(name + "@" + clock.currentTimeMillis());
+				}
+				clock.leave();
+			} catch (InterruptedException e) {
+			}
+		});
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+}
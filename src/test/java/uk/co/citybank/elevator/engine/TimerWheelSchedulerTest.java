@@ -0,0 +1,91 @@
+package uk.co.citybank.elevator.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+
+/**
+ * JUNIT Class to test @TimerWheelScheduler
+ * @author anuragtripathi
+ *
+ */
+public class TimerWheelSchedulerTest {
+
+	/**
+	 * Tests that the tasks are run again after the delay they return, including delays longer than a turn of the wheel
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 5000)
+	public void testTasksAreRunAfterTheirDelay() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		final TimerWheelScheduler scheduler = new TimerWheelScheduler("Test", 2, 100, 8, clock);
+		final TimerWheelScheduler.Timer fast = scheduler.register(recordingTask("fast", 300, clock, events));
+		final TimerWheelScheduler.Timer slow = scheduler.register(recordingTask("slow", 2000, clock, events));
+		scheduler.start();
+		fast.wakeUp();
+		slow.wakeUp();
+
+		clock.sleep(5000);
+		scheduler.shutdownNow();
+		clock.leave();
+
+		Assert.assertEquals(Arrays.asList("fast@0", "fast@300", "fast@600"), filter(events, "fast"));
+		Assert.assertEquals(Arrays.asList("slow@0", "slow@2000", "slow@4000"), filter(events, "slow"));
+	}
+
+	/**
+	 * Tests that a parked task is only run again once woken up
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 5000)
+	public void testParkedTaskIsRunWhenWokenUp() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		final TimerWheelScheduler scheduler = new TimerWheelScheduler("Test", 1, 100, 8, clock);
+		final TimerWheelScheduler.Timer parked = scheduler.register(() -> {
+			events.add("run@" + clock.currentTimeMillis());
+			return TimerWheelScheduler.Task.PARK;
+		});
+		scheduler.start();
+
+		clock.sleep(1000);
+		Assert.assertTrue(events.isEmpty());
+		parked.wakeUp();
+		clock.sleep(1000);
+		scheduler.shutdownNow();
+		clock.leave();
+
+		Assert.assertEquals(Arrays.asList("run@1000"), events);
+	}
+
+	private TimerWheelScheduler.Task recordingTask(final String name, final long delay, final VirtualClock clock, final List<String> events) {
+		final int[] runs = new int[1];
+		return () -> {
+			events.add(name + "@" + clock.currentTimeMillis());
+			return ++runs[0] < 3 ? delay : TimerWheelScheduler.Task.PARK;
+		};
+	}
+
+	private List<String> filter(final List<String> events, final String name) {
+		final List<String> filtered = new ArrayList<>();
+		synchronized (events) {
+			for (String event : events) {
+				if (event.startsWith(name)) {
+					filtered.add(event);
+				}
+			}
+		}
+		return filtered;
+	}
+}
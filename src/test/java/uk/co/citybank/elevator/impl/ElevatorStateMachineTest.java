@@ -0,0 +1,155 @@
+package uk.co.citybank.elevator.impl;
+
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.WallClock;
+import uk.co.citybank.elevator.engine.TimerWheelScheduler;
+import uk.co.citybank.elevator.impl.ElevatorStateMachine.State;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+import uk.co.citybank.elevator.utility.CarCapacity;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * JUNIT Class to test @ElevatorStateMachine
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorStateMachineTest {
+
+	private final UserRequestQueue queue = new UserRequestQueue(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+	private final Elevator elevator = new Elevator("Elevator-1", queue);
+	private final ElevatorStateMachine stateMachine = new ElevatorStateMachine(elevator);
+
+	/**
+	 * Tests that the Elevator parks when there is nothing to do
+	 */
+	@Test
+	public void testParksWhenQueueIsEmpty() {
+		Assert.assertEquals(TimerWheelScheduler.Task.PARK, stateMachine.run());
+		Assert.assertEquals(State.IDLE, stateMachine.getState());
+	}
+
+	/**
+	 * Tests that the Elevator goes to the user, takes the user to the destination and opens the doors there, one step at a time
+	 */
+	@Test
+	public void testServesRequestStepByStep() {
+		queue.addUserRequest(new UserRequest(2, 4, ElevatorDirection.UP));
+
+		// Going to the user at floor 2
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 1);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 2);
+		// Going to the destination at floor 4
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 3);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 4);
+		assertStep(Constants.TIME_USER_PICKDROP * 1000L, State.DOOR_OPEN, 4);
+		Assert.assertFalse(elevator.getStatus().areUsersStillInElevator());
+		assertStep(TimerWheelScheduler.Task.PARK, State.IDLE, 4);
+	}
+
+	/**
+	 * Tests that the users waiting on the way in the direction of the Elevator are picked up
+	 */
+	@Test
+	public void testPicksUsersOnTheWay() {
+		queue.addUserRequest(new UserRequest(0, 3, ElevatorDirection.UP));
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 1);
+
+		queue.addUserRequest(new UserRequest(2, 5, ElevatorDirection.UP));
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 2);
+		assertStep(Constants.TIME_USER_PICKDROP * 1000L, State.DOOR_OPEN, 2);
+		Assert.assertTrue(queue.isEmpty());
+		Assert.assertEquals(5, elevator.getStatus().getHighestFloorToStop());
+	}
+
+	/**
+	 * Tests that the Elevator going to a user serves the users waiting on its way who get off before it turns back at the user
+	 */
+	@Test
+	public void testServesUsersOnTheWayToTheUser() {
+		queue.addUserRequest(new UserRequest(6, 2, ElevatorDirection.DOWN));
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 1);
+		// The user it is going to is seen by the dispatcher as a floor to stop
+		Assert.assertEquals(1, elevator.getStatus().getNumberOfFloorsToStop());
+		Assert.assertEquals(6, elevator.getStatus().getHighestFloorToStop());
+
+		queue.addUserRequest(new UserRequest(2, 5, ElevatorDirection.UP));
+		queue.addUserRequest(new UserRequest(3, 9, ElevatorDirection.UP));
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 2);
+		assertStep(Constants.TIME_USER_PICKDROP * 1000L, State.DOOR_OPEN, 2);
+		Assert.assertEquals(1, elevator.getStatus().getNumberOfRiders());
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 3);
+		// Going up to 9 would take the user past the floor where the Elevator turns back
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 4);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 5);
+		assertStep(Constants.TIME_USER_PICKDROP * 1000L, State.DOOR_OPEN, 5);
+		Assert.assertEquals(0, elevator.getStatus().getNumberOfRiders());
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 6);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 5);
+		Assert.assertEquals(ElevatorDirection.DOWN, elevator.getStatus().getDirection());
+		Assert.assertEquals(1, elevator.getStatus().getNumberOfRiders());
+		Assert.assertTrue(queue.isUserWillingToGoUpWaitingAtCurrentFloor(3));
+	}
+
+	/**
+	 * Tests that a full Elevator passes the users waiting by, and that only the users who fit get in
+	 */
+	@Test
+	public void testFullElevatorPassesUsersWaitingBy() {
+		elevator.getStatus().setCapacity(new CarCapacity(4, 320, 75));
+		final UserRequest crowd = new UserRequest(0, 5, ElevatorDirection.UP);
+		crowd.setNumberOfPassengers(6);
+		queue.addUserRequest(crowd);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 1);
+		Assert.assertTrue(elevator.getStatus().isFull());
+		Assert.assertEquals(4 * 75, elevator.getStatus().getLoadKg());
+		Assert.assertEquals(2, queue.getNumberOfPassengers());
+
+		queue.addUserRequest(new UserRequest(2, 6, ElevatorDirection.UP));
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 2);
+		assertStep(Constants.TIME_MOVE_ONE_FLOOR * 1000L, State.MOVING, 3);
+		Assert.assertTrue(queue.isUserWillingToGoUpWaitingAtCurrentFloor(2));
+		Assert.assertEquals(5, elevator.getStatus().getHighestFloorToStop());
+	}
+
+	/**
+	 * Tests that the moves take the travel time of their floor, and the acceleration on the first floor of every run
+	 */
+	@Test
+	public void testMovesTakeTheTimesOfTheBuilding() {
+		final Properties properties = new Properties();
+		properties.setProperty("floors.lowest", "-1");
+		properties.setProperty("floors.highest", "5");
+		properties.setProperty("travel.floorMillis", "1000");
+		properties.setProperty("travel.floorMillis.0", "4000");
+		properties.setProperty("travel.accelerationMillis", "500");
+		properties.setProperty("door.dwellMillis", "1500");
+		final BuildingConfiguration building = BuildingConfiguration.fromProperties(properties);
+		final UserRequestQueue towerQueue = new UserRequestQueue(building.getLowestFloor(), building.getHighestFloor());
+		final Elevator towerElevator = new Elevator("Elevator-1", towerQueue, new WallClock(), 0, building);
+		final ElevatorStateMachine towerStateMachine = new ElevatorStateMachine(towerElevator);
+
+		towerQueue.addUserRequest(new UserRequest(1, 3, ElevatorDirection.UP));
+		// Starting from the basement, then the higher lobby floor
+		Assert.assertEquals(1000 + 500, towerStateMachine.run());
+		Assert.assertEquals(4000, towerStateMachine.run());
+		// Stopped at floor 1 for the user
+		Assert.assertEquals(1000 + 500, towerStateMachine.run());
+		Assert.assertEquals(1000, towerStateMachine.run());
+		Assert.assertEquals(1500, towerStateMachine.run());
+		Assert.assertEquals(State.DOOR_OPEN, towerStateMachine.getState());
+		Assert.assertEquals(3, towerElevator.getStatus().getCurrentFloor());
+	}
+
+	private void assertStep(long expectedDelay, State expectedState, int expectedFloor) {
+		Assert.assertEquals(expectedDelay, stateMachine.run());
+		Assert.assertEquals(expectedState, stateMachine.getState());
+		Assert.assertEquals(expectedFloor, elevator.getStatus().getCurrentFloor());
+	}
+}
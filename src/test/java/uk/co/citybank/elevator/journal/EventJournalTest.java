@@ -0,0 +1,102 @@
+package uk.co.citybank.elevator.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * JUNIT Class to test @EventJournal and @JournalDecoder
+ * @author anuragtripathi
+ *
+ */
+public class EventJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Tests that the events of an Elevator are written and decoded in the order they happened
+	 * @throws IOException
+	 */
+	@Test
+	public void testElevatorEventsAreDecoded() throws IOException {
+		final Path file = folder.newFile("journal.bin").toPath();
+		final EventJournal journal = EventJournal.open(file, 16);
+		final UserRequestQueue queue = new UserRequestQueue(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+		final ElevatorStatus status = new ElevatorStatus("Elevator-1", 0, ElevatorDirection.UP, queue, new VirtualClock());
+		status.setJournal(journal);
+
+		status.addRequestToWorkOn(new UserRequest(0, 1, ElevatorDirection.UP));
+		status.stepOneFloorUp();
+		status.openDoors(true);
+		status.closeDoors();
+		journal.close();
+
+		final List<String> lines = decode(file);
+		Assert.assertEquals(6, lines.size());
+		Assert.assertTrue(lines.get(0), lines.get(0).endsWith("Elevator-1- Started"));
+		Assert.assertTrue(lines.get(1), lines.get(1).endsWith("Elevator-1-  Picked Request [0,1,UP] Current Floor 0"));
+		Assert.assertTrue(lines.get(2), lines.get(2).endsWith("Elevator-1- Moved from Floor 0 to Floor 1 - Floors To Stop :1"));
+		Assert.assertTrue(lines.get(3), lines.get(3).endsWith("Elevator-1- Opening at 1 : Floors To Stop 1"));
+		Assert.assertTrue(lines.get(4), lines.get(4).endsWith("Elevator-1- Dropped at 1 : Users 1"));
+		Assert.assertTrue(lines.get(5), lines.get(5).endsWith("Elevator-1- Closing at 1 : Floors To Stop 0"));
+	}
+
+	/**
+	 * Tests that the records appended by several threads are all written, even when they are more than the ring buffer can hold at once
+	 * @throws Exception
+	 */
+	@Test(timeout = 10000)
+	public void testConcurrentAppendsAreAllWritten() throws Exception {
+		final Path file = folder.newFile("journal.bin").toPath();
+		final EventJournal journal = EventJournal.open(file, 64);
+		final int threads = 4;
+		final int recordsPerThread = 5000;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int elevatorId = journal.register("Elevator-" + t, 0);
+			new Thread(() -> {
+				for (int i = 0; i < recordsPerThread; i++) {
+					while (!journal.append(i, elevatorId, EventType.MOVE, i, i + 1, 0, 0)) {
+						Thread.yield();
+					}
+				}
+				done.countDown();
+			}).start();
+		}
+		done.await();
+		journal.close();
+
+		final List<String> lines = decode(file);
+		// The drops reported by the decoder are the appends retried above
+		final Set<String> moves = new HashSet<>();
+		for (String line : lines) {
+			if (line.contains("Moved")) {
+				moves.add(line.substring(line.indexOf(" - ") + 3));
+			}
+		}
+		Assert.assertEquals(threads * recordsPerThread, moves.size());
+	}
+
+	private List<String> decode(final Path file) throws IOException {
+		final StringBuilder text = new StringBuilder();
+		JournalDecoder.decode(file, text);
+		return Arrays.asList(text.toString().split(System.lineSeparator()));
+	}
+}
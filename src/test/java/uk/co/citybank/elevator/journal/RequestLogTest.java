@@ -0,0 +1,311 @@
+package uk.co.citybank.elevator.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorSnapshot;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * JUNIT Class to test @RequestLog and @RequestLogState
+ * @author anuragtripathi
+ *
+ */
+public class RequestLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Tests that the requests waiting and riding are recovered from a log which has not been closed, a broken generation being skipped
+	 * @throws IOException
+	 */
+	@Test
+	public void testOutstandingRequestsAreRecoveredAfterACrash() throws IOException {
+		final Path directory = folder.newFolder("wal").toPath();
+		final RequestLog log = RequestLog.open(directory);
+		final UserRequest riding = request(0, 5, ElevatorDirection.UP, 1000);
+		final UserRequest waiting = request(3, 9, ElevatorDirection.UP, 2000);
+		final UserRequest served = request(8, 2, ElevatorDirection.DOWN, 3000);
+		log.assigned(0, riding);
+		log.assigned(0, waiting);
+		log.assigned(1, served);
+		riding.markPickedUp(4000);
+		log.pickedUp(0, riding);
+		served.markPickedUp(5000);
+		log.pickedUp(1, served);
+		log.dropped(1, 2, 6000);
+		log.sync();
+		// A compaction cut by the crash before its snapshot was written
+		Files.write(directory.resolve("requests-7.wal"), new byte[64]);
+
+		final RequestLogState state = RequestLog.recover(directory);
+		Assert.assertEquals(Arrays.asList(0), state.getCars().stream().toList());
+		final List<UserRequest> recoveredWaiting = state.getWaiting(0);
+		Assert.assertEquals(Arrays.asList(waiting), recoveredWaiting);
+		Assert.assertEquals(2000, recoveredWaiting.get(0).getSubmittedAt());
+		final List<UserRequest> recoveredRiding = state.getRiding(0);
+		Assert.assertEquals(Arrays.asList(riding), recoveredRiding);
+		Assert.assertEquals(1000, recoveredRiding.get(0).getSubmittedAt());
+		Assert.assertEquals(4000, recoveredRiding.get(0).getPickedUpAt());
+
+		final RequestLog reopened = RequestLog.open(directory);
+		try {
+			Assert.assertEquals(1, reopened.getRecovered().getNumberOfWaiting());
+			Assert.assertEquals(1, reopened.getRecovered().getNumberOfRiding());
+			Assert.assertEquals(8, reopened.getGeneration());
+			Assert.assertEquals(1, countFiles(directory));
+		} finally {
+			reopened.close();
+			log.close();
+		}
+	}
+
+	/**
+	 * Tests that a directory holding a generation of another version is not opened and that the generation is left as it is
+	 * @throws IOException
+	 */
+	@Test
+	public void testGenerationOfAnotherVersionIsNotDeleted() throws IOException {
+		final Path directory = folder.newFolder("wal").toPath();
+		final Path foreign = directory.resolve("requests-1.wal");
+		final ByteBuffer header = ByteBuffer.allocate(RequestLog.HEADER_SIZE + RequestLog.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0, RequestLog.MAGIC).putInt(4, RequestLog.VERSION + 1).putInt(8, RequestLog.RECORD_SIZE).putLong(RequestLog.GENERATION_OFFSET, 1);
+		Files.write(foreign, header.array());
+
+		try {
+			RequestLog.open(directory).close();
+			Assert.fail("A log holding a generation of another version has been opened");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("version " + (RequestLog.VERSION + 1)));
+		}
+		Assert.assertArrayEquals(header.array(), Files.readAllBytes(foreign));
+		Assert.assertEquals(1, countFiles(directory));
+	}
+
+	/**
+	 * Tests that the requests of a log of the first version, whose records stand for one user each, are recovered
+	 * and that the log then goes on in the current version
+	 * @throws IOException
+	 */
+	@Test
+	public void testFirstVersionIsRecovered() throws IOException {
+		final Path directory = folder.newFolder("wal").toPath();
+		final ByteBuffer file = ByteBuffer.allocate(RequestLog.HEADER_SIZE + 5 * RequestLog.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		file.putInt(0, RequestLog.MAGIC).putInt(4, 1).putInt(8, RequestLog.RECORD_SIZE).putLong(RequestLog.GENERATION_OFFSET, 1);
+		putFirstVersionRecord(file, 0, RequestLogType.SNAPSHOT_START, 0, 0, 0, null, 0);
+		putFirstVersionRecord(file, 1, RequestLogType.SNAPSHOT_END, 0, 0, 0, null, 0);
+		putFirstVersionRecord(file, 2, RequestLogType.ASSIGN, 2000, 3, 9, ElevatorDirection.UP, 2000);
+		putFirstVersionRecord(file, 3, RequestLogType.ASSIGN, 1000, 8, 2, ElevatorDirection.DOWN, 1000);
+		putFirstVersionRecord(file, 4, RequestLogType.PICK, 4000, 8, 2, ElevatorDirection.DOWN, 1000);
+		Files.write(directory.resolve("requests-1.wal"), file.array());
+
+		final RequestLog log = RequestLog.open(directory);
+		try {
+			final RequestLogState recovered = log.getRecovered();
+			Assert.assertEquals(Arrays.asList(request(3, 9, ElevatorDirection.UP, 2000)), recovered.getWaiting(0));
+			Assert.assertEquals(1, recovered.getWaiting(0).get(0).getNumberOfPassengers());
+			final List<UserRequest> riding = recovered.getRiding(0);
+			Assert.assertEquals(Arrays.asList(request(8, 2, ElevatorDirection.DOWN, 1000)), riding);
+			Assert.assertEquals(1000, riding.get(0).getSubmittedAt());
+			Assert.assertEquals(4000, riding.get(0).getPickedUpAt());
+			Assert.assertEquals(2, log.getGeneration());
+		} finally {
+			log.close();
+		}
+		Assert.assertEquals(1, countFiles(directory));
+		Assert.assertEquals(1, RequestLog.recover(directory).getNumberOfWaiting());
+		Assert.assertEquals(1, RequestLog.recover(directory).getNumberOfRiding());
+	}
+
+	/**
+	 * Tests that a generation without a complete snapshot and without an earlier generation is not deleted
+	 * @throws IOException
+	 */
+	@Test
+	public void testIncompleteGenerationWithoutEarlierOneIsNotDeleted() throws IOException {
+		final Path directory = folder.newFolder("wal").toPath();
+		final RequestLog log = RequestLog.open(directory);
+		log.assigned(0, request(3, 9, ElevatorDirection.UP, 2000));
+		log.close();
+		final Path file = directory.resolve("requests-1.wal");
+		// The end of the snapshot is lost
+		final byte[] bytes = Files.readAllBytes(file);
+		bytes[RequestLog.HEADER_SIZE + RequestLog.RECORD_SIZE] = 0;
+		Files.write(file, bytes);
+
+		try {
+			RequestLog.open(directory).close();
+			Assert.fail("A log without a complete snapshot has been opened");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("no complete snapshot"));
+		}
+		Assert.assertArrayEquals(bytes, Files.readAllBytes(file));
+	}
+
+	/**
+	 * Tests that a log growing beyond its threshold is compacted to the requests outstanding
+	 * @throws IOException
+	 */
+	@Test
+	public void testLogIsCompactedToOutstandingRequests() throws IOException {
+		final Path directory = folder.newFolder("wal").toPath();
+		final RequestLog log = RequestLog.open(directory, 100);
+		for (int floor = 1; floor <= 5; floor++) {
+			log.assigned(0, request(floor, 0, ElevatorDirection.DOWN, floor));
+		}
+		for (int i = 0; i < 1000; i++) {
+			final int car = i % 3;
+			final UserRequest request = request(0, 1 + i % 10, ElevatorDirection.UP, i);
+			log.assigned(car, request);
+			request.markPickedUp(i + 1);
+			log.pickedUp(car, request);
+			log.dropped(car, request.getFloorToGo(), i + 2);
+		}
+		log.sync();
+		Assert.assertTrue(log.getGeneration() > 1);
+		log.close();
+
+		Assert.assertEquals(1, countFiles(directory));
+		final RequestLogState state = RequestLog.recover(directory);
+		Assert.assertEquals(5, state.getNumberOfWaiting());
+		Assert.assertEquals(0, state.getNumberOfRiding());
+		// The header and the snapshot of the five requests waiting
+		try (Stream<Path> files = Files.list(directory)) {
+			Assert.assertEquals(RequestLog.HEADER_SIZE + 7 * RequestLog.RECORD_SIZE, Files.size(files.findFirst().get()));
+		}
+	}
+
+	/**
+	 * Tests that a bank stopped with requests outstanding serves them all once started again on the same log
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testBankServesRecoveredRequests() throws Exception {
+		final Path directory = folder.newFolder("wal").toPath();
+		final RequestLog log = RequestLog.open(directory);
+		VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		ElevatorManager bank = new ElevatorManager("Wal", 0, 10);
+		bank.setRequestLog(log);
+		bank.startElevators(2, clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			bank.raiseUserRequest(0, 5, ElevatorDirection.UP);
+			bank.raiseUserRequest(3, 9, ElevatorDirection.UP);
+			bank.raiseUserRequest(8, 2, ElevatorDirection.DOWN);
+			bank.raiseUserRequest(10, 0, ElevatorDirection.DOWN);
+			bank.raiseUserRequest(4, 6, ElevatorDirection.UP);
+			bank.raiseUserRequest(7, 1, ElevatorDirection.DOWN);
+			// A user has been served and another one is riding when the process stops
+			clock.sleep(20000);
+			Assert.assertEquals(1, bank.getMetrics().getFleet().getRideCount());
+		} finally {
+			bank.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(bank.awaitTermination(10, TimeUnit.SECONDS));
+		}
+		log.sync();
+		final RequestLogState state = RequestLog.recover(directory);
+		Assert.assertEquals(1, state.getNumberOfRiding());
+		Assert.assertEquals(4, state.getNumberOfWaiting());
+
+		final RequestLog reopened = RequestLog.open(directory);
+		clock = new VirtualClock();
+		clock.join(clock.register());
+		bank = new ElevatorManager("Wal", 0, 10);
+		bank.setRequestLog(reopened);
+		bank.startElevators(2, clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			clock.sleep(30 * 60 * 1000L);
+			Assert.assertEquals(5, bank.getMetrics().getFleet().getRideCount());
+			for (Elevator elevator : bank.getDispatcher().getElevators()) {
+				Assert.assertTrue(elevator.getQueue().isEmpty());
+				Assert.assertFalse(elevator.getStatus().areUsersStillInElevator());
+			}
+		} finally {
+			bank.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(bank.awaitTermination(10, TimeUnit.SECONDS));
+			reopened.close();
+			log.close();
+		}
+		Assert.assertTrue(RequestLog.recover(directory).isEmpty());
+	}
+
+	/**
+	 * Tests that the state of an Elevator is read while the Elevator waits for the log, the pick being logged once its change has ended
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testSnapshotIsReadWhileTheLogIsBlocked() throws Exception {
+		final Path directory = folder.newFolder("wal").toPath();
+		final RequestLog log = RequestLog.open(directory);
+		final ElevatorStatus status = new ElevatorStatus("Elevator-1", 0, ElevatorDirection.UP, new UserRequestQueue(0, 10), new VirtualClock());
+		status.setRequestLog(log, 0);
+		final UserRequest request = request(0, 7, ElevatorDirection.UP, 1000);
+		status.logAssigned(request);
+
+		final Thread elevator = new Thread(() -> status.addRequestToWorkOn(request));
+		log.lock.lock();
+		try {
+			elevator.start();
+			// The Elevator picks the user up and then blocks on the log
+			while (!log.lock.hasQueuedThread(elevator)) {
+				Thread.sleep(1);
+			}
+			final ElevatorSnapshot snapshot = status.snapshot();
+			Assert.assertEquals(1, snapshot.getNumberOfRiders());
+			Assert.assertTrue(snapshot.isStoppingAt(7));
+		} finally {
+			log.lock.unlock();
+		}
+		elevator.join();
+		log.sync();
+
+		Assert.assertEquals(1, RequestLog.recover(directory).getNumberOfRiding());
+		log.close();
+	}
+
+	/**
+	 * Writes a record of the first version : type (2), direction (2), elevator index (4), time (8), floor of the user (4), floor to go (4),
+	 * submission time (8)
+	 */
+	private static void putFirstVersionRecord(final ByteBuffer file, int record, final RequestLogType type, long time, int currentFloor, int floorToGo,
+			final ElevatorDirection direction, long submittedAt) {
+		final int position = RequestLog.HEADER_SIZE + record * RequestLog.RECORD_SIZE;
+		file.putShort(position, (short) (type.ordinal() + 1)).putShort(position + 2, (short) (direction == null ? 0 : direction.ordinal()))
+				.putInt(position + 4, 0).putLong(position + 8, time).putInt(position + 16, currentFloor).putInt(position + 20, floorToGo)
+				.putLong(position + 24, submittedAt);
+	}
+
+	private static UserRequest request(int currentFloor, int floorToGo, final ElevatorDirection direction, long submittedAt) {
+		final UserRequest request = new UserRequest(currentFloor, floorToGo, direction);
+		request.markSubmitted(submittedAt);
+		return request;
+	}
+
+	private static long countFiles(final Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+}
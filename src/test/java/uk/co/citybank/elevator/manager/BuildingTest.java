@@ -0,0 +1,135 @@
+package uk.co.citybank.elevator.manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.metrics.ElevatorMetrics;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorSnapshot;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * JUNIT Class to test the banks of Elevators of a @Building
+ * @author anuragtripathi
+ *
+ */
+public class BuildingTest {
+
+	/**
+	 * Tests that every bank serves its own floors with its own Elevators, side by side on the same clock
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testBanksServeTheirOwnFloors() throws Exception {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final Building building = new Building("Tower", BuildingConfiguration.defaultTimings(-2, 40));
+		final ElevatorManager lowRise = building.addBank("LowRise", -2, 10, 2);
+		final ElevatorManager highRise = building.addBank("HighRise", 0, 40, 3);
+		building.start(clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			Assert.assertEquals(2, lowRise.getDispatcher().getElevators().size());
+			Assert.assertEquals(3, highRise.getDispatcher().getElevators().size());
+			Assert.assertEquals("HighRise-1", highRise.getDispatcher().getElevators().get(0).getStatus().getElevatorName());
+
+			building.raiseUserRequest("LowRise", 0, -2, ElevatorDirection.DOWN);
+			building.raiseUserRequest("HighRise", 0, 40, ElevatorDirection.UP);
+			assertRejected(building, "LowRise", 0, 40, ElevatorDirection.UP);
+			assertRejected(building, "HighRise", 0, -2, ElevatorDirection.DOWN);
+			assertRejected(building, "Freight", 0, 1, ElevatorDirection.UP);
+			clock.sleep(10 * 60 * 1000L);
+
+			Assert.assertEquals(1, lowRise.getMetrics().getFleet().getRideCount());
+			Assert.assertEquals(1, highRise.getMetrics().getFleet().getRideCount());
+			Assert.assertTrue(isAtFloor(lowRise, -2));
+			Assert.assertTrue(isAtFloor(highRise, 40));
+			Assert.assertEquals(2, lowRise.snapshot().size());
+			Assert.assertEquals(40, highRise.snapshot().stream().mapToInt(ElevatorSnapshot::getCurrentFloor).max().getAsInt());
+			Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+					new ObjectName(ElevatorMetrics.DOMAIN + ":bank=HighRise,type=Floor,name=40")));
+		} finally {
+			building.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(building.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Tests that a tower of 160 floors and 3 basements is served, every structure being sized from its configuration
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testTallTowerIsServed() throws Exception {
+		final BuildingConfiguration tower = new BuildingConfiguration(-3, 160, 1500, 2000, 2000);
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final Building building = new Building("Tower", tower);
+		final ElevatorManager bank = building.addBank("Tower", tower.getLowestFloor(), tower.getHighestFloor(), 8);
+		building.start(clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			final Random random = new Random(160);
+			final int requests = 400;
+			for (int i = 0; i < requests; i++) {
+				final int currentFloor = tower.getLowestFloor() + random.nextInt(tower.getNumberOfFloors());
+				int floorToGo;
+				do {
+					floorToGo = tower.getLowestFloor() + random.nextInt(tower.getNumberOfFloors());
+				} while (floorToGo == currentFloor);
+				bank.raiseUserRequest(currentFloor, floorToGo, floorToGo > currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+			}
+			clock.sleep(4 * 60 * 60 * 1000L);
+
+			Assert.assertEquals(requests, bank.getMetrics().getFleet().getRideCount());
+			for (Elevator elevator : bank.getDispatcher().getElevators()) {
+				Assert.assertTrue(elevator.getQueue().isEmpty());
+				Assert.assertFalse(elevator.getStatus().areUsersStillInElevator());
+			}
+		} finally {
+			building.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(building.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Tests that a bank cannot be added once the building is started
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testBankCannotBeAddedOnceStarted() {
+		final Building building = new Building("Tower");
+		building.start(ElevatorEngine.EVENT_LOOP);
+		try {
+			building.addBank("LowRise", 0, 10, 1);
+		} finally {
+			building.shutDownElevators();
+		}
+	}
+
+	private static boolean isAtFloor(final ElevatorManager bank, int floor) {
+		for (Elevator elevator : bank.getDispatcher().getElevators()) {
+			if (elevator.getStatus().getCurrentFloor() == floor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void assertRejected(final Building building, final String bankName, int currentFloor, int floorToGo, final ElevatorDirection direction) {
+		try {
+			building.raiseUserRequest(bankName, currentFloor, floorToGo, direction);
+			Assert.fail("Request " + currentFloor + " to " + floorToGo + " accepted by " + bankName);
+		} catch (ValidationException e) {
+			// Expected
+		}
+	}
+}
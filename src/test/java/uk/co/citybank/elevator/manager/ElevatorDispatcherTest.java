@@ -0,0 +1,119 @@
+package uk.co.citybank.elevator.manager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.ElevatorStatus;
+import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * JUNIT Class to test the time of arrival estimated by @ElevatorDispatcher and the cost of the @DispatchPolicy
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorDispatcherTest {
+
+	final UserRequestQueue queue = new UserRequestQueue(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+
+	@Test
+	public void idleElevatorNearestToTheUserArrivesFirst() {
+		final ElevatorStatus nearElevator = new ElevatorStatus("Near", 8, ElevatorDirection.UP, queue);
+		final ElevatorStatus farElevator = new ElevatorStatus("Far", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(7, 2, ElevatorDirection.DOWN);
+
+		Assert.assertTrue(ElevatorDispatcher.estimateTimeToArrive(nearElevator, 0, request)
+				< ElevatorDispatcher.estimateTimeToArrive(farElevator, 0, request));
+	}
+
+	@Test
+	public void elevatorPassingByInTheSameDirectionArrivesFirst() {
+		final ElevatorStatus movingElevator = new ElevatorStatus("Moving", 2, ElevatorDirection.UP, queue);
+		movingElevator.addRequestToWorkOn(new UserRequest(2, 9, ElevatorDirection.UP));
+		final ElevatorStatus idleElevator = new ElevatorStatus("Idle", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(5, 8, ElevatorDirection.UP);
+
+		Assert.assertEquals(3 * Constants.TIME_MOVE_ONE_FLOOR * 1000L + 2 * Constants.TIME_USER_PICKDROP * 1000L,
+				ElevatorDispatcher.estimateTimeToArrive(movingElevator, 0, request));
+		Assert.assertTrue(ElevatorDispatcher.estimateTimeToArrive(movingElevator, 0, request)
+				< ElevatorDispatcher.estimateTimeToArrive(idleElevator, 0, request));
+	}
+
+	@Test
+	public void elevatorGoingAwayFinishesItsSweepBeforeComingBack() {
+		final ElevatorStatus movingElevator = new ElevatorStatus("Moving", 2, ElevatorDirection.UP, queue);
+		movingElevator.addRequestToWorkOn(new UserRequest(2, 9, ElevatorDirection.UP));
+		final ElevatorStatus idleElevator = new ElevatorStatus("Idle", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(5, 1, ElevatorDirection.DOWN);
+
+		// Goes up to 9 and then down to 5
+		Assert.assertEquals(11 * Constants.TIME_MOVE_ONE_FLOOR * 1000L + 2 * Constants.TIME_USER_PICKDROP * 1000L,
+				ElevatorDispatcher.estimateTimeToArrive(movingElevator, 0, request));
+		Assert.assertTrue(ElevatorDispatcher.estimateTimeToArrive(idleElevator, 0, request)
+				< ElevatorDispatcher.estimateTimeToArrive(movingElevator, 0, request));
+	}
+
+	@Test
+	public void requestsAlreadyAssignedDelayTheElevator() {
+		final ElevatorStatus elevator = new ElevatorStatus("Busy", 4, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(4, 8, ElevatorDirection.UP);
+
+		Assert.assertTrue(ElevatorDispatcher.estimateTimeToArrive(elevator, 0, request)
+				< ElevatorDispatcher.estimateTimeToArrive(elevator, 3, request));
+	}
+
+	@Test
+	public void fullElevatorPassingByArrivesAfterAnIdleOne() {
+		final ElevatorStatus fullElevator = new ElevatorStatus("Full", 2, ElevatorDirection.UP, queue);
+		final UserRequest crowd = new UserRequest(2, 9, ElevatorDirection.UP);
+		crowd.setNumberOfPassengers(fullElevator.getCapacity().getMaxPassengers());
+		fullElevator.addRequestToWorkOn(crowd);
+		final ElevatorStatus idleElevator = new ElevatorStatus("Idle", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(5, 8, ElevatorDirection.UP);
+
+		Assert.assertTrue(fullElevator.isFull());
+		// Goes up to 9 and back before it has room for the user
+		Assert.assertEquals((3 + 2 * 7) * Constants.TIME_MOVE_ONE_FLOOR * 1000L + 2 * Constants.TIME_USER_PICKDROP * 1000L,
+				ElevatorDispatcher.estimateTimeToArrive(fullElevator, 0, request));
+		Assert.assertTrue(ElevatorDispatcher.estimateTimeToArrive(idleElevator, 0, request)
+				< ElevatorDispatcher.estimateTimeToArrive(fullElevator, 0, request));
+	}
+
+	@Test
+	public void nearestCarIsChosenWhateverItsStops() {
+		final ElevatorStatus busyNearElevator = new ElevatorStatus("BusyNear", 6, ElevatorDirection.UP, queue);
+		busyNearElevator.addRequestToWorkOn(new UserRequest(6, 10, ElevatorDirection.UP));
+		final ElevatorStatus idleFarElevator = new ElevatorStatus("IdleFar", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(5, 1, ElevatorDirection.DOWN);
+
+		// The busy Elevator goes up to 10 first, the idle one is estimated to arrive first
+		Assert.assertTrue(DispatchPolicy.ETA.costToServe(idleFarElevator, 0, request)
+				< DispatchPolicy.ETA.costToServe(busyNearElevator, 0, request));
+		Assert.assertTrue(DispatchPolicy.NEAREST_CAR.costToServe(busyNearElevator, 0, request)
+				< DispatchPolicy.NEAREST_CAR.costToServe(idleFarElevator, 0, request));
+		// Among the nearest ones, the Elevator having the fewest floors to serve
+		Assert.assertTrue(DispatchPolicy.NEAREST_CAR.costToServe(busyNearElevator, 0, request)
+				< DispatchPolicy.NEAREST_CAR.costToServe(busyNearElevator, 2, request));
+	}
+
+	@Test
+	public void energyPolicyLetsABusyCarPassingByServeTheUser() {
+		final ElevatorStatus busyNearElevator = new ElevatorStatus("BusyNear", 7, ElevatorDirection.UP, queue);
+		busyNearElevator.addRequestToWorkOn(new UserRequest(7, 10, ElevatorDirection.UP));
+		final ElevatorStatus idleFarElevator = new ElevatorStatus("IdleFar", 0, ElevatorDirection.UP, queue);
+		final UserRequest request = new UserRequest(6, 1, ElevatorDirection.DOWN);
+
+		// The idle Elevator travels 6 floors empty and 5 with the user, the busy one only goes 6 floors below its way, both stop twice
+		Assert.assertEquals(11 + 2 * 3, EnergyWeightedStrategy.energyToServe(idleFarElevator, request, 3));
+		Assert.assertEquals(6 + 2 * 3, EnergyWeightedStrategy.energyToServe(busyNearElevator, request, 3));
+		// No stop is added where the Elevator stops already
+		Assert.assertEquals(6 + 3, EnergyWeightedStrategy.energyToServe(busyNearElevator, new UserRequest(7, 1, ElevatorDirection.DOWN), 3));
+		Assert.assertTrue(DispatchPolicy.ENERGY.costToServe(busyNearElevator, 0, request)
+				< DispatchPolicy.ENERGY.costToServe(idleFarElevator, 0, request));
+		// Without any weight on the energy, the Elevator estimated to arrive first
+		final EnergyWeightedStrategy waitOnly = new EnergyWeightedStrategy(0, 3, DispatchPolicy.ENERGY.getOrder());
+		Assert.assertTrue(waitOnly.costToServe(idleFarElevator, 0, request) < waitOnly.costToServe(busyNearElevator, 0, request));
+	}
+}
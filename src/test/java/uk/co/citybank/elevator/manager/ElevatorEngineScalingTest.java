@@ -0,0 +1,97 @@
+package uk.co.citybank.elevator.manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.engine.VirtualThreads;
+import uk.co.citybank.elevator.exception.ValidationException;
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.utility.Constants;
+
+/**
+ * JUNIT Class to test how the @ElevatorEngine values scale with the number of Elevators.
+ * Every run replays the same traffic on a virtual clock and reports the platform threads, the heap per Elevator
+ * and the number of requests served per second of wall time.
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorEngineScalingTest {
+
+	final static Logger logger = LoggerFactory.getLogger(ElevatorEngineScalingTest.class);
+
+	private static final int[] NUMBER_OF_ELEVATORS = {10, 100, 1000};
+	private static final int REQUESTS_PER_ELEVATOR = 3;
+	private static final long SIMULATED_MILLIS = 30 * 60 * 1000L;
+
+	/**
+	 * Tests that every engine serves all the requests whatever the number of Elevators,
+	 * and that the engines not using a platform thread per Elevator keep the number of platform threads bounded
+	 * @throws Exception
+	 */
+	@Test(timeout = 300000)
+	public void testEnginesScaleWithNumberOfElevators() throws Exception {
+		final StringBuilder report = new StringBuilder("\nEngine                       Elevators  Platform Threads  Heap Bytes/Elevator  Requests/s");
+		for (ElevatorEngine engine : ElevatorEngine.values()) {
+			if (engine == ElevatorEngine.VIRTUAL_THREAD_PER_ELEVATOR && !VirtualThreads.isSupported()) {
+				report.append("\n" + engine + " skipped, needs Java 21");
+				continue;
+			}
+			for (int elevators : NUMBER_OF_ELEVATORS) {
+				final long[] result = run(engine, elevators);
+				report.append(String.format("%n%-28s %9d %17d %20d %11d", engine, elevators, result[0], result[1], result[2]));
+				if (engine != ElevatorEngine.THREAD_PER_ELEVATOR) {
+					Assert.assertTrue(engine + " started " + result[0] + " platform threads for " + elevators + " Elevators",
+							result[0] <= Runtime.getRuntime().availableProcessors());
+				}
+			}
+		}
+		logger.info(report.toString());
+	}
+
+	/**
+	 * Runs the Elevators until all the requests are served
+	 * @return Platform threads started, heap bytes per Elevator and requests served per second
+	 */
+	private long[] run(final ElevatorEngine engine, int numberOfElevators) throws InterruptedException, ValidationException {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager manager = new ElevatorManager();
+		final int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+		final long start = System.nanoTime();
+
+		manager.startElevators(numberOfElevators, clock, engine);
+		final int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+		final Random random = new Random(numberOfElevators);
+		final int numberOfRequests = numberOfElevators * REQUESTS_PER_ELEVATOR;
+		for (int i = 0; i < numberOfRequests; i++) {
+			final int currentFloor = Constants.LOWEST_FLOOR + random.nextInt(Constants.HIGHEST_FLOORS - Constants.LOWEST_FLOOR + 1);
+			int floorToGo;
+			do {
+				floorToGo = Constants.LOWEST_FLOOR + random.nextInt(Constants.HIGHEST_FLOORS - Constants.LOWEST_FLOOR + 1);
+			} while (floorToGo == currentFloor);
+			manager.raiseUserRequest(currentFloor, floorToGo, floorToGo > currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN);
+		}
+		clock.sleep(SIMULATED_MILLIS);
+
+		for (Elevator elevator : manager.getDispatcher().getElevators()) {
+			Assert.assertTrue(engine + " left requests to " + elevator.getStatus().getElevatorName(), elevator.getQueue().isEmpty());
+			Assert.assertFalse(engine + " left users in " + elevator.getStatus().getElevatorName(), elevator.getStatus().areUsersStillInElevator());
+		}
+		final long elapsedNanos = System.nanoTime() - start;
+
+		manager.shutDownElevators();
+		clock.leave();
+		Assert.assertTrue(manager.awaitTermination(30, TimeUnit.SECONDS));
+		return new long[] {platformThreads, manager.getHeapBytesPerElevator(), numberOfRequests * TimeUnit.SECONDS.toNanos(1) / elapsedNanos};
+	}
+}
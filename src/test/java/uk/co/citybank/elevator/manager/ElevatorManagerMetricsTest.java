@@ -0,0 +1,61 @@
+package uk.co.citybank.elevator.manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.metrics.ElevatorMetrics;
+import uk.co.citybank.elevator.metrics.LatencyStatistics;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+
+/**
+ * JUNIT Class to test the latencies recorded by the Elevators started by @ElevatorManager
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorManagerMetricsTest {
+
+	/**
+	 * Tests that the wait and ride of every user is recorded and exposed over JMX
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testLatenciesAreExposedAsMBeans() throws Exception {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager manager = new ElevatorManager();
+		manager.startElevators(2, clock, ElevatorEngine.EVENT_LOOP);
+		manager.raiseUserRequest(0, 5, ElevatorDirection.UP);
+		manager.raiseUserRequest(3, 1, ElevatorDirection.DOWN);
+		manager.raiseUserRequest(3, 8, ElevatorDirection.UP);
+		clock.sleep(5 * 60 * 1000L);
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final LatencyStatistics fleet = manager.getMetrics().getFleet();
+			Assert.assertEquals(3, fleet.getWaitCount());
+			Assert.assertEquals(3, fleet.getRideCount());
+			Assert.assertTrue(fleet.getRideMaxMillis() > 0);
+			Assert.assertEquals(2, manager.getMetrics().getFloor(3).getRideCount());
+
+			final ObjectName latency = new ObjectName(ElevatorMetrics.DOMAIN + ":bank=" + ElevatorManager.DEFAULT_BANK_NAME + ",type=Fleet,name=Latency");
+			Assert.assertEquals(3L, server.getAttribute(latency, "RideCount"));
+			Assert.assertEquals(fleet.getWaitP99Millis(), server.getAttribute(latency, "WaitP99Millis"));
+			final ObjectName gauges = new ObjectName(ElevatorMetrics.DOMAIN + ":bank=" + ElevatorManager.DEFAULT_BANK_NAME + ",type=Fleet,name=Gauges");
+			Assert.assertEquals(0L, ((Number) server.getAttribute(gauges, "QueueDepth")).longValue());
+			Assert.assertEquals(2, server.getAttribute(gauges, "IdleElevators"));
+		} finally {
+			manager.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(manager.awaitTermination(10, TimeUnit.SECONDS));
+		}
+		Assert.assertFalse(server.isRegistered(new ObjectName(ElevatorMetrics.DOMAIN + ":bank=" + ElevatorManager.DEFAULT_BANK_NAME + ",type=Fleet,name=Latency")));
+	}
+}
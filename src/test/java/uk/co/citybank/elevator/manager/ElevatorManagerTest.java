@@ -0,0 +1,38 @@
+package uk.co.citybank.elevator.manager;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.model.UserRequest;
+
+/**
+ * JUNIT Class to test @ElevatorManager
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorManagerTest {
+
+	/**
+	 * Tests that a request raised before the Elevators are started is refused with a clear reason, one at a time or in a batch
+	 * @throws Exception
+	 */
+	@Test
+	public void testRequestsRaisedBeforeTheElevatorsAreStartedAreRefused() throws Exception {
+		final ElevatorManager manager = new ElevatorManager();
+		try {
+			manager.raiseUserRequest(0, 5, ElevatorDirection.UP);
+			Assert.fail("The request has been accepted without any Elevator");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("not started"));
+		}
+		try {
+			manager.raiseUserRequests(Arrays.asList(new UserRequest(3, 1, ElevatorDirection.DOWN)));
+			Assert.fail("The requests have been accepted without any Elevator");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("not started"));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package uk.co.citybank.elevator.manager;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.metrics.LatencyStatistics;
+import uk.co.citybank.elevator.model.ElevatorDirection;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * JUNIT Class to test the maximum wait of the Elevators started by @ElevatorManager under a traffic keeping them busy all the time
+ * @author anuragtripathi
+ *
+ */
+public class MaximumWaitTest {
+
+	private static final long MAX_WAIT_MILLIS = 7 * 60 * 1000L;
+
+	private static final long TRAFFIC_MILLIS = 60 * 60 * 1000L;
+
+	private final BuildingConfiguration building = BuildingConfiguration.defaultTimings(0, 20);
+
+	/**
+	 * Tests that the users calling from the top of the building are picked up within the maximum wait
+	 * while the users of the lower floors keep the Elevator busy
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testNoUserWaitsBeyondTheMaximumWait() throws Exception {
+		for (ElevatorEngine engine : new ElevatorEngine[] { ElevatorEngine.EVENT_LOOP, ElevatorEngine.THREAD_PER_ELEVATOR }) {
+			final LatencyStatistics latency = runSaturatedTraffic(building.withMaxWaitMillis(MAX_WAIT_MILLIS), engine);
+			Assert.assertEquals(latency.getWaitCount(), latency.getRideCount());
+			Assert.assertTrue(engine + " : " + latency.getWaitMaxMillis() + " ms", latency.getWaitMaxMillis() <= MAX_WAIT_MILLIS);
+		}
+	}
+
+	/**
+	 * Tests that without a maximum wait the users calling from the top of the building wait until the traffic stops
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testUsersFarAwayStarveWithoutMaximumWait() throws Exception {
+		final LatencyStatistics latency = runSaturatedTraffic(building, ElevatorEngine.EVENT_LOOP);
+		Assert.assertEquals(latency.getWaitCount(), latency.getRideCount());
+		Assert.assertTrue(latency.getWaitMaxMillis() + " ms", latency.getWaitMaxMillis() > MAX_WAIT_MILLIS);
+	}
+
+	/**
+	 * Runs one Elevator for an hour : users keep calling between the floors 0 and 3, more than the Elevator takes between two of
+	 * its picks, and every minute a user calls from the top floors
+	 * @return Latencies once every user has been served
+	 */
+	private LatencyStatistics runSaturatedTraffic(final BuildingConfiguration configuration, final ElevatorEngine engine) throws Exception {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager manager = new ElevatorManager("Saturated", configuration);
+		manager.startElevators(1, clock, engine);
+		try {
+			for (long time = 0; time < TRAFFIC_MILLIS; time += 4000) {
+				if (time % 8000 == 0) {
+					manager.raiseUserRequest(0, 3, ElevatorDirection.UP);
+				} else {
+					manager.raiseUserRequest(3, 0, ElevatorDirection.DOWN);
+				}
+				if (time % 60000 == 0) {
+					manager.raiseUserRequest(20, 12, ElevatorDirection.DOWN);
+				} else if (time % 60000 == 30000) {
+					manager.raiseUserRequest(17, 20, ElevatorDirection.UP);
+				}
+				clock.sleep(4000);
+			}
+			// Let the Elevator serve the users left
+			clock.sleep(TRAFFIC_MILLIS);
+			return manager.getMetrics().getFleet();
+		} finally {
+			manager.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(manager.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package uk.co.citybank.elevator.metrics;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUNIT Class to test @LatencyHistogram
+ * @author anuragtripathi
+ *
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Tests that the percentiles are within the precision of a bucket
+	 */
+	@Test
+	public void testPercentilesAreWithinBucketPrecision() {
+		final LatencyHistogram histogram = new LatencyHistogram(3600000);
+		for (long value = 1; value <= 10000; value++) {
+			histogram.record(value);
+		}
+		Assert.assertEquals(10000, histogram.getCount());
+		Assert.assertEquals(10000, histogram.getMax());
+		Assert.assertEquals(5000.5, histogram.getMean(), 0.001);
+		assertWithin(5000, histogram.getValueAtPercentile(50));
+		assertWithin(9000, histogram.getValueAtPercentile(90));
+		assertWithin(9900, histogram.getValueAtPercentile(99));
+		Assert.assertEquals(10000, histogram.getValueAtPercentile(100));
+	}
+
+	/**
+	 * Tests the small values, the empty histogram and the values above the highest trackable value
+	 */
+	@Test
+	public void testEdgeValues() {
+		final LatencyHistogram histogram = new LatencyHistogram(1000);
+		Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+		Assert.assertEquals(0, histogram.getMean(), 0);
+
+		histogram.record(-5);
+		histogram.record(7);
+		histogram.record(5000);
+		Assert.assertEquals(0, histogram.getValueAtPercentile(10));
+		Assert.assertEquals(7, histogram.getValueAtPercentile(50));
+		Assert.assertEquals(5000, histogram.getMax());
+		Assert.assertTrue(histogram.getValueAtPercentile(100) >= 1000);
+	}
+
+	/**
+	 * Tests that no value is lost when several threads record at the same time
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 10000)
+	public void testConcurrentRecording() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram(3600000);
+		final int threads = 4;
+		final int valuesPerThread = 100000;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int offset = t;
+			new Thread(() -> {
+				for (int i = 0; i < valuesPerThread; i++) {
+					histogram.record(i % 1000 + offset);
+				}
+				done.countDown();
+			}).start();
+		}
+		done.await();
+		Assert.assertEquals(threads * valuesPerThread, histogram.getCount());
+		Assert.assertEquals(999 + threads - 1, histogram.getMax());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		Assert.assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+	}
+}
@@ -0,0 +1,149 @@
+package uk.co.citybank.elevator.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.queue.UserRequestQueue;
+
+/**
+ * JUNIT Class to test the snapshots of @ElevatorStatus
+ * @author anuragtripathi
+ *
+ */
+public class ElevatorStatusTest {
+
+	/**
+	 * Tests that the floors travelled, the floors travelled empty, the starts and the stops are counted
+	 */
+	@Test
+	public void testTravelOfTheMotorIsCounted() {
+		final ElevatorStatus status = new ElevatorStatus("Elevator-1", 0, ElevatorDirection.UP, new UserRequestQueue(0, 10), new VirtualClock());
+		// Going empty to the user at floor 2
+		status.stepOneFloorUp();
+		status.stepOneFloorUp();
+		status.openDoors(true);
+		status.addRequestToWorkOn(new UserRequest(2, 5, ElevatorDirection.UP));
+		status.closeDoors();
+		// Taking the user to floor 5
+		for (int floor = 2; floor < 5; floor++) {
+			status.stepOneFloorUp();
+		}
+		status.openDoors(true);
+		status.closeDoors();
+		// Turning back without stopping on the way counts as a new start
+		status.stepOneFloorDown();
+
+		Assert.assertEquals(0, status.getNumberOfRiders());
+		Assert.assertEquals(6, status.getFloorsTravelled());
+		Assert.assertEquals(3, status.getEmptyFloorsTravelled());
+		Assert.assertEquals(3, status.getStarts());
+		Assert.assertEquals(2, status.getStops());
+	}
+
+	/**
+	 * Tests that a snapshot holds the floor, the direction, the doors, the riders and the floors to stop
+	 */
+	@Test
+	public void testSnapshotReadsTheState() {
+		final ElevatorStatus status = new ElevatorStatus("Elevator-1", 0, ElevatorDirection.UP, new UserRequestQueue(0, 10), new VirtualClock());
+		final long version = status.snapshot().getVersion();
+		status.addRequestToWorkOn(new UserRequest(0, 7, ElevatorDirection.UP));
+		status.addRequestToWorkOn(new UserRequest(0, 3, ElevatorDirection.UP));
+		status.stepOneFloorUp();
+		status.stepOneFloorUp();
+		status.stepOneFloorUp();
+		status.openDoors(true);
+
+		final ElevatorSnapshot snapshot = status.snapshot();
+		Assert.assertEquals("Elevator-1", snapshot.getElevatorName());
+		Assert.assertEquals(3, snapshot.getCurrentFloor());
+		Assert.assertEquals(ElevatorDirection.UP, snapshot.getDirection());
+		Assert.assertTrue(snapshot.isDoorOpen());
+		Assert.assertEquals(1, snapshot.getNumberOfRiders());
+		Assert.assertArrayEquals(new int[] { 7 }, snapshot.getFloorsToStop());
+		Assert.assertTrue(snapshot.isStoppingAt(7));
+		Assert.assertFalse(snapshot.isStoppingAt(3));
+		Assert.assertTrue(snapshot.getVersion() > version);
+
+		status.closeDoors();
+		Assert.assertFalse(status.snapshot().isDoorOpen());
+		Assert.assertEquals(snapshot.getVersion() + 1, status.snapshot().getVersion());
+	}
+
+	/**
+	 * Tests that the snapshots polled while the Elevator thread changes its state are never torn :
+	 * the Elevator carries one user a floor at a time, so it has a rider exactly when it has floors to stop,
+	 * all of them next to its floor and none of them the floor where its doors are open.
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testSnapshotIsConsistentWhileTheElevatorMoves() throws Exception {
+		final int highestFloor = 20;
+		final ElevatorStatus status = new ElevatorStatus("Elevator-1", 0, ElevatorDirection.UP, new UserRequestQueue(0, highestFloor), new VirtualClock());
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong snapshots = new AtomicLong();
+		final AtomicReference<String> tornSnapshot = new AtomicReference<>();
+
+		final Thread[] readers = new Thread[2];
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = new Thread(() -> {
+				while (running.get()) {
+					final ElevatorSnapshot snapshot = status.snapshot();
+					snapshots.incrementAndGet();
+					if (!isConsistent(snapshot)) {
+						tornSnapshot.compareAndSet(null, snapshot.toString());
+					}
+				}
+			});
+			readers[i].start();
+		}
+
+		final long deadline = System.currentTimeMillis() + 300;
+		boolean goingUp = true;
+		long trips = 0;
+		while (System.currentTimeMillis() < deadline || trips < 1000) {
+			final int floor = status.getCurrentFloor();
+			if (goingUp && floor == highestFloor) {
+				goingUp = false;
+			} else if (!goingUp && floor == 0) {
+				goingUp = true;
+			}
+			status.addRequestToWorkOn(new UserRequest(floor, goingUp ? floor + 1 : floor - 1, goingUp ? ElevatorDirection.UP : ElevatorDirection.DOWN));
+			status.openDoors(false);
+			status.closeDoors();
+			if (goingUp) {
+				status.stepOneFloorUp();
+			} else {
+				status.stepOneFloorDown();
+			}
+			status.openDoors(false);
+			status.closeDoors();
+			trips++;
+		}
+		running.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		Assert.assertNull(tornSnapshot.get(), tornSnapshot.get());
+		Assert.assertTrue(snapshots.get() > 0);
+	}
+
+	private static boolean isConsistent(final ElevatorSnapshot snapshot) {
+		final int[] floorsToStop = snapshot.getFloorsToStop();
+		if (snapshot.getNumberOfRiders() != (floorsToStop.length == 0 ? 0 : 1)) {
+			return false;
+		}
+		for (int floor : floorsToStop) {
+			if (Math.abs(floor - snapshot.getCurrentFloor()) > 1 || (snapshot.isDoorOpen() && floor == snapshot.getCurrentFloor())) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,73 @@
+package uk.co.citybank.elevator.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUNIT Class to test @PackedRequest
+ * @author anuragtripathi
+ *
+ */
+public class PackedRequestTest {
+
+	/**
+	 * Tests that every field of a request comes back as it was encoded, the basements included
+	 */
+	@Test
+	public void testRequestIsDecodedAsEncoded() {
+		final long epoch = 1_700_000_000_000L;
+		final UserRequest request = new UserRequest(-3, PackedRequest.HIGHEST_FLOOR, ElevatorDirection.UP);
+		request.markSubmitted(epoch + 12345);
+		final long packed = PackedRequest.pack(request, epoch);
+
+		Assert.assertEquals(-3, PackedRequest.currentFloor(packed));
+		Assert.assertEquals(PackedRequest.HIGHEST_FLOOR, PackedRequest.floorToGo(packed));
+		Assert.assertEquals(ElevatorDirection.UP, PackedRequest.direction(packed));
+		Assert.assertEquals(epoch + 12345, PackedRequest.submittedAt(packed, epoch));
+		final UserRequest decoded = PackedRequest.toUserRequest(packed, epoch);
+		Assert.assertEquals(request, decoded);
+		Assert.assertEquals(request.getSubmittedAt(), decoded.getSubmittedAt());
+
+		final long down = PackedRequest.pack(PackedRequest.LOWEST_FLOOR, -1, ElevatorDirection.DOWN, UserRequest.NOT_STAMPED, epoch);
+		Assert.assertEquals(PackedRequest.LOWEST_FLOOR, PackedRequest.currentFloor(down));
+		Assert.assertEquals(-1, PackedRequest.floorToGo(down));
+		Assert.assertEquals(ElevatorDirection.DOWN, PackedRequest.direction(down));
+		Assert.assertEquals(UserRequest.NOT_STAMPED, PackedRequest.submittedAt(down, epoch));
+	}
+
+	/**
+	 * Tests that the time orders the requests, the times before the epoch included
+	 */
+	@Test
+	public void testTimeOrdersTheRequests() {
+		final long before = PackedRequest.pack(4, 9, ElevatorDirection.UP, 500, 1000);
+		final long early = PackedRequest.pack(4, 9, ElevatorDirection.UP, 1000, 1000);
+		final long late = PackedRequest.pack(4, 9, ElevatorDirection.UP, 2000, 1000);
+		Assert.assertTrue(Long.compareUnsigned(before, early) < 0);
+		Assert.assertTrue(Long.compareUnsigned(early, late) < 0);
+		Assert.assertEquals(500, PackedRequest.submittedAt(before, 1000));
+		Assert.assertEquals(2000, PackedRequest.submittedAt(late, 1000));
+
+		final long lowest = PackedRequest.pack(4, 9, ElevatorDirection.UP, PackedRequest.LOWEST_TIME_OFFSET, 0);
+		final long highest = PackedRequest.pack(4, 9, ElevatorDirection.UP, PackedRequest.HIGHEST_TIME_OFFSET, 0);
+		Assert.assertEquals(PackedRequest.LOWEST_TIME_OFFSET, PackedRequest.submittedAt(lowest, 0));
+		Assert.assertEquals(PackedRequest.HIGHEST_TIME_OFFSET, PackedRequest.submittedAt(highest, 0));
+		Assert.assertTrue(Long.compareUnsigned(lowest, highest) < 0);
+	}
+
+	/**
+	 * Tests that a time too far from the epoch is refused instead of being changed
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testTimeOutOfRangeIsRefused() {
+		PackedRequest.pack(4, 9, ElevatorDirection.UP, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Tests that a floor out of the encoded range is refused
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFloorOutOfRangeIsRefused() {
+		PackedRequest.pack(0, PackedRequest.HIGHEST_FLOOR + 1, ElevatorDirection.UP, 0, 0);
+	}
+}
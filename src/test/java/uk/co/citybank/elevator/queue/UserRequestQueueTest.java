@@ -1,12 +1,27 @@
 package uk.co.citybank.elevator.queue;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.junit.Assert;
+import uk.co.citybank.elevator.clock.VirtualClock;
 import uk.co.citybank.elevator.model.ElevatorDirection;
 import uk.co.citybank.elevator.model.UserRequest;
+import uk.co.citybank.elevator.utility.Constants;
 
 /**
  * JUNIT Class to test @UserRequestQueue 
@@ -15,7 +30,7 @@ import uk.co.citybank.elevator.model.UserRequest;
  */
 public class UserRequestQueueTest {
 
-	final UserRequestQueue queue = UserRequestQueue.getUserRequestQueue();
+	final UserRequestQueue queue = new UserRequestQueue(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
 	final static Logger logger = LoggerFactory.getLogger(UserRequestQueueTest.class);
 	
 	/**
@@ -83,6 +98,494 @@ public class UserRequestQueueTest {
         
     }
     
+	/**
+	 * Tests that an Elevator going UP gets the nearest request above it, and one going DOWN the nearest request below it
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testNearestRequestIsPickedInTheDirectionOfElevator() throws InterruptedException {
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		floorQueue.addUserRequest(createUserRequest(7, 9, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(4, 8, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(4, 6, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(2, 0, ElevatorDirection.DOWN));
+		floorQueue.addUserRequest(createUserRequest(5, 1, ElevatorDirection.DOWN));
+
+		Assert.assertEquals(createUserRequest(4, 6, ElevatorDirection.UP), floorQueue.pickRequest(3, ElevatorDirection.UP));
+		Assert.assertEquals(createUserRequest(4, 8, ElevatorDirection.UP), floorQueue.pickRequest(3, ElevatorDirection.UP));
+		Assert.assertEquals(createUserRequest(5, 1, ElevatorDirection.DOWN), floorQueue.pickRequest(6, ElevatorDirection.DOWN));
+		Assert.assertEquals(createUserRequest(2, 0, ElevatorDirection.DOWN), floorQueue.pickRequest(8, ElevatorDirection.UP));
+		// Nothing left below an Elevator going DOWN at floor 1, nor above it, so the remaining request is picked
+		Assert.assertEquals(createUserRequest(7, 9, ElevatorDirection.UP), floorQueue.pickRequest(1, ElevatorDirection.DOWN));
+	}
+
+	/**
+	 * Tests that the same queue is served in a different order by every built-in order, from an Elevator at 5 going UP
+	 */
+	@Test
+	public void testEveryOrderPicksItsOwnNextRequest() {
+		final UserRequest goingDownFromSeven = createUserRequest(7, 0, ElevatorDirection.DOWN);
+		final UserRequest goingUpFromFour = createUserRequest(4, 10, ElevatorDirection.UP);
+		final UserRequest goingDownFromNine = createUserRequest(9, 1, ElevatorDirection.DOWN);
+		final Map<HallCallOrder, UserRequest> expected = new EnumMap<>(HallCallOrder.class);
+		// Nobody going UP above, nobody going DOWN below : the lowest user going DOWN
+		expected.put(HallCallOrder.COLLECTIVE, goingDownFromSeven);
+		// Nobody going UP ahead : turns back at the farthest user going DOWN
+		expected.put(HallCallOrder.LOOK, goingDownFromNine);
+		// The nearest user ahead whatever the direction
+		expected.put(HallCallOrder.SCAN, goingDownFromSeven);
+		// The nearest user, even behind
+		expected.put(HallCallOrder.NEAREST, goingUpFromFour);
+
+		for (HallCallOrder order : HallCallOrder.values()) {
+			final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+			floorQueue.setRequestOrder(order);
+			floorQueue.addUserRequest(goingDownFromSeven);
+			floorQueue.addUserRequest(goingUpFromFour);
+			floorQueue.addUserRequest(goingDownFromNine);
+
+			Assert.assertEquals(order.name(), expected.get(order), floorQueue.pollRequest(5, ElevatorDirection.UP));
+			// Every request is still served once
+			Assert.assertNotNull(floorQueue.pollRequest(5, ElevatorDirection.UP));
+			Assert.assertNotNull(floorQueue.pollRequest(5, ElevatorDirection.UP));
+			Assert.assertNull(floorQueue.pollRequest(5, ElevatorDirection.UP));
+		}
+	}
+
+	/**
+	 * Tests that the queries an Elevator makes on every floor it passes allocate nothing : the checks of the waiting users,
+	 * a pick up where nobody the Elevator can take waits and a look up in an empty queue, once the classes are loaded
+	 */
+	@Test
+	public void testQueriesOfEveryFloorPassAllocateNothing() {
+		final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(hotspotThreads.isThreadAllocatedMemorySupported() && hotspotThreads.isThreadAllocatedMemoryEnabled());
+		
+		queue.addUserRequest(createUserRequest(5, 9, ElevatorDirection.UP));
+		queue.addUserRequest(createUserRequest(8, 2, ElevatorDirection.DOWN));
+		final UserRequestQueue empty = new UserRequestQueue(Constants.LOWEST_FLOOR, Constants.HIGHEST_FLOORS);
+		final List<UserRequest> picked = new ArrayList<>();
+		final long threadId = Thread.currentThread().getId();
+		final int passes = 10000;
+		
+		// Warmed up first, the classes are loaded and the code compiled
+		passFloors(empty, picked, passes);
+		// A round during which the compiler replaces the code may allocate the objects the compiled code had done without,
+		// a query allocating on every call allocates in every round
+		long allocated = Long.MAX_VALUE;
+		for (int round = 0; round < 5 && allocated != 0; round++) {
+			final long before = hotspotThreads.getThreadAllocatedBytes(threadId);
+			passFloors(empty, picked, passes);
+			allocated = hotspotThreads.getThreadAllocatedBytes(threadId) - before;
+		}
+		
+		Assert.assertEquals("Bytes allocated by " + passes + " floor passes", 0, allocated);
+		Assert.assertTrue(picked.isEmpty());
+		Assert.assertEquals(2, queue.getNumberOfRequests());
+	}
+	
+	/**
+	 * Makes the queries of an Elevator passing every floor, the given number of times, without taking any user
+	 */
+	private void passFloors(final UserRequestQueue empty, final List<UserRequest> picked, int passes) {
+		int found = 0;
+		for (int pass = 0; pass < passes; pass++) {
+			for (int floor = Constants.LOWEST_FLOOR; floor <= Constants.HIGHEST_FLOORS; floor++) {
+				found += queue.isUserWillingToGoUpWaitingAtCurrentFloor(floor) ? 1 : 0;
+				found += queue.isUserWillingToGoUpWaitingAtCurrentFloor(floor, floor) ? 1 : 0;
+				found += queue.isRequestToGoDownPendingFromCurrentFloor(floor) ? 1 : 0;
+				found += queue.isRequestToGoDownPendingFromCurrentFloor(floor, floor) ? 1 : 0;
+				// The Elevators turning back at this floor take nobody going farther
+				found += queue.pickUsersWantToGoUpWaitingAtCurrentFloor(floor, 8, floor, picked);
+				found += queue.pickUsersWantToGoDownWaitingAtCurrentFloor(floor, 8, floor, picked);
+				found += queue.pickUsersWantToGoUpWaitingAtCurrentFloor(floor, 0).size();
+				found += empty.pickUsersWantToGoDownWaitingAtCurrentFloor(floor, 8).size();
+				found += empty.pollRequest(floor, ElevatorDirection.UP) == null ? 0 : 1;
+			}
+		}
+		Assert.assertEquals(2 * passes, found);
+	}
+
+	/**
+	 * Tests that the users who have waited beyond the aging time are taken first, the oldest first, whatever the order of the queue
+	 */
+	@Test
+	public void testUsersWaitingBeyondTheAgingTimeAreTakenFirst() {
+		final long now = System.currentTimeMillis();
+		final UserRequest farAndOlder = createUserRequest(9, 10, ElevatorDirection.UP);
+		farAndOlder.markSubmitted(now - 90000);
+		final UserRequest farAndOld = createUserRequest(10, 2, ElevatorDirection.DOWN);
+		farAndOld.markSubmitted(now - 60000);
+		final UserRequest near = createUserRequest(1, 5, ElevatorDirection.UP);
+		near.markSubmitted(now);
+		final UserRequestQueue agingQueue = new UserRequestQueue(0, 10);
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		agingQueue.setAgingMillis(30000);
+		for (UserRequestQueue queue : Arrays.asList(agingQueue, floorQueue)) {
+			queue.addUserRequest(farAndOlder);
+			queue.addUserRequest(farAndOld);
+			queue.addUserRequest(near);
+		}
+		Assert.assertEquals(now - 90000, agingQueue.getOldestSubmittedAt());
+		// Nothing is kept for the aging while it is disabled
+		Assert.assertEquals(UserRequest.NOT_STAMPED, floorQueue.getOldestSubmittedAt());
+
+		Assert.assertEquals(near, floorQueue.pollRequest(0, ElevatorDirection.UP));
+		Assert.assertEquals(farAndOlder, agingQueue.pollRequest(0, ElevatorDirection.UP));
+		Assert.assertEquals(now - 60000, agingQueue.getOldestSubmittedAt());
+		Assert.assertEquals(farAndOld, agingQueue.pollRequest(0, ElevatorDirection.UP));
+		// The user left has not waited long enough, the order of the queue applies again
+		Assert.assertEquals(now, agingQueue.getOldestSubmittedAt());
+		Assert.assertEquals(near, agingQueue.pollRequest(0, ElevatorDirection.UP));
+		Assert.assertEquals(UserRequest.NOT_STAMPED, agingQueue.getOldestSubmittedAt());
+	}
+
+	/**
+	 * Tests that users coalesced onto a trip submitted later give it their earlier time, the trip then being the one aged out first
+	 */
+	@Test
+	public void testCoalescedOlderUsersAreAgedOutFirst() {
+		final long now = System.currentTimeMillis();
+		final UserRequest other = createUserRequest(1, 5, ElevatorDirection.UP);
+		other.markSubmitted(now - 50000);
+		final UserRequest trip = createUserRequest(3, 7, ElevatorDirection.UP);
+		trip.markSubmitted(now - 20000);
+		final UserRequest olderOnTheTrip = createUserRequest(3, 7, ElevatorDirection.UP);
+		olderOnTheTrip.markSubmitted(now - 55000);
+		final UserRequestQueue agingQueue = new UserRequestQueue(0, 10);
+		agingQueue.setAgingMillis(30000);
+		agingQueue.addUserRequest(other);
+		agingQueue.addUserRequest(trip);
+		agingQueue.addUserRequest(olderOnTheTrip);
+		Assert.assertEquals(now - 55000, agingQueue.getOldestSubmittedAt());
+
+		final UserRequest aged = agingQueue.pollRequest(10, ElevatorDirection.DOWN);
+		Assert.assertEquals(3, aged.getCurrentFloor());
+		Assert.assertEquals(7, aged.getFloorToGo());
+		Assert.assertEquals(2, aged.getNumberOfPassengers());
+		Assert.assertEquals(now - 55000, aged.getSubmittedAt());
+		Assert.assertEquals(now - 50000, agingQueue.getOldestSubmittedAt());
+	}
+
+	/**
+	 * Tests that a request stamped long before the first request of the queue, as a request recovered from the log, keeps its time
+	 * and is aged out first
+	 */
+	@Test
+	public void testOlderRequestAddedLaterKeepsItsTime() {
+		final UserRequest newer = createUserRequest(1, 5, ElevatorDirection.UP);
+		newer.markSubmitted(10000000);
+		final UserRequest older = createUserRequest(6, 9, ElevatorDirection.UP);
+		older.markSubmitted(1000000);
+		final UserRequestQueue agingQueue = new UserRequestQueue(0, 10);
+		agingQueue.setAgingMillis(30000);
+		agingQueue.addUserRequest(newer);
+		agingQueue.addUserRequest(older);
+		Assert.assertEquals(1000000, agingQueue.getOldestSubmittedAt());
+
+		final UserRequest aged = agingQueue.pollRequest(0, ElevatorDirection.UP);
+		Assert.assertEquals(older, aged);
+		Assert.assertEquals(1000000, aged.getSubmittedAt());
+		Assert.assertEquals(10000000, agingQueue.pollRequest(0, ElevatorDirection.UP).getSubmittedAt());
+	}
+
+	/**
+	 * Tests that the oldest request is found again when the aging is enabled after the requests were added, and forgotten when it is disabled
+	 */
+	@Test
+	public void testAgingCanBeEnabledWithRequestsPending() {
+		final long now = System.currentTimeMillis();
+		final UserRequest old = createUserRequest(8, 2, ElevatorDirection.DOWN);
+		old.markSubmitted(now - 40000);
+		final UserRequest recent = createUserRequest(1, 5, ElevatorDirection.UP);
+		recent.markSubmitted(now);
+		queue.addUserRequest(old);
+		queue.addUserRequest(recent);
+		Assert.assertEquals(UserRequest.NOT_STAMPED, queue.getOldestSubmittedAt());
+
+		queue.setAgingMillis(30000);
+		Assert.assertEquals(now - 40000, queue.getOldestSubmittedAt());
+		queue.setAgingMillis(UserRequestQueue.NO_AGING);
+		Assert.assertEquals(UserRequest.NOT_STAMPED, queue.getOldestSubmittedAt());
+	}
+
+	/**
+	 * Tests that all the users waiting at a floor in a direction are picked together, and only them
+	 */
+	@Test
+	public void testUsersWaitingAtCurrentFloorArePickedTogether() {
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		floorQueue.addUserRequest(createUserRequest(4, 8, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(4, 6, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(4, 6, ElevatorDirection.UP));
+		floorQueue.addUserRequest(createUserRequest(4, 2, ElevatorDirection.DOWN));
+		floorQueue.addUserRequest(createUserRequest(5, 9, ElevatorDirection.UP));
+
+		Assert.assertTrue(floorQueue.isUserWillingToGoUpWaitingAtCurrentFloor(4));
+		Assert.assertEquals(2, floorQueue.pickUsersWantToGoUpWaitingAtCurrentFloor(4).size());
+		Assert.assertFalse(floorQueue.isUserWillingToGoUpWaitingAtCurrentFloor(4));
+		Assert.assertTrue(floorQueue.isRequestToGoDownPendingFromCurrentFloor(4));
+		Assert.assertTrue(floorQueue.pickUsersWantToGoDownWaitingAtCurrentFloor(5).isEmpty());
+		Assert.assertTrue(floorQueue.isUserWillingToGoUpWaitingAtCurrentFloor(5));
+	}
+
+	/**
+	 * Tests that the users of the same trip are coalesced into one request counting them, submitted when the first of them arrived,
+	 * and picked up together
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testIdenticalRequestsAreCoalescedWithTheirPassengers() throws InterruptedException {
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			final UserRequest request = createUserRequest(0, 7, ElevatorDirection.UP);
+			request.markSubmitted(now - 1000 + (i == 2 ? -500 : i * 100));
+			floorQueue.addUserRequest(request);
+		}
+		final UserRequest group = createUserRequest(0, 7, ElevatorDirection.UP);
+		group.setNumberOfPassengers(3);
+		floorQueue.addUserRequest(group);
+		floorQueue.addUserRequest(createUserRequest(0, 9, ElevatorDirection.UP));
+
+		Assert.assertEquals(2, floorQueue.getNumberOfRequests());
+		Assert.assertEquals(9, floorQueue.getNumberOfPassengers());
+		final UserRequest picked = floorQueue.pickRequest(0, ElevatorDirection.UP);
+		Assert.assertEquals(createUserRequest(0, 7, ElevatorDirection.UP), picked);
+		Assert.assertEquals(8, picked.getNumberOfPassengers());
+		Assert.assertEquals(now - 1500, picked.getSubmittedAt());
+		Assert.assertEquals(1, floorQueue.getNumberOfPassengers());
+		Assert.assertEquals(1, floorQueue.pickUsersWantToGoUpWaitingAtCurrentFloor(0).get(0).getNumberOfPassengers());
+		Assert.assertTrue(floorQueue.isEmpty());
+		Assert.assertEquals(0, floorQueue.getNumberOfPassengers());
+	}
+
+	/**
+	 * Tests that an Elevator only takes the users who fit, the nearest destinations first, and the others keep waiting
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testOnlyTheUsersWhoFitArePicked() throws InterruptedException {
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		final UserRequest lobby = createUserRequest(0, 9, ElevatorDirection.UP);
+		lobby.setNumberOfPassengers(4);
+		lobby.markSubmitted(1000);
+		floorQueue.addUserRequest(lobby);
+		floorQueue.addUserRequest(createUserRequest(0, 3, ElevatorDirection.UP));
+
+		final List<UserRequest> picked = floorQueue.pickUsersWantToGoUpWaitingAtCurrentFloor(0, 3);
+		Assert.assertEquals(Arrays.asList(createUserRequest(0, 3, ElevatorDirection.UP), lobby), picked);
+		Assert.assertEquals(2, picked.get(1).getNumberOfPassengers());
+		Assert.assertEquals(2, floorQueue.getNumberOfPassengers());
+		Assert.assertTrue(floorQueue.pickUsersWantToGoUpWaitingAtCurrentFloor(0, 0).isEmpty());
+
+		final UserRequest rest = floorQueue.pickRequest(0, ElevatorDirection.UP, 1);
+		Assert.assertEquals(1, rest.getNumberOfPassengers());
+		Assert.assertEquals(1000, rest.getSubmittedAt());
+		Assert.assertEquals(1, floorQueue.pollRequest(0, ElevatorDirection.UP, 5).getNumberOfPassengers());
+		Assert.assertTrue(floorQueue.isEmpty());
+	}
+
+	/**
+	 * Tests that the requests come out of the queue with the time they have been submitted, the queue keeping them packed
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSubmissionTimeIsKeptInTheQueue() throws InterruptedException {
+		final UserRequestQueue floorQueue = new UserRequestQueue(-2, 10);
+		final long now = System.currentTimeMillis();
+		final UserRequest late = createUserRequest(-2, 3, ElevatorDirection.UP);
+		late.markSubmitted(now);
+		final UserRequest early = createUserRequest(6, -1, ElevatorDirection.DOWN);
+		early.markSubmitted(now - 1000);
+		final UserRequest unstamped = createUserRequest(6, 0, ElevatorDirection.DOWN);
+		floorQueue.addUserRequest(late);
+		floorQueue.addUserRequest(early);
+		floorQueue.addUserRequest(unstamped);
+
+		final UserRequest picked = floorQueue.pickRequest(-2, ElevatorDirection.DOWN);
+		Assert.assertEquals(late, picked);
+		Assert.assertEquals(now, picked.getSubmittedAt());
+		for (UserRequest request : floorQueue.pickUsersWantToGoDownWaitingAtCurrentFloor(6)) {
+			Assert.assertEquals(request.equals(early) ? now - 1000 : UserRequest.NOT_STAMPED, request.getSubmittedAt());
+		}
+		Assert.assertTrue(floorQueue.isEmpty());
+	}
+
+	/**
+	 * Tests that every request added concurrently by several producers is picked exactly once by the competing Elevators
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 20000)
+	public void testConcurrentProducersAndElevatorsPickEveryRequestOnce() throws InterruptedException {
+		final int highestFloor = 200;
+		final int producers = 4;
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, highestFloor);
+		final List<UserRequest> requests = new ArrayList<>();
+		for (int from = 0; from < highestFloor; from++) {
+			for (int to = from + 1; to <= highestFloor; to += 7) {
+				requests.add(createUserRequest(from, to, ElevatorDirection.UP));
+				requests.add(createUserRequest(to, from, ElevatorDirection.DOWN));
+			}
+		}
+		final Set<UserRequest> picked = ConcurrentHashMap.newKeySet();
+		final AtomicInteger remaining = new AtomicInteger(requests.size());
+		final AtomicInteger duplicates = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(1);
+
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final int offset = p;
+			threads.add(new Thread(() -> {
+				for (int i = offset; i < requests.size(); i += producers) {
+					floorQueue.addUserRequest(requests.get(i));
+				}
+			}));
+		}
+		for (int e = 0; e < 4; e++) {
+			final int startFloor = e * 50;
+			threads.add(startTestThread(new TestRunnable() {
+				@Override
+				protected void runTestThread() throws Throwable {
+					int floor = startFloor;
+					while (true) {
+						for (UserRequest request : floorQueue.pickUsersWantToGoUpWaitingAtCurrentFloor(floor)) {
+							collect(request);
+						}
+						final UserRequest request = floorQueue.pickRequest(floor, ElevatorDirection.UP);
+						collect(request);
+						floor = request.getFloorToGo();
+					}
+				}
+
+				private void collect(final UserRequest request) {
+					if (!picked.add(request)) {
+						duplicates.incrementAndGet();
+					}
+					if (remaining.decrementAndGet() == 0) {
+						done.countDown();
+					}
+				}
+			}));
+		}
+		for (Thread t : threads) {
+			t.start();
+		}
+		done.await();
+
+		Assert.assertEquals(0, duplicates.get());
+		Assert.assertEquals(requests.size(), picked.size());
+		Assert.assertFalse(floorQueue.isUserWillingToGoUpWaitingAtCurrentFloor(0));
+	}
+	
+	/**
+	 * Tests that a batch wakes up as many waiting Elevators as it has requests, and no more
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 10000)
+	public void testBatchWakesUpOneWaitingElevatorPerRequest() throws InterruptedException {
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		final CountDownLatch picked = new CountDownLatch(2);
+		final AtomicInteger pickedCount = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			startTestThread(new TestRunnable() {
+				@Override
+				protected void runTestThread() throws Throwable {
+					floorQueue.pickRequest(0, ElevatorDirection.UP);
+					pickedCount.incrementAndGet();
+					picked.countDown();
+				}
+			}).start();
+		}
+		// Let the three Elevators block on the empty queue
+		Thread.sleep(200);
+
+		floorQueue.addUserRequests(Arrays.asList(createUserRequest(1, 5, ElevatorDirection.UP),
+				createUserRequest(6, 2, ElevatorDirection.DOWN), createUserRequest(1, 5, ElevatorDirection.UP)));
+
+		Assert.assertTrue(picked.await(5, TimeUnit.SECONDS));
+		Thread.sleep(200);
+		Assert.assertEquals(2, pickedCount.get());
+	}
+	
+	/**
+	 * Tests that an Elevator woken up on the virtual clock picks its request before the time moves on
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 10000)
+	public void testWokenUpElevatorPicksRequestBeforeVirtualTimeMoves() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		floorQueue.setClock(clock);
+		final long[] pickedAt = { -1 };
+		clock.join(clock.register());
+		final int elevatorId = clock.register();
+		final Thread elevator = startTestThread(new TestRunnable() {
+			@Override
+			protected void runTestThread() throws Throwable {
+				clock.join(elevatorId);
+				try {
+					floorQueue.pickRequest(0, ElevatorDirection.UP);
+					pickedAt[0] = clock.currentTimeMillis();
+				} finally {
+					clock.leave();
+				}
+			}
+		});
+		elevator.start();
+		// The Elevator runs until it blocks on the empty queue and gives the turn back
+		clock.sleep(1000);
+
+		floorQueue.addUserRequest(createUserRequest(1, 5, ElevatorDirection.UP));
+		clock.sleep(1000);
+		elevator.join();
+
+		Assert.assertEquals(1000, pickedAt[0]);
+		Assert.assertEquals(2000, clock.currentTimeMillis());
+		clock.leave();
+	}
+	
+	/**
+	 * Tests that an Elevator interrupted while waiting for requests does not hold the virtual time back
+	 * @throws InterruptedException
+	 */
+	@Test(timeout = 10000)
+	public void testInterruptedElevatorDoesNotHoldVirtualTime() throws InterruptedException {
+		final VirtualClock clock = new VirtualClock();
+		final UserRequestQueue floorQueue = new UserRequestQueue(0, 10);
+		floorQueue.setClock(clock);
+		final AtomicInteger interrupted = new AtomicInteger();
+		clock.join(clock.register());
+		final int elevatorId = clock.register();
+		final Thread elevator = startTestThread(new TestRunnable() {
+			@Override
+			protected void runTestThread() throws Throwable {
+				clock.join(elevatorId);
+				try {
+					floorQueue.pickRequest(0, ElevatorDirection.UP);
+				} catch (InterruptedException e) {
+					interrupted.incrementAndGet();
+				} finally {
+					clock.leave();
+				}
+			}
+		});
+		elevator.start();
+		clock.sleep(1000);
+		elevator.interrupt();
+		elevator.join();
+
+		// Nobody is left waiting, so the request wakes nobody up and the time moves on
+		floorQueue.addUserRequest(createUserRequest(1, 5, ElevatorDirection.UP));
+		clock.sleep(1000);
+
+		Assert.assertEquals(1, interrupted.get());
+		Assert.assertEquals(2000, clock.currentTimeMillis());
+		clock.leave();
+	}
+	
     /**
      * Returns a new started daemon Thread running the given runnable.
      */
@@ -0,0 +1,132 @@
+package uk.co.citybank.elevator.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.metrics.FleetGauges;
+
+/**
+ * JUNIT Class to test @HallCallServer.
+ * The test thread holds the turn of a virtual clock, so the Elevators do not move until it sleeps on the clock
+ * and the requests received pile up in their queues.
+ * @author anuragtripathi
+ *
+ */
+public class HallCallServerTest {
+
+	/**
+	 * Tests that the requests of many connections are all raised to the bank and the invalid lines are counted
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testRequestsOfManyConnectionsAreRaised() throws Exception {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager bank = new ElevatorManager("Panels", -2, 20);
+		bank.startElevators(3, clock, ElevatorEngine.EVENT_LOOP);
+		final HallCallServer server = new HallCallServer(bank, new InetSocketAddress("localhost", 0), 10000);
+		server.start();
+		try {
+			final List<Socket> panels = new ArrayList<>();
+			for (int floor = -2; floor <= 20; floor++) {
+				final Socket panel = new Socket("localhost", server.getPort());
+				panels.add(panel);
+				final int floorToGo = floor == 20 ? -2 : floor + 1;
+				// Split in two writes to cross the reads of the server
+				write(panel, floor + " " + floorToGo + " " + (floorToGo > floor ? "UP" : "DOWN") + "\r\n" + floor + " 2");
+			}
+			for (Socket panel : panels) {
+				write(panel, " DOWN\nnot a request\n7 7\n");
+			}
+			awaitSubmitted(server, 46);
+			for (Socket panel : panels) {
+				panel.close();
+			}
+
+			Assert.assertEquals(46, server.getSubmittedRequests());
+			// The lines which are not a request, then the floors -2 to 2 which cannot go down to the floor 2
+			Assert.assertEquals(23 + 23 + 5, server.getRejectedRequests());
+			Assert.assertEquals(23 + 18, new FleetGauges(bank.getDispatcher().getElevators()).getQueueDepth());
+		} finally {
+			server.close();
+			bank.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(bank.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Tests that the connections stop being read while the queues are saturated and every request is served once the Elevators catch up
+	 * @throws Exception
+	 */
+	@Test(timeout = 30000)
+	public void testSaturatedQueuesPushBack() throws Exception {
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager bank = new ElevatorManager("Turnstiles", 0, 10);
+		bank.startElevators(2, clock, ElevatorEngine.EVENT_LOOP);
+		final HallCallServer server = new HallCallServer(bank, new InetSocketAddress("localhost", 0), 8);
+		server.start();
+		try (Socket turnstile = new Socket("localhost", server.getPort())) {
+			final StringBuilder requests = new StringBuilder();
+			int sent = 0;
+			for (int floor = 0; floor <= 10; floor++) {
+				for (int floorToGo = 0; floorToGo <= 10; floorToGo++) {
+					if (floor != floorToGo) {
+						requests.append(floor).append(' ').append(floorToGo).append(floorToGo > floor ? " UP\n" : " DOWN\n");
+						sent++;
+					}
+				}
+			}
+			write(turnstile, requests.toString());
+			final FleetGauges gauges = new FleetGauges(bank.getDispatcher().getElevators());
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (server.getSaturatedTurns() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertTrue(server.getSaturatedTurns() > 0);
+			Assert.assertTrue(server.getSubmittedRequests() < sent);
+			Assert.assertTrue(gauges.getQueueDepth() < 8 + HallCallServer.MAX_REQUESTS_PER_READ);
+
+			// The Elevators run, the queues drain and the server reads the rest of the requests
+			while (server.getSubmittedRequests() < sent && System.currentTimeMillis() < deadline) {
+				clock.sleep(60 * 1000L);
+				Thread.sleep(1);
+			}
+			clock.sleep(60 * 60 * 1000L);
+			Assert.assertEquals(sent, server.getSubmittedRequests());
+			Assert.assertEquals(0, server.getRejectedRequests());
+			Assert.assertEquals(sent, bank.getMetrics().getFleet().getRideCount());
+		} finally {
+			server.close();
+			bank.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(bank.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	private static void write(final Socket socket, final String text) throws IOException {
+		final OutputStream output = socket.getOutputStream();
+		output.write(text.getBytes(StandardCharsets.US_ASCII));
+		output.flush();
+	}
+
+	private static void awaitSubmitted(final HallCallServer server, long requests) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (server.getSubmittedRequests() + server.getRejectedRequests() < requests + 51 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
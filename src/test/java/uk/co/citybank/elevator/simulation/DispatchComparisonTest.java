@@ -0,0 +1,48 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.manager.DispatchPolicy;
+import uk.co.citybank.elevator.manager.DispatchStrategy;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * JUNIT Class to test @DispatchComparison
+ * @author anuragtripathi
+ *
+ */
+public class DispatchComparisonTest {
+
+	/**
+	 * Tests that the same interfloor traffic is replayed under every built-in policy, every user being served under each of them
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testEveryPolicyServesTheSameTrace() throws Exception {
+		final BuildingConfiguration building = BuildingConfiguration.defaultTimings(0, 15);
+		final DispatchComparison comparison = new DispatchComparison(building, 3);
+		final Map<DispatchStrategy, LoadReport> reports = comparison.compare(
+				() -> new SyntheticTrace(TrafficPattern.INTERFLOOR, building, 10, 15 * 60 * 1000L, 42), Arrays.asList(DispatchPolicy.values()));
+
+		Assert.assertEquals(Arrays.asList(DispatchPolicy.values()), Arrays.asList(reports.keySet().toArray()));
+		final long submitted = reports.get(DispatchPolicy.ETA).getSubmitted();
+		Assert.assertTrue(submitted > 100);
+		for (LoadReport report : reports.values()) {
+			Assert.assertEquals(submitted, report.getSubmitted());
+			Assert.assertEquals(submitted, report.getServed());
+			Assert.assertTrue(report.getFloorsTravelled() > 0);
+			Assert.assertTrue(report.getEmptyFloorsTravelled() < report.getFloorsTravelled());
+			Assert.assertTrue(report.getStarts() > 0 && report.getStops() > 0);
+		}
+		// Trading some wait for the energy, the same users are served travelling fewer floors than in the same order without it
+		Assert.assertTrue(reports.get(DispatchPolicy.ENERGY).getFloorsTravelled() < reports.get(DispatchPolicy.LOOK).getFloorsTravelled());
+		final String table = DispatchComparison.toTable(reports);
+		for (DispatchPolicy policy : DispatchPolicy.values()) {
+			Assert.assertTrue(table, table.contains(policy.name()));
+		}
+	}
+}
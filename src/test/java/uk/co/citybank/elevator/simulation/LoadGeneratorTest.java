@@ -0,0 +1,57 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.co.citybank.elevator.clock.VirtualClock;
+import uk.co.citybank.elevator.engine.ElevatorEngine;
+import uk.co.citybank.elevator.impl.Elevator;
+import uk.co.citybank.elevator.manager.ElevatorManager;
+import uk.co.citybank.elevator.utility.BuildingConfiguration;
+
+/**
+ * JUNIT Class to test @LoadGenerator
+ * @author anuragtripathi
+ *
+ */
+public class LoadGeneratorTest {
+
+	/**
+	 * Tests that an up peak of half an hour is replayed in simulated time and every request is served and reported
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testUpPeakIsReplayedAndReported() throws Exception {
+		final BuildingConfiguration building = BuildingConfiguration.defaultTimings(0, 20);
+		final VirtualClock clock = new VirtualClock();
+		clock.join(clock.register());
+		final ElevatorManager bank = new ElevatorManager("LoadTest", building);
+		bank.startElevators(4, clock, ElevatorEngine.EVENT_LOOP);
+		try {
+			final LoadGenerator generator = new LoadGenerator(bank, clock);
+			final LoadReport report = generator.run(new SyntheticTrace(TrafficPattern.UP_PEAK, building, 10, 30 * 60 * 1000L, 42), 1);
+
+			Assert.assertTrue(report.getSubmitted() > 200);
+			Assert.assertEquals(0, report.getRejected());
+			// Users calling from the same floor for the same floor share a request of the queue, each of them is still served
+			Assert.assertEquals(report.getSubmitted(), report.getServed());
+			Assert.assertEquals(report.getServed(), report.getLatency().getRideCount());
+			Assert.assertTrue(report.getSimulatedMillis() >= 29 * 60 * 1000L);
+			Assert.assertTrue(report.getMaxQueueDepth() > 0);
+			for (double utilisation : report.getUtilisation()) {
+				Assert.assertTrue(utilisation > 0 && utilisation <= 1);
+			}
+			Assert.assertTrue(report.toString(), report.toString().contains("Queue depth over time"));
+			for (Elevator elevator : bank.getDispatcher().getElevators()) {
+				Assert.assertTrue(elevator.getQueue().isEmpty());
+				Assert.assertFalse(elevator.getStatus().areUsersStillInElevator());
+			}
+		} finally {
+			bank.shutDownElevators();
+			clock.leave();
+			Assert.assertTrue(bank.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package uk.co.citybank.elevator.simulation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.citybank.elevator.model.ElevatorDirection;
+
+/**
+ * JUNIT Class to test @TraceFile
+ * @author anuragtripathi
+ *
+ */
+public class TraceFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Tests that every request is read whatever the separators, the comments and the windows the file is mapped in
+	 * @throws IOException
+	 */
+	@Test
+	public void testRequestsAreReadAcrossWindows() throws IOException {
+		final Path file = folder.newFile("trace.csv").toPath();
+		final StringBuilder text = new StringBuilder("# time,floor,floor to go\n\n");
+		for (int i = 0; i < 1000; i++) {
+			text.append(i * 250L).append(i % 3 == 0 ? "," : i % 3 == 1 ? " " : "\t").append(i % 11 - 2)
+					.append(", ").append((i + 5) % 11 - 2).append(i % 2 == 0 ? "\r\n" : "\n");
+		}
+		Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+		final TraceEntry entry = new TraceEntry();
+		try (TraceFile trace = new TraceFile(file, 7)) {
+			for (int i = 0; i < 1000; i++) {
+				Assert.assertTrue(trace.next(entry));
+				Assert.assertEquals(i * 250L, entry.getTimeMillis());
+				Assert.assertEquals(i % 11 - 2, entry.getCurrentFloor());
+				Assert.assertEquals((i + 5) % 11 - 2, entry.getFloorToGo());
+			}
+			Assert.assertFalse(trace.next(entry));
+		}
+		entry.set(0, -2, 3);
+		Assert.assertEquals(ElevatorDirection.UP, entry.getDirection());
+	}
+
+	/**
+	 * Tests that a line which is not a request is reported with its number
+	 * @throws IOException
+	 */
+	@Test
+	public void testBadLineIsReported() throws IOException {
+		final Path file = folder.newFile("trace.csv").toPath();
+		Files.write(file, "0,0,5\n# comment\n100,UP,5\n".getBytes(StandardCharsets.US_ASCII));
+		final TraceEntry entry = new TraceEntry();
+		try (TraceFile trace = new TraceFile(file)) {
+			Assert.assertTrue(trace.next(entry));
+			trace.next(entry);
+			Assert.fail("Line 3 accepted");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("line 3"));
+		}
+	}
+}
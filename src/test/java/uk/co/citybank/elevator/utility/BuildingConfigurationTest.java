@@ -0,0 +1,88 @@
+package uk.co.citybank.elevator.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JUNIT Class to test @BuildingConfiguration
+ * @author anuragtripathi
+ *
+ */
+public class BuildingConfigurationTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void buildingIsLoadedFromPropertiesFile() throws IOException {
+		final Path file = folder.newFile("building.properties").toPath();
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("floors.lowest=-3\nfloors.highest=160\ntravel.floorMillis=1500\ntravel.floorMillis.0=4000\n"
+					+ "travel.accelerationMillis=2000\ndoor.dwellMillis=2500\ncar.persons=8\ncar.ratedLoadKg=450\npassenger.kg=75\n"
+					+ "wait.maxMillis=600000\n");
+		}
+		final BuildingConfiguration building = BuildingConfiguration.load(file);
+
+		Assert.assertEquals(-3, building.getLowestFloor());
+		Assert.assertEquals(160, building.getHighestFloor());
+		Assert.assertEquals(164, building.getNumberOfFloors());
+		Assert.assertEquals(1500, building.getTravelMillis(-3, -2));
+		Assert.assertEquals(4000, building.getTravelMillis(1, 0));
+		Assert.assertEquals(3 * 1500 + 4000 + 159 * 1500, building.getTravelMillis(-3, 160));
+		Assert.assertEquals(2000, building.getAccelerationMillis());
+		Assert.assertEquals(2500, building.getDoorDwellMillis());
+		// The rated load only takes six users of 75 kg
+		Assert.assertEquals(8, building.getCarCapacity().getPersons());
+		Assert.assertEquals(6, building.getCarCapacity().getMaxPassengers());
+		Assert.assertEquals(6, building.withFloors(0, 10).getCarCapacity().getMaxPassengers());
+		// A bank of fewer floors sweeps them faster, its users are served first later
+		Assert.assertEquals(600000, building.withFloors(0, 10).getMaxWaitMillis());
+		Assert.assertTrue(building.getAgingMillis() < building.withFloors(0, 10).getAgingMillis());
+	}
+
+	@Test
+	public void missingKeysAreTakenFromDefault() {
+		final BuildingConfiguration building = BuildingConfiguration.fromProperties(new Properties());
+
+		Assert.assertEquals(Constants.LOWEST_FLOOR, building.getLowestFloor());
+		Assert.assertEquals(Constants.HIGHEST_FLOORS, building.getHighestFloor());
+		Assert.assertEquals(Constants.TIME_MOVE_ONE_FLOOR * 1000L, building.getTravelMillis(3, 4));
+		Assert.assertEquals(Constants.TIME_USER_PICKDROP * 1000L, building.getDoorDwellMillis());
+		Assert.assertEquals(Constants.CAR_CAPACITY_PERSONS, building.getCarCapacity().getMaxPassengers());
+		Assert.assertEquals(BuildingConfiguration.NO_MAX_WAIT, building.getMaxWaitMillis());
+		Assert.assertEquals(Long.MAX_VALUE, building.getAgingMillis());
+	}
+
+	@Test
+	public void floorsOfABankKeepTheirTravelTimes() {
+		final Properties properties = new Properties();
+		properties.setProperty("floors.highest", "60");
+		properties.setProperty("travel.floorMillis.30", "5000");
+		final BuildingConfiguration highRise = BuildingConfiguration.fromProperties(properties).withFloors(30, 60);
+
+		Assert.assertEquals(30, highRise.getLowestFloor());
+		Assert.assertEquals(5000, highRise.getTravelMillis(30, 31));
+		Assert.assertEquals(5000 + 29 * Constants.TIME_MOVE_ONE_FLOOR * 1000L, highRise.getTravelMillis(60, 30));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void floorsOutsideTheBuildingAreRejected() {
+		BuildingConfiguration.DEFAULT.withFloors(-1, 5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void valuesWhichAreNotNumbersAreRejected() {
+		final Properties properties = new Properties();
+		properties.setProperty("door.dwellMillis", "two seconds");
+		BuildingConfiguration.fromProperties(properties);
+	}
+}
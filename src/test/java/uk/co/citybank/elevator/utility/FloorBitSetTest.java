@@ -0,0 +1,62 @@
+package uk.co.citybank.elevator.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUNIT Class to test @FloorBitSet
+ * @author anuragtripathi
+ *
+ */
+public class FloorBitSetTest {
+
+	@Test
+	public void nearestFloorsAreFoundAcrossWords() {
+		final FloorBitSet floors = new FloorBitSet(-3, 200);
+		floors.add(-3);
+		floors.add(63);
+		floors.add(150);
+
+		Assert.assertEquals(63, floors.nextFloor(-2));
+		Assert.assertEquals(150, floors.nextFloor(64));
+		Assert.assertEquals(FloorBitSet.NO_FLOOR, floors.nextFloor(151));
+		Assert.assertEquals(63, floors.previousFloor(149));
+		Assert.assertEquals(-3, floors.previousFloor(62));
+		Assert.assertEquals(150, floors.previousFloor(500));
+		Assert.assertEquals(-3, floors.nextFloor(-100));
+	}
+
+	@Test
+	public void floorsAboveAndBelowAreExclusive() {
+		final FloorBitSet floors = new FloorBitSet(0, 10);
+		floors.add(5);
+
+		Assert.assertFalse(floors.hasFloorAbove(5));
+		Assert.assertFalse(floors.hasFloorBelow(5));
+		Assert.assertTrue(floors.hasFloorAbove(4));
+		Assert.assertTrue(floors.hasFloorBelow(6));
+		Assert.assertFalse(floors.hasFloorAbove(10));
+		Assert.assertFalse(floors.hasFloorBelow(0));
+	}
+
+	@Test
+	public void sizeFollowsAddAndRemove() {
+		final FloorBitSet floors = new FloorBitSet(0, 10);
+		Assert.assertTrue(floors.add(2));
+		Assert.assertFalse(floors.add(2));
+		Assert.assertTrue(floors.add(7));
+		Assert.assertEquals(2, floors.size());
+		Assert.assertEquals("[2, 7]", floors.toString());
+		Assert.assertTrue(floors.remove(2));
+		Assert.assertFalse(floors.remove(2));
+		Assert.assertFalse(floors.remove(11));
+		Assert.assertEquals(1, floors.size());
+		Assert.assertTrue(floors.remove(7));
+		Assert.assertTrue(floors.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void floorOutsideTheBuildingIsRejected() {
+		new FloorBitSet(0, 10).add(11);
+	}
+}
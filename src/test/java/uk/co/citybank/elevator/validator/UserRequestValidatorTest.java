@@ -1,5 +1,8 @@
 package uk.co.citybank.elevator.validator;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import org.junit.Test;
 
 import org.junit.Assert;
@@ -72,6 +75,20 @@ public class UserRequestValidatorTest {
 	}
   }
   
+  @Test
+  public void batchValidationReturnsEveryInvalidRequest() {
+	  final UserRequest valid = createUserRequest(1, 5, ElevatorDirection.UP);
+	  final UserRequest wrongDirection = createUserRequest(5, 1, ElevatorDirection.UP);
+	  final UserRequest aboveHighestFloor = createUserRequest(2, 11, ElevatorDirection.UP);
+
+	  final Map<UserRequest, ValidationException> rejected = validator.validateUserRequests(Arrays.asList(valid, wrongDirection, aboveHighestFloor));
+
+	  Assert.assertEquals(2, rejected.size());
+	  Assert.assertFalse(rejected.containsKey(valid));
+	  Assert.assertEquals(Constants.INVALID_REQUEST, rejected.get(wrongDirection).getMessage());
+	  Assert.assertEquals(Constants.INVALID_REQUEST, rejected.get(aboveHighestFloor).getMessage());
+  }
+  
   private UserRequest createUserRequest(int currentFloor,int floorToGo,ElevatorDirection directionToGo) {
 	 return new UserRequest(currentFloor, floorToGo, directionToGo);
   }